@@ -0,0 +1,155 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.adapter;
+
+import androidx.annotation.NonNull;
+
+import com.biglybt.util.Thunk;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Locale aware, case insensitive {@link CollationKey}s for sorting strings.
+ * <p/>
+ * Building a key is the slow part of collation; comparing two keys is a
+ * byte compare.  Keys are cached by string, so a name is only collated again
+ * after it changes (or falls out of the cache), not on every sort.  The
+ * cache grows to fit the largest list sorted, so a full sort never evicts
+ * keys it's about to use.
+ * <p/>
+ * {@link #get(String[])} takes the cache lock twice per sort pass, not once
+ * per string.  {@link #compare(String, String)} doesn't use the cache or
+ * lock at all.
+ * <p/>
+ * The cache is cleared when the default locale changes.
+ */
+final class CollationKeys
+{
+	private static final int MIN_CACHED = 32 * 1024;
+
+	/** Don't grow the cache past this, no matter how big the list */
+	private static final int MAX_CACHED = 256 * 1024;
+
+	@Thunk
+	static int maxCached = MIN_CACHED;
+
+	private static final Map<String, CollationKey> cache = new LinkedHashMap<String, CollationKey>(
+			256, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Entry<String, CollationKey> eldest) {
+			return size() > maxCached;
+		}
+	};
+
+	private static Locale cacheLocale;
+
+	/**
+	 * Collators aren't thread safe, so each thread (filter thread,
+	 * {@link ParallelWork} workers, UI) gets its own
+	 */
+	private static final ThreadLocal<Collator> collators = new ThreadLocal<>();
+
+	private static final ThreadLocal<Locale> collatorLocales = new ThreadLocal<>();
+
+	private CollationKeys() {
+	}
+
+	@NonNull
+	private static Collator getCollator() {
+		Locale locale = Locale.getDefault();
+		Collator collator = collators.get();
+		if (collator == null || !locale.equals(collatorLocales.get())) {
+			collator = Collator.getInstance(locale);
+			// Ignore case (tertiary), but not accents
+			collator.setStrength(Collator.SECONDARY);
+			collators.set(collator);
+			collatorLocales.set(locale);
+		}
+		return collator;
+	}
+
+	/**
+	 * Keys for a whole sort pass.  Also makes room in the cache for
+	 * <code>strings.length</code> keys.
+	 *
+	 * @param strings null entries get a null key
+	 */
+	@NonNull
+	static CollationKey[] get(@NonNull String[] strings) {
+		int size = strings.length;
+		CollationKey[] keys = new CollationKey[size];
+		Locale locale = Locale.getDefault();
+		boolean[] missing = null;
+		synchronized (cache) {
+			if (!locale.equals(cacheLocale)) {
+				cache.clear();
+				cacheLocale = locale;
+			}
+			int wantCached = Math.min(MAX_CACHED, size + size / 4);
+			if (wantCached > maxCached) {
+				maxCached = wantCached;
+			}
+			for (int i = 0; i < size; i++) {
+				String s = strings[i];
+				if (s == null) {
+					continue;
+				}
+				CollationKey key = cache.get(s);
+				if (key == null) {
+					if (missing == null) {
+						missing = new boolean[size];
+					}
+					missing[i] = true;
+				} else {
+					keys[i] = key;
+				}
+			}
+		}
+		if (missing == null) {
+			return keys;
+		}
+
+		Collator collator = getCollator();
+		for (int i = 0; i < size; i++) {
+			if (missing[i]) {
+				keys[i] = collator.getCollationKey(strings[i]);
+			}
+		}
+
+		synchronized (cache) {
+			if (locale.equals(cacheLocale)) {
+				for (int i = 0; i < size; i++) {
+					if (missing[i]) {
+						cache.put(strings[i], keys[i]);
+					}
+				}
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Same order as comparing the strings' keys
+	 */
+	static int compare(@NonNull String lhs, @NonNull String rhs) {
+		return getCollator().compare(lhs, rhs);
+	}
+}
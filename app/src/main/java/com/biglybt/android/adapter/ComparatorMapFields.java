@@ -17,17 +17,23 @@
 package com.biglybt.android.adapter;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Map;
+import java.util.*;
 
 import com.biglybt.android.client.AndroidUtils;
 
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+
 public abstract class ComparatorMapFields<T>
 	implements Comparator<T>
 {
+	/**
+	 * Lists smaller than this are sorted with {@link #compare(Object, Object)}
+	 * directly.  Larger ones use a {@link CompiledSort}.
+	 */
+	private static final int MIN_SIZE_FOR_COMPILED_SORT = 64;
+
 	private SortDefinition sortDefinition;
 
 	private Comparator<? super Map<?, ?>> comparator;
@@ -130,39 +136,7 @@ public abstract class ComparatorMapFields<T>
 					} // else == drops to next sort field
 
 				} else {
-					int comp;
-
-					if ((oLHS instanceof String) && (oRHS instanceof String)) {
-						comp = ((String) oLHS).compareToIgnoreCase((String) oRHS);
-					} else if (oRHS instanceof Number && oLHS instanceof Number) {
-						if (oRHS instanceof BigDecimal && oLHS instanceof BigDecimal) {
-							comp = oLHS.compareTo(oRHS);
-						} else if (oRHS instanceof Double || oLHS instanceof Double
-								|| oRHS instanceof Float || oLHS instanceof Float
-								|| oRHS instanceof BigDecimal || oLHS instanceof BigDecimal) {
-							double dRHS = ((Number) oRHS).doubleValue();
-							double dLHS = ((Number) oLHS).doubleValue();
-							comp = Double.compare(dLHS, dRHS);
-						} else {
-							// convert to long so we can compare Integer and Long objects
-							long lRHS = ((Number) oRHS).longValue();
-							long lLHS = ((Number) oLHS).longValue();
-							// Not available until API 19
-							// comp = sortOrderAsc[i] ? Long.compare(lLHS, lRHS) :Long.compare(lRHS, lLHS);
-							comp = lLHS > lRHS ? 1 : lLHS == lRHS ? 0 : -1;
-						}
-					} else {
-						if (AndroidUtils.DEBUG) {
-							if (!((oLHS instanceof Boolean) && (oRHS instanceof Boolean))) {
-								Log.d("CMP", "compare using generic " + oLHS.getClass());
-							}
-						}
-						try {
-							comp = oLHS.compareTo(oRHS);
-						} catch (Throwable t) {
-							comp = reportError(oLHS, oRHS, t);
-						}
-					}
+					int comp = compareValues(oLHS, oRHS);
 					if (comp != 0) {
 						if (isAsc != sortDefinition.sortOrderNatural[i]) {
 							return -comp;
@@ -176,6 +150,64 @@ public abstract class ComparatorMapFields<T>
 		}
 	}
 
+	/**
+	 * Compares two non-null field values
+	 */
+	@SuppressWarnings({
+		"unchecked",
+		"rawtypes"
+	})
+	int compareValues(@NonNull Comparable oLHS, @NonNull Comparable oRHS) {
+		int comp;
+
+		if ((oLHS instanceof String) && (oRHS instanceof String)) {
+			// Same order as CompiledSort, so small and large lists agree
+			comp = CollationKeys.compare((String) oLHS, (String) oRHS);
+		} else if (oRHS instanceof Number && oLHS instanceof Number) {
+			if (oRHS instanceof BigDecimal && oLHS instanceof BigDecimal) {
+				comp = oLHS.compareTo(oRHS);
+			} else if (oRHS instanceof Double || oLHS instanceof Double
+					|| oRHS instanceof Float || oLHS instanceof Float
+					|| oRHS instanceof BigDecimal || oLHS instanceof BigDecimal) {
+				double dRHS = ((Number) oRHS).doubleValue();
+				double dLHS = ((Number) oLHS).doubleValue();
+				comp = Double.compare(dLHS, dRHS);
+			} else {
+				// convert to long so we can compare Integer and Long objects
+				long lRHS = ((Number) oRHS).longValue();
+				long lLHS = ((Number) oLHS).longValue();
+				// Not available until API 19
+				// comp = sortOrderAsc[i] ? Long.compare(lLHS, lRHS) :Long.compare(lRHS, lLHS);
+				comp = lLHS > lRHS ? 1 : lLHS == lRHS ? 0 : -1;
+			}
+		} else {
+			if (AndroidUtils.DEBUG) {
+				if (!((oLHS instanceof Boolean) && (oRHS instanceof Boolean))) {
+					Log.d("CMP", "compare using generic " + oLHS.getClass());
+				}
+			}
+			try {
+				comp = oLHS.compareTo(oRHS);
+			} catch (Throwable t) {
+				comp = reportError(oLHS, oRHS, t);
+			}
+		}
+		return comp;
+	}
+
+	/**
+	 * Sorts items.  For larger lists, sort keys are extracted once per item
+	 * into typed arrays (see {@link CompiledSort}), instead of doing Map lookups
+	 * and type checks on every comparison.
+	 */
+	public void sort(@NonNull List<T> items) {
+		if (sortDefinition == null || items.size() < MIN_SIZE_FOR_COMPILED_SORT) {
+			Collections.sort(items, this);
+			return;
+		}
+		new CompiledSort<>(this, items).sort(items);
+	}
+
 	public Comparable modifyField(String fieldID, Map<?, ?> map, Comparable o) {
 		return o;
 	}
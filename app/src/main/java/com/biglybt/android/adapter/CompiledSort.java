@@ -0,0 +1,352 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.adapter;
+
+import androidx.annotation.NonNull;
+
+import java.math.BigDecimal;
+import java.text.CollationKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link SortDefinition} compiled against one list of items.
+ * <p/>
+ * Each sort field is read (and passed through
+ * {@link ComparatorMapFields#modifyField}) once per item, and stored in an
+ * array typed for that field.  Comparisons are then array reads, with no
+ * Map lookups, boxing or instanceof chains.  Strings are stored as their
+ * cached {@link CollationKeys}, so comparing them is a byte compare.
+ * <p/>
+ * Comparisons give the same results as {@link ComparatorMapFields}, including
+ * an item with no map comparing equal to every other item, and the sort is
+ * stable.  Since such an item isn't ordered against anything, where it ends
+ * up can differ from {@link java.util.Collections#sort}; items with maps are
+ * ordered the same.  Very large lists are sorted in chunks on
+ * {@link ParallelWork}, then merged.
+ */
+class CompiledSort<T>
+{
+	private static final int TYPE_LONG = 0;
+
+	private static final int TYPE_DOUBLE = 1;
+
+	private static final int TYPE_STRING = 2;
+
+	private static final int TYPE_OBJECT = 3;
+
+	@NonNull
+	private final ComparatorMapFields<T> comparator;
+
+	private final int numFields;
+
+	private final int[] types;
+
+	/** -1 to reverse comparison result, 1 otherwise */
+	private final int[] directions;
+
+	private final boolean[][] nulls;
+
+	/** Items whose {@link ComparatorMapFields#mapGetter} returned null */
+	private final boolean[] noMap;
+
+	private final long[][] longKeys;
+
+	private final double[][] doubleKeys;
+
+	private final Comparable[][] objectKeys;
+
+	@SuppressWarnings("rawtypes")
+	CompiledSort(@NonNull ComparatorMapFields<T> comparator,
+			@NonNull List<T> items) {
+		this.comparator = comparator;
+		SortDefinition sortDefinition = comparator.getSortDefinition();
+		String[] fieldIDs = sortDefinition.sortFieldIDs;
+		boolean isAsc = comparator.isAsc();
+		int size = items.size();
+
+		numFields = fieldIDs.length;
+		types = new int[numFields];
+		directions = new int[numFields];
+		nulls = new boolean[numFields][];
+		longKeys = new long[numFields][];
+		doubleKeys = new double[numFields][];
+		objectKeys = new Comparable[numFields][];
+
+		Map<?, ?>[] maps = new Map[size];
+		noMap = new boolean[size];
+		for (int i = 0; i < size; i++) {
+			maps[i] = comparator.mapGetter(items.get(i));
+			noMap[i] = maps[i] == null;
+		}
+
+		Comparable[] values = new Comparable[size];
+		for (int f = 0; f < numFields; f++) {
+			String fieldID = fieldIDs[f];
+			directions[f] = isAsc != sortDefinition.sortOrderNatural[f] ? -1 : 1;
+			boolean[] fieldNulls = new boolean[size];
+			nulls[f] = fieldNulls;
+
+			boolean allLong = true;
+			boolean allNumber = true;
+			boolean anyBigDecimal = false;
+			boolean allString = true;
+			boolean allBoolean = true;
+			for (int i = 0; i < size; i++) {
+				Map<?, ?> map = maps[i];
+				Comparable o = null;
+				if (map != null) {
+					o = comparator.modifyField(fieldID, map,
+							(Comparable) map.get(fieldID));
+				}
+				values[i] = o;
+				if (o == null) {
+					fieldNulls[i] = true;
+					continue;
+				}
+				if (!(o instanceof Boolean)) {
+					allBoolean = false;
+				}
+				if (o instanceof String) {
+					allLong = allNumber = false;
+				} else if (o instanceof Number) {
+					allString = false;
+					if (o instanceof BigDecimal) {
+						anyBigDecimal = true;
+						allLong = false;
+					} else if (o instanceof Double || o instanceof Float) {
+						allLong = false;
+					}
+				} else {
+					allLong = allNumber = allString = false;
+				}
+			}
+
+			if (allString) {
+				types[f] = TYPE_STRING;
+				String[] strings = new String[size];
+				for (int i = 0; i < size; i++) {
+					strings[i] = (String) values[i];
+				}
+				objectKeys[f] = CollationKeys.get(strings);
+			} else if (allLong || allBoolean) {
+				// Booleans only when none are mixed with numbers, which
+				// ComparatorMapFields would compare generically.  false < true, same
+				// as Boolean.compareTo
+				types[f] = TYPE_LONG;
+				long[] keys = new long[size];
+				for (int i = 0; i < size; i++) {
+					Comparable o = values[i];
+					if (o instanceof Boolean) {
+						keys[i] = ((Boolean) o) ? 1 : 0;
+					} else if (o != null) {
+						keys[i] = ((Number) o).longValue();
+					}
+				}
+				longKeys[f] = keys;
+			} else if (allNumber && !anyBigDecimal) {
+				types[f] = TYPE_DOUBLE;
+				double[] keys = new double[size];
+				for (int i = 0; i < size; i++) {
+					Comparable o = values[i];
+					if (o != null) {
+						keys[i] = ((Number) o).doubleValue();
+					}
+				}
+				doubleKeys[f] = keys;
+			} else {
+				// Mixed types or BigDecimals; use the same pairwise logic as
+				// ComparatorMapFields
+				types[f] = TYPE_OBJECT;
+				objectKeys[f] = values.clone();
+			}
+		}
+	}
+
+	/**
+	 * Compare two items by their index in the list the sort was compiled with
+	 */
+	@SuppressWarnings({
+		"unchecked",
+		"rawtypes"
+	})
+	int compare(int lhs, int rhs) {
+		if (noMap[lhs] || noMap[rhs]) {
+			// Same as ComparatorMapFields
+			return 0;
+		}
+		for (int f = 0; f < numFields; f++) {
+			boolean[] fieldNulls = nulls[f];
+			boolean nullLHS = fieldNulls[lhs];
+			boolean nullRHS = fieldNulls[rhs];
+			if (nullLHS || nullRHS) {
+				if (nullLHS != nullRHS) {
+					return nullLHS ? -1 : 1;
+				}
+				continue;
+			}
+
+			int comp;
+			switch (types[f]) {
+				case TYPE_LONG: {
+					long l = longKeys[f][lhs];
+					long r = longKeys[f][rhs];
+					comp = l > r ? 1 : l == r ? 0 : -1;
+					break;
+				}
+				case TYPE_DOUBLE:
+					comp = Double.compare(doubleKeys[f][lhs], doubleKeys[f][rhs]);
+					break;
+				case TYPE_STRING:
+					comp = ((CollationKey) objectKeys[f][lhs]).compareTo(
+							(CollationKey) objectKeys[f][rhs]);
+					break;
+				default:
+					comp = comparator.compareValues(objectKeys[f][lhs],
+							objectKeys[f][rhs]);
+					break;
+			}
+			if (comp != 0) {
+				return comp * directions[f];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Sorts <code>items</code>, which must be the same list (same order) this
+	 * was compiled with
+	 */
+	void sort(@NonNull List<T> items) {
+		int size = items.size();
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		int[] temp = new int[size];
+		int numChunks = ParallelWork.getNumChunks(size);
+		if (numChunks > 1) {
+			parallelMergeSort(order, temp, numChunks);
+		} else {
+			mergeSort(order, temp, 0, size);
+		}
+
+		Object[] copy = items.toArray();
+		for (int i = 0; i < size; i++) {
+			//noinspection unchecked
+			items.set(i, (T) copy[order[i]]);
+		}
+	}
+
+	/**
+	 * Sorts chunks in parallel, then merges neighbouring runs (also in
+	 * parallel) until one run is left.  Chunks cover disjoint ranges of
+	 * <code>order</code> and <code>temp</code>, so no locking is needed.
+	 */
+	private void parallelMergeSort(int[] order, int[] temp, int numChunks) {
+		int size = order.length;
+		int[] bounds = new int[numChunks + 1];
+		for (int i = 0; i <= numChunks; i++) {
+			bounds[i] = (int) ((long) size * i / numChunks);
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<>(numChunks);
+		for (int i = 0; i < numChunks; i++) {
+			int from = bounds[i];
+			int to = bounds[i + 1];
+			tasks.add(() -> {
+				mergeSort(order, temp, from, to);
+				return null;
+			});
+		}
+		ParallelWork.invokeAll(tasks);
+
+		int numRuns = numChunks;
+		while (numRuns > 1) {
+			int numMerged = (numRuns + 1) / 2;
+			int[] newBounds = new int[numMerged + 1];
+			tasks = new ArrayList<>(numRuns / 2);
+			for (int i = 0; i < numMerged; i++) {
+				int from = bounds[i * 2];
+				newBounds[i] = from;
+				if (i * 2 + 2 > numRuns) {
+					// odd run out, carried to next level as-is
+					continue;
+				}
+				int mid = bounds[i * 2 + 1];
+				int to = bounds[i * 2 + 2];
+				tasks.add(() -> {
+					merge(order, temp, from, mid, to);
+					return null;
+				});
+			}
+			newBounds[numMerged] = size;
+			ParallelWork.invokeAll(tasks);
+			bounds = newBounds;
+			numRuns = numMerged;
+		}
+	}
+
+	/**
+	 * Stable merge sort of index range [from, to)
+	 */
+	private void mergeSort(int[] order, int[] temp, int from, int to) {
+		int len = to - from;
+		if (len < 8) {
+			// insertion sort for small runs
+			for (int i = from + 1; i < to; i++) {
+				int val = order[i];
+				int j = i - 1;
+				while (j >= from && compare(order[j], val) > 0) {
+					order[j + 1] = order[j];
+					j--;
+				}
+				order[j + 1] = val;
+			}
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		mergeSort(order, temp, from, mid);
+		mergeSort(order, temp, mid, to);
+		merge(order, temp, from, mid, to);
+	}
+
+	/**
+	 * Merge sorted ranges [from, mid) and [mid, to)
+	 */
+	private void merge(int[] order, int[] temp, int from, int mid, int to) {
+		if (compare(order[mid - 1], order[mid]) <= 0) {
+			// already in order
+			return;
+		}
+		System.arraycopy(order, from, temp, from, to - from);
+		int i = from;
+		int j = mid;
+		int k = from;
+		while (i < mid && j < to) {
+			order[k++] = compare(temp[j], temp[i]) < 0 ? temp[j++] : temp[i++];
+		}
+		while (i < mid) {
+			order[k++] = temp[i++];
+		}
+		while (j < to) {
+			order[k++] = temp[j++];
+		}
+	}
+}
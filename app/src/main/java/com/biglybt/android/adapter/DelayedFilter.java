@@ -18,8 +18,10 @@ package com.biglybt.android.adapter;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.biglybt.android.client.AndroidUtils;
 import com.biglybt.util.Thunk;
@@ -28,6 +30,7 @@ import android.annotation.SuppressLint;
 import androidx.annotation.*;
 
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.Filter;
 
@@ -66,6 +69,40 @@ public abstract class DelayedFilter
 
 	private static final String KEY_SUFFIX_CONSTRAINT = ".constraint";
 
+	/**
+	 * A pending refilter is pushed back by newer requests (trailing edge), but
+	 * never more than this past the first request, so constant updates can't
+	 * starve it
+	 */
+	private static final long MAX_COALESCE_MS = 1000;
+
+	/**
+	 * After this many passes in a row were cancelled, let the running pass
+	 * finish, so a list that updates faster than it filters still shows
+	 * something
+	 */
+	private static final int MAX_CONSECUTIVE_CANCELS = 2;
+
+	/**
+	 * One thread shared by all filters, only used to time refilter requests.
+	 * Filtering itself happens on {@link Filter}'s own thread.
+	 */
+	private static ScheduledExecutorService scheduler;
+
+	/**
+	 * Thrown by {@link #checkFilterCancelled()} to abort a filter pass that
+	 * a newer request has made stale
+	 */
+	protected static class FilterCancelledException
+		extends RuntimeException
+	{
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			// Expected control flow; a stack trace would only cost time
+			return this;
+		}
+	}
+
 	private final PerformingFilteringListener performingFilteringListener;
 
 	@Thunk
@@ -86,6 +123,27 @@ public abstract class DelayedFilter
 	@Thunk
 	boolean scheduledRefilter;
 
+	/** Bumped whenever the running filter pass becomes stale */
+	private final AtomicInteger generation = new AtomicInteger();
+
+	private volatile int runningGeneration;
+
+	private int consecutiveCancels;
+
+	private long pendingRunOn;
+
+	private long firstPendingRequestOn;
+
+	private boolean pendingSkipIfFiltering;
+
+	private int numRequested;
+
+	private int numCoalesced;
+
+	private int numExecuted;
+
+	private int numCancelled;
+
 	public CharSequence getConstraint() {
 		return constraint;
 	}
@@ -106,42 +164,130 @@ public abstract class DelayedFilter
 	}
 
 	public void refilter(boolean skipIfFiltering, int delay) {
+		long now = SystemClock.uptimeMillis();
 		synchronized (TAG) {
+			numRequested++;
+			if (!skipIfFiltering) {
+				cancelFiltering();
+			}
 			if (refilteringSoon) {
+				// Coalesce into the pending refilter, pushing it back a bit
+				numCoalesced++;
+				pendingRunOn = Math.max(pendingRunOn,
+						Math.min(now + delay, firstPendingRequestOn + MAX_COALESCE_MS));
+				if (!skipIfFiltering) {
+					pendingSkipIfFiltering = false;
+				}
 				if (AndroidUtils.DEBUG_ADAPTER) {
-					log(TAG, "refilter: skip refilter, refiltering soon. "
+					log(TAG, "refilter: coalesced into pending refilter. "
 							+ AndroidUtils.getCompressedStackTrace(4));
 				}
 				return;
 			}
 			refilteringSoon = true;
+			firstPendingRequestOn = now;
+			pendingRunOn = now + delay;
+			pendingSkipIfFiltering = skipIfFiltering;
 		}
 		if (AndroidUtils.DEBUG_ADAPTER) {
 			log(TAG, "refilter() via " + AndroidUtils.getCompressedStackTrace());
 		}
-		new Timer().schedule(new TimerTask() {
-			@Override
-			public void run() {
-				synchronized (TAG) {
-					refilteringSoon = false;
-				}
-				if (getFilterState() != FILTERSTATE_IDLE) {
-					if (AndroidUtils.DEBUG_ADAPTER) {
-						log(TAG, "refilter() skipped because filterstate was "
-								+ FILTERSTATE_DEBUGSTRINGS[getFilterState()]);
-					}
-					// Could schedule a new one
-					if (!skipIfFiltering) {
-						scheduledRefilter = true;
-					}
-					return;
-				}
-				if (!isDestroyed) {
-					scheduledRefilter = false;
-					filter(constraint);
-				}
+		getScheduler().schedule(this::runPendingRefilter, delay,
+				TimeUnit.MILLISECONDS);
+	}
+
+	private static synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, TAG);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return scheduler;
+	}
+
+	@Thunk
+	void runPendingRefilter() {
+		boolean skipIfFiltering;
+		synchronized (TAG) {
+			long wait = pendingRunOn - SystemClock.uptimeMillis();
+			if (wait > 0) {
+				// Pushed back by a newer request
+				getScheduler().schedule(this::runPendingRefilter, wait,
+						TimeUnit.MILLISECONDS);
+				return;
 			}
-		}, delay);
+			refilteringSoon = false;
+			skipIfFiltering = pendingSkipIfFiltering;
+		}
+		if (isDestroyed) {
+			return;
+		}
+		if (getFilterState() != FILTERSTATE_IDLE) {
+			if (AndroidUtils.DEBUG_ADAPTER) {
+				log(TAG, "refilter() skipped because filterstate was "
+						+ FILTERSTATE_DEBUGSTRINGS[getFilterState()]);
+			}
+			// Run again once current pass is done or cancelled
+			if (!skipIfFiltering) {
+				scheduledRefilter = true;
+			}
+			return;
+		}
+		scheduledRefilter = false;
+		filter(constraint);
+	}
+
+	/**
+	 * Marks the running filter pass (if any) as stale.  The pass aborts at its
+	 * next {@link #checkFilterCancelled()}.
+	 */
+	private void cancelFiltering() {
+		if (filterState != FILTERSTATE_FILTERING
+				&& filterState != FILTERSTATE_SORTING) {
+			return;
+		}
+		if (consecutiveCancels >= MAX_CONSECUTIVE_CANCELS) {
+			return;
+		}
+		generation.incrementAndGet();
+		scheduledRefilter = true;
+	}
+
+	/**
+	 * @return true if a newer refilter request has made the running filter
+	 * pass stale
+	 */
+	@AnyThread
+	protected final boolean isFilterCancelled() {
+		return generation.get() != runningGeneration;
+	}
+
+	/**
+	 * Call periodically from long running parts of
+	 * {@link #performFiltering2(CharSequence)}.  Aborts the pass if it has been
+	 * made stale.  Safe to call from helper threads of the pass.
+	 *
+	 * @throws FilterCancelledException when stale
+	 */
+	@AnyThread
+	protected final void checkFilterCancelled() {
+		if (isFilterCancelled()) {
+			throw new FilterCancelledException();
+		}
+	}
+
+	/**
+	 * @return Counts of refilter requests, requests merged into a pending one,
+	 * filter passes run, and passes cancelled
+	 */
+	@NonNull
+	public String getFilterStats() {
+		synchronized (TAG) {
+			return "requested=" + numRequested + ", coalesced=" + numCoalesced
+					+ ", executed=" + numExecuted + ", cancelled=" + numCancelled;
+		}
 	}
 
 	@Override
@@ -154,9 +300,26 @@ public abstract class DelayedFilter
 			}
 
 			setFilterState(FILTERSTATE_FILTERING);
+			runningGeneration = generation.get();
+			numExecuted++;
 		}
 		try {
-			return performFiltering2(constraint);
+			FilterResults results = performFiltering2(constraint);
+			synchronized (TAG) {
+				consecutiveCancels = 0;
+			}
+			return results;
+		} catch (FilterCancelledException e) {
+			synchronized (TAG) {
+				numCancelled++;
+				consecutiveCancels++;
+				if (AndroidUtils.DEBUG_ADAPTER) {
+					log(TAG, "performFiltering: cancelled by newer request. "
+							+ getFilterStats());
+				}
+			}
+			// publishResults will go idle, which triggers the scheduled refilter
+			return null;
 		} catch (Throwable t) {
 			synchronized (TAG) {
 				setFilterState(FILTERSTATE_IDLE);
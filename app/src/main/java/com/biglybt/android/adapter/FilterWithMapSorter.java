@@ -32,6 +32,17 @@ public abstract class FilterWithMapSorter<T>
 {
 	private static final String TAG = "SortedFilter";
 
+	/**
+	 * Incremental sort falls back to full sort when more than 1/n of the items
+	 * changed
+	 */
+	private static final int INCREMENTAL_SORT_MAX_RATIO = 8;
+
+	/**
+	 * Always allow incremental sort for this many changed items
+	 */
+	private static final int INCREMENTAL_SORT_MIN_CHANGES = 32;
+
 	private ComparatorMapFields<T> sorter;
 
 	@NonNull
@@ -58,6 +69,7 @@ public abstract class FilterWithMapSorter<T>
 			return;
 		}
 
+		checkFilterCancelled();
 		setFilterState(FILTERSTATE_SORTING);
 
 		if (AndroidUtils.DEBUG_ADAPTER) {
@@ -72,7 +84,7 @@ public abstract class FilterWithMapSorter<T>
 		// java.lang.IllegalArgumentException: Comparison method violates its
 		// general contract!
 		try {
-			Collections.sort(items, sorter);
+			sorter.sort(items);
 		} catch (Throwable t) {
 			log(TAG, "doSort: ", t);
 		}
@@ -81,6 +93,57 @@ public abstract class FilterWithMapSorter<T>
 		// but typically sort is done just before going to FILTERSTATE_PUBLISHING
 	}
 
+	/**
+	 * Whether {@link #doSortIncremental(List, List)} would be cheaper than a
+	 * full {@link #doSort(List)}
+	 */
+	protected static boolean canSortIncremental(int numChanged, int numTotal) {
+		return numChanged <= INCREMENTAL_SORT_MIN_CHANGES
+				|| numChanged <= numTotal / INCREMENTAL_SORT_MAX_RATIO;
+	}
+
+	/**
+	 * Inserts changed items into an already sorted list, using binary search.
+	 *
+	 * @param sortedItems Items still in sorted order.  Must not contain any of
+	 *                    <code>changedItems</code>
+	 * @param changedItems Items whose sort keys may have changed.  Inserted
+	 *                     into <code>sortedItems</code>
+	 */
+	protected void doSortIncremental(@NonNull List<T> sortedItems,
+			@NonNull List<T> changedItems) {
+		if (sorter == null || !sorter.isValid()) {
+			sortedItems.addAll(changedItems);
+			return;
+		}
+
+		if (!canSortIncremental(changedItems.size(), sortedItems.size())) {
+			sortedItems.addAll(changedItems);
+			doSort(sortedItems);
+			return;
+		}
+
+		checkFilterCancelled();
+		setFilterState(FILTERSTATE_SORTING);
+
+		if (AndroidUtils.DEBUG_ADAPTER) {
+			log(TAG, "Incremental sort of " + changedItems.size() + " into "
+					+ sortedItems.size() + " by " + sorter.toDebugString());
+		}
+
+		try {
+			for (T item : changedItems) {
+				int pos = Collections.binarySearch(sortedItems, item, sorter);
+				if (pos < 0) {
+					pos = -(pos + 1);
+				}
+				sortedItems.add(pos, item);
+			}
+		} catch (Throwable t) {
+			log(TAG, "doSortIncremental: ", t);
+		}
+	}
+
 	public void setSortDefinition(SortDefinition sortDefinition, boolean isAsc) {
 		if (sorter == null) {
 			log(Log.ERROR, TAG,
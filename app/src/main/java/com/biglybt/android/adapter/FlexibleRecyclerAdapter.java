@@ -33,6 +33,7 @@ import android.widget.RelativeLayout;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
@@ -46,6 +47,7 @@ import com.biglybt.util.Thunk;
 import org.jetbrains.annotations.NonNls;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * This adapter requires only having one RecyclerView attached to it.
@@ -71,8 +73,15 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 
 	private static final String KEY_SUFFIX_MULTI = ".multi";
 
+	private static final long MAX_DIFFUTIL_MS = AndroidUtils.DEBUG ? 10000 : 800;
+
+	/** How long to set items without DiffUtil after a diff took too long */
+	private static final long SKIP_DIFFUTIL_MS = 30000;
+
+	private static ThreadPoolExecutor diffExecutor;
+
 	@Thunk
-	static final long MAX_DIFFUTIL_NUM100MS = AndroidUtils.DEBUG ? 100 : 8;
+	static final Handler mainHandler = new Handler(Looper.getMainLooper());
 
 	@Thunk
 	final Object mLock = new Object();
@@ -124,10 +133,16 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 	long lastSetItemsOn;
 
 	@Thunk
-	SetItemsAsyncTask setItemsAsyncTask;
+	DiffTask diffTask;
 
+	private Runnable diffTimeout;
+
+	/**
+	 * {@link SystemClock#uptimeMillis()} until which items are set without
+	 * DiffUtil
+	 */
 	@Thunk
-	boolean skipDiffUtil;
+	long skipDiffUtilUntil;
 
 	@Thunk
 	SparseIntArray countsByViewType;
@@ -161,12 +176,16 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 	}
 
 	protected void cancelAsyncTask() {
-		if (setItemsAsyncTask != null) {
-			if (AndroidUtils.DEBUG_ADAPTER && !setItemsAsyncTask.isCancelled()) {
-				log(TAG, "cleanup: cancel asyncTask");
+		if (diffTask != null) {
+			if (AndroidUtils.DEBUG_ADAPTER && !diffTask.cancelled) {
+				log(TAG, "cleanup: cancel diffTask");
 			}
-			setItemsAsyncTask.cancel(true);
-			setItemsAsyncTask = null;
+			diffTask.cancel();
+			diffTask = null;
+		}
+		if (diffTimeout != null) {
+			mainHandler.removeCallbacks(diffTimeout);
+			diffTimeout = null;
 		}
 	}
 
@@ -388,6 +407,10 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 	@Override
 	public final void onBindViewHolder(@NonNull VH holder, int position,
 			@NonNull List<Object> payloads) {
+		if (!payloads.isEmpty()
+				&& onBindFlexibleViewHolder(holder, position, payloads)) {
+			return;
+		}
 		super.onBindViewHolder(holder, position, payloads);
 		//log(TAG, "onBindViewHolder: " + (++countB));
 		// super calls onBindViewHolder(VH, int), we don't have to
@@ -446,6 +469,17 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 	public abstract void onBindFlexibleViewHolder(@NonNull VH holder,
 			final int position);
 
+	/**
+	 * Rebind a holder that is already showing the item at <code>position</code>,
+	 * using the payloads from {@link SetItemsCallBack#getChangePayload(Object, Object)}.
+	 *
+	 * @return false to do a full {@link #onBindFlexibleViewHolder(RecyclerView.ViewHolder, int)}
+	 */
+	public boolean onBindFlexibleViewHolder(@NonNull VH holder, int position,
+			@NonNull List<Object> payloads) {
+		return false;
+	}
+
 	@Override
 	public int getItemCount() {
 		return mItems.size();
@@ -738,10 +772,67 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 		 * @return True if the contents of the items are the same or false if they are different.
 		 */
 		boolean areContentsTheSame(T oldItem, T newItem);
+
+		/**
+		 * Called by the diff when {@link #areContentsTheSame(Object, Object)}
+		 * returns false.  The returned payload is passed to
+		 * {@link FlexibleRecyclerAdapter#onBindFlexibleViewHolder(RecyclerView.ViewHolder, int, List)}
+		 * so the holder can update only what changed.
+		 *
+		 * @return null for a full rebind
+		 */
+		@WorkerThread
+		@Nullable
+		default Object getChangePayload(T oldItem, T newItem) {
+			return null;
+		}
+
+		/**
+		 * Stable ID of an item, compared by the diff instead of
+		 * {@link Object#equals(Object)}.  Only used when the adapter
+		 * {@link RecyclerView.Adapter#hasStableIds() has stable IDs}.
+		 *
+		 * @return {@link RecyclerView#NO_ID} to fall back to equals()
+		 */
+		@WorkerThread
+		default long getStableId(T item) {
+			return RecyclerView.NO_ID;
+		}
+	}
+
+	/**
+	 * Computes diffs one at a time, off the UI thread.  A newer diff for an
+	 * adapter cancels the older one, so there's no point running them in
+	 * parallel, and running them serially means a cancelled diff never races
+	 * with its replacement.
+	 */
+	private static synchronized Executor getDiffExecutor() {
+		if (diffExecutor == null) {
+			diffExecutor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), r -> {
+						Thread thread = new Thread(r, "Diff");
+						thread.setDaemon(true);
+						return thread;
+					});
+			diffExecutor.allowCoreThreadTimeOut(true);
+		}
+		return diffExecutor;
+	}
+
+	/**
+	 * Thrown from within DiffUtil's callbacks to abandon a cancelled diff
+	 */
+	private static class DiffCancelledException
+		extends RuntimeException
+	{
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
 	}
 
-	private class SetItemsAsyncTask
-		extends AsyncTask<Void, Void, Void>
+	private class DiffTask
+		implements Runnable
 	{
 		@NonNull
 		private final ADAPTERTYPE adapter;
@@ -754,168 +845,194 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 		@Thunk
 		final SetItemsCallBack<T> callback;
 
-		@Thunk
-		DiffUtil.DiffResult diffResult;
+		private final boolean detectMoves;
+
+		private final boolean useStableIds;
 
 		@Thunk
-		List<T> notifyUncheckedList;
+		volatile boolean cancelled;
+
+		private volatile boolean complete;
+
+		private DiffUtil.DiffResult diffResult;
+
+		/** The list object that was diffed against */
+		private List<T> oldItemsRef;
 
-		private boolean complete = false;
+		private int oldCount;
 
-		SetItemsAsyncTask(@NonNull ADAPTERTYPE adapter, @NonNull List<T> items,
-				final SetItemsCallBack<T> callback) {
+		/** Posted to the main thread when the diff starts running */
+		Runnable timeout;
+
+		DiffTask(@NonNull ADAPTERTYPE adapter, @NonNull List<T> items,
+				final SetItemsCallBack<T> callback, boolean detectMoves) {
 			this.adapter = adapter;
 			this.newItems = items;
+			this.detectMoves = detectMoves;
+			this.useStableIds = hasStableIds();
 
 			this.callback = callback != null ? callback : (oldItem, newItem) -> false;
 			if (AndroidUtils.DEBUG_ADAPTER) {
-				log(TAG,
-						"SetItemsAsyncTask: create " + newItems.size() + "/" + callback);
+				log(TAG, "DiffTask: create " + newItems.size() + "/" + callback
+						+ "; moves? " + detectMoves);
 			}
 		}
 
+		void cancel() {
+			cancelled = true;
+		}
+
+		boolean isComplete() {
+			return complete || cancelled;
+		}
+
 		@Override
-		protected Void doInBackground(Void... params) {
+		public void run() {
 			long start = 0;
 			if (AndroidUtils.DEBUG_ADAPTER) {
 				start = System.currentTimeMillis();
-				log(TAG, "SetItemsAsyncTask: " + newItems.size() + "/" + callback);
+				log(TAG, "DiffTask: " + newItems.size() + "/" + callback);
 			}
 
-			int oldCount;
-			int newCount;
 			final List<T> oldItems;
 			synchronized (mLock) {
-				oldItems = new ArrayList<>(mItems);
-				if (isCancelled() || recyclerView == null) {
+				if (cancelled || recyclerView == null) {
 					// Cancel check here, because onItemListChanging might do something
 					// assuming everything is in a good state (like the fragment still
 					// being attached)
 					if (AndroidUtils.DEBUG_ADAPTER) {
-						log(TAG, "SetItemsAsyncTask: skip. cancelled? " + isCancelled());
+						log(TAG, "DiffTask: skip. cancelled? " + cancelled);
 					}
-					return null;
+					return;
 				}
-
+				oldItemsRef = mItems;
+				oldItems = new ArrayList<>(mItems);
 				oldCount = oldItems.size();
-				newCount = newItems.size();
 			}
 
-			diffResult = DiffUtil.calculateDiff(new DiffUtil.Callback() {
-				@Override
-				public int getOldListSize() {
-					return oldItems.size();
-				}
-
-				@Override
-				public int getNewListSize() {
-					return newItems.size();
-				}
-
-				@Override
-				public boolean areItemsTheSame(int oldItemPosition,
-						int newItemPosition) {
-					// oldItems.get(oldItemPosition).compareTo(items.get(newItemPosition)) == 0
-					// is slower than the code below
-					T oldItem = oldItems.get(oldItemPosition);
-					T newItem = newItems.get(newItemPosition);
-					return oldItem != null && oldItem.equals(newItem);
-				}
-
-				@Override
-				public boolean areContentsTheSame(int oldItemPosition,
-						int newItemPosition) {
-					return callback.areContentsTheSame(oldItems.get(oldItemPosition),
-							newItems.get(newItemPosition));
-				}
-			});
-
-			if (isCancelled()) {
-				if (AndroidUtils.DEBUG_ADAPTER) {
-					log(TAG, "SetItemsAsyncTask CANCELLED " + this + " after "
-							+ (System.currentTimeMillis() - start) + "ms");
-				}
-				return null;
+			if (timeout != null) {
+				mainHandler.postDelayed(timeout, MAX_DIFFUTIL_MS);
 			}
 
-			if (AndroidUtils.DEBUG_ADAPTER) {
-				log(TAG,
-						"SetItemsAsyncTask: oldCount=" + oldCount + ";new=" + newCount + ";"
-								+ this + " in " + (System.currentTimeMillis() - start) + "ms");
+			final long[] oldIDs = useStableIds ? getStableIds(oldItems) : null;
+			final long[] newIDs = oldIDs == null ? null : getStableIds(newItems);
 
-				StringBuilder sb = new StringBuilder();
-				diffResult.dispatchUpdatesTo(new ListUpdateCallback() {
-					int last = -1;
+			try {
+				diffResult = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+					@Override
+					public int getOldListSize() {
+						return oldItems.size();
+					}
 
 					@Override
-					public void onInserted(int position, int count) {
-						if (last == 1) {
-							sb.append(", ").append(count).append(" at ").append(position);
-						} else {
-							last = 1;
-							sb.append("\n-->Insert ").append(count).append(" at ").append(
-									position);
-						}
+					public int getNewListSize() {
+						return newItems.size();
 					}
 
 					@Override
-					public void onRemoved(int position, int count) {
-						if (last == 2) {
-							sb.append(", ").append(count).append(" at ").append(position);
-						} else {
-							last = 2;
-							sb.append("\n-->Remove ").append(count).append(" at ").append(
-									position);
+					public boolean areItemsTheSame(int oldItemPosition,
+							int newItemPosition) {
+						if (cancelled) {
+							throw new DiffCancelledException();
 						}
+						if (newIDs != null) {
+							return oldIDs[oldItemPosition] == newIDs[newItemPosition];
+						}
+						// oldItems.get(oldItemPosition).compareTo(items.get(newItemPosition)) == 0
+						// is slower than the code below
+						T oldItem = oldItems.get(oldItemPosition);
+						T newItem = newItems.get(newItemPosition);
+						return oldItem != null && oldItem.equals(newItem);
 					}
 
 					@Override
-					public void onMoved(int fromPosition, int toPosition) {
-						if (last == 3) {
-							sb.append(", ").append(fromPosition).append("->").append(
-									toPosition);
-						} else {
-							last = 3;
-							sb.append("\n-->Move ").append(fromPosition).append("->").append(
-									toPosition);
-						}
+					public boolean areContentsTheSame(int oldItemPosition,
+							int newItemPosition) {
+						return callback.areContentsTheSame(oldItems.get(oldItemPosition),
+								newItems.get(newItemPosition));
 					}
 
+					@Nullable
 					@Override
-					public void onChanged(int position, int count, Object payload) {
-						T t = position < newItems.size() ? newItems.get(position) : null;
-						if (last == 4) {
-							sb.append(", ").append(count).append(" at ").append(
-									position).append("; ").append(t);
-						} else {
-							last = 4;
-							sb.append("\n-->Change ").append(count).append(" at ").append(
-									position).append("; ").append(t);
-						}
+					public Object getChangePayload(int oldItemPosition,
+							int newItemPosition) {
+						return callback.getChangePayload(oldItems.get(oldItemPosition),
+								newItems.get(newItemPosition));
 					}
-				});
+				}, detectMoves);
+			} catch (DiffCancelledException e) {
+				diffResult = null;
+			}
 
-				if (sb.length() > 1) {
-					log(TAG, sb.toString().substring(1));
+			if (cancelled || diffResult == null) {
+				if (AndroidUtils.DEBUG_ADAPTER) {
+					log(TAG, "DiffTask CANCELLED " + this + " after "
+							+ (System.currentTimeMillis() - start) + "ms");
 				}
+				return;
+			}
+
+			if (AndroidUtils.DEBUG_ADAPTER) {
+				log(TAG,
+						"DiffTask: oldCount=" + oldCount + ";new=" + newItems.size() + ";"
+								+ this + " in " + (System.currentTimeMillis() - start) + "ms");
+				logDiffResult(diffResult, newItems);
 			}
 
 			complete = true;
-			return null;
+			mainHandler.post(this::dispatch);
 		}
 
-		@Override
-		protected void onPostExecute(Void aVoid) {
+		/**
+		 * @return null if any item has no stable ID
+		 */
+		@Nullable
+		private long[] getStableIds(@NonNull List<T> items) {
+			int size = items.size();
+			long[] ids = new long[size];
+			for (int i = 0; i < size; i++) {
+				long id = callback.getStableId(items.get(i));
+				if (id == RecyclerView.NO_ID) {
+					return null;
+				}
+				ids[i] = id;
+			}
+			return ids;
+		}
+
+		@UiThread
+		@Thunk
+		void dispatch() {
+			if (cancelled) {
+				// A newer diff (or a detach) replaced us.  It diffs against the items
+				// we didn't set, so don't set them.
+				return;
+			}
+			if (recyclerView != null && recyclerView.isComputingLayout()) {
+				recyclerView.post(this::dispatch);
+				return;
+			}
+
 			long start = 0;
 			if (AndroidUtils.DEBUG_ADAPTER) {
 				start = System.currentTimeMillis();
 			}
 
-			// Need to set items on UI Thread.  If we did it in background,
-			// there's a chance that the RecyclerView UI is walking through the items,
-			// starting before we set mItems (and caching length), but ending after
-			// we set mItems, causing and IndexOutOfBoundsException
+			if (mItems != oldItemsRef || mItems.size() != oldCount) {
+				// Items changed under us (removeItems, timeout) since we diffed
+				if (AndroidUtils.DEBUG_ADAPTER) {
+					log(TAG, "DiffTask: items changed since diff, setting directly");
+				}
+				setItems_noDiffUtil(newItems);
+				return;
+			}
+
+			List<T> notifyUncheckedList;
 			synchronized (mLock) {
+				// Need to set items on UI Thread.  If we did it in background,
+				// there's a chance that the RecyclerView UI is walking through the
+				// items, starting before we set mItems (and caching length), but
+				// ending after we set mItems, causing and IndexOutOfBoundsException
 				mItems = newItems;
 
 				neverSetItems = false;
@@ -934,14 +1051,8 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 					selector.onItemCheckedChanged(adapter, item, false);
 				}
 			}
-			notifyUncheckedList.clear();
 
 			if (recyclerView != null) {
-				if (recyclerView.isComputingLayout()) {
-					recyclerView.post(() -> onPostExecute(null));
-					return;
-				}
-
 				boolean isAtTop = recyclerView.computeVerticalScrollOffset() == 0;
 				diffResult.dispatchUpdatesTo(adapter);
 				if (isAtTop) {
@@ -953,31 +1064,80 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 
 			lastSetItemsOn = System.currentTimeMillis();
 			if (AndroidUtils.DEBUG_ADAPTER) {
-				log(TAG, "SetItemsAsyncTask: onPostExecute; " + this + " in "
+				log(TAG, "DiffTask: dispatch; " + this + " in "
 						+ (System.currentTimeMillis() - start) + "ms");
 			}
 			triggerOnSetItemsCompleteListeners();
 		}
+	}
 
-		@SuppressWarnings("MethodDoesntCallSuperMethod")
-		@Override
-		protected void onCancelled(Void aVoid) {
-			if (AndroidUtils.DEBUG_ADAPTER) {
-				log(TAG, this + " onCancelled. Complete? " + complete + " via "
-						+ AndroidUtils.getCompressedStackTrace());
+	@Thunk
+	void logDiffResult(@NonNull DiffUtil.DiffResult diffResult,
+			@NonNull List<T> newItems) {
+		StringBuilder sb = new StringBuilder();
+		diffResult.dispatchUpdatesTo(new ListUpdateCallback() {
+			int last = -1;
+
+			@Override
+			public void onInserted(int position, int count) {
+				if (last == 1) {
+					sb.append(", ").append(count).append(" at ").append(position);
+				} else {
+					last = 1;
+					sb.append("\n-->Insert ").append(count).append(" at ").append(
+							position);
+				}
 			}
 
-			if (complete) {
-				// oops, doInBackground actually completed, we better fire off the
-				// diffResult
-				onPostExecute(aVoid);
+			@Override
+			public void onRemoved(int position, int count) {
+				if (last == 2) {
+					sb.append(", ").append(count).append(" at ").append(position);
+				} else {
+					last = 2;
+					sb.append("\n-->Remove ").append(count).append(" at ").append(
+							position);
+				}
 			}
-		}
 
-		public boolean isComplete() {
-			return complete || isCancelled();
+			@Override
+			public void onMoved(int fromPosition, int toPosition) {
+				if (last == 3) {
+					sb.append(", ").append(fromPosition).append("->").append(
+							toPosition);
+				} else {
+					last = 3;
+					sb.append("\n-->Move ").append(fromPosition).append("->").append(
+							toPosition);
+				}
+			}
+
+			@Override
+			public void onChanged(int position, int count, Object payload) {
+				T t = position < newItems.size() ? newItems.get(position) : null;
+				if (last == 4) {
+					sb.append(", ").append(count).append(" at ").append(
+							position).append("; ").append(t).append(" ").append(payload);
+				} else {
+					last = 4;
+					sb.append("\n-->Change ").append(count).append(" at ").append(
+							position).append("; ").append(t).append(" ").append(payload);
+				}
+			}
+		});
+
+		if (sb.length() > 1) {
+			log(TAG, sb.toString().substring(1));
 		}
+	}
 
+	/**
+	 * Whether the next diff should look for moved items.  Move detection is
+	 * the expensive part of a diff, and without it moved items show up as a
+	 * remove and an insert.
+	 */
+	protected boolean shouldDetectMoves() {
+		return true;
 	}
 
 	/**
@@ -998,54 +1158,55 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 
 		this.countsByViewType = countsByViewType;
 
-		if (skipDiffUtil) {
+		boolean detectMoves = shouldDetectMoves();
+
+		if (skipDiffUtilUntil > SystemClock.uptimeMillis()) {
 			setItems_noDiffUtil(items);
 			return true;
 		}
 
-		if (setItemsAsyncTask != null && !setItemsAsyncTask.isComplete()
-				&& !setItemsAsyncTask.isCancelled()) {
+		if (diffTask != null && !diffTask.isComplete()) {
 			if (AndroidUtils.DEBUG_ADAPTER) {
-				log(TAG,
-						"cancel old setItemsAsyncTask. already? "
-								+ setItemsAsyncTask.isCancelled() + " c?"
-								+ setItemsAsyncTask.isComplete() + " via "
-								+ AndroidUtils.getCompressedStackTrace());
+				log(TAG, "cancel old diffTask via "
+						+ AndroidUtils.getCompressedStackTrace());
 			}
-			setItemsAsyncTask.cancel(true);
 		}
-		setItemsAsyncTask = new SetItemsAsyncTask(thisAdapter, items, callback);
-		final SetItemsAsyncTask ourTask = setItemsAsyncTask;
-		final List<T> oldItems = mItems;
-		try {
-			setItemsAsyncTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
-		} catch (IllegalStateException ex) {
-			setItems_noDiffUtil(items);
-			return true;
+		if (diffTask != null) {
+			// Even if complete, its dispatch may still be pending
+			diffTask.cancel();
 		}
-
-		new Thread(() -> {
-
-			try {
-				for (int i = 0; i < MAX_DIFFUTIL_NUM100MS; i++) {
-					Thread.sleep(100);
-					if (ourTask != setItemsAsyncTask || ourTask.isComplete()
-							|| oldItems != mItems) {
-						return;
-					}
-				}
-			} catch (InterruptedException ignored) {
+		if (diffTimeout != null) {
+			mainHandler.removeCallbacks(diffTimeout);
+		}
+		final DiffTask ourTask = new DiffTask(thisAdapter, items, callback,
+				detectMoves);
+		final List<T> oldItems = mItems;
+		diffTimeout = () -> {
+			if (ourTask != diffTask || ourTask.isComplete() || oldItems != mItems) {
+				return;
 			}
 
-			// Taking too long, cancel and turn off diff
-			ourTask.cancel(true);
+			// Taking too long, cancel and turn off diff for a while
+			ourTask.cancel();
 
-			skipDiffUtil = true;
+			skipDiffUtilUntil = SystemClock.uptimeMillis() + SKIP_DIFFUTIL_MS;
 			if (AndroidUtils.DEBUG_ADAPTER) {
-				log(TAG, "Turning off DiffUtil");
+				log(TAG, "Turning off DiffUtil for " + SKIP_DIFFUTIL_MS + "ms");
 			}
 			setItems_noDiffUtil(items);
-		}, "setItems").start();
+		};
+		// Posted by the task once it starts, so time spent queued behind other
+		// adapters' diffs doesn't count against it
+		ourTask.timeout = diffTimeout;
+		diffTask = ourTask;
+		try {
+			getDiffExecutor().execute(ourTask);
+		} catch (RejectedExecutionException ex) {
+			diffTask = null;
+			diffTimeout = null;
+			setItems_noDiffUtil(items);
+			return true;
+		}
 		return false;
 	}
 
@@ -44,6 +44,15 @@ public abstract class GroupedSortDefinition<ADAPTERITEM, IDTYPE extends Comparab
 
 	public abstract String getGroupName(IDTYPE sectionID, boolean isAsc);
 
+	/**
+	 * Group IDs are cached per item while the sort and this token stay the
+	 * same.  Override if {@link #getGroupID(Object, boolean, List)} depends on
+	 * more than the item's values, such as the list size or today's date.
+	 */
+	public Object getGroupIDCacheToken(List<ADAPTERITEM> items) {
+		return null;
+	}
+
 	public final boolean showGroupCount() {
 		return showGroupCount;
 	}
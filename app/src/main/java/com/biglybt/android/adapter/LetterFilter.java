@@ -17,6 +17,7 @@
 package com.biglybt.android.adapter;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 import com.biglybt.android.client.AndroidUtils;
 
@@ -47,6 +48,12 @@ public abstract class LetterFilter<T>
 
 	private LettersUpdatedListener lettersUpdatedListener;
 
+	/** Created on first filter pass that needs it */
+	private SearchIndex<T> searchIndex;
+
+	/** Keyed by name, for {@link #constraintCheck(CharSequence, String[], boolean[], HashMap)} */
+	private SearchIndex<String> nameIndex;
+
 	public LetterFilter(PerformingFilteringListener l) {
 		super(l);
 	}
@@ -122,35 +129,13 @@ public abstract class LetterFilter<T>
 				while (pos >= 0) {
 					int end = pos + constraint.length();
 					if (end < nameLength) {
-						char c = stringToConstrain.charAt(end);
-						boolean isDigit = Character.isDigit(c);
-						if (compactDigits && isDigit) {
-							setLetters.add(FilterConstants.LETTERS_NUMBERS);
-						} else if (compactPunctuation && isStandardPuncuation(c)) {
-							setLetters.add(FilterConstants.LETTERS_PUNCTUATION);
-						} else if (compactNonLetters && !isDigit && !isAlphabetic(c)
-								&& !isStandardPuncuation(c)) {
-							setLetters.add(FilterConstants.LETTERS_NON);
-						} else {
-							setLetters.add(Character.toString(c));
-						}
+						setLetters.add(getLetterKey(stringToConstrain.charAt(end)));
 					}
 					pos = stringToConstrain.indexOf(constraint, pos + 1);
 				}
 			} else {
 				for (int i = 0; i < nameLength; i++) {
-					char c = stringToConstrain.charAt(i);
-					boolean isDigit = Character.isDigit(c);
-					if (compactDigits && isDigit) {
-						setLetters.add(FilterConstants.LETTERS_NUMBERS);
-					} else if (compactPunctuation && isStandardPuncuation(c)) {
-						setLetters.add(FilterConstants.LETTERS_PUNCTUATION);
-					} else if (compactNonLetters && !isDigit && !isAlphabetic(c)
-							&& !isStandardPuncuation(c)) {
-						setLetters.add(FilterConstants.LETTERS_NON);
-					} else {
-						setLetters.add(Character.toString(c));
-					}
+					setLetters.add(getLetterKey(stringToConstrain.charAt(i)));
 				}
 			}
 		}
@@ -173,6 +158,23 @@ public abstract class LetterFilter<T>
 		return matches;
 	}
 
+	/**
+	 * @return Letter bar key for a character of an upper-cased name
+	 */
+	@NonNull
+	private String getLetterKey(char c) {
+		boolean isDigit = Character.isDigit(c);
+		if (compactDigits && isDigit) {
+			return FilterConstants.LETTERS_NUMBERS;
+		} else if (compactPunctuation && isStandardPuncuation(c)) {
+			return FilterConstants.LETTERS_PUNCTUATION;
+		} else if (compactNonLetters && !isDigit && !isAlphabetic(c)
+				&& !isStandardPuncuation(c)) {
+			return FilterConstants.LETTERS_NON;
+		}
+		return Character.toString(c);
+	}
+
 	/**
 	 * The returned String will be used when filtering by letters
 	 */
@@ -230,19 +232,22 @@ public abstract class LetterFilter<T>
 			Log.d(TAG, "filtering " + searchResultList.size());
 		}
 
-		HashSet<String> setLetters = null;
-		HashMap<String, Integer> mapLetterCount = null;
-		if (buildLetters) {
-			setLetters = new HashSet<>();
-			mapLetterCount = new HashMap<>();
+		HashMap<String, Integer> mapLetterCount = buildLetters ? new HashMap<>()
+				: null;
+		if (searchIndex == null) {
+			searchIndex = new SearchIndex<>();
 		}
-		if (buildLetters || hasConstraint) {
-			for (T key : searchResultList) {
-				if (!constraintCheck(constraint, getStringToConstrain(key), setLetters,
-						mapLetterCount)) {
-					toRemove.add(key);
-				}
-			}
+		SearchIndex.Entry[] entries = searchIndex.update(this, searchResultList,
+				this::getStringToConstrain);
+		BitSet candidates = searchIndex.getCandidates(constraint);
+		int lettersStamp = getLettersStamp();
+		int numChunks = ParallelWork.getNumChunks(size);
+		if (numChunks > 1) {
+			matchParallel(constraint, searchResultList, entries, candidates,
+					lettersStamp, numChunks, toRemove, mapLetterCount);
+		} else {
+			matchRange(constraint, searchResultList, entries, 0, size, candidates,
+					lettersStamp, toRemove, mapLetterCount);
 		}
 		if (DEBUG && hasConstraint) {
 			Log.d(TAG, "filter removing " + toRemove.size());
@@ -261,6 +266,196 @@ public abstract class LetterFilter<T>
 		return toRemove;
 	}
 
+	/**
+	 * Identifies the compact settings that cached {@link SearchIndex.Entry}
+	 * letters were built with
+	 */
+	private int getLettersStamp() {
+		return 1 | (compactDigits ? 2 : 0) | (compactPunctuation ? 4 : 0)
+				| (compactNonLetters ? 8 : 0);
+	}
+
+	/**
+	 * Same results as {@link #constraintCheck(String, String, HashSet, HashMap)},
+	 * but using the {@link SearchIndex}'s cached upper-cased names and
+	 * candidates.
+	 */
+	private void matchRange(@NonNull String constraint, @NonNull List<T> items,
+			@NonNull SearchIndex.Entry[] entries, int from, int to,
+			@Nullable BitSet candidates, int lettersStamp,
+			@NonNull Collection<T> toRemove,
+			@Nullable HashMap<String, Integer> mapLetterCount) {
+		boolean hasConstraint = !constraint.isEmpty();
+		HashSet<String> setLetters = mapLetterCount == null ? null
+				: new HashSet<>();
+		for (int i = from; i < to; i++) {
+			if ((i & 0x3FF) == 0x3FF) {
+				checkFilterCancelled();
+			}
+			SearchIndex.Entry entry = entries[i];
+			if (entry == null) {
+				toRemove.add(items.get(i));
+				continue;
+			}
+			String upper = entry.upper;
+			boolean matches = !hasConstraint || upper.isEmpty()
+					|| ((candidates == null || candidates.get(entry.id))
+							&& upper.contains(constraint));
+			if (!matches) {
+				toRemove.add(items.get(i));
+				continue;
+			}
+			if (setLetters != null) {
+				countLetters(constraint, entry, lettersStamp, setLetters,
+						mapLetterCount);
+			}
+		}
+	}
+
+	/**
+	 * Checks names against the constraint, like calling
+	 * {@link #constraintCheck(String, String, HashSet, HashMap)} for each, but
+	 * only <code>contains</code> checks names the {@link SearchIndex} says may
+	 * match.  The index is kept across calls, so pass the same names each
+	 * filter pass.
+	 *
+	 * @param eligible Which names to check.  Names not eligible don't match and
+	 *                 aren't counted in <code>mapLetterCount</code>.  null for all
+	 * @return Whether each name matches
+	 */
+	@NonNull
+	protected boolean[] constraintCheck(@Nullable CharSequence _constraint,
+			@NonNull String[] names, @Nullable boolean[] eligible,
+			@Nullable HashMap<String, Integer> mapLetterCount) {
+		String constraint = _constraint == null ? ""
+				: _constraint.toString().toUpperCase(Locale.US);
+		boolean hasConstraint = !constraint.isEmpty();
+
+		if (nameIndex == null) {
+			nameIndex = new SearchIndex<>();
+		}
+		SearchIndex.Entry[] entries = nameIndex.update(this, Arrays.asList(names),
+				name -> name);
+		BitSet candidates = nameIndex.getCandidates(constraint);
+		int lettersStamp = getLettersStamp();
+		HashSet<String> setLetters = mapLetterCount == null ? null
+				: new HashSet<>();
+
+		boolean[] matches = new boolean[names.length];
+		for (int i = 0; i < names.length; i++) {
+			if ((i & 0x3FF) == 0x3FF) {
+				checkFilterCancelled();
+			}
+			SearchIndex.Entry entry = entries[i];
+			if (entry == null || (eligible != null && !eligible[i])) {
+				continue;
+			}
+			String upper = entry.upper;
+			if (hasConstraint && !upper.isEmpty()
+					&& ((candidates != null && !candidates.get(entry.id))
+							|| !upper.contains(constraint))) {
+				continue;
+			}
+			matches[i] = true;
+			if (setLetters != null) {
+				countLetters(constraint, entry, lettersStamp, setLetters,
+						mapLetterCount);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Adds the letter bar keys of a matching entry to
+	 * <code>mapLetterCount</code>: the characters following each constraint
+	 * match, or all characters when there's no constraint
+	 */
+	private void countLetters(@NonNull String constraint,
+			@NonNull SearchIndex.Entry entry, int lettersStamp,
+			@NonNull HashSet<String> setLetters,
+			@NonNull HashMap<String, Integer> mapLetterCount) {
+		String upper = entry.upper;
+		if (!constraint.isEmpty()) {
+			int nameLength = upper.length();
+			int pos = upper.indexOf(constraint);
+			while (pos >= 0) {
+				int end = pos + constraint.length();
+				if (end < nameLength) {
+					setLetters.add(getLetterKey(upper.charAt(end)));
+				}
+				pos = upper.indexOf(constraint, pos + 1);
+			}
+			for (String letter : setLetters) {
+				addLetterCount(mapLetterCount, letter);
+			}
+			setLetters.clear();
+		} else {
+			String[] letters = entry.letters;
+			if (letters == null || entry.lettersStamp != lettersStamp) {
+				for (int j = 0, len = upper.length(); j < len; j++) {
+					setLetters.add(getLetterKey(upper.charAt(j)));
+				}
+				letters = setLetters.toArray(new String[0]);
+				setLetters.clear();
+				entry.letters = letters;
+				entry.lettersStamp = lettersStamp;
+			}
+			for (String letter : letters) {
+				addLetterCount(mapLetterCount, letter);
+			}
+		}
+	}
+
+	private static void addLetterCount(
+			@NonNull HashMap<String, Integer> mapLetterCount, String letter) {
+		Integer count = mapLetterCount.get(letter);
+		mapLetterCount.put(letter, count == null ? 1 : count + 1);
+	}
+
+	/**
+	 * Splits list into chunks, matches and letter-counts each chunk on
+	 * {@link ParallelWork}, then merges the results.
+	 */
+	private void matchParallel(@NonNull String constraint,
+			@NonNull List<T> items, @NonNull SearchIndex.Entry[] entries,
+			@Nullable BitSet candidates, int lettersStamp, int numChunks,
+			@NonNull HashSet<T> toRemove,
+			@Nullable HashMap<String, Integer> mapLetterCount) {
+		int size = items.size();
+		boolean buildLetters = mapLetterCount != null;
+		List<Callable<Object[]>> tasks = new ArrayList<>(numChunks);
+		for (int i = 0; i < numChunks; i++) {
+			int from = (int) ((long) size * i / numChunks);
+			int to = (int) ((long) size * (i + 1) / numChunks);
+			tasks.add(() -> {
+				List<T> chunkToRemove = new ArrayList<>();
+				HashMap<String, Integer> chunkLetterCount = buildLetters
+						? new HashMap<>() : null;
+				matchRange(constraint, items, entries, from, to, candidates,
+						lettersStamp, chunkToRemove, chunkLetterCount);
+				return new Object[] {
+					chunkToRemove,
+					chunkLetterCount
+				};
+			});
+		}
+
+		for (Object[] result : ParallelWork.invokeAll(tasks)) {
+			//noinspection unchecked
+			toRemove.addAll((List<T>) result[0]);
+			if (!buildLetters) {
+				continue;
+			}
+			//noinspection unchecked
+			HashMap<String, Integer> chunkLetterCount = (HashMap<String, Integer>) result[1];
+			for (Map.Entry<String, Integer> entry : chunkLetterCount.entrySet()) {
+				Integer count = mapLetterCount.get(entry.getKey());
+				mapLetterCount.put(entry.getKey(),
+						count == null ? entry.getValue() : count + entry.getValue());
+			}
+		}
+	}
+
 	abstract public @NonNull String getSectionName(int position);
 
 	abstract public boolean showLetterUI();
@@ -0,0 +1,115 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Shared worker pool for splitting filter and sort work of very large lists
+ * across cores.
+ * <p/>
+ * ForkJoinPool needs API 21, so this is a plain fixed pool. Callers split
+ * their work into chunks, and the calling (filter) thread runs the first
+ * chunk itself while waiting on the rest.
+ */
+public class ParallelWork
+{
+	/**
+	 * Lists with fewer items than this are handled on one thread
+	 */
+	public static final int MIN_PARALLEL_SIZE = 8192;
+
+	private static final int PARALLELISM = Math.max(1,
+			Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+	private static ThreadPoolExecutor executor;
+
+	private static synchronized Executor getExecutor() {
+		if (executor == null) {
+			// Calling thread does one chunk, so pool needs one less thread
+			int numThreads = Math.max(1, PARALLELISM - 1);
+			executor = new ThreadPoolExecutor(numThreads, numThreads, 30,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+						Thread thread = new Thread(r, "ParallelWork");
+						thread.setDaemon(true);
+						thread.setPriority(Thread.NORM_PRIORITY - 1);
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+		}
+		return executor;
+	}
+
+	/**
+	 * @return Number of chunks a list of <code>size</code> should be split
+	 * into. 1 means don't bother going parallel.
+	 */
+	public static int getNumChunks(int size) {
+		if (PARALLELISM <= 1 || size < MIN_PARALLEL_SIZE) {
+			return 1;
+		}
+		return Math.min(PARALLELISM, size / (MIN_PARALLEL_SIZE / 2));
+	}
+
+	/**
+	 * Runs all tasks, using the shared pool plus the calling thread.
+	 *
+	 * @return Results, in the same order as <code>tasks</code>
+	 */
+	@WorkerThread
+	@NonNull
+	public static <R> List<R> invokeAll(@NonNull List<Callable<R>> tasks) {
+		int num = tasks.size();
+		List<R> results = new ArrayList<>(num);
+		if (num == 0) {
+			return results;
+		}
+
+		List<FutureTask<R>> futures = new ArrayList<>(num - 1);
+		Executor executor = getExecutor();
+		for (int i = 1; i < num; i++) {
+			FutureTask<R> future = new FutureTask<>(tasks.get(i));
+			futures.add(future);
+			executor.execute(future);
+		}
+
+		try {
+			results.add(tasks.get(0).call());
+			for (FutureTask<R> future : futures) {
+				results.add(future.get());
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? (RuntimeException) cause
+					: new RuntimeException(cause);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			for (FutureTask<R> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return results;
+	}
+}
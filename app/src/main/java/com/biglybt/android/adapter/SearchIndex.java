@@ -0,0 +1,270 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.*;
+
+/**
+ * Upper-cased names and a trigram index of the items a {@link LetterFilter}
+ * has seen, kept across filter passes.
+ * <p/>
+ * Each pass only upper-cases new or renamed items.  Constraints of 3 or more
+ * characters are narrowed to items containing one of the constraint's
+ * trigrams before doing the real <code>contains</code> check.
+ * <p/>
+ * Postings are only built once there are {@link #MIN_INDEXED_ENTRIES}
+ * items; fewer are cheaper to scan.  Trigrams are hashed into a power of two
+ * number of buckets sized to the item count.  Collisions, stale postings of
+ * renamed items, and removed items only add candidates, which are thrown out
+ * by the <code>contains</code> check, so postings are never updated in
+ * place.
+ * <p/>
+ * Not thread safe.  {@link #update(LetterFilter, List, NameGetter)} must be
+ * called from the filter thread.  The returned entries may be read from other threads
+ * until the next update.
+ */
+class SearchIndex<T>
+{
+	/**
+	 * Below this many items, <code>contains</code> on every name is cheaper
+	 * than keeping postings
+	 */
+	private static final int MIN_INDEXED_ENTRIES = 256;
+
+	private static final int MIN_BUCKETS = 1 << 8;
+
+	private static final int MAX_BUCKETS = 1 << 16;
+
+	/**
+	 * Check for items not seen in this many passes, and drop them
+	 */
+	private static final int PRUNE_EVERY_PASSES = 32;
+
+	static final class Entry
+	{
+		String raw;
+
+		@NonNull
+		String upper = "";
+
+		int id;
+
+		/**
+		 * Distinct letter bar keys of {@link #upper}, for when there's no
+		 * constraint.  Valid when {@link #lettersStamp} matches the filter's
+		 */
+		String[] letters;
+
+		int lettersStamp;
+
+		int seenPass;
+	}
+
+	interface NameGetter<T>
+	{
+		@Nullable
+		String getName(T item);
+	}
+
+	private final HashMap<T, Entry> mapEntries = new HashMap<>();
+
+	/** null until there are enough items to index */
+	private int[][] buckets;
+
+	private int[] bucketSizes;
+
+	private int nextID;
+
+	private int pass;
+
+	/** Number of renames since postings were last rebuilt */
+	private int numRenames;
+
+	/**
+	 * @return An entry for each item, in the same order.  null for items that
+	 * have no string to constrain
+	 */
+	@WorkerThread
+	@NonNull
+	Entry[] update(@NonNull LetterFilter<?> filter, @NonNull List<T> items,
+			@NonNull NameGetter<T> nameGetter) {
+		pass++;
+		int size = items.size();
+		Entry[] entries = new Entry[size];
+		for (int i = 0; i < size; i++) {
+			if ((i & 0x3FF) == 0x3FF) {
+				filter.checkFilterCancelled();
+			}
+			T item = items.get(i);
+			String raw = nameGetter.getName(item);
+			if (raw == null) {
+				continue;
+			}
+			Entry entry = mapEntries.get(item);
+			if (entry == null) {
+				entry = new Entry();
+				entry.id = nextID++;
+				mapEntries.put(item, entry);
+				setName(entry, raw);
+			} else if (!raw.equals(entry.raw)) {
+				numRenames++;
+				setName(entry, raw);
+			}
+			entry.seenPass = pass;
+			entries[i] = entry;
+		}
+
+		if (pass % PRUNE_EVERY_PASSES == 0) {
+			prune();
+		}
+		// Grow as items are added; shrinking waits for prune
+		if (getNumBuckets(mapEntries.size()) > (buckets == null ? 0
+				: buckets.length)) {
+			rebuildPostings();
+		}
+		return entries;
+	}
+
+	/**
+	 * @return IDs of entries that may contain <code>constraintUpper</code>, or
+	 * null if it's too short to narrow down
+	 */
+	@Nullable
+	BitSet getCandidates(@NonNull String constraintUpper) {
+		int len = constraintUpper.length();
+		if (len < 3 || buckets == null) {
+			return null;
+		}
+		int smallest = -1;
+		for (int i = 0; i <= len - 3; i++) {
+			int bucket = getBucket(constraintUpper, i);
+			if (buckets[bucket] == null) {
+				// No name has this trigram
+				return new BitSet();
+			}
+			if (smallest < 0 || bucketSizes[bucket] < bucketSizes[smallest]) {
+				smallest = bucket;
+			}
+		}
+		int[] ids = buckets[smallest];
+		BitSet candidates = new BitSet(nextID);
+		for (int i = 0, num = bucketSizes[smallest]; i < num; i++) {
+			candidates.set(ids[i]);
+		}
+		return candidates;
+	}
+
+	int size() {
+		return mapEntries.size();
+	}
+
+	private void setName(@NonNull Entry entry, @NonNull String raw) {
+		entry.raw = raw;
+		entry.upper = raw.toUpperCase(Locale.US);
+		entry.letters = null;
+		if (buckets != null) {
+			addPostings(entry);
+		}
+	}
+
+	private void addPostings(@NonNull Entry entry) {
+		String upper = entry.upper;
+		int id = entry.id;
+		for (int i = 0, len = upper.length(); i <= len - 3; i++) {
+			int bucket = getBucket(upper, i);
+			int[] ids = buckets[bucket];
+			int num = bucketSizes[bucket];
+			if (ids == null) {
+				ids = new int[4];
+				buckets[bucket] = ids;
+			} else if (ids[num - 1] == id) {
+				// Same trigram (or bucket) earlier in this name
+				continue;
+			} else if (num == ids.length) {
+				ids = Arrays.copyOf(ids, num * 2);
+				buckets[bucket] = ids;
+			}
+			ids[num] = id;
+			bucketSizes[bucket] = num + 1;
+		}
+	}
+
+	/**
+	 * Drops entries not seen recently, and rebuilds postings without them or
+	 * stale postings of renamed entries
+	 */
+	private void prune() {
+		int minPass = pass - PRUNE_EVERY_PASSES;
+		boolean removedAny = false;
+		for (Iterator<Entry> iter = mapEntries.values().iterator(); iter.hasNext();) {
+			if (iter.next().seenPass <= minPass) {
+				iter.remove();
+				removedAny = true;
+			}
+		}
+		if (!removedAny && numRenames <= mapEntries.size() / 4) {
+			return;
+		}
+		nextID = 0;
+		for (Entry entry : mapEntries.values()) {
+			entry.id = nextID++;
+		}
+		rebuildPostings();
+	}
+
+	/**
+	 * Rebuilds postings with buckets sized to the current item count, or drops
+	 * them when there are too few items to need them
+	 */
+	private void rebuildPostings() {
+		numRenames = 0;
+		int numBuckets = getNumBuckets(mapEntries.size());
+		if (numBuckets == 0) {
+			buckets = null;
+			bucketSizes = null;
+			return;
+		}
+		buckets = new int[numBuckets][];
+		bucketSizes = new int[numBuckets];
+		for (Entry entry : mapEntries.values()) {
+			addPostings(entry);
+		}
+	}
+
+	/**
+	 * @return Power of two bucket count for <code>numEntries</code>, or 0 if
+	 * they shouldn't be indexed
+	 */
+	private static int getNumBuckets(int numEntries) {
+		if (numEntries < MIN_INDEXED_ENTRIES) {
+			return 0;
+		}
+		int numBuckets = Integer.highestOneBit(numEntries - 1) << 1;
+		return Math.max(MIN_BUCKETS, Math.min(MAX_BUCKETS, numBuckets));
+	}
+
+	private int getBucket(@NonNull String s, int pos) {
+		int h = s.charAt(pos) * 0x9E3779B1 ^ s.charAt(pos + 1) * 0x85EBCA77
+				^ s.charAt(pos + 2) * 0xC2B2AE3D;
+		h ^= h >>> 16;
+		return h & (buckets.length - 1);
+	}
+}
@@ -40,6 +40,11 @@ public abstract class SortableRecyclerAdapter<ADAPTERTYPE extends SortableRecycl
 
 	private DelayedFilter.PerformingFilteringListener performingFilteringListener;
 
+	/** Sort of the items last passed to the diff */
+	private SortDefinition lastDiffSortDefinition;
+
+	private boolean lastDiffSortAsc;
+
 	public SortableRecyclerAdapter(String TAG,
 			FlexibleRecyclerSelectionListener<ADAPTERTYPE, VH, T> rs) {
 		super(TAG, rs);
@@ -113,6 +118,25 @@ public abstract class SortableRecyclerAdapter<ADAPTERTYPE extends SortableRecycl
 		getFilter().setSortDefinition(sortDefinition, isAsc);
 	}
 
+	/**
+	 * Only look for moves after the sort changes.  Rows that move because
+	 * their sort key changed show up as a remove and an insert instead.
+	 */
+	@Override
+	protected boolean shouldDetectMoves() {
+		ComparatorMapFields<T> sorter = getSorter();
+		if (sorter == null) {
+			return true;
+		}
+		SortDefinition sortDefinition = sorter.getSortDefinition();
+		boolean isAsc = sorter.isAsc();
+		boolean sortChanged = sortDefinition != lastDiffSortDefinition
+				|| isAsc != lastDiffSortAsc;
+		lastDiffSortDefinition = sortDefinition;
+		lastDiffSortAsc = isAsc;
+		return sortChanged;
+	}
+
 	@Override
 	public void performingFilteringChanged(
 			@DelayedFilter.FilterState int filterState,
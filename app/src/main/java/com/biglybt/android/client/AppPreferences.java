@@ -36,6 +36,8 @@ import androidx.fragment.app.FragmentActivity;
 
 import com.biglybt.android.client.AppCompatActivityM.PermissionRequestResults;
 import com.biglybt.android.client.AppCompatActivityM.PermissionResultHandler;
+import com.biglybt.android.client.session.FileNameIndex;
+import com.biglybt.android.client.session.RcmResultsCache;
 import com.biglybt.android.client.session.RemoteProfile;
 import com.biglybt.android.client.session.RemoteProfileFactory;
 import com.biglybt.android.util.*;
@@ -455,6 +457,9 @@ public class AppPreferences
 				savePrefs();
 			}
 
+			RcmResultsCache.delete(profileID);
+			FileNameIndex.delete(profileID);
+
 			if (mapRemote instanceof Map) {
 				RemoteProfile rp = RemoteProfileFactory.create((Map) mapRemote);
 				AnalyticsTracker.getInstance().sendEvent(AnalyticsTracker.CAT_PROFILE,
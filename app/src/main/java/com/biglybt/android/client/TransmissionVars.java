@@ -522,6 +522,9 @@ public class TransmissionVars
 
 	public static final String FIELD_SUBSCRIPTION_RESULTS = "results";
 
+	/** Server time of a paged results reply.  Pass back as "results-since" */
+	public static final String FIELD_SUBSCRIPTION_RESULTS_TIMESTAMP = "results-timestamp";
+
 	public static final String FIELD_SUBSCRIPTION_ENGINE = "engine";
 
 	public static final String FIELD_SUBSCRIPTION_ENGINE_URL = "url";
@@ -709,6 +712,12 @@ public class TransmissionVars
 	public static final String ARG_IDS = "ids";
 
 	public static final String ARG_FIELDS = "fields";
+
+	public static final String ARG_SUBSCRIPTION_RESULTS_OFFSET = "results-offset";
+
+	public static final String ARG_SUBSCRIPTION_RESULTS_LIMIT = "results-limit";
+
+	public static final String ARG_SUBSCRIPTION_RESULTS_SINCE = "results-since";
 	//////////////////////////////////////////////////////////////////////////////
 
 	public static long convertVuzePriority(int priority) {
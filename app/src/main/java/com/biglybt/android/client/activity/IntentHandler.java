@@ -29,6 +29,7 @@ import com.biglybt.android.client.dialog.DialogFragmentGenericRemoteProfile.Gene
 import com.biglybt.android.client.fragment.ProfileSelectorFragment;
 import com.biglybt.android.client.session.RemoteProfile;
 import com.biglybt.android.client.session.RemoteProfileFactory;
+import com.biglybt.android.client.session.SessionMonitor;
 
 /**
  * Profile Selector screen and Main Intent
@@ -55,6 +56,7 @@ public class IntentHandler
 
 	private void handleIntent(Intent intent) {
 		OffThread.runOffUIThread(() -> {
+			SessionMonitor.startMonitoringEnabledRemotes();
 			boolean handled = handleIntent2(intent);
 			if (!handled) {
 				// .commit will send it over to UI thread for us
@@ -246,7 +246,18 @@ public class MetaSearchActivity
 			@Override
 			public List<String> getSearchResultList() {
 				return searchResult == null ? new ArrayList<>()
-						: new ArrayList<>(searchResult.mapResults.keySet());
+						: searchResult.getResultHashes();
+			}
+
+			@Override
+			public long getSearchResultsVersion() {
+				return searchResult == null ? -1 : searchResult.getDataVersion();
+			}
+
+			@Override
+			public List<String> getSearchResultsChangedSince(long version) {
+				return searchResult == null ? null
+						: searchResult.getChangedResultsSince(version);
 			}
 
 			@Override
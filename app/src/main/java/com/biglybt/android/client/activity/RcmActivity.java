@@ -38,6 +38,7 @@ import com.biglybt.android.client.adapter.RcmAdapterFilter;
 import com.biglybt.android.client.dialog.*;
 import com.biglybt.android.client.dialog.DialogFragmentNumberPicker.NumberPickerBuilder;
 import com.biglybt.android.client.rpc.RPCSupports;
+import com.biglybt.android.client.session.RcmResultsCache;
 import com.biglybt.android.client.session.RefreshTriggerListener;
 import com.biglybt.android.client.session.RemoteProfile;
 import com.biglybt.android.client.session.Session_RCM;
@@ -609,7 +610,7 @@ public class RcmActivity
 
 					if (enabled) {
 						if (mapResults.isEmpty()) {
-							OffThread.runOnUIThread(() -> triggerRefresh());
+							loadCachedThenRefresh();
 						}
 						AnalyticsTracker.getInstance().sendEvent("RCM", "Show", null, null);
 					} else {
@@ -713,6 +714,31 @@ public class RcmActivity
 		});
 	}
 
+	/**
+	 * Shows results cached from previous visits, then asks the server only for
+	 * entries newer than them
+	 */
+	@WorkerThread
+	@Thunk
+	void loadCachedThenRefresh() {
+		RcmResultsCache cache = session.rcm.getCache();
+		List<Map<?, ?>> listCached = cache.getList();
+		long cachedUntil = cache.getGotUntil();
+		OffThread.runOnUIThread(() -> {
+			if (isFinishing()) {
+				return;
+			}
+			if (!listCached.isEmpty() && mapResults.isEmpty()) {
+				if (AndroidUtils.DEBUG) {
+					Log.d(TAG, "Using " + listCached.size() + " cached results");
+				}
+				updateList(listCached);
+				rcmGotUntil = cachedUntil + 1;
+			}
+			triggerRefresh();
+		});
+	}
+
 	@Override
 	public void triggerRefresh() {
 		if (!enabled) {
@@ -778,19 +804,6 @@ public class RcmActivity
 					}
 
 				}
-				List listTags = MapUtils.getMapList(mapRCM,
-						TransmissionVars.FIELD_RCM_TAGS, null);
-				if (listTags != null && listTags.size() > 0) {
-					Iterator iterator = listTags.iterator();
-					while (iterator.hasNext()) {
-						Object o = iterator.next();
-
-						if ("_i2p_".equals(o)) {
-							iterator.remove();
-							break;
-						}
-					}
-				}
 			}
 		}
 
@@ -93,6 +93,11 @@ public class SubscriptionResultsActivity
 
 	private static final String SAVESTATE_LIST_NAME = "listName";
 
+	/**
+	 * Next page of results is requested when scrolled this close to the end
+	 */
+	private static final int LOAD_MORE_THRESHOLD = 20;
+
 	/**
 	 * <HashString, Map of Fields>
 	 */
@@ -313,6 +318,21 @@ public class SubscriptionResultsActivity
 		lvResults.setAdapter(subscriptionResultsAdapter);
 		PreCachingLayoutManager layoutManager = new PreCachingLayoutManager(this);
 		lvResults.setLayoutManager(layoutManager);
+		lvResults.addOnScrollListener(new RecyclerView.OnScrollListener() {
+			@Override
+			public void onScrolled(@NonNull RecyclerView recyclerView, int dx,
+					int dy) {
+				if (dy <= 0
+						|| !session.subscription.hasMoreResults(subscriptionID)) {
+					return;
+				}
+				int lastPos = layoutManager.findLastVisibleItemPosition();
+				if (lastPos >= subscriptionResultsAdapter.getItemCount()
+						- LOAD_MORE_THRESHOLD) {
+					session.subscription.loadMoreResults(subscriptionID);
+				}
+			}
+		});
 
 		if (AndroidUtils.isTV(this)) {
 			if (lvResults instanceof FastScrollRecyclerView) {
@@ -417,19 +437,11 @@ public class SubscriptionResultsActivity
 		}
 
 		if (itemId == R.id.action_mark_all_seen) {
-			List<String> items = new ArrayList<>();
-			for (Map sub : mapResults.values()) {
-				boolean isSeen = MapUtils.getMapBoolean(sub,
-						TransmissionVars.FIELD_SUBSCRIPTION_RESULT_ISREAD, false);
-				if (!isSeen) {
-					sub.put(TransmissionVars.FIELD_SUBSCRIPTION_RESULT_ISREAD, true);
-					items.add(MapUtils.getMapString(sub,
-							TransmissionVars.FIELD_SUBSCRIPTION_RESULT_ID, ""));
-				}
-			}
-			subscriptionResultsAdapter.notifyDataSetInvalidated();
-
+			List<String> items = session.subscription.getResults(
+					subscriptionID).getUnreadIDs();
+			// Marks our copies read right away
 			session.subscription.setResultRead(subscriptionID, items, true);
+			subscriptionResultsAdapter.notifyDataSetInvalidated();
 			return true;
 		}
 		if (itemId == R.id.action_auto_download) {
@@ -802,51 +814,42 @@ public class SubscriptionResultsActivity
 
 		listName = MapUtils.getMapString(mapSubscription,
 				TransmissionVars.FIELD_SUBSCRIPTION_NAME, "");
-		List listResults = MapUtils.getMapList(mapSubscription,
-				TransmissionVars.FIELD_SUBSCRIPTION_RESULTS, null);
-
-		if (listResults != null) {
-			numNew = 0;
-			for (Object oResult : listResults) {
-				if (!(oResult instanceof Map)) {
-					if (AndroidUtils.DEBUG) {
-						Log.d(TAG, "rpcSubscriptionListReceived: NOT A MAP: " + oResult);
-					}
-					continue;
-				}
+		SubscriptionResults results = session.subscription.getResults(
+				subscriptionID);
 
-				@SuppressWarnings("unchecked")
-				Map<String, Object> mapResult = fixupResultMap(
-						(Map<String, Object>) oResult);
+		if (!results.isLoaded()) {
+			// Keep results restored from saved state until we have the server's
+			return;
+		}
 
-				long size = MapUtils.getMapLong(mapResult,
-						TransmissionVars.FIELD_SEARCHRESULT_SIZE, 0);
-				if (size > maxSize) {
-					maxSize = size;
-				}
+		numNew = results.getUnreadCount();
+		Set<String> hashes = new HashSet<>();
+		for (Map<String, Object> oResult : results.getList()) {
+			Map<String, Object> mapResult = fixupResultMap(oResult);
 
-				String hash = MapUtils.getMapString(mapResult,
-						TransmissionVars.FIELD_SUBSCRIPTION_RESULT_ID, null);
-				if (hash != null) {
-					mapResults.put(hash, mapResult);
-				} else {
-					if (AndroidUtils.DEBUG) {
-						Log.d(TAG, "rpcSubscriptionListReceived: No hash for " + mapResult);
-					}
-				}
+			long size = MapUtils.getMapLong(mapResult,
+					TransmissionVars.FIELD_SEARCHRESULT_SIZE, 0);
+			if (size > maxSize) {
+				maxSize = size;
+			}
 
-				boolean isRead = MapUtils.getMapBoolean(mapResult,
-						TransmissionVars.FIELD_SUBSCRIPTION_RESULT_ISREAD, false);
-				if (!isRead) {
-					numNew++;
+			String hash = MapUtils.getMapString(mapResult,
+					TransmissionVars.FIELD_SUBSCRIPTION_RESULT_ID, null);
+			if (hash != null) {
+				mapResults.put(hash, mapResult);
+				hashes.add(hash);
+			} else {
+				if (AndroidUtils.DEBUG) {
+					Log.d(TAG, "rpcSubscriptionListReceived: No hash for " + mapResult);
 				}
 			}
-
-			runOnUiThread(
-					() -> subscriptionResultsAdapter.getFilter().refilter(false));
-
 		}
+		// Results removed on the server, or dropped when loaded results were
+		// replaced with the first page
+		mapResults.keySet().retainAll(hashes);
 
+		runOnUiThread(
+				() -> subscriptionResultsAdapter.getFilter().refilter(false));
 	}
 
 	@Override
@@ -1221,7 +1224,17 @@ public class SubscriptionResultsActivity
 			Spanned span = AndroidUtils.fromHTML(s);
 
 			if (tvDrawerFilter != null) {
-				tvDrawerFilter.setText(span);
+				SubscriptionResults results = session.subscription.getResults(
+						subscriptionID);
+				if (results.hasMore()) {
+					String partial = getResources().getString(
+							R.string.subscription_results_partial,
+							DisplayFormatters.formatNumber(results.size()),
+							DisplayFormatters.formatNumber(results.getTotalCount()));
+					tvDrawerFilter.setText(AndroidUtils.fromHTML(s + "<br>" + partial));
+				} else {
+					tvDrawerFilter.setText(span);
+				}
 			}
 
 			if (tvHeader != null) {
@@ -22,7 +22,8 @@ import androidx.annotation.Nullable;
 import com.biglybt.android.client.TransmissionVars;
 import com.biglybt.android.client.session.Session;
 
-import java.util.*;
+import java.util.HashMap;
+import java.util.Map;
 
 public class FilesAdapterItemFolder
 	extends FilesAdapterItem
@@ -38,10 +39,10 @@ public class FilesAdapterItemFolder
 	public int numFilesFilteredWanted;
 
 	@NonNull
-	private final List<Integer> fileIndexes = new ArrayList<>();
+	private int[] fileIndexes = new int[0];
 
 	@NonNull
-	private final List<Integer> filteredFileIndexes = new ArrayList<>();
+	private int[] filteredFileIndexes = new int[0];
 
 	public long size;
 
@@ -49,6 +50,9 @@ public class FilesAdapterItemFolder
 
 	public long sizeWantedFiltered;
 
+	/** Bytes downloaded of wanted files */
+	public long bytesCompleteWanted;
+
 	@NonNull
 	public final String folder;
 
@@ -71,49 +75,37 @@ public class FilesAdapterItemFolder
 		return parent == null || parent.expand && parent.parentsExpanded();
 	}
 
-	void summarizeFile(int index, long length, boolean wanted, boolean allowed) {
-		size += length;
-		fileIndexes.add(index);
-		if (allowed) {
-			filteredFileIndexes.add(index);
-		}
-		if (wanted) {
-			sizeWanted += length;
-			numFilesWanted++;
-			if (allowed) {
-				numFilesFilteredWanted++;
-				sizeWantedFiltered += length;
-			}
-		}
-		if (parent != null) {
-			parent.summarizeFile(index, length, wanted, allowed);
-		}
+	/**
+	 * Sets totals from the filter's folder tree.  Index arrays are shared with
+	 * the tree and must not be modified.
+	 */
+	void setSummary(@NonNull FilesTreeStructure tree, int folder) {
+		size = tree.getSize(folder);
+		sizeWanted = tree.getSizeWanted(folder);
+		sizeWantedFiltered = tree.getSizeWantedFiltered(folder);
+		bytesCompleteWanted = tree.getBytesCompleteWanted(folder);
+		numFilesWanted = tree.getNumFilesWanted(folder);
+		numFilesFilteredWanted = tree.getNumFilesFilteredWanted(folder);
+		fileIndexes = tree.getFileIndexes(folder);
+		filteredFileIndexes = tree.getFilteredFileIndexes(folder);
 	}
 
 	public int getNumFiles() {
-		return fileIndexes.size();
+		return fileIndexes.length;
 	}
 
 	@NonNull
 	public int[] getFileIndexes() {
-		int[] indexesArray = new int[fileIndexes.size()];
-		for (int i = 0; i < fileIndexes.size(); i++) {
-			indexesArray[i] = fileIndexes.get(i);
-		}
-		return indexesArray;
+		return fileIndexes.clone();
 	}
 
 	public int getNumFilteredFiles() {
-		return filteredFileIndexes.size();
+		return filteredFileIndexes.length;
 	}
 
 	@NonNull
 	public int[] getFilteredFileIndexes() {
-		int[] indexesArray = new int[filteredFileIndexes.size()];
-		for (int i = 0; i < filteredFileIndexes.size(); i++) {
-			indexesArray[i] = filteredFileIndexes.get(i);
-		}
-		return indexesArray;
+		return filteredFileIndexes.clone();
 	}
 
 	@Override
@@ -71,8 +71,6 @@ public class FilesTreeFilter
 
 	private static final String ID_SORT_FILTER = "-files";
 
-	private static final long MAX_REFRESHSECTOINS_MS = 500;
-
 	private static final int SORTID_TREE = 0;
 
 	private static final int SORTID_NAME = 1;
@@ -92,7 +90,7 @@ public class FilesTreeFilter
 	String[] sections;
 
 	@Thunk
-	List<Integer> sectionStarts;
+	int[] sectionStarts;
 
 	@Thunk
 	final Object mLock = new Object();
@@ -113,6 +111,56 @@ public class FilesTreeFilter
 	@Thunk
 	Map<String, Object>[] files = null;
 
+	/** Only accessed from filter thread */
+	private FilesTreeStructure treeStructure;
+
+	/**
+	 * Section name of each file index, computed the first time the file starts
+	 * a section.  Only accessed from filter thread.
+	 */
+	private String[] fileSectionNames;
+
+	/**
+	 * File name each {@link #fileSectionNames} entry was built from, so a
+	 * renamed file gets a new one.  Only accessed from filter thread.
+	 */
+	private String[] fileSectionSourceNames;
+
+	/**
+	 * Length of the file name prefix shared by files in the section started by
+	 * the file index.  Only accessed from filter thread.
+	 */
+	private int[] fileSectionPrefixLengths;
+
+	/** File names seen by the last non-tree pass.  Filter thread only. */
+	private String[] nonTreeFileNames;
+
+	/**
+	 * Set by this pass's filtering if file names differ from the last pass of
+	 * the same mode.  Filter thread only.
+	 */
+	private boolean fileNamesChanged = true;
+
+	/**
+	 * Hash of the files and folders in this pass's list, in the order they
+	 * were added.  With the same names and sort, the same hash means the same
+	 * sorted list.  Filter thread only.
+	 */
+	private long listShapeHash;
+
+	/** What the last sections were built from.  Filter thread only. */
+	private int lastSectionsSortID = -1;
+
+	private boolean lastSectionsAsc;
+
+	private long lastSectionsShapeHash;
+
+	private int lastSectionsListSize = -1;
+
+	private String[] lastSections;
+
+	private int[] lastSectionStarts;
+
 	private long sizeStart = -1;
 
 	private long sizeEnd = -1;
@@ -236,13 +284,28 @@ public class FilesTreeFilter
 		List<FilesAdapterItem> list = new ArrayList<>();
 		int listFilesSize = listFiles.size();
 
-		HashSet<String> setLetters = null;
-		HashMap<String, Integer> mapLetterCount = null;
-		if (isBuildLetters()) {
-			setLetters = new HashSet<>();
-			mapLetterCount = new HashMap<>();
+		HashMap<String, Integer> mapLetterCount = isBuildLetters()
+				? new HashMap<>() : null;
+
+		String[] names = new String[listFilesSize];
+		boolean[] eligible = new boolean[listFilesSize];
+		String[] lastNames = nonTreeFileNames;
+		boolean namesChanged = lastNames == null
+				|| lastNames.length != listFilesSize;
+		for (int i = 0; i < listFilesSize; i++) {
+			Map<?, ?> mapFile = (Map<?, ?>) listFiles.get(i);
+			names[i] = MapUtils.getMapString(mapFile,
+					TransmissionVars.FIELD_FILES_NAME, "");
+			if (!namesChanged && !names[i].equals(lastNames[i])) {
+				namesChanged = true;
+			}
+			eligible[i] = filterCheck(mapFile);
 		}
-		String constraintString = constraint == null ? "" : constraint.toString();
+		nonTreeFileNames = names;
+		fileNamesChanged = namesChanged;
+		long shapeHash = 0;
+		boolean[] matches = constraintCheck(constraint, names, eligible,
+				mapLetterCount);
 
 		for (int i = 0; i < listFilesSize; i++) {
 			@SuppressWarnings("unchecked")
@@ -253,12 +316,10 @@ public class FilesTreeFilter
 			long length = MapUtils.getMapLong(mapFile,
 					TransmissionVars.FIELD_FILES_LENGTH, 0);
 
-			String shortName = MapUtils.getMapString(mapFile,
-					TransmissionVars.FIELD_FILES_NAME, "");
+			String shortName = names[i];
 			String path = "";
 
-			boolean allowed = filterCheck(mapFile) && constraintCheck(
-					constraintString, shortName, setLetters, mapLetterCount);
+			boolean allowed = matches[i];
 
 			if (allowed) {
 				FilesAdapterItemFile f = Build.VERSION.SDK_INT >= 19
@@ -267,6 +328,7 @@ public class FilesTreeFilter
 						: new FilesAdapterItemFile(i, null, path, shortName, wanted,
 								mapFile);
 				list.add(f);
+				shapeHash = shapeHash * 1000003 + i + 1;
 				totalFilteredNumFiles++;
 			}
 
@@ -288,6 +350,7 @@ public class FilesTreeFilter
 
 		map.put(RESULTFIELD_TOTAL_SIZE_WANTED, totalSizeWanted);
 		map.put(RESULTFIELD_TOTAL_NUM_FILES_WANTED, totalNumFilesWanted);
+		listShapeHash = shapeHash;
 
 		if (mapLetterCount != null) {
 			LettersUpdatedListener lettersUpdatedListener = getLettersUpdatedListener();
@@ -308,20 +371,31 @@ public class FilesTreeFilter
 		int totalFilteredNumFilesWanted = 0;
 		int totalFilteredNumFiles = 0;
 
+		FilesTreeStructure tree = FilesTreeStructure.getOrBuild(treeStructure,
+				listFiles);
+		// A reused structure matched every file name
+		fileNamesChanged = tree != treeStructure;
+		treeStructure = tree;
+		long shapeHash = 0;
+
 		List<FilesAdapterItem> list = new ArrayList<>();
-		int listFilesSize = listFiles.size();
+		int listFilesSize = tree.numFiles;
 
-		Map<String, FilesAdapterItemFolder> mapFoldersNew = new HashMap<>();
+		HashMap<String, Integer> mapLetterCount = isBuildLetters()
+				? new HashMap<>() : null;
 
-		HashSet<String> setLetters = null;
-		HashMap<String, Integer> mapLetterCount = null;
-		if (isBuildLetters()) {
-			setLetters = new HashSet<>();
-			mapLetterCount = new HashMap<>();
+		boolean[] eligible = new boolean[listFilesSize];
+		for (int i = 0; i < listFilesSize; i++) {
+			eligible[i] = filterCheck((Map<?, ?>) listFiles.get(i));
 		}
-		String constraintString = constraint == null ? "" : constraint.toString();
+		boolean[] fileAllowed = constraintCheck(constraint, tree.shortNames,
+				eligible, mapLetterCount);
 
+		boolean[] fileWanted = new boolean[listFilesSize];
 		for (int i = 0; i < listFilesSize; i++) {
+			if ((i & 0x3FF) == 0x3FF) {
+				checkFilterCancelled();
+			}
 			@SuppressWarnings("unchecked")
 			Map<String, Object> mapFile = (Map<String, Object>) listFiles.get(i);
 
@@ -329,63 +403,49 @@ public class FilesTreeFilter
 					TransmissionVars.FIELD_FILESTATS_WANTED, true);
 			long length = MapUtils.getMapLong(mapFile,
 					TransmissionVars.FIELD_FILES_LENGTH, 0);
-			String name = MapUtils.getMapString(mapFile,
-					TransmissionVars.FIELD_FILES_NAME, "");
-
-			// Get the folder name and see if we added it yet
-			int folderBreaksAt = AndroidUtils.lastindexOfAny(name,
-					TorrentUtils.ANYSLASH, -1);
-			String folderWithSlash = folderBreaksAt <= 0 ? ""
-					: name.substring(0, folderBreaksAt + 1);
-			FilesAdapterItemFolder folderItem = ensureParentFolders(folderWithSlash,
-					mapFoldersNew, mapFolders, list);
-
-			String shortName = name.substring(folderWithSlash.length());
+			long bytesComplete = MapUtils.getMapLong(mapFile,
+					TransmissionVars.FIELD_FILESTATS_BYTES_COMPLETED, 0);
 
-			boolean allowed = filterCheck(mapFile) && constraintCheck(
-					constraintString, shortName, setLetters, mapLetterCount);
-
-			boolean addFile = false;
+			fileWanted[i] = wanted;
+			tree.updateFile(i, length, bytesComplete, wanted, fileAllowed[i]);
+		}
 
-			if (folderItem == null) {
-				// probably root
-				if (allowed) {
-					addFile = true;
-					totalFilteredNumFiles++;
-				}
-				if (folderWithSlash.length() == 0) {
-					if (wanted) {
-						if (allowed) {
-							totalFilteredNumFilesWanted++;
-							totalFilteredSizeWanted += length;
-						} else {
-							totalNumFilesWanted++;
-							totalSizeWanted += length;
-						}
-					}
+		// Root files: wanted ones count towards filtered or unfiltered totals
+		long rootSizeWantedFiltered = tree.getRootSizeWantedFiltered();
+		int rootNumFilesFilteredWanted = tree.getRootNumFilesFilteredWanted();
+		totalFilteredNumFiles += tree.getRootNumFilteredFiles();
+		totalFilteredNumFilesWanted += rootNumFilesFilteredWanted;
+		totalFilteredSizeWanted += rootSizeWantedFiltered;
+		totalNumFilesWanted += tree.getRootNumFilesWanted()
+				- rootNumFilesFilteredWanted;
+		totalSizeWanted += tree.getRootSizeWanted() - rootSizeWantedFiltered;
+
+		// Folder items are snapshots of the tree's totals, so the list being
+		// displayed isn't modified while we build the next one
+		int numFolders = tree.numFolders;
+		FilesAdapterItemFolder[] folderItems = new FilesAdapterItemFolder[numFolders];
+		boolean[] showChildren = new boolean[numFolders];
+		Map<String, FilesAdapterItemFolder> mapFoldersNew = new HashMap<>();
+		for (int f = 0; f < numFolders; f++) {
+			int parentIndex = tree.folderParent[f];
+			FilesAdapterItemFolder parent = parentIndex < 0 ? null
+					: folderItems[parentIndex];
+			String folderWalk = tree.folderWalks[f];
+			FilesAdapterItemFolder folderItem = new FilesAdapterItemFolder(
+					folderWalk, parent, tree.folderPathOnly[f], tree.folderNames[f]);
+			if (mapFolders != null) {
+				FilesAdapterItemFolder oldFolder = mapFolders.get(folderWalk);
+				if (oldFolder != null) {
+					folderItem.expand = oldFolder.expand;
 				}
-			} else {
-				folderItem.summarizeFile(i, length, wanted, allowed);
-				addFile = allowed && folderItem.expand && folderItem.parentsExpanded();
 			}
+			folderItem.setSummary(tree, f);
+			folderItems[f] = folderItem;
+			mapFoldersNew.put(folderWalk, folderItem);
 
-			if (addFile) {
-				FilesAdapterItemFile f = Build.VERSION.SDK_INT >= 19
-						? new FilesAdapterItemFile19(i, folderItem, folderWithSlash,
-								shortName, wanted, mapFile)
-						: new FilesAdapterItemFile(i, folderItem, folderWithSlash,
-								shortName, wanted, mapFile);
-				list.add(f);
-			}
-		}
+			boolean parentsExpanded = parentIndex < 0 || showChildren[parentIndex];
+			showChildren[f] = parentsExpanded && folderItem.expand;
 
-		// calculate global totals
-		// remove empty folders
-		for (String key : mapFoldersNew.keySet()) {
-			FilesAdapterItemFolder folderItem = mapFoldersNew.get(key);
-			if (folderItem == null) {
-				continue;
-			}
 			if (folderItem.level == 0) {
 				totalFilteredSizeWanted += folderItem.sizeWantedFiltered;
 				totalFilteredNumFilesWanted += folderItem.numFilesFilteredWanted;
@@ -394,10 +454,33 @@ public class FilesTreeFilter
 				totalSizeWanted += folderItem.sizeWanted;
 				totalNumFilesWanted += folderItem.numFilesWanted;
 			}
-			if (folderItem.getNumFilteredFiles() == 0) {
-				list.remove(folderItem);
+			if (parentsExpanded && folderItem.getNumFilteredFiles() > 0) {
+				list.add(folderItem);
+				shapeHash = shapeHash * 1000003 - f - 1;
+			}
+		}
+
+		for (int i = 0; i < listFilesSize; i++) {
+			if (!fileAllowed[i]) {
+				continue;
+			}
+			int folderIndex = tree.fileFolder[i];
+			if (folderIndex >= 0 && !showChildren[folderIndex]) {
+				continue;
 			}
+			FilesAdapterItemFolder folderItem = folderIndex < 0 ? null
+					: folderItems[folderIndex];
+			@SuppressWarnings("unchecked")
+			Map<String, Object> mapFile = (Map<String, Object>) listFiles.get(i);
+			FilesAdapterItemFile f = Build.VERSION.SDK_INT >= 19
+					? new FilesAdapterItemFile19(i, folderItem, tree.folderPaths[i],
+							tree.shortNames[i], fileWanted[i], mapFile)
+					: new FilesAdapterItemFile(i, folderItem, tree.folderPaths[i],
+							tree.shortNames[i], fileWanted[i], mapFile);
+			list.add(f);
+			shapeHash = shapeHash * 1000003 + i + 1;
 		}
+		listShapeHash = shapeHash;
 
 		map.put(RESULTFIELD_TOTAL_FILTERED_SIZE_WANTED, totalFilteredSizeWanted);
 		map.put(RESULTFIELD_TOTAL_FILTERED_NUM_FILES_WANTED,
@@ -419,57 +502,6 @@ public class FilesTreeFilter
 		return list;
 	}
 
-	private static FilesAdapterItemFolder ensureParentFolders(
-			String folderWithSlash, Map<String, FilesAdapterItemFolder> mapFoldersNew,
-			Map<String, FilesAdapterItemFolder> mapFolders,
-			List<FilesAdapterItem> list) {
-		if (folderWithSlash.isEmpty()) {
-			return null;
-		}
-		FilesAdapterItemFolder existing = mapFoldersNew.get(folderWithSlash);
-		if (existing != null) {
-			return existing;
-		}
-
-		// add folder and parents
-		String[] folderSplit = FilesTreeAdapter.patternFolderSplit.split(
-				folderWithSlash);
-		int startAt = folderSplit[0].length() == 0 ? 1 : 0;
-		int pos = startAt;
-		FilesAdapterItemFolder last = null;
-		for (int j = startAt; j < folderSplit.length; j++) {
-			int oldPos = pos;
-			pos += folderSplit[j].length() + 1;
-			String folderWalk = folderWithSlash.substring(0, pos);
-
-			existing = mapFoldersNew.get(folderWalk);
-			if (existing == null) {
-				String path = folderWithSlash.substring(0, oldPos);
-				String folderName = folderSplit[j];
-
-				FilesAdapterItemFolder displayFolder = new FilesAdapterItemFolder(
-						folderWalk, last, path, folderName);
-				last = displayFolder;
-//						Log.e(TAG, i + "." + j + "] " + folderName + "] " + folderWalk
-//								+ " for " + name);
-				if (mapFolders != null) {
-					FilesAdapterItemFolder oldFolder = mapFolders.get(folderWalk);
-					if (oldFolder != null) {
-						displayFolder.expand = oldFolder.expand;
-					}
-				}
-				mapFoldersNew.put(folderWalk, displayFolder);
-				if (displayFolder.getNumFiles() == 0
-						&& displayFolder.parentsExpanded()) {
-					list.add(displayFolder);
-				}
-			} else {
-				last = existing;
-			}
-		}
-		return last;
-	}
-
 	@SuppressWarnings({
 		"RedundantIfStatement",
 		"BooleanMethodIsAlwaysInverted"
@@ -516,7 +548,7 @@ public class FilesTreeFilter
 						RESULTFIELD_LIST);
 				synchronized (lockSections) {
 					sections = (String[]) map.get(RESULTFIELD_SECTIONS);
-					sectionStarts = (List<Integer>) map.get(RESULTFIELD_SECTION_STARTS);
+					sectionStarts = (int[]) map.get(RESULTFIELD_SECTION_STARTS);
 				}
 
 				totalFilteredSizeWanted = MapUtils.getMapLong(map,
@@ -542,97 +574,134 @@ public class FilesTreeFilter
 		return true;
 	}
 
-	@Thunk
-	static void refreshSections(@NonNull SortDefinition sortDefinition,
+	private void refreshSections(@NonNull SortDefinition sortDefinition,
 			Map torrent, List<FilesAdapterItem> displayList,
 			Map<String, Object> map) {
 
 		if (sortDefinition.id != SORTID_NAME && sortDefinition.id != SORTID_TREE) {
+			lastSectionsSortID = -1;
 			return;
 		}
 
-		List<String> categories = new ArrayList<>();
-		List<Integer> categoriesStart = new ArrayList<>();
-		String lastFullCat = " ";
 		List<?> listFiles = MapUtils.getMapList(torrent,
 				TransmissionVars.FIELD_TORRENT_FILES, null);
 
 		if (listFiles == null) {
+			lastSectionsSortID = -1;
 			return;
 		}
 
-		long startedOn = System.currentTimeMillis();
-		for (int i = 0, displayListSize = displayList.size(); i < displayListSize; i++) {
-			if ((i % 10) == 9) {
-				long timeDiff = System.currentTimeMillis() - startedOn;
-				if (timeDiff > MAX_REFRESHSECTOINS_MS) {
-					if (AndroidUtils.DEBUG_ADAPTER) {
-						Log.d(TAG, "refreshSections: Over " + MAX_REFRESHSECTOINS_MS
-								+ "ms. Processed " + i + " of " + displayList.size());
-					}
-					break;
-				}
-			}
+		// Sections only depend on the sorted list's files and their names, so
+		// when neither changed (a progress refresh), last pass's still apply
+		int displayListSize = displayList.size();
+		boolean isAsc = getSorter().isAsc();
+		if (!fileNamesChanged && sortDefinition.id == lastSectionsSortID
+				&& isAsc == lastSectionsAsc && listShapeHash == lastSectionsShapeHash
+				&& displayListSize == lastSectionsListSize) {
+			map.put(RESULTFIELD_SECTIONS, lastSections);
+			map.put(RESULTFIELD_SECTION_STARTS, lastSectionStarts);
+			return;
+		}
+
+		int numFiles = listFiles.size();
+		if (fileSectionNames == null || fileSectionNames.length != numFiles) {
+			fileSectionNames = new String[numFiles];
+			fileSectionSourceNames = new String[numFiles];
+			fileSectionPrefixLengths = new int[numFiles];
+		}
+
+		List<String> categories = new ArrayList<>();
+		int[] categoriesStart = new int[Math.min(displayListSize, 16)];
+		// Section's common prefix is the first sectionPrefixLength chars of
+		// sectionFileName
+		String sectionFileName = " ";
+		int sectionPrefixLength = 1;
+
+		for (int i = 0; i < displayListSize; i++) {
 			FilesAdapterItem displayObject = displayList.get(i);
-			if (displayObject instanceof FilesAdapterItemFolder) {
+			if (!(displayObject instanceof FilesAdapterItemFile)) {
 				continue;
 			}
-			Map<?, ?> mapFile = FilesTreeAdapter.getFileMap(displayObject, listFiles);
+			int fileIndex = ((FilesAdapterItemFile) displayObject).fileIndex;
+			Map<?, ?> mapFile = (Map<?, ?>) listFiles.get(fileIndex);
 			String name = MapUtils.getMapString(mapFile,
 					TransmissionVars.FIELD_FILES_NAME, "");
 			//.toUpperCase(Locale.US); adds a lot of time on large lists
-			if (!name.startsWith(lastFullCat)) {
-				final int MAX_CATS = 3;
-				String[] split = FilesTreeAdapter.patternFolderSplit.split(name,
-						MAX_CATS + 1);
-				String cat = "";
-				int count = 0;
-				int end = 0;
-				for (int j = 0; j < split.length; j++) {
-					if (j > 0) {
-						end++;
-					}
+			if (name.regionMatches(0, sectionFileName, 0, sectionPrefixLength)) {
+				continue;
+			}
 
-					String g = split[j];
-
-					if (g.length() > 0) {
-						if (cat.length() > 0) {
-							//noinspection StringConcatenationInLoop
-							cat += "/";
-						}
-						//noinspection StringConcatenationInLoop
-						cat += g.substring(0, 1);
-						count++;
-						if (count >= MAX_CATS || j == split.length - 1) {
-							end++;
-							break;
-						} else {
-							end += g.length();
-						}
-					}
-				}
-				lastFullCat = name.substring(0, end);
-				//Log.d(TAG, lastFullCat);
-				categories.add(cat);
-				categoriesStart.add(i);
+			String cat = fileSectionNames[fileIndex];
+			if (cat == null || !name.equals(fileSectionSourceNames[fileIndex])) {
+				cat = buildSectionName(name, fileIndex);
 			}
+			sectionFileName = name;
+			sectionPrefixLength = fileSectionPrefixLengths[fileIndex];
+
+			int numCategories = categories.size();
+			if (numCategories == categoriesStart.length) {
+				categoriesStart = Arrays.copyOf(categoriesStart, numCategories * 2);
+			}
+			categoriesStart[numCategories] = i;
+			categories.add(cat);
 		}
 
 		// We could split larger gaps into two sections with the same name
-		map.put(RESULTFIELD_SECTIONS, categories.toArray(new String[0]));
-		map.put(RESULTFIELD_SECTION_STARTS, categoriesStart);
-
-//		if (AndroidUtils.DEBUG_ADAPTER) {
-//			Log.d(TAG,
-//					"refreshSections: took " + (System.currentTimeMillis() - startedOn)
-//							+ "ms for " + displayList.size());
-//		}
+		lastSections = categories.toArray(new String[0]);
+		lastSectionStarts = Arrays.copyOf(categoriesStart, categories.size());
+		lastSectionsSortID = sortDefinition.id;
+		lastSectionsAsc = isAsc;
+		lastSectionsShapeHash = listShapeHash;
+		lastSectionsListSize = displayListSize;
+		map.put(RESULTFIELD_SECTIONS, lastSections);
+		map.put(RESULTFIELD_SECTION_STARTS, lastSectionStarts);
+
 		//if (AndroidUtils.DEBUG) {
 		//Log.d(TAG, "Sections: " + Arrays.toString(sections));
 		//Log.d(TAG, "SectionStarts: " + sectionStarts);
 		//}
 	}
 
+	/**
+	 * Builds the section name (first letter of up to 3 path parts) for a file
+	 * that starts a section, storing it and the length of the path prefix it
+	 * covers for next time.
+	 */
+	private String buildSectionName(@NonNull String name, int fileIndex) {
+		final int MAX_CATS = 3;
+		String[] split = FilesTreeAdapter.patternFolderSplit.split(name,
+				MAX_CATS + 1);
+		StringBuilder cat = new StringBuilder();
+		int count = 0;
+		int end = 0;
+		for (int j = 0; j < split.length; j++) {
+			if (j > 0) {
+				end++;
+			}
+
+			String g = split[j];
+
+			if (g.length() > 0) {
+				if (cat.length() > 0) {
+					cat.append('/');
+				}
+				cat.append(g.charAt(0));
+				count++;
+				if (count >= MAX_CATS || j == split.length - 1) {
+					end++;
+					break;
+				} else {
+					end += g.length();
+				}
+			}
+		}
+		String s = cat.toString();
+		fileSectionNames[fileIndex] = s;
+		fileSectionSourceNames[fileIndex] = name;
+		fileSectionPrefixLengths[fileIndex] = Math.min(end, name.length());
+		return s;
+	}
+
 	@Override
 	public Object[] getSections() {
 		if (AndroidUtils.DEBUG_ADAPTER) {
@@ -646,10 +715,10 @@ public class FilesTreeFilter
 	public int getPositionForSection(int sectionIndex) {
 		synchronized (lockSections) {
 			if (sectionIndex < 0 || sectionStarts == null
-					|| sectionIndex >= sectionStarts.size()) {
+					|| sectionIndex >= sectionStarts.length) {
 				return 0;
 			}
-			return sectionStarts.get(sectionIndex);
+			return sectionStarts[sectionIndex];
 		}
 	}
 
@@ -659,7 +728,7 @@ public class FilesTreeFilter
 			if (sectionStarts == null) {
 				return 0;
 			}
-			int i = Collections.binarySearch(sectionStarts, position);
+			int i = Arrays.binarySearch(sectionStarts, position);
 			if (i < 0) {
 				i = (-1 * i) - 2;
 			}
@@ -0,0 +1,446 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.TorrentUtils;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.FenwickTree;
+import com.biglybt.android.util.MapUtils;
+
+import java.util.*;
+
+/**
+ * Folder tree of a torrent's file list, built once per list of file names,
+ * plus per-folder totals kept up to date across filter passes.
+ * <p/>
+ * Files are laid out depth first, so every folder (with its sub folders)
+ * covers one contiguous range of positions.  Totals are kept in
+ * {@link FenwickTree}s over those positions, making a file update and a
+ * folder total both O(log n), regardless of folder depth.
+ * <p/>
+ * Each pass calls {@link #updateFile(int, long, long, boolean, boolean)} for
+ * every file.  Files whose state didn't change cost a few array compares.
+ * <p/>
+ * Only used from the filter thread.
+ */
+class FilesTreeStructure
+{
+	final int numFiles;
+
+	@NonNull
+	private final String[] names;
+
+	/** Name without folder, per file */
+	@NonNull
+	final String[] shortNames;
+
+	/** Folder including trailing slash, or "", per file */
+	@NonNull
+	final String[] folderPaths;
+
+	/** Index into {@link #folderWalks} of file's folder, or -1 for root */
+	@NonNull
+	final int[] fileFolder;
+
+	/** Position of each file in depth first order */
+	@NonNull
+	private final int[] filePosition;
+
+	/** File index at each position */
+	@NonNull
+	private final int[] positionFile;
+
+	/** First position of root files; they take up the rest */
+	private final int rootStart;
+
+	// Per folder, in creation order, parents before children
+
+	final int numFolders;
+
+	/** Folder path including trailing slash */
+	@NonNull
+	final String[] folderWalks;
+
+	/** Index of parent folder, or -1 */
+	@NonNull
+	final int[] folderParent;
+
+	/** Parent's path */
+	@NonNull
+	final String[] folderPathOnly;
+
+	@NonNull
+	final String[] folderNames;
+
+	/** Positions [start, end) of folder and its sub folders' files */
+	@NonNull
+	private final int[] folderStart;
+
+	@NonNull
+	private final int[] folderEnd;
+
+	@NonNull
+	private final int[][] folderFileIndexes;
+
+	@NonNull
+	private final int[][] filteredFileIndexes;
+
+	/** Value of {@link #allowedChanges} range when filtered indexes were built */
+	@NonNull
+	private final long[] filteredBuiltAt;
+
+	// Totals over positions
+
+	@NonNull
+	private final FenwickTree length;
+
+	@NonNull
+	private final FenwickTree wantedLength;
+
+	@NonNull
+	private final FenwickTree wantedCount;
+
+	@NonNull
+	private final FenwickTree wantedFilteredLength;
+
+	@NonNull
+	private final FenwickTree wantedFilteredCount;
+
+	@NonNull
+	private final FenwickTree filteredCount;
+
+	@NonNull
+	private final FenwickTree wantedBytesComplete;
+
+	/** Number of times a file's filtered state flipped */
+	@NonNull
+	private final FenwickTree allowedChanges;
+
+	// Per file state at last update
+
+	@NonNull
+	private final long[] lastLength;
+
+	@NonNull
+	private final long[] lastBytesComplete;
+
+	@NonNull
+	private final boolean[] lastWanted;
+
+	@NonNull
+	private final boolean[] lastAllowed;
+
+	@NonNull
+	private final boolean[] seen;
+
+	private FilesTreeStructure(@NonNull List<?> listFiles) {
+		numFiles = listFiles.size();
+		names = new String[numFiles];
+		shortNames = new String[numFiles];
+		folderPaths = new String[numFiles];
+		fileFolder = new int[numFiles];
+
+		Map<String, Integer> mapFolderIndexes = new HashMap<>();
+		List<String> walks = new ArrayList<>();
+		List<Integer> parents = new ArrayList<>();
+		List<String> pathOnly = new ArrayList<>();
+		List<String> folderNameList = new ArrayList<>();
+
+		for (int i = 0; i < numFiles; i++) {
+			String name = MapUtils.getMapString((Map<?, ?>) listFiles.get(i),
+					TransmissionVars.FIELD_FILES_NAME, "");
+			names[i] = name;
+			int folderBreaksAt = AndroidUtils.lastindexOfAny(name,
+					TorrentUtils.ANYSLASH, -1);
+			String folderWithSlash = folderBreaksAt <= 0 ? ""
+					: name.substring(0, folderBreaksAt + 1);
+			folderPaths[i] = folderWithSlash;
+			shortNames[i] = name.substring(folderWithSlash.length());
+
+			if (folderWithSlash.isEmpty()) {
+				fileFolder[i] = -1;
+				continue;
+			}
+			Integer existing = mapFolderIndexes.get(folderWithSlash);
+			if (existing != null) {
+				fileFolder[i] = existing;
+				continue;
+			}
+
+			// add folder and parents
+			String[] folderSplit = FilesTreeAdapter.patternFolderSplit.split(
+					folderWithSlash);
+			int startAt = folderSplit[0].length() == 0 ? 1 : 0;
+			int pos = startAt;
+			int last = -1;
+			for (int j = startAt; j < folderSplit.length; j++) {
+				int oldPos = pos;
+				pos += folderSplit[j].length() + 1;
+				String folderWalk = folderWithSlash.substring(0, pos);
+
+				existing = mapFolderIndexes.get(folderWalk);
+				if (existing == null) {
+					int index = walks.size();
+					walks.add(folderWalk);
+					parents.add(last);
+					pathOnly.add(folderWithSlash.substring(0, oldPos));
+					folderNameList.add(folderSplit[j]);
+					mapFolderIndexes.put(folderWalk, index);
+					last = index;
+				} else {
+					last = existing;
+				}
+			}
+			fileFolder[i] = last;
+		}
+
+		numFolders = walks.size();
+		folderWalks = walks.toArray(new String[0]);
+		folderPathOnly = pathOnly.toArray(new String[0]);
+		folderNames = folderNameList.toArray(new String[0]);
+		folderParent = new int[numFolders];
+		for (int i = 0; i < numFolders; i++) {
+			folderParent[i] = parents.get(i);
+		}
+
+		// Lay out positions: each folder gets its direct files, followed by
+		// its sub folders' ranges.  Root files go after all top level folders.
+		int[] numDirect = new int[numFolders];
+		int[] numTotal = new int[numFolders];
+		for (int i = 0; i < numFiles; i++) {
+			int f = fileFolder[i];
+			if (f >= 0) {
+				numDirect[f]++;
+			}
+			for (; f >= 0; f = folderParent[f]) {
+				numTotal[f]++;
+			}
+		}
+		folderStart = new int[numFolders];
+		folderEnd = new int[numFolders];
+		int[] nextChildStart = new int[numFolders];
+		int[] nextDirect = new int[numFolders];
+		int rootCursor = 0;
+		for (int f = 0; f < numFolders; f++) {
+			int parent = folderParent[f];
+			int start;
+			if (parent < 0) {
+				start = rootCursor;
+				rootCursor += numTotal[f];
+			} else {
+				start = nextChildStart[parent];
+				nextChildStart[parent] += numTotal[f];
+			}
+			folderStart[f] = start;
+			folderEnd[f] = start + numTotal[f];
+			nextDirect[f] = start;
+			nextChildStart[f] = start + numDirect[f];
+		}
+		rootStart = rootCursor;
+		filePosition = new int[numFiles];
+		positionFile = new int[numFiles];
+		for (int i = 0; i < numFiles; i++) {
+			int f = fileFolder[i];
+			int position = f < 0 ? rootCursor++ : nextDirect[f]++;
+			filePosition[i] = position;
+			positionFile[position] = i;
+		}
+
+		folderFileIndexes = new int[numFolders][];
+		filteredFileIndexes = new int[numFolders][];
+		filteredBuiltAt = new long[numFolders];
+
+		length = new FenwickTree(numFiles);
+		wantedLength = new FenwickTree(numFiles);
+		wantedCount = new FenwickTree(numFiles);
+		wantedFilteredLength = new FenwickTree(numFiles);
+		wantedFilteredCount = new FenwickTree(numFiles);
+		filteredCount = new FenwickTree(numFiles);
+		wantedBytesComplete = new FenwickTree(numFiles);
+		allowedChanges = new FenwickTree(numFiles);
+
+		lastLength = new long[numFiles];
+		lastBytesComplete = new long[numFiles];
+		lastWanted = new boolean[numFiles];
+		lastAllowed = new boolean[numFiles];
+		seen = new boolean[numFiles];
+	}
+
+	/**
+	 * @return <code>existing</code> if it still matches the file names in
+	 * <code>listFiles</code>, otherwise a newly built structure
+	 */
+	@NonNull
+	static FilesTreeStructure getOrBuild(@Nullable FilesTreeStructure existing,
+			@NonNull List<?> listFiles) {
+		if (existing != null && existing.matches(listFiles)) {
+			return existing;
+		}
+		return new FilesTreeStructure(listFiles);
+	}
+
+	private boolean matches(@NonNull List<?> listFiles) {
+		if (listFiles.size() != numFiles) {
+			return false;
+		}
+		for (int i = 0; i < numFiles; i++) {
+			Object name = ((Map<?, ?>) listFiles.get(i)).get(
+					TransmissionVars.FIELD_FILES_NAME);
+			if (!names[i].equals(name == null ? "" : name)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Updates totals if the file's state differs from last time
+	 */
+	void updateFile(int fileIndex, long length, long bytesComplete,
+			boolean wanted, boolean allowed) {
+		boolean wasSeen = seen[fileIndex];
+		long oldLength = lastLength[fileIndex];
+		boolean oldWanted = lastWanted[fileIndex];
+		boolean oldAllowed = lastAllowed[fileIndex];
+		long oldComplete = lastBytesComplete[fileIndex];
+		if (wasSeen && oldLength == length && oldWanted == wanted
+				&& oldAllowed == allowed && oldComplete == bytesComplete) {
+			return;
+		}
+		seen[fileIndex] = true;
+		lastLength[fileIndex] = length;
+		lastWanted[fileIndex] = wanted;
+		lastAllowed[fileIndex] = allowed;
+		lastBytesComplete[fileIndex] = bytesComplete;
+
+		int position = filePosition[fileIndex];
+		this.length.add(position, length - oldLength);
+		wantedLength.add(position, (wanted ? length : 0) - (oldWanted ? oldLength : 0));
+		wantedCount.add(position, (wanted ? 1 : 0) - (oldWanted ? 1 : 0));
+		boolean wantedFiltered = wanted && allowed;
+		boolean oldWantedFiltered = oldWanted && oldAllowed;
+		wantedFilteredLength.add(position, (wantedFiltered ? length : 0)
+				- (oldWantedFiltered ? oldLength : 0));
+		wantedFilteredCount.add(position,
+				(wantedFiltered ? 1 : 0) - (oldWantedFiltered ? 1 : 0));
+		filteredCount.add(position, (allowed ? 1 : 0) - (oldAllowed ? 1 : 0));
+		wantedBytesComplete.add(position, (wanted ? bytesComplete : 0)
+				- (oldWanted ? oldComplete : 0));
+		if (allowed != oldAllowed) {
+			allowedChanges.add(position, 1);
+		}
+	}
+
+	long getSize(int folder) {
+		return length.rangeSum(folderStart[folder], folderEnd[folder]);
+	}
+
+	long getSizeWanted(int folder) {
+		return wantedLength.rangeSum(folderStart[folder], folderEnd[folder]);
+	}
+
+	long getSizeWantedFiltered(int folder) {
+		return wantedFilteredLength.rangeSum(folderStart[folder],
+				folderEnd[folder]);
+	}
+
+	int getNumFilesWanted(int folder) {
+		return (int) wantedCount.rangeSum(folderStart[folder], folderEnd[folder]);
+	}
+
+	int getNumFilesFilteredWanted(int folder) {
+		return (int) wantedFilteredCount.rangeSum(folderStart[folder],
+				folderEnd[folder]);
+	}
+
+	int getNumFilteredFiles(int folder) {
+		return (int) filteredCount.rangeSum(folderStart[folder],
+				folderEnd[folder]);
+	}
+
+	long getBytesCompleteWanted(int folder) {
+		return wantedBytesComplete.rangeSum(folderStart[folder],
+				folderEnd[folder]);
+	}
+
+	// Totals of root files
+
+	long getRootSizeWanted() {
+		return wantedLength.rangeSum(rootStart, numFiles);
+	}
+
+	long getRootSizeWantedFiltered() {
+		return wantedFilteredLength.rangeSum(rootStart, numFiles);
+	}
+
+	int getRootNumFilesWanted() {
+		return (int) wantedCount.rangeSum(rootStart, numFiles);
+	}
+
+	int getRootNumFilesFilteredWanted() {
+		return (int) wantedFilteredCount.rangeSum(rootStart, numFiles);
+	}
+
+	int getRootNumFilteredFiles() {
+		return (int) filteredCount.rangeSum(rootStart, numFiles);
+	}
+
+	/**
+	 * @return Indexes of all files in folder, depth first.  Shared; do not
+	 * modify.
+	 */
+	@NonNull
+	int[] getFileIndexes(int folder) {
+		int[] indexes = folderFileIndexes[folder];
+		if (indexes == null) {
+			indexes = Arrays.copyOfRange(positionFile, folderStart[folder],
+					folderEnd[folder]);
+			folderFileIndexes[folder] = indexes;
+		}
+		return indexes;
+	}
+
+	/**
+	 * @return Indexes of files in folder that passed the last filter.  Shared;
+	 * do not modify.
+	 */
+	@NonNull
+	int[] getFilteredFileIndexes(int folder) {
+		int start = folderStart[folder];
+		int end = folderEnd[folder];
+		long changes = allowedChanges.rangeSum(start, end);
+		int[] filtered = filteredFileIndexes[folder];
+		if (filtered == null || filteredBuiltAt[folder] != changes) {
+			filtered = new int[getNumFilteredFiles(folder)];
+			int num = 0;
+			for (int position = start; position < end
+					&& num < filtered.length; position++) {
+				int fileIndex = positionFile[position];
+				if (lastAllowed[fileIndex]) {
+					filtered[num++] = fileIndex;
+				}
+			}
+			filteredFileIndexes[folder] = filtered;
+			filteredBuiltAt[folder] = changes;
+		}
+		return filtered;
+	}
+}
@@ -25,6 +25,7 @@ import android.widget.*;
 
 import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.view.ViewCompat;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.RecyclerView.ViewHolder;
@@ -115,6 +116,23 @@ public class MetaSearchResultsAdapter
 
 		List<String> getSearchResultList();
 
+		/**
+		 * @return Version of the results, or -1 if changes aren't tracked and
+		 * every refilter must start from {@link #getSearchResultList()}
+		 */
+		default long getSearchResultsVersion() {
+			return -1;
+		}
+
+		/**
+		 * @return Hashes added or changed since <code>version</code>, or null
+		 * if unknown
+		 */
+		@Nullable
+		default List<String> getSearchResultsChangedSince(long version) {
+			return null;
+		}
+
 		MetaSearchEnginesInfo getSearchEngineMap(String engineID);
 
 		void downloadResult(String id);
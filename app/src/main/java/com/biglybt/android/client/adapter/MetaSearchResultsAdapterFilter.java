@@ -21,6 +21,7 @@ import android.util.Log;
 import android.util.SparseArray;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.biglybt.android.adapter.*;
 import com.biglybt.android.client.*;
@@ -29,8 +30,7 @@ import com.biglybt.android.client.activity.SubscriptionResultsActivity;
 import com.biglybt.android.client.session.Session;
 import com.biglybt.android.util.MapUtils;
 
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Filter for MetaSearch Results Adapter
@@ -74,6 +74,27 @@ public class MetaSearchResultsAdapterFilter
 
 	private int defaultSortID;
 
+	/**
+	 * Bumped whenever engine, size, date, or unseen filters change
+	 */
+	private int filterSettingsVersion;
+
+	/**
+	 * Filtered and sorted results from the last pass.  Used to place only new
+	 * or changed results on the next pass.
+	 */
+	private List<String> lastSortedItems;
+
+	private long lastResultsVersion;
+
+	private String lastConstraint;
+
+	private int lastFilterSettingsVersion;
+
+	private SortDefinition lastSortDefinition;
+
+	private boolean lastSortAsc;
+
 	MetaSearchResultsAdapterFilter(String ID_SORT_FILTER,
 			SessionAdapterFilterTalkback<String> adapterFilterTalkbalk,
 			MetaSearchResultsAdapter.MetaSearchSelectionListener rs, Object mLock) {
@@ -166,6 +187,34 @@ public class MetaSearchResultsAdapterFilter
 
 		FilterResults results = new FilterResults();
 
+		// Get version before list, so changes in between will be picked up next time
+		long resultsVersion = rs.getSearchResultsVersion();
+		String constraint = _constraint == null ? "" : _constraint.toString();
+
+		List<String> searchResultList = buildIncremental(resultsVersion,
+				constraint);
+		if (searchResultList == null) {
+			searchResultList = buildFull(_constraint);
+		}
+
+		if (resultsVersion >= 0) {
+			lastSortedItems = new ArrayList<>(searchResultList);
+			lastResultsVersion = resultsVersion;
+			lastConstraint = constraint;
+			lastFilterSettingsVersion = filterSettingsVersion;
+			ComparatorMapFields<String> sorter = getSorter();
+			lastSortDefinition = sorter == null ? null : sorter.getSortDefinition();
+			lastSortAsc = sorter != null && sorter.isAsc();
+		}
+
+		results.values = searchResultList;
+		results.count = searchResultList.size();
+
+		return results;
+	}
+
+	@NonNull
+	private List<String> buildFull(CharSequence _constraint) {
 		final List<String> searchResultList = rs.getSearchResultList();
 		int size = searchResultList.size();
 
@@ -199,10 +248,65 @@ public class MetaSearchResultsAdapterFilter
 
 		doSort(searchResultList);
 
-		results.values = searchResultList;
-		results.count = searchResultList.size();
+		return searchResultList;
+	}
 
-		return results;
+	/**
+	 * Filters and places only results added or changed since last pass.
+	 * Search results arrive in many small batches, so this avoids refiltering
+	 * and resorting everything for each one.
+	 *
+	 * @return null if a full rebuild is needed (results not versioned, filter
+	 * or sort changed, too many changes, or letter counts needed)
+	 */
+	@Nullable
+	private List<String> buildIncremental(long resultsVersion,
+			@NonNull String constraint) {
+		ComparatorMapFields<String> sorter = getSorter();
+		if (resultsVersion < 0 || lastSortedItems == null || isBuildLetters()
+				|| sorter == null
+				|| filterSettingsVersion != lastFilterSettingsVersion
+				|| !constraint.equals(lastConstraint)
+				|| sorter.getSortDefinition() != lastSortDefinition
+				|| sorter.isAsc() != lastSortAsc) {
+			return null;
+		}
+
+		List<String> changed = rs.getSearchResultsChangedSince(
+				lastResultsVersion);
+		if (changed == null || !canSortIncremental(changed.size(),
+				lastSortedItems.size() + changed.size())) {
+			return null;
+		}
+
+		List<String> items = new ArrayList<>(lastSortedItems);
+		if (changed.isEmpty()) {
+			return items;
+		}
+
+		// Changed results may no longer match, or may now sort elsewhere
+		items.removeAll(new HashSet<>(changed));
+
+		String constraintUpper = constraint.toUpperCase(Locale.US);
+		List<String> toInsert = new ArrayList<>(changed.size());
+		synchronized (mLock) {
+			boolean hasEngines = engineIDs != null && engineIDs.size() > 0;
+			for (String key : changed) {
+				if (filterCheck(engineIDs, key, hasEngines) && constraintCheck(
+						constraintUpper, getStringToConstrain(key), null, null)) {
+					toInsert.add(key);
+				}
+			}
+		}
+
+		if (DEBUG) {
+			Log.d(TAG, "incremental: " + toInsert.size() + " of " + changed.size()
+					+ " changed into " + items.size());
+		}
+
+		doSortIncremental(items, toInsert);
+
+		return items;
 	}
 
 	@NonNull
@@ -236,20 +340,24 @@ public class MetaSearchResultsAdapterFilter
 		} else {
 			this.engineIDs = engines;
 		}
+		filterSettingsVersion++;
 	}
 
 	public void setFilterOnlyUnseen(boolean filterOnlyUnseen) {
 		this.filterOnlyUnseen = filterOnlyUnseen;
+		filterSettingsVersion++;
 	}
 
 	public void setFilterSizes(long start, long end) {
 		this.sizeStart = start;
 		this.sizeEnd = end;
+		filterSettingsVersion++;
 	}
 
 	public void setFilterTimes(long start, long end) {
 		this.dateStart = start;
 		this.dateEnd = end;
+		filterSettingsVersion++;
 	}
 
 	@Override
@@ -293,6 +401,7 @@ public class MetaSearchResultsAdapterFilter
 		sizeEnd = savedInstanceState.getLong(KEY_SIZE_END, sizeEnd);
 		dateEnd = savedInstanceState.getLong(KEY_DATE_END, dateEnd);
 		dateStart = savedInstanceState.getLong(KEY_DATE_START, dateStart);
+		filterSettingsVersion++;
 		refilter(false);
 	}
 
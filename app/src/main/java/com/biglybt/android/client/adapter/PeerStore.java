@@ -0,0 +1,301 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.adapter;
+
+import androidx.annotation.NonNull;
+
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.MapUtils;
+
+import java.util.*;
+
+/**
+ * Peers of one torrent keyed by address and port, so a refresh updates
+ * existing rows in place instead of replacing the whole list.
+ * <p/>
+ * Each peer gets a slot for as long as it's connected.  Numeric columns are
+ * kept in primitive arrays indexed by slot.  A peer that disappears leaves a
+ * tombstone (null key), and its slot is reused by the next new peer.
+ * <p/>
+ * Display order doesn't follow the server's order, so rows don't jump
+ * around when it reorders its list.  A new peer takes the row of one that
+ * left, or is added at the end.
+ */
+final class PeerStore
+{
+	private static final int[] NO_POSITIONS = new int[0];
+
+	private final Map<String, Integer> mapSlots = new HashMap<>();
+
+	private String[] keys = new String[0];
+
+	private Map<?, ?>[] maps = new Map[0];
+
+	private long[] rateToPeer = new long[0];
+
+	private long[] rateToClient = new long[0];
+
+	private float[] progress = new float[0];
+
+	private int[] seenGeneration = new int[0];
+
+	private long[] peerIDs = new long[0];
+
+	private long nextPeerID;
+
+	/** Slots in use or tombstoned */
+	private int numSlots;
+
+	private int[] freeSlots = new int[0];
+
+	private int numFreeSlots;
+
+	private int generation;
+
+	/** Live slots in display order */
+	private int[] order = new int[0];
+
+	private int orderSize;
+
+	private int[] positionOfSlot = new int[0];
+
+	/**
+	 * Row changes from one {@link #update(List)}, to be notified in field
+	 * order: {@link #changed}, then {@link #removed} from last to first, then
+	 * the inserted range.  Positions are in the list as it was before the
+	 * update, except the inserted range, which is in the list after it.
+	 */
+	static final class Changes
+	{
+		/**
+		 * Display positions of peers whose values changed, or whose row was
+		 * taken over by a new peer
+		 */
+		@NonNull
+		final int[] changed;
+
+		/** Display positions of peers that left, ascending */
+		@NonNull
+		final int[] removed;
+
+		final int insertedAt;
+
+		final int numInserted;
+
+		Changes(@NonNull int[] changed, @NonNull int[] removed, int insertedAt,
+				int numInserted) {
+			this.changed = changed;
+			this.removed = removed;
+			this.insertedAt = insertedAt;
+			this.numInserted = numInserted;
+		}
+
+		boolean isEmpty() {
+			return changed.length == 0 && removed.length == 0 && numInserted == 0;
+		}
+	}
+
+	/**
+	 * Applies a full peer list from the server.
+	 * <p/>
+	 * New peers take over the rows of peers that left, so rows below don't
+	 * shift.  New peers left over are appended, and rows of peers that left
+	 * and weren't taken over are removed.
+	 */
+	@NonNull
+	Changes update(@NonNull List<?> listPeers) {
+		generation++;
+		int[] changed = NO_POSITIONS;
+		int numChanged = 0;
+		int[] newSlots = NO_POSITIONS;
+		int numNew = 0;
+
+		for (Object o : listPeers) {
+			if (!(o instanceof Map)) {
+				continue;
+			}
+			Map<?, ?> map = (Map<?, ?>) o;
+			String key = MapUtils.getMapString(map,
+					TransmissionVars.FIELD_PEERS_ADDRESS, "") + ':'
+					+ MapUtils.getMapLong(map, TransmissionVars.FIELD_PEERS_PORT, 0);
+			long newRateToPeer = MapUtils.getMapLong(map,
+					TransmissionVars.FIELD_PEERS_RATE_TO_PEER_BPS, 0);
+			long newRateToClient = MapUtils.getMapLong(map,
+					TransmissionVars.FIELD_PEERS_RATE_TO_CLIENT_BPS, 0);
+			float newProgress = MapUtils.getMapFloat(map,
+					TransmissionVars.FIELD_PEERS_PROGRESS, 0f);
+
+			Integer existing = mapSlots.get(key);
+			int slot;
+			if (existing == null) {
+				slot = allocateSlot(key);
+				newSlots = add(newSlots, numNew++, slot);
+			} else {
+				slot = existing;
+				if (seenGeneration[slot] == generation) {
+					// duplicate entry in reply
+					continue;
+				}
+				if (rateToPeer[slot] != newRateToPeer
+						|| rateToClient[slot] != newRateToClient
+						|| progress[slot] != newProgress
+						|| stringChanged(maps[slot], map,
+								TransmissionVars.FIELD_PEERS_CLIENT_NAME)
+						|| stringChanged(maps[slot], map, TransmissionVars.FIELD_PEERS_CC)
+						|| stringChanged(maps[slot], map,
+								TransmissionVars.FIELD_PEERS_FLAGSTR)) {
+					changed = add(changed, numChanged++, positionOfSlot[slot]);
+				}
+			}
+			maps[slot] = map;
+			rateToPeer[slot] = newRateToPeer;
+			rateToClient[slot] = newRateToClient;
+			progress[slot] = newProgress;
+			seenGeneration[slot] = generation;
+		}
+
+		// Peers not in this reply either hand their row to a new peer, or lose it
+		int[] removed = NO_POSITIONS;
+		int numRemoved = 0;
+		int nextNew = 0;
+		int n = 0;
+		for (int i = 0; i < orderSize; i++) {
+			int slot = order[i];
+			if (seenGeneration[slot] != generation) {
+				removeSlot(slot);
+				if (nextNew == numNew) {
+					removed = add(removed, numRemoved++, i);
+					continue;
+				}
+				slot = newSlots[nextNew++];
+				changed = add(changed, numChanged++, i);
+			}
+			order[n] = slot;
+			positionOfSlot[slot] = n;
+			n++;
+		}
+
+		int insertedAt = n;
+		if (n + numNew - nextNew > order.length) {
+			order = Arrays.copyOf(order, Math.max(16, (n + numNew - nextNew) * 2));
+		}
+		while (nextNew < numNew) {
+			int slot = newSlots[nextNew++];
+			order[n] = slot;
+			positionOfSlot[slot] = n;
+			n++;
+		}
+		orderSize = n;
+
+		return new Changes(Arrays.copyOf(changed, numChanged),
+				Arrays.copyOf(removed, numRemoved), insertedAt, n - insertedAt);
+	}
+
+	/**
+	 * Sets <code>array[index]</code>, growing the array if needed
+	 *
+	 * @return <code>array</code>, or the grown copy
+	 */
+	@NonNull
+	private static int[] add(@NonNull int[] array, int index, int value) {
+		if (index == array.length) {
+			array = Arrays.copyOf(array, Math.max(8, index * 2));
+		}
+		array[index] = value;
+		return array;
+	}
+
+	private static boolean stringChanged(Map<?, ?> oldMap, Map<?, ?> newMap,
+			String key) {
+		return !Objects.equals(oldMap.get(key), newMap.get(key));
+	}
+
+	private int allocateSlot(@NonNull String key) {
+		int slot;
+		if (numFreeSlots > 0) {
+			slot = freeSlots[--numFreeSlots];
+		} else {
+			slot = numSlots++;
+			if (slot >= keys.length) {
+				grow(Math.max(16, keys.length * 2));
+			}
+		}
+		keys[slot] = key;
+		peerIDs[slot] = nextPeerID++;
+		mapSlots.put(key, slot);
+		// Placed in order by update, once it knows which rows are free
+		return slot;
+	}
+
+	private void removeSlot(int slot) {
+		mapSlots.remove(keys[slot]);
+		keys[slot] = null;
+		maps[slot] = null;
+		if (numFreeSlots == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, Math.max(16, numFreeSlots * 2));
+		}
+		freeSlots[numFreeSlots++] = slot;
+	}
+
+	private void grow(int size) {
+		keys = Arrays.copyOf(keys, size);
+		maps = Arrays.copyOf(maps, size);
+		rateToPeer = Arrays.copyOf(rateToPeer, size);
+		rateToClient = Arrays.copyOf(rateToClient, size);
+		progress = Arrays.copyOf(progress, size);
+		seenGeneration = Arrays.copyOf(seenGeneration, size);
+		peerIDs = Arrays.copyOf(peerIDs, size);
+		positionOfSlot = Arrays.copyOf(positionOfSlot, size);
+	}
+
+	void clear() {
+		mapSlots.clear();
+		Arrays.fill(keys, 0, numSlots, null);
+		Arrays.fill(maps, 0, numSlots, null);
+		numSlots = 0;
+		numFreeSlots = 0;
+		orderSize = 0;
+	}
+
+	int size() {
+		return orderSize;
+	}
+
+	/**
+	 * @return ID of the peer at <code>position</code>, stable while it stays
+	 * connected
+	 */
+	long getPeerID(int position) {
+		return peerIDs[order[position]];
+	}
+
+	Map<?, ?> getMap(int position) {
+		return maps[order[position]];
+	}
+
+	long getRateToPeer(int position) {
+		return rateToPeer[order[position]];
+	}
+
+	long getRateToClient(int position) {
+		return rateToClient[order[position]];
+	}
+
+	float getProgress(int position) {
+		return progress[order[position]];
+	}
+}
@@ -35,27 +35,27 @@ import android.os.Build.VERSION_CODES;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.BaseAdapter;
 import android.widget.Filterable;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
 
 public class PeersAdapter
-	extends BaseAdapter
+	extends RecyclerView.Adapter<PeersAdapter.ViewHolder>
 	implements Filterable
 {
 	interface PeerFilterCommunication
 		extends SessionGetter, DelayedFilter.PerformingFilteringListener
 	{
-		void doSort();
+		void notifyPeersChanged(@NonNull PeerStore.Changes changes);
 
-		void notifyDataSetChanged();
-
-		void setDisplayList(List<Object> list);
+		@NonNull
+		PeerStore.Changes updatePeers(@NonNull List<?> listPeers);
 	}
 
-	static class ViewHolder
+	public static class ViewHolder
+		extends RecyclerView.ViewHolder
 	{
 		TextView tvIP;
 
@@ -73,6 +73,16 @@ public class PeersAdapter
 		String peerID = "";
 
 		long torrentID = -1;
+
+		ViewHolder(@NonNull View rowView) {
+			super(rowView);
+			tvName = rowView.findViewById(R.id.peerrow_client);
+			tvCC = rowView.findViewById(R.id.peerrow_cc);
+			tvDlRate = rowView.findViewById(R.id.peerrow_dl);
+			tvIP = rowView.findViewById(R.id.peerrow_ip);
+			tvProgress = rowView.findViewById(R.id.peerrow_pct);
+			tvUlRate = rowView.findViewById(R.id.peerrow_ul);
+		}
 	}
 
 	public static class ViewHolderFlipValidator
@@ -103,23 +113,14 @@ public class PeersAdapter
 
 	private PeerFilter filter;
 
-	/** List of they keys of all entries displayed, in the display order */
-	@Thunk
-	List<Object> displayList;
-
+	/** Peers displayed, in display order */
 	@Thunk
 	@NonNull
-	final Object mLock = new Object();
-
-	@Thunk
-	Comparator<? super Map<?, ?>> comparator;
-
-	@Thunk
-	String[] sortFieldIDs;
+	final PeerStore store = new PeerStore();
 
 	@Thunk
 	@NonNull
-	Boolean[] sortOrderAsc = new Boolean[0];
+	final Object mLock = new Object();
 
 	@Thunk
 	long torrentID;
@@ -132,37 +133,20 @@ public class PeersAdapter
 		this.context = context;
 		this.remoteProfileID = remoteProfileID;
 		flipper = TextViewFlipper.create();
-		displayList = new ArrayList<>();
+		setHasStableIds(true);
 	}
 
+	@NonNull
 	@Override
-	public View getView(int position, View convertView, ViewGroup parent) {
-		View rowView = convertView;
-		if (rowView == null) {
-			LayoutInflater inflater = (LayoutInflater) context.getSystemService(
-					Context.LAYOUT_INFLATER_SERVICE);
-			assert inflater != null;
-			rowView = inflater.inflate(R.layout.row_peers_list, parent, false);
-			if (rowView == null) {
-				return null;
-			}
-			ViewHolder viewHolder = new ViewHolder();
-
-			viewHolder.tvName = rowView.findViewById(R.id.peerrow_client);
-			viewHolder.tvCC = rowView.findViewById(R.id.peerrow_cc);
-			viewHolder.tvDlRate = rowView.findViewById(R.id.peerrow_dl);
-			viewHolder.tvIP = rowView.findViewById(R.id.peerrow_ip);
-			viewHolder.tvProgress = rowView.findViewById(R.id.peerrow_pct);
-			viewHolder.tvUlRate = rowView.findViewById(R.id.peerrow_ul);
-
-			rowView.setTag(viewHolder);
-		}
-
-		ViewHolder holder = (ViewHolder) rowView.getTag();
-		if (holder == null) {
-			return null;
-		}
+	public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent,
+			int viewType) {
+		View rowView = LayoutInflater.from(context).inflate(
+				R.layout.row_peers_list, parent, false);
+		return new ViewHolder(rowView);
+	}
 
+	@Override
+	public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
 		Map<?, ?> item = getItem(position);
 
 		String peerID = MapUtils.getMapString(item,
@@ -188,8 +172,7 @@ public class PeersAdapter
 					animateFlip, validator);
 		}
 		if (holder.tvUlRate != null) {
-			long rateUpload = MapUtils.getMapLong(item,
-					TransmissionVars.FIELD_PEERS_RATE_TO_PEER_BPS, 0);
+			long rateUpload = store.getRateToPeer(position);
 
 			String s = rateUpload > 0
 					? "\u25B2 "
@@ -198,8 +181,7 @@ public class PeersAdapter
 			flipper.changeText(holder.tvUlRate, s, animateFlip, validator);
 		}
 		if (holder.tvDlRate != null) {
-			long rateDownload = MapUtils.getMapLong(item,
-					TransmissionVars.FIELD_PEERS_RATE_TO_CLIENT_BPS, 0);
+			long rateDownload = store.getRateToClient(position);
 
 			String s = rateDownload > 0
 					? "\u25BC "
@@ -207,8 +189,7 @@ public class PeersAdapter
 					: "";
 			flipper.changeText(holder.tvDlRate, s, animateFlip, validator);
 		}
-		float pctDone = MapUtils.getMapFloat(item,
-				TransmissionVars.FIELD_PEERS_PROGRESS, 0f);
+		float pctDone = store.getProgress(position);
 		if (holder.tvProgress != null) {
 			NumberFormat format = NumberFormat.getPercentInstance();
 			format.setMaximumFractionDigits(1);
@@ -221,8 +202,6 @@ public class PeersAdapter
 					TransmissionVars.FIELD_PEERS_ADDRESS, "??");
 			flipper.changeText(holder.tvIP, s, animateFlip, validator);
 		}
-
-		return rowView;
 	}
 
 	@Override
@@ -236,18 +215,14 @@ public class PeersAdapter
 				}
 
 				@Override
-				public void doSort() {
-					PeersAdapter.this.doSort();
+				public void notifyPeersChanged(@NonNull PeerStore.Changes changes) {
+					PeersAdapter.this.notifyPeersChanged(changes);
 				}
 
+				@NonNull
 				@Override
-				public void notifyDataSetChanged() {
-					PeersAdapter.this.notifyDataSetChanged();
-				}
-
-				@Override
-				public void setDisplayList(List<Object> list) {
-					displayList = list;
+				public PeerStore.Changes updatePeers(@NonNull List<?> listPeers) {
+					return store.update(listPeers);
 				}
 
 				@Override
@@ -320,6 +295,7 @@ public class PeersAdapter
 			if (session == null) {
 				return true;
 			}
+			PeerStore.Changes changes;
 			synchronized (mLock) {
 				Map<?, ?> torrent = session.torrent.getCachedTorrent(torrentID);
 				if (torrent == null) {
@@ -331,74 +307,56 @@ public class PeersAdapter
 				if (listPeers == null) {
 					return true;
 				}
+				changes = comm.updatePeers(listPeers);
 				if (AndroidUtils.DEBUG) {
-					System.out.println("listPeers=" + listPeers.size());
+					System.out.println("listPeers=" + listPeers.size() + "; changed="
+							+ changes.changed.length + "; removed="
+							+ changes.removed.length + "; inserted="
+							+ changes.numInserted);
 				}
-				comm.setDisplayList(new ArrayList<>(listPeers));
-
-				comm.doSort();
 			}
-			comm.notifyDataSetChanged();
+			if (!changes.isEmpty()) {
+				comm.notifyPeersChanged(changes);
+			}
 			return true;
 		}
 
 	}
 
+	/**
+	 * Notifies the rows {@link PeerStore#update(List)} changed, in the order
+	 * {@link PeerStore.Changes} positions assume
+	 */
 	@Thunk
-	void doSort() {
-		if (comparator == null && sortFieldIDs == null || displayList == null) {
-			return;
+	void notifyPeersChanged(@NonNull PeerStore.Changes changes) {
+		for (int position : changes.changed) {
+			notifyItemChanged(position);
 		}
-		synchronized (mLock) {
-
-			Collections.sort(displayList, (lhs, rhs) -> {
-				Map<?, ?> mapLHS = (Map) lhs;
-				Map<?, ?> mapRHS = (Map) rhs;
-
-				if (mapLHS == null || mapRHS == null) {
-					return 0;
-				}
-
-				if (sortFieldIDs == null) {
-					return comparator.compare(mapLHS, mapRHS);
-				}
-
-				for (int i = 0; i < sortFieldIDs.length; i++) {
-					String fieldID = sortFieldIDs[i];
-					Comparable oLHS = (Comparable) mapLHS.get(fieldID);
-					Comparable oRHS = (Comparable) mapRHS.get(fieldID);
-					if (oLHS == null || oRHS == null) {
-						if (oLHS != oRHS) {
-							return oLHS == null ? -1 : 1;
-						} // else == drops to next sort field
-
-					} else {
-						int comp = sortOrderAsc[i] ? oLHS.compareTo(oRHS)
-								: oRHS.compareTo(oLHS);
-						if (comp != 0) {
-							return comp;
-						} // else == drops to next sort field
-					}
-				}
-
-				return 0;
-			});
+		int[] removed = changes.removed;
+		for (int i = removed.length - 1; i >= 0; i--) {
+			notifyItemRemoved(removed[i]);
+		}
+		if (changes.numInserted > 0) {
+			notifyItemRangeInserted(changes.insertedAt, changes.numInserted);
 		}
 	}
 
 	@Override
-	public int getCount() {
-		return displayList == null ? 0 : displayList.size();
+	public int getItemCount() {
+		return store.size();
 	}
 
-	@Override
 	public Map<?, ?> getItem(int position) {
-		return displayList == null ? null : (Map<?, ?>) displayList.get(position);
+		return store.getMap(position);
 	}
 
 	public void setTorrentID(long torrentID, boolean alwaysRefilter) {
 		if (torrentID != this.torrentID) {
 			this.torrentID = torrentID;
+			synchronized (mLock) {
+				store.clear();
+			}
+			notifyDataSetChanged();
 			//resetFilter();
 			getFilter().refilter(false);
 		} else if (alwaysRefilter) {
@@ -408,14 +366,12 @@ public class PeersAdapter
 
 	@Override
 	public long getItemId(int position) {
-		return position;
+		return store.getPeerID(position);
 	}
 
 	public void clearList() {
 		synchronized (mLock) {
-			if (displayList != null) {
-				displayList.clear();
-			}
+			store.clear();
 		}
 		notifyDataSetChanged();
 	}
@@ -30,7 +30,6 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.biglybt.android.adapter.*;
 import com.biglybt.android.client.*;
 import com.biglybt.android.client.session.Session;
-import com.biglybt.android.util.MapUtils;
 import com.biglybt.android.util.TextViewFlipper.FlipValidator;
 import com.biglybt.util.Thunk;
 
@@ -122,17 +121,61 @@ public class TorrentListAdapter
 	@Override
 	public boolean areContentsTheSame(TorrentListAdapterItem oldItem,
 			TorrentListAdapterItem newItem) {
+		if (oldItem instanceof TorrentListAdapterHeaderItem
+				&& newItem instanceof TorrentListAdapterHeaderItem) {
+			return ((TorrentListAdapterHeaderItem) oldItem).sameContents(
+					(TorrentListAdapterHeaderItem) newItem);
+		}
 		Session session = sessionGetter.getSession();
 		if (!(oldItem instanceof TorrentListAdapterTorrentItem)
+				|| !(newItem instanceof TorrentListAdapterTorrentItem)
 				|| session == null) {
 			return true;
 		}
-		Map<?, ?> torrent = ((TorrentListAdapterTorrentItem) oldItem).getTorrentMap(
+		if (oldItem == newItem) {
+			// Filter only reuses item objects of unchanged torrents
+			return true;
+		}
+		TorrentListRowState oldState = ((TorrentListAdapterTorrentItem) oldItem).getRowState();
+		TorrentListRowState newState = ((TorrentListAdapterTorrentItem) newItem).getRowState(
 				session);
-		long lastUpdated = MapUtils.getMapLong(torrent,
-				TransmissionVars.FIELD_LAST_UPDATED, 0);
-		long lastSetItemsOn = getLastSetItemsOn();
-		return lastUpdated <= lastSetItemsOn;
+		return oldState != null && oldState.getChangedParts(newState) == 0;
+	}
+
+	/**
+	 * @return PART_* flags of {@link TorrentListRowState} as an Integer, or
+	 * null when the old row state isn't known
+	 */
+	@Override
+	public Object getChangePayload(TorrentListAdapterItem oldItem,
+			TorrentListAdapterItem newItem) {
+		if (!(oldItem instanceof TorrentListAdapterTorrentItem)
+				|| !(newItem instanceof TorrentListAdapterTorrentItem)) {
+			return null;
+		}
+		TorrentListRowState oldState = ((TorrentListAdapterTorrentItem) oldItem).getRowState();
+		TorrentListRowState newState = ((TorrentListAdapterTorrentItem) newItem).getRowState();
+		if (oldState == null || newState == null) {
+			return null;
+		}
+		Session session = sessionGetter.getSession();
+		if (session != null) {
+			torrentListRowFiller.prepareModel(session,
+					((TorrentListAdapterTorrentItem) newItem).torrentID);
+		}
+		return oldState.getChangedParts(newState);
+	}
+
+	@Override
+	public long getStableId(TorrentListAdapterItem item) {
+		if (item instanceof TorrentListAdapterTorrentItem) {
+			return ((TorrentListAdapterTorrentItem) item).torrentID;
+		}
+		if (item instanceof TorrentListAdapterHeaderItem) {
+			int id = ((TorrentListAdapterHeaderItem) item).id.hashCode();
+			return id == 0 ? Integer.MIN_VALUE : id < 0 ? id : -id;
+		}
+		return -1;
 	}
 
 	@Override
@@ -169,15 +212,7 @@ public class TorrentListAdapter
 	}
 
 	public long getTorrentID(int position) {
-		TorrentListAdapterItem item = getItem(position);
-		if (item instanceof TorrentListAdapterTorrentItem) {
-			return ((TorrentListAdapterTorrentItem) item).torrentID;
-		}
-		if (item instanceof TorrentListAdapterHeaderItem) {
-			int id = ((TorrentListAdapterHeaderItem) item).id.hashCode();
-			return id == 0 ? Integer.MIN_VALUE : id < 0 ? id : -id;
-		}
-		return -1;
+		return getStableId(getItem(position));
 	}
 
 	@Override
@@ -228,6 +263,29 @@ public class TorrentListAdapter
 		}
 	}
 
+	@Override
+	public boolean onBindFlexibleViewHolder(@NonNull TorrentListHolder holder,
+			int position, @NonNull List<Object> payloads) {
+		if (!(holder instanceof TorrentListHolderItem)) {
+			return false;
+		}
+		Session session = sessionGetter.getSession();
+		if (session == null) {
+			return false;
+		}
+		for (Object payload : payloads) {
+			if (!(payload instanceof Integer)) {
+				return false;
+			}
+		}
+		// Filler compares every part against the row's previous model, so it
+		// only refills what changed.  Skipping parts the payload doesn't flag
+		// would leave them showing an older model than the one recorded.
+		torrentListRowFiller.fillHolder((TorrentListHolderItem) holder,
+				getTorrentItem(position), session);
+		return true;
+	}
+
 	@Override
 	public long getItemId(int position) {
 		return getTorrentID(position);
@@ -32,11 +32,36 @@ public class TorrentListAdapterHeaderItem
 
 	public final int count;
 
+	/** Sum of sizeWhenDone of the group's torrents */
+	public final long totalSize;
+
+	public final long rateDownload;
+
+	public final long rateUpload;
+
+	/** Average percent done, 0 to 1 */
+	public final float avgProgress;
+
 	TorrentListAdapterHeaderItem(Comparable id, @NonNull String title,
-			int count) {
+			int count, long totalSize, long rateDownload, long rateUpload,
+			float avgProgress) {
 		this.id = id;
 		this.title = title;
 		this.count = count;
+		this.totalSize = totalSize;
+		this.rateDownload = rateDownload;
+		this.rateUpload = rateUpload;
+		this.avgProgress = avgProgress;
+	}
+
+	/**
+	 * @return true if the header would display the same as <code>other</code>
+	 */
+	boolean sameContents(@NonNull TorrentListAdapterHeaderItem other) {
+		return title.equals(other.title) && count == other.count
+				&& totalSize == other.totalSize && rateDownload == other.rateDownload
+				&& rateUpload == other.rateUpload
+				&& (int) (avgProgress * 1000) == (int) (other.avgProgress * 1000);
 	}
 
 	@Override
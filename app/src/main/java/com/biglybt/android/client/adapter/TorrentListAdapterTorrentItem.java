@@ -18,8 +18,12 @@ package com.biglybt.android.client.adapter;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
+import com.biglybt.android.client.TorrentUtils;
+import com.biglybt.android.client.TransmissionVars;
 import com.biglybt.android.client.session.Session;
+import com.biglybt.android.util.MapUtils;
 
 import java.util.Map;
 
@@ -32,6 +36,32 @@ public class TorrentListAdapterTorrentItem
 {
 	final public long torrentID;
 
+	/**
+	 * Row values at the time this item was diffed into the list.  Only
+	 * accessed from the diff thread.
+	 */
+	private TorrentListRowState rowState;
+
+	/**
+	 * Group ID from the pass that first grouped this item.  Only accessed from
+	 * the filter thread.
+	 */
+	Integer groupID;
+
+	/**
+	 * Values summed into group headers, read on the first pass that groups
+	 * this item.  Only accessed from the filter thread.
+	 */
+	boolean groupValuesLoaded;
+
+	long sizeWhenDone;
+
+	long rateDownload;
+
+	long rateUpload;
+
+	float percentDone;
+
 	TorrentListAdapterTorrentItem(long torrentID) {
 		this.torrentID = torrentID;
 	}
@@ -40,9 +70,58 @@ public class TorrentListAdapterTorrentItem
 		return session.torrent.getCachedTorrent(torrentID);
 	}
 
+	/**
+	 * Reads values for group header totals.  The filter replaces items of
+	 * changed torrents with new objects, so an unchanged torrent's values are
+	 * only read once.
+	 */
+	void loadGroupValues(@NonNull Session session) {
+		if (groupValuesLoaded) {
+			return;
+		}
+		groupValuesLoaded = true;
+		Map<?, ?> map = getTorrentMap(session);
+		if (map == null) {
+			return;
+		}
+		sizeWhenDone = MapUtils.getMapLong(map,
+				TransmissionVars.FIELD_TORRENT_SIZE_WHEN_DONE, 0);
+		rateDownload = MapUtils.getMapLong(map,
+				TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD, 0);
+		rateUpload = MapUtils.getMapLong(map,
+				TransmissionVars.FIELD_TORRENT_RATE_UPLOAD, 0);
+		percentDone = TorrentUtils.getPercentDone(map);
+	}
+
+	@WorkerThread
+	@Nullable
+	TorrentListRowState getRowState() {
+		return rowState;
+	}
+
+	/**
+	 * Builds the row state on first call.  The filter replaces items of changed
+	 * torrents with new objects, so an item's state stays what it was when the
+	 * item was first shown.
+	 */
+	@WorkerThread
+	@NonNull
+	TorrentListRowState getRowState(@NonNull Session session) {
+		if (rowState == null) {
+			rowState = new TorrentListRowState(getTorrentMap(session),
+					session.torrent.getTorrentVersion(torrentID));
+		}
+		return rowState;
+	}
+
 	@Override
 	public boolean equals(@Nullable Object obj) {
 		return (obj instanceof TorrentListAdapterTorrentItem)
 				&& torrentID == ((TorrentListAdapterTorrentItem) obj).torrentID;
 	}
+
+	@Override
+	public int hashCode() {
+		return (int) (torrentID ^ (torrentID >>> 32));
+	}
 }
@@ -62,8 +62,29 @@ public class TorrentListFilter
 
 	private static final String RESULTFIELD_COUNTS_VIEWTYPE = "countsByViewType";
 
+	private static final String RESULTFIELD_UNKNOWN_TERMS = "unknownTerms";
+
 	private static final String KEY_SUFFIX_FILTER_MODE = ".filterMode";
 
+	/**
+	 * Constraints starting with this are a fuzzy search: typos allowed, words
+	 * in any order, results ranked by match instead of sorted
+	 */
+	public static final String FUZZY_PREFIX = "~";
+
+	private static final int FUZZY_MAX_RESULTS = 500;
+
+	private static final int RESULT_CACHE_SIZE = 8;
+
+	/**
+	 * Torrent IDs of recent filtered and sorted results, per session.  Static,
+	 * so a list recreated on rotation, or switched back to a previous filter,
+	 * can skip filtering and sorting when the data hasn't changed.  Weak keys,
+	 * so a session's results go away with it, and a new session for the same
+	 * profile (whose data versions start over) never sees them.
+	 */
+	private static final Map<Session, Map<ResultKey, long[]>> resultCaches = new WeakHashMap<>();
+
 	@Thunk
 	final Object lockSections = new Object();
 
@@ -71,7 +92,7 @@ public class TorrentListFilter
 	String[] sections;
 
 	@Thunk
-	List<Integer> sectionStarts;
+	int[] sectionStarts;
 
 	@Thunk
 	@NonNull
@@ -81,6 +102,61 @@ public class TorrentListFilter
 
 	private int defaultSortID;
 
+	/**
+	 * Filtered and sorted torrent items from the last pass, without headers.
+	 * Used to re-position only changed torrents on the next pass.
+	 */
+	private List<TorrentListAdapterItem> lastSortedItems;
+
+	private long lastDataVersion;
+
+	private String lastConstraint;
+
+	private long lastFilterMode;
+
+	private SortDefinition lastSortDefinition;
+
+	private boolean lastSortAsc;
+
+	private TorrentQuery lastQuery;
+
+	/** Constraint and saved queries that {@link #query} was compiled from */
+	private String queryText;
+
+	private Map<String, String> querySavedQueries;
+
+	/** null if constraint isn't a query */
+	private TorrentQuery query;
+
+	/** Terms of {@link #queryText} that were taken as name words */
+	private List<String> queryUnknownTerms = Collections.emptyList();
+
+	/** Unknown query terms of the published results */
+	private List<String> unknownTerms = Collections.emptyList();
+
+	/**
+	 * Sort and {@link GroupedSortDefinition#getGroupIDCacheToken(List)} that
+	 * {@link TorrentListAdapterTorrentItem#groupID}s were computed with
+	 */
+	private SortDefinition lastGroupSortDefinition;
+
+	private boolean lastGroupSortAsc;
+
+	private Object lastGroupIDCacheToken;
+
+	/**
+	 * Positions of replaced items when this pass's incremental build kept the
+	 * same torrents in the same order.  null if the list changed shape, or
+	 * wasn't built incrementally.
+	 */
+	private int[] inPlacePositions;
+
+	/** Groups of the last pass, or null if it wasn't grouped */
+	private SectionState sectionState;
+
+	/** Bumped on the UI thread when a group is collapsed or expanded */
+	private volatile int collapsedVersion;
+
 	TorrentListFilter(
 			@NonNull SessionAdapterFilterTalkback<TorrentListAdapterItem> talkback) {
 		super(talkback);
@@ -96,6 +172,35 @@ public class TorrentListFilter
 		setSorter(new TorrentListSorter(talkback, sortDefinition, isAsc));
 	}
 
+	/**
+	 * @return Torrent fields the list sorts, groups and queries on, besides
+	 * the ones the filter mode reads
+	 */
+	@NonNull
+	public Set<String> getListFieldIDs() {
+		Set<String> fieldIDs = new HashSet<>();
+		TorrentListSorter sorter = (TorrentListSorter) getSorter();
+		SortDefinition sortDefinition = sorter == null ? null
+				: sorter.getSortDefinition();
+		if (sortDefinition != null) {
+			Collections.addAll(fieldIDs, sortDefinition.sortFieldIDs);
+		}
+		TorrentQuery query = lastQuery;
+		if (query != null) {
+			query.addFieldIDs(fieldIDs);
+		}
+		return fieldIDs;
+	}
+
+	/**
+	 * @return Terms of the current constraint that looked like query terms
+	 * but weren't understood, and were matched against names as plain text
+	 */
+	@NonNull
+	public List<String> getUnknownTerms() {
+		return unknownTerms;
+	}
+
 	public void setFilterMode(long filterMode) {
 		this.filterMode = filterMode;
 		Session session = talkback.getSession();
@@ -104,9 +209,16 @@ public class TorrentListFilter
 		}
 	}
 
+	@Override
+	public void setGroupCollapsed(Comparable groupID, boolean isCollapsed) {
+		super.setGroupCollapsed(groupID, isCollapsed);
+		collapsedVersion++;
+	}
+
 	@Override
 	protected FilterResults performFiltering2(CharSequence _constraint) {
 		FilterResults results = new FilterResults();
+		inPlacePositions = null;
 
 		Session session = talkback.getSession();
 		if (session == null || session.isDestroyed()) {
@@ -116,6 +228,230 @@ public class TorrentListFilter
 			return results;
 		}
 
+		// Get version before list, so changes in between will be picked up next time
+		long dataVersion = session.torrent.getDataVersion();
+		String constraint = _constraint == null ? "" : _constraint.toString();
+
+		ArrayList<TorrentListAdapterItem> keys = null;
+		boolean fuzzy = false;
+		if (constraint.startsWith(FUZZY_PREFIX)) {
+			String query = constraint.substring(FUZZY_PREFIX.length()).trim();
+			if (query.isEmpty()) {
+				constraint = "";
+				_constraint = constraint;
+			} else {
+				fuzzy = true;
+				keys = buildFuzzy(session, query);
+			}
+		}
+		TorrentQuery query = fuzzy ? null : getQuery(session, constraint);
+		TorrentListSorter sorter = (TorrentListSorter) getSorter();
+		ResultKey resultKey = fuzzy ? null
+				: getResultKey(session, constraint, query, sorter, dataVersion);
+		if (keys == null && resultKey != null) {
+			keys = getCachedResult(session, resultKey);
+		}
+		if (keys == null) {
+			keys = buildIncremental(session, constraint, query);
+		}
+		if (keys == null && resultKey != null) {
+			keys = buildFromCachedSuperset(session, resultKey);
+		}
+		if (keys == null) {
+			keys = buildFull(session, _constraint, query);
+		}
+		if (resultKey != null) {
+			putCachedResult(session, resultKey, keys);
+		}
+
+		lastSortedItems = new ArrayList<>(keys);
+		lastDataVersion = dataVersion;
+		lastConstraint = constraint;
+		lastFilterMode = filterMode;
+		lastQuery = query;
+		lastSortDefinition = sorter == null ? null : sorter.getSortDefinition();
+		lastSortAsc = sorter != null && sorter.isAsc();
+
+		Map<String, Object> map = new HashMap<>();
+		// Ranked results aren't in sort order, so they can't be grouped
+		if (fuzzy) {
+			sectionState = null;
+		}
+		List<TorrentListAdapterItem> displayList = fuzzy ? keys
+				: refreshSections(keys, map);
+		map.put(RESULTFIELD_LIST, displayList);
+		map.put(RESULTFIELD_UNKNOWN_TERMS,
+				fuzzy || constraint.isEmpty() ? Collections.emptyList()
+						: queryUnknownTerms);
+
+		results.values = map;
+		results.count = displayList.size();
+
+		return results;
+	}
+
+	/**
+	 * @return Compiled query, or null if <code>constraint</code> is only name
+	 * words.  Reused while the constraint and saved queries stay the same, so
+	 * it keeps the pass rates its term order is based on.
+	 */
+	@Nullable
+	private TorrentQuery getQuery(@NonNull Session session,
+			@NonNull String constraint) {
+		if (constraint.isEmpty()) {
+			return null;
+		}
+		Map<String, String> savedQueries = session.getRemoteProfile().getSavedQueries();
+		if (!constraint.equals(queryText)
+				|| !savedQueries.equals(querySavedQueries)) {
+			List<String> unknownTerms = new ArrayList<>();
+			query = TorrentQuery.compile(constraint, savedQueries, unknownTerms);
+			queryUnknownTerms = unknownTerms;
+			queryText = constraint;
+			querySavedQueries = savedQueries;
+		}
+		return query;
+	}
+
+	/**
+	 * @return Key of this pass's result in {@link #resultCaches}, or null if it
+	 * can't be cached (letter counts needed, or a query compares dates to now)
+	 */
+	@Nullable
+	private ResultKey getResultKey(@NonNull Session session,
+			@NonNull String constraint, @Nullable TorrentQuery query,
+			@Nullable TorrentListSorter sorter, long dataVersion) {
+		if (isBuildLetters() || sorter == null
+				|| (query != null && query.isTimeDependent())) {
+			return null;
+		}
+		SortDefinition sortDefinition = sorter.getSortDefinition();
+		return new ResultKey(constraint,
+				query == null ? 0 : querySavedQueries.hashCode(), query != null,
+				filterMode, sortDefinition == null ? -1 : sortDefinition.id,
+				sorter.isAsc(), dataVersion);
+	}
+
+	/**
+	 * @return The session's results, created if needed.  Caller must hold
+	 * {@link #resultCaches}' lock.
+	 */
+	@NonNull
+	private static Map<ResultKey, long[]> getResultCache(
+			@NonNull Session session) {
+		Map<ResultKey, long[]> resultCache = resultCaches.get(session);
+		if (resultCache == null) {
+			resultCache = new LinkedHashMap<ResultKey, long[]>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Entry<ResultKey, long[]> eldest) {
+					return size() > RESULT_CACHE_SIZE;
+				}
+			};
+			resultCaches.put(session, resultCache);
+		}
+		return resultCache;
+	}
+
+	private static void putCachedResult(@NonNull Session session,
+			@NonNull ResultKey key, @NonNull List<TorrentListAdapterItem> items) {
+		long[] torrentIDs = new long[items.size()];
+		for (int i = 0; i < torrentIDs.length; i++) {
+			torrentIDs[i] = ((TorrentListAdapterTorrentItem) items.get(i)).torrentID;
+		}
+		synchronized (resultCaches) {
+			getResultCache(session).put(key, torrentIDs);
+		}
+	}
+
+	/**
+	 * @return New items for the cached result, which this filter is free to
+	 * give group IDs and values
+	 */
+	@Nullable
+	private ArrayList<TorrentListAdapterItem> getCachedResult(
+			@NonNull Session session, @NonNull ResultKey key) {
+		long[] torrentIDs;
+		synchronized (resultCaches) {
+			torrentIDs = getResultCache(session).get(key);
+		}
+		if (torrentIDs == null) {
+			return null;
+		}
+		if (TorrentListAdapter.DEBUG) {
+			log(TAG, "getCachedResult: hit for '" + key.constraint + "', "
+					+ torrentIDs.length + " items");
+		}
+		ArrayList<TorrentListAdapterItem> keys = new ArrayList<>(
+				torrentIDs.length);
+		for (long torrentID : torrentIDs) {
+			keys.add(new TorrentListAdapterTorrentItem(torrentID));
+		}
+		return keys;
+	}
+
+	/**
+	 * Filters the smallest cached result of the same data and sort whose
+	 * constraint is contained in this one, and whose filter mode is the same
+	 * or shows all.  That result holds every torrent this pass can match, in
+	 * sort order, so no sort is needed.
+	 *
+	 * @return null if there's no such result, or the constraint is a query
+	 */
+	@Nullable
+	private ArrayList<TorrentListAdapterItem> buildFromCachedSuperset(
+			@NonNull Session session, @NonNull ResultKey key) {
+		if (key.isQuery) {
+			return null;
+		}
+		String constraintUpper = key.constraint.toUpperCase(Locale.US);
+		ResultKey supersetKey = null;
+		long[] superset = null;
+		synchronized (resultCaches) {
+			for (Map.Entry<ResultKey, long[]> entry : getResultCache(
+					session).entrySet()) {
+				ResultKey cachedKey = entry.getKey();
+				long[] torrentIDs = entry.getValue();
+				if (cachedKey.isQuery || cachedKey.dataVersion != key.dataVersion
+						|| cachedKey.sortID != key.sortID
+						|| cachedKey.sortAsc != key.sortAsc
+						|| (cachedKey.filterMode != key.filterMode
+								&& !isShowAll(cachedKey.filterMode))
+						|| !constraintUpper.contains(
+								cachedKey.constraint.toUpperCase(Locale.US))
+						|| (superset != null && superset.length <= torrentIDs.length)) {
+					continue;
+				}
+				supersetKey = cachedKey;
+				superset = torrentIDs;
+			}
+		}
+		if (superset == null) {
+			return null;
+		}
+
+		boolean checkFilterMode = supersetKey.filterMode != filterMode
+				&& !isShowAll(filterMode);
+		ArrayList<TorrentListAdapterItem> keys = new ArrayList<>();
+		for (long torrentID : superset) {
+			if (passesFilter(session, torrentID, checkFilterMode, constraintUpper,
+					null)) {
+				keys.add(new TorrentListAdapterTorrentItem(torrentID));
+			}
+		}
+		if (TorrentListAdapter.DEBUG) {
+			log(TAG, "buildFromCachedSuperset: " + keys.size() + " of "
+					+ superset.length + " from '" + supersetKey.constraint + "'");
+		}
+		return keys;
+	}
+
+	private static boolean isShowAll(long filterMode) {
+		return filterMode <= 0 || filterMode == FILTERBY_ALL;
+	}
+
+	@NonNull
+	private ArrayList<TorrentListAdapterItem> buildFull(@NonNull Session session,
+			CharSequence _constraint, @Nullable TorrentQuery query) {
 		LongSparseArray<Map<?, ?>> torrentList = session.torrent.getListAsSparseArray();
 		int size = torrentList.size();
 
@@ -143,24 +479,179 @@ public class TorrentListFilter
 				log(TAG, "type filtered to " + size);
 			}
 		}
-		int num = torrentList.size();
-		ArrayList<TorrentListAdapterItem> keys = new ArrayList<>(num);
-		for (int i = 0; i < num; i++) {
-			keys.add(new TorrentListAdapterTorrentItem(torrentList.keyAt(i)));
-		}
+		checkFilterCancelled();
+		ArrayList<TorrentListAdapterItem> keys;
+		if (query != null) {
+			long[] torrentIDs = query.filter(session, torrentList);
+			keys = new ArrayList<>(torrentIDs.length);
+			for (long torrentID : torrentIDs) {
+				keys.add(new TorrentListAdapterTorrentItem(torrentID));
+			}
+			if (TorrentListAdapter.DEBUG) {
+				log(TAG, "query filtered to " + torrentIDs.length);
+			}
+		} else {
+			int num = torrentList.size();
+			keys = new ArrayList<>(num);
+			for (int i = 0; i < num; i++) {
+				keys.add(new TorrentListAdapterTorrentItem(torrentList.keyAt(i)));
+			}
 
-		performLetterFiltering(_constraint, keys);
+			performLetterFiltering(_constraint, keys);
+		}
 
 		doSort(keys);
 
-		Map<String, Object> map = new HashMap<>();
-		map.put(RESULTFIELD_LIST, keys);
-		refreshSections(keys, map);
+		return keys;
+	}
 
-		results.values = map;
-		results.count = keys.size();
+	/**
+	 * Ranks torrents by how well their names match <code>query</code>, using
+	 * the session's name index.  Only the best {@link #FUZZY_MAX_RESULTS} are
+	 * returned, in rank order.
+	 */
+	@NonNull
+	private ArrayList<TorrentListAdapterItem> buildFuzzy(@NonNull Session session,
+			@NonNull String query) {
+		long filterMode = this.filterMode;
+		boolean checkFilterMode = filterMode > 0 && filterMode != FILTERBY_ALL;
+		long[] torrentIDs = session.torrent.getNameIndex().search(query,
+				FUZZY_MAX_RESULTS, checkFilterMode
+						? torrentID -> filterCheck(filterMode, torrentID) : null);
+		checkFilterCancelled();
+
+		ArrayList<TorrentListAdapterItem> keys = new ArrayList<>(
+				torrentIDs.length);
+		for (long torrentID : torrentIDs) {
+			keys.add(new TorrentListAdapterTorrentItem(torrentID));
+		}
+		if (TorrentListAdapter.DEBUG) {
+			log(TAG, "buildFuzzy: " + keys.size() + " ranked for '" + query + "'");
+		}
+		return keys;
+	}
 
-		return results;
+	/**
+	 * Re-filters and re-positions only torrents that changed since last pass.
+	 *
+	 * @return null if a full rebuild is needed (torrents added/removed, filter
+	 * or sort changed, too many changes, letter counts needed, or a query
+	 * compares dates to now)
+	 */
+	@Nullable
+	private ArrayList<TorrentListAdapterItem> buildIncremental(
+			@NonNull Session session, @NonNull String constraint,
+			@Nullable TorrentQuery query) {
+		TorrentListSorter sorter = (TorrentListSorter) getSorter();
+		if (lastSortedItems == null || isBuildLetters() || sorter == null
+				|| query != lastQuery
+				|| (query != null && query.isTimeDependent())
+				|| filterMode != lastFilterMode || !constraint.equals(lastConstraint)
+				|| sorter.getSortDefinition() != lastSortDefinition
+				|| sorter.isAsc() != lastSortAsc) {
+			return null;
+		}
+
+		long[] changedIDs = session.torrent.getChangedTorrentIDsSince(
+				lastDataVersion);
+		if (changedIDs == null || !canSortIncremental(changedIDs.length,
+				session.torrent.getCount())) {
+			return null;
+		}
+
+		ArrayList<TorrentListAdapterItem> items = new ArrayList<>(
+				lastSortedItems);
+		if (changedIDs.length == 0) {
+			inPlacePositions = new int[0];
+			return items;
+		}
+		Arrays.sort(changedIDs);
+
+		boolean sortKeysChanged = true;
+		SortDefinition sortDefinition = sorter.getSortDefinition();
+		if (sortDefinition != null) {
+			sortKeysChanged = false;
+			for (String fieldID : sortDefinition.sortFieldIDs) {
+				if (session.torrent.hasFieldChangedSince(fieldID, lastDataVersion)) {
+					sortKeysChanged = true;
+					break;
+				}
+			}
+		}
+
+		String constraintUpper = constraint.toUpperCase(Locale.US);
+		boolean checkFilterMode = filterMode > 0 && filterMode != FILTERBY_ALL;
+
+		// Pull changed torrents out of the sorted list.  Changed torrents get new
+		// item objects, so the diff can compare their row state to the old one's
+		LongSparseArray<TorrentListAdapterItem> existing = new LongSparseArray<>(
+				changedIDs.length);
+		int[] replacedPositions = new int[changedIDs.length];
+		int numReplaced = 0;
+		boolean removed = false;
+		for (ListIterator<TorrentListAdapterItem> iter = items.listIterator(); iter.hasNext();) {
+			TorrentListAdapterItem item = iter.next();
+			long torrentID = ((TorrentListAdapterTorrentItem) item).torrentID;
+			if (Arrays.binarySearch(changedIDs, torrentID) < 0) {
+				continue;
+			}
+			existing.put(torrentID, item);
+			if (sortKeysChanged || !passesFilter(session, torrentID,
+					checkFilterMode, constraintUpper, query)) {
+				iter.remove();
+				removed = true;
+			} else {
+				iter.set(new TorrentListAdapterTorrentItem(torrentID));
+				replacedPositions[numReplaced++] = iter.previousIndex();
+			}
+		}
+
+		List<TorrentListAdapterItem> toInsert = new ArrayList<>();
+		for (long torrentID : changedIDs) {
+			TorrentListAdapterItem item = existing.get(torrentID);
+			if (item != null && !sortKeysChanged) {
+				// Still in list at same position if it passed, removed if not
+				continue;
+			}
+			if (!passesFilter(session, torrentID, checkFilterMode,
+					constraintUpper, query)) {
+				continue;
+			}
+			toInsert.add(new TorrentListAdapterTorrentItem(torrentID));
+		}
+
+		if (TorrentListAdapter.DEBUG) {
+			log(TAG, "buildIncremental: " + changedIDs.length + " changed, "
+					+ toInsert.size() + " to insert; sortKeysChanged="
+					+ sortKeysChanged);
+		}
+
+		if (!removed && toInsert.isEmpty()) {
+			// Same torrents in the same order
+			inPlacePositions = Arrays.copyOf(replacedPositions, numReplaced);
+			return items;
+		}
+
+		doSortIncremental(items, toInsert);
+		return items;
+	}
+
+	private boolean passesFilter(@NonNull Session session, long torrentID,
+			boolean checkFilterMode, @NonNull String constraintUpper,
+			@Nullable TorrentQuery query) {
+		if (checkFilterMode && !filterCheck(filterMode, torrentID)) {
+			return false;
+		}
+		if (constraintUpper.isEmpty()) {
+			return true;
+		}
+		Map<?, ?> map = session.torrent.getCachedTorrent(torrentID);
+		if (query != null) {
+			return map != null && query.matches(session, map);
+		}
+		return map != null && constraintCheck(constraintUpper,
+				MapUtils.getMapString(map, TransmissionVars.FIELD_TORRENT_NAME, ""),
+				null, null);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -174,12 +665,17 @@ public class TorrentListFilter
 				RESULTFIELD_LIST);
 		synchronized (lockSections) {
 			sections = (String[]) map.get(RESULTFIELD_SECTIONS);
-			sectionStarts = (List<Integer>) map.get(RESULTFIELD_SECTION_STARTS);
+			sectionStarts = (int[]) map.get(RESULTFIELD_SECTION_STARTS);
 		}
 
 		SparseIntArray countsByViewType = (SparseIntArray) map.get(
 				RESULTFIELD_COUNTS_VIEWTYPE);
 
+		List<String> unknownTerms = (List<String>) map.get(
+				RESULTFIELD_UNKNOWN_TERMS);
+		this.unknownTerms = unknownTerms == null ? Collections.emptyList()
+				: unknownTerms;
+
 		if (displayList == null) {
 			displayList = new ArrayList<>();
 		}
@@ -259,92 +755,298 @@ public class TorrentListFilter
 		return true;
 	}
 
-	private void refreshSections(@NonNull List<TorrentListAdapterItem> items,
+	/**
+	 * Adds group headers (and removes collapsed groups' items) in one pass.
+	 * Headers carry the group's count, total size, total rates and average
+	 * progress, summed in the same pass.
+	 * <p/>
+	 * Group IDs and summed values are stored on the items, and the incremental
+	 * build gives only changed torrents new items, so a pass where just a few
+	 * torrents changed only reads those torrents' maps.  Items of collapsed
+	 * groups are only counted and summed; they aren't kept for display.
+	 * <p/>
+	 * Torrents before the first torrent with a group ID are shown without a
+	 * header.  Later torrents without one join the group above.
+	 * <p/>
+	 * When the incremental build kept the same torrents in the same order (no
+	 * sort field changed, see {@link #buildIncremental}), groups can't have
+	 * changed either.  The last pass's groups are then patched at just the
+	 * replaced positions, and only those groups' headers are rebuilt.
+	 *
+	 * @return List to display.  <code>items</code> if not grouping
+	 */
+	@NonNull
+	private List<TorrentListAdapterItem> refreshSections(
+			@NonNull List<TorrentListAdapterItem> items,
 			@NonNull Map<String, Object> map) {
-		SparseIntArray countsByViewType = new SparseIntArray();
+		SectionState prevState = sectionState;
+		sectionState = null;
 		TorrentListSorter sorter = (TorrentListSorter) getSorter();
 		if (sorter == null) {
-			return;
+			return items;
 		}
 
 		GroupedSortDefinition<TorrentListAdapterItem, Integer> sortDefinition = sorter.getGroupedSortDefinition();
 		if (sortDefinition == null) {
 			// doesn't support grouping
-			return;
+			return items;
 		}
-		if (items.size() < sortDefinition.getMinCountBeforeGrouping()) {
-			return;
+		int numItems = items.size();
+		if (numItems < sortDefinition.getMinCountBeforeGrouping()) {
+			return items;
 		}
 
-		List<Comparable> groupIDs = new ArrayList<>();
-		List<String> groupNames = new ArrayList<>();
-		List<Integer> groupStartPositions = new ArrayList<>();
-		List<Integer> groupCounts = new ArrayList<>();
+		boolean isAsc = sorter.isAsc();
+		Object groupIDCacheToken = sortDefinition.getGroupIDCacheToken(items);
+		boolean useCachedGroupIDs = sortDefinition == lastGroupSortDefinition
+				&& isAsc == lastGroupSortAsc
+				&& Objects.equals(groupIDCacheToken, lastGroupIDCacheToken);
+		lastGroupSortDefinition = sortDefinition;
+		lastGroupSortAsc = isAsc;
+		lastGroupIDCacheToken = groupIDCacheToken;
 
-		ListIterator<TorrentListAdapterItem> iterator = items.listIterator();
+		Session session = talkback.getSession();
+		int collapsedVersion = this.collapsedVersion;
+		if (useCachedGroupIDs && inPlacePositions != null && prevState != null
+				&& prevState.collapsedVersion == collapsedVersion
+				&& prevState.items.size() == numItems) {
+			return patchSections(session, prevState, items, map);
+		}
 
-		boolean isAsc = sorter.isAsc();
-		Comparable lastID = null;
-		int pos = -1;
-		int numInGroup = 0;
-		boolean collapsed = false;
-		int countHeaders = 0;
-		int countItems = items.size();
-		while (iterator.hasNext()) {
-			TorrentListAdapterItem item = iterator.next();
+		// Group runs, and the torrent items to show: ungrouped ones first, then
+		// those of expanded groups, in order
+		TorrentListAdapterTorrentItem[] shownItems = new TorrentListAdapterTorrentItem[numItems];
+		int numShown = 0;
+		int numUngrouped = 0;
+		int numGroups = 0;
+		Integer[] groupIDs = new Integer[16];
+		boolean[] groupCollapsed = new boolean[16];
+		int[] groupCounts = new int[16];
+		long[] groupSizes = new long[16];
+		long[] groupRatesDown = new long[16];
+		long[] groupRatesUp = new long[16];
+		double[] groupProgress = new double[16];
+		// Group index and display position of each item, for patching
+		int[] itemGroups = new int[numItems];
+		int[] itemPositions = new int[numItems];
+		for (int i = 0; i < numItems; i++) {
+			itemGroups[i] = -1;
+			itemPositions[i] = -1;
+			TorrentListAdapterItem item = items.get(i);
 			if (!(item instanceof TorrentListAdapterTorrentItem)) {
-				countItems--;
-				iterator.remove();
 				continue;
 			}
-			if (!collapsed) {
-				pos++;
+			TorrentListAdapterTorrentItem torrentItem = (TorrentListAdapterTorrentItem) item;
+			Integer id = useCachedGroupIDs ? torrentItem.groupID : null;
+			if (id == null) {
+				id = sortDefinition.getGroupID(item, isAsc, items);
+				torrentItem.groupID = id;
 			}
-			Integer id = sortDefinition.getGroupID(item, isAsc, items);
 			if (id == null) {
-				continue;
+				if (numGroups == 0) {
+					// No group above to join, and no name for a null group
+					itemPositions[i] = numShown;
+					shownItems[numShown++] = torrentItem;
+					numUngrouped++;
+					continue;
+				}
+				// Ungroupable, keep it with the group above
+				id = groupIDs[numGroups - 1];
 			}
-			if (id.equals(lastID)) {
-				numInGroup++;
-			} else {
-				// First item or New Group
-				groupIDs.add(id);
-				collapsed = isGroupCollapsed(id);
-				groupNames.add(sortDefinition.getGroupName(id, isAsc));
-				groupStartPositions.add(pos);
-				pos++;
-				if (lastID != null) {
-					// New Group, add count of previous group
-					groupCounts.add(numInGroup);
+			if (numGroups == 0 || !id.equals(groupIDs[numGroups - 1])) {
+				if (numGroups == groupCounts.length) {
+					int newLength = numGroups * 2;
+					groupIDs = Arrays.copyOf(groupIDs, newLength);
+					groupCollapsed = Arrays.copyOf(groupCollapsed, newLength);
+					groupCounts = Arrays.copyOf(groupCounts, newLength);
+					groupSizes = Arrays.copyOf(groupSizes, newLength);
+					groupRatesDown = Arrays.copyOf(groupRatesDown, newLength);
+					groupRatesUp = Arrays.copyOf(groupRatesUp, newLength);
+					groupProgress = Arrays.copyOf(groupProgress, newLength);
 				}
-				numInGroup = 1;
+				groupIDs[numGroups] = id;
+				groupCollapsed[numGroups] = isGroupCollapsed(id);
+				numGroups++;
+			}
+			int group = numGroups - 1;
+			itemGroups[i] = group;
+			groupCounts[group]++;
+			// Values are kept on the item, so only changed torrents read their map
+			torrentItem.loadGroupValues(session);
+			groupSizes[group] += torrentItem.sizeWhenDone;
+			groupRatesDown[group] += torrentItem.rateDownload;
+			groupRatesUp[group] += torrentItem.rateUpload;
+			groupProgress[group] += torrentItem.percentDone;
+			if (!groupCollapsed[group]) {
+				// Index into shownItems for now, display position below
+				itemPositions[i] = numShown;
+				shownItems[numShown++] = torrentItem;
 			}
-			lastID = id;
 		}
-		groupCounts.add(numInGroup);
 
-		// Add Headers and collapse entries if needed
-		for (int i = 0, size = groupNames.size(); i < size; i++) {
-			//noinspection ConstantConditions
-			int position = groupStartPositions.get(i);
-			//noinspection ConstantConditions
-			numInGroup = groupCounts.get(i);
-			Comparable groupID = groupIDs.get(i);
-			items.add(position, new TorrentListAdapterHeaderItem(groupID,
-					groupNames.get(i), numInGroup));
-			countHeaders++;
-			if (isGroupCollapsed(groupID)) {
-				items.subList(position + 1, position + numInGroup + 1).clear();
-				countItems -= numInGroup;
+		// Add Headers, and items of expanded groups
+		List<TorrentListAdapterItem> displayList = new ArrayList<>(
+				numShown + numGroups);
+		for (int i = 0; i < numUngrouped; i++) {
+			displayList.add(shownItems[i]);
+		}
+		String[] groupNames = new String[numGroups];
+		int[] groupStartPositions = new int[numGroups];
+		// Shown item i of group g is displayed after g + 1 headers
+		for (int i = 0; i < numItems; i++) {
+			if (itemGroups[i] >= 0 && itemPositions[i] >= 0) {
+				itemPositions[i] += itemGroups[i] + 1;
 			}
 		}
+		for (int group = 0, i = numUngrouped; group < numGroups; group++) {
+			Integer groupID = groupIDs[group];
+			int numInGroup = groupCounts[group];
+			groupNames[group] = sortDefinition.getGroupName(groupID, isAsc);
+			groupStartPositions[group] = displayList.size();
+			displayList.add(new TorrentListAdapterHeaderItem(groupID,
+					groupNames[group], numInGroup, groupSizes[group],
+					groupRatesDown[group], groupRatesUp[group],
+					(float) (groupProgress[group] / numInGroup)));
+			if (!groupCollapsed[group]) {
+				for (int end = i + numInGroup; i < end; i++) {
+					displayList.add(shownItems[i]);
+				}
+			}
+		}
+		int countItems = numShown;
 
-		countsByViewType.put(TorrentListAdapter.VIEWTYPE_HEADER, countHeaders);
+		SparseIntArray countsByViewType = new SparseIntArray();
+		countsByViewType.put(TorrentListAdapter.VIEWTYPE_HEADER, numGroups);
 		countsByViewType.put(TorrentListAdapter.VIEWTYPE_TORRENT, countItems);
 
-		map.put(RESULTFIELD_SECTIONS, groupNames.toArray(new String[0]));
+		map.put(RESULTFIELD_SECTIONS, groupNames);
 		map.put(RESULTFIELD_SECTION_STARTS, groupStartPositions);
 		map.put(RESULTFIELD_COUNTS_VIEWTYPE, countsByViewType);
+
+		SectionState state = new SectionState();
+		state.collapsedVersion = collapsedVersion;
+		state.items = items;
+		state.displayList = displayList;
+		state.itemGroups = itemGroups;
+		state.itemPositions = itemPositions;
+		state.groupIDs = groupIDs;
+		state.groupNames = groupNames;
+		state.groupStartPositions = groupStartPositions;
+		state.groupCounts = groupCounts;
+		state.groupSizes = groupSizes;
+		state.groupRatesDown = groupRatesDown;
+		state.groupRatesUp = groupRatesUp;
+		state.groupProgress = groupProgress;
+		state.countsByViewType = countsByViewType;
+		sectionState = state;
+		return displayList;
+	}
+
+	/**
+	 * Puts the replaced items of an in place pass into the last pass's display
+	 * list, and rebuilds the headers of their groups
+	 */
+	@NonNull
+	private List<TorrentListAdapterItem> patchSections(@NonNull Session session,
+			@NonNull SectionState state,
+			@NonNull List<TorrentListAdapterItem> items,
+			@NonNull Map<String, Object> map) {
+		List<TorrentListAdapterItem> displayList = new ArrayList<>(
+				state.displayList);
+		int numGroups = state.groupNames.length;
+		boolean[] groupChanged = new boolean[numGroups];
+		for (int pos : inPlacePositions) {
+			TorrentListAdapterItem oldItem = state.items.get(pos);
+			TorrentListAdapterItem newItem = items.get(pos);
+			if (!(oldItem instanceof TorrentListAdapterTorrentItem)
+					|| !(newItem instanceof TorrentListAdapterTorrentItem)) {
+				continue;
+			}
+			TorrentListAdapterTorrentItem oldTorrent = (TorrentListAdapterTorrentItem) oldItem;
+			TorrentListAdapterTorrentItem newTorrent = (TorrentListAdapterTorrentItem) newItem;
+			newTorrent.groupID = oldTorrent.groupID;
+			int displayPosition = state.itemPositions[pos];
+			if (displayPosition >= 0) {
+				displayList.set(displayPosition, newTorrent);
+			}
+			int group = state.itemGroups[pos];
+			if (group < 0) {
+				continue;
+			}
+			newTorrent.loadGroupValues(session);
+			state.groupSizes[group] += newTorrent.sizeWhenDone
+					- oldTorrent.sizeWhenDone;
+			state.groupRatesDown[group] += newTorrent.rateDownload
+					- oldTorrent.rateDownload;
+			state.groupRatesUp[group] += newTorrent.rateUpload
+					- oldTorrent.rateUpload;
+			state.groupProgress[group] += newTorrent.percentDone
+					- oldTorrent.percentDone;
+			groupChanged[group] = true;
+		}
+
+		for (int group = 0; group < numGroups; group++) {
+			if (!groupChanged[group]) {
+				continue;
+			}
+			int numInGroup = state.groupCounts[group];
+			displayList.set(state.groupStartPositions[group],
+					new TorrentListAdapterHeaderItem(state.groupIDs[group],
+							state.groupNames[group], numInGroup, state.groupSizes[group],
+							state.groupRatesDown[group], state.groupRatesUp[group],
+							(float) (state.groupProgress[group] / numInGroup)));
+		}
+
+		if (TorrentListAdapter.DEBUG) {
+			log(TAG, "patchSections: " + inPlacePositions.length
+					+ " items replaced in " + numGroups + " groups");
+		}
+
+		state.items = items;
+		state.displayList = displayList;
+		sectionState = state;
+
+		map.put(RESULTFIELD_SECTIONS, state.groupNames);
+		map.put(RESULTFIELD_SECTION_STARTS, state.groupStartPositions);
+		map.put(RESULTFIELD_COUNTS_VIEWTYPE, state.countsByViewType);
+		return displayList;
+	}
+
+	/**
+	 * Groups and display positions from the last grouped pass
+	 */
+	private static final class SectionState
+	{
+		int collapsedVersion;
+
+		/** Sorted items the groups were built from */
+		List<TorrentListAdapterItem> items;
+
+		List<TorrentListAdapterItem> displayList;
+
+		/** Per item: index of its group, or -1 if shown above the first one */
+		int[] itemGroups;
+
+		/** Per item: position in {@link #displayList}, or -1 if collapsed */
+		int[] itemPositions;
+
+		Integer[] groupIDs;
+
+		String[] groupNames;
+
+		int[] groupStartPositions;
+
+		int[] groupCounts;
+
+		long[] groupSizes;
+
+		long[] groupRatesDown;
+
+		long[] groupRatesUp;
+
+		double[] groupProgress;
+
+		SparseIntArray countsByViewType;
 	}
 
 //	@Override
@@ -360,10 +1062,10 @@ public class TorrentListFilter
 //	public int getPositionForSection(int sectionIndex) {
 //		synchronized (lockSections) {
 //			if (sectionIndex < 0 || sectionStarts == null
-//					|| sectionIndex >= sectionStarts.size()) {
+//					|| sectionIndex >= sectionStarts.length) {
 //				return 0;
 //			}
-//			return sectionStarts.get(sectionIndex);
+//			return sectionStarts[sectionIndex];
 //		}
 //	}
 
@@ -373,7 +1075,7 @@ public class TorrentListFilter
 			if (sectionStarts == null || sections == null) {
 				return 0;
 			}
-			int i = Collections.binarySearch(sectionStarts, position);
+			int i = Arrays.binarySearch(sectionStarts, position);
 			if (i < 0) {
 				i = (-1 * i) - 2;
 			}
@@ -470,6 +1172,11 @@ public class TorrentListFilter
 				return (int) ((position / 10) << 1) + (complete ? 1 : 0);
 			}
 
+			@Override
+			public Object getGroupIDCacheToken(List<TorrentListAdapterItem> items) {
+				return items.size() < 10;
+			}
+
 			@Override
 			public String getGroupName(Integer sectionID, boolean isAsc) {
 				if (sectionID < 0) {
@@ -551,6 +1258,15 @@ public class TorrentListFilter
 						return active ? -1 : -2;
 					}
 
+					@Override
+					public Object getGroupIDCacheToken(
+							List<TorrentListAdapterItem> items) {
+						// Today and Yesterday groups shift at midnight
+						GregorianCalendar today = new GregorianCalendar();
+						return (today.get(Calendar.YEAR) << 9)
+								| today.get(Calendar.DAY_OF_YEAR);
+					}
+
 					@Override
 					public String getGroupName(Integer sectionID, boolean isAsc) {
 						switch (sectionID) {
@@ -936,4 +1652,56 @@ public class TorrentListFilter
 		filterMode = savedInstanceState.getLong(TAG + KEY_SUFFIX_FILTER_MODE,
 				filterMode);
 	}
+
+	private static final class ResultKey
+	{
+		@NonNull
+		final String constraint;
+
+		final int savedQueriesHash;
+
+		final boolean isQuery;
+
+		final long filterMode;
+
+		final int sortID;
+
+		final boolean sortAsc;
+
+		final long dataVersion;
+
+		ResultKey(@NonNull String constraint, int savedQueriesHash,
+				boolean isQuery, long filterMode, int sortID, boolean sortAsc,
+				long dataVersion) {
+			this.constraint = constraint;
+			this.savedQueriesHash = savedQueriesHash;
+			this.isQuery = isQuery;
+			this.filterMode = filterMode;
+			this.sortID = sortID;
+			this.sortAsc = sortAsc;
+			this.dataVersion = dataVersion;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ResultKey)) {
+				return false;
+			}
+			ResultKey other = (ResultKey) o;
+			return savedQueriesHash == other.savedQueriesHash
+					&& isQuery == other.isQuery && filterMode == other.filterMode
+					&& sortID == other.sortID && sortAsc == other.sortAsc
+					&& dataVersion == other.dataVersion
+					&& constraint.equals(other.constraint);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(constraint, savedQueriesHash, isQuery,
+					filterMode, sortID, sortAsc, dataVersion);
+		}
+	}
 }
@@ -31,6 +31,7 @@ import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
 
 import com.biglybt.android.client.AndroidUtils;
 import com.biglybt.android.client.R;
+import com.biglybt.util.DisplayFormatters;
 
 /**
  * Created by TuxPaper on 3/20/17.
@@ -74,9 +75,29 @@ class TorrentListHolderHeader
 
 		if (adapter.showGroupCount(item.id)) {
 			Resources res = AndroidUtils.requireResources(itemView);
-			String s = res.getQuantityString(R.plurals.torrent_count, item.count,
-					item.count);
-			tvCount.setText(s);
+			String split = res.getString(R.string.torrent_row_line_split);
+			StringBuilder sb = new StringBuilder();
+			sb.append(res.getQuantityString(R.plurals.torrent_count, item.count,
+					item.count));
+			if (item.totalSize > 0) {
+				sb.append(split);
+				sb.append(DisplayFormatters.formatByteCountToKiBEtc(item.totalSize));
+			}
+			if (item.avgProgress < 1.0f) {
+				sb.append(split);
+				sb.append(DisplayFormatters.formatPercentFromThousands(
+						(int) (item.avgProgress * 1000)));
+			}
+			if (item.rateDownload > 0) {
+				sb.append(split).append("\u25BC ");
+				DisplayFormatters.appendByteCountToKiBEtcPerSec(sb,
+						item.rateDownload);
+			}
+			if (item.rateUpload > 0) {
+				sb.append(split).append("\u25B2 ");
+				DisplayFormatters.appendByteCountToKiBEtcPerSec(sb, item.rateUpload);
+			}
+			tvCount.setText(sb);
 		} else {
 			tvCount.setText("");
 		}
@@ -31,6 +31,7 @@ import androidx.annotation.Nullable;
 import com.biglybt.android.adapter.FlexibleRecyclerAdapter;
 import com.biglybt.android.client.AndroidUtilsUI;
 import com.biglybt.android.client.R;
+import com.biglybt.android.client.spanbubbles.SpanTags;
 
 class TorrentListHolderItem
 	extends TorrentListHolder
@@ -67,6 +68,11 @@ class TorrentListHolderItem
 
 	boolean animateFlip;
 
+	/** Model the row was last filled with, for {@link #torrentID} */
+	TorrentListRowFiller.RowModel rowModel;
+
+	SpanTags spanTags;
+
 	private final ViewGroup topRightArea;
 
 	private final ViewGroup leftArea;
@@ -19,10 +19,16 @@ package com.biglybt.android.client.adapter;
 import android.content.Context;
 import android.content.res.Resources;
 import android.text.SpannableStringBuilder;
+import android.text.TextPaint;
+import android.text.TextUtils;
 import android.text.format.DateUtils;
+import android.util.LruCache;
 import android.view.View;
+import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
 import com.biglybt.android.client.*;
 import com.biglybt.android.client.activity.TorrentDetailsActivity;
@@ -45,16 +51,26 @@ import java.util.Map;
  * <p/>
  * Split out from {@link TorrentListAdapter} so that
  * {@link TorrentDetailsActivity} can use it for its top area
+ * <p/>
+ * Row text is built into a {@link RowModel} per torrent, cached until the
+ * torrent's version changes, so binding an unchanged torrent only assigns
+ * text.  Models of changed torrents can be built ahead of time, off the UI
+ * thread, with {@link #prepareModel(Session, long)}.
  */
 public class TorrentListRowFiller
 {
 	@SuppressWarnings("unused")
 	private static final String TAG = "TL_RowFiller";
 
+	private static final int MODEL_CACHE_SIZE = 1024;
+
 	private final int colorBGTagState;
 
 	private final int colorFGTagState;
 
+	@NonNull
+	private final Resources resources;
+
 	@NonNull
 	private final TextViewFlipper flipper;
 
@@ -70,6 +86,101 @@ public class TorrentListRowFiller
 		nfPct1.setMaximumFractionDigits(1);
 	}
 
+	/**
+	 * Models by torrent ID
+	 */
+	private final LruCache<Long, RowModel> modelCache = new LruCache<>(
+			MODEL_CACHE_SIZE);
+
+	/**
+	 * Layout of the rows we fill.  Set from the first holder filled, so that
+	 * models can be built without one.
+	 */
+	private volatile RowStyle rowStyle;
+
+	/**
+	 * What a row's layout needs to know to build its text
+	 */
+	private static final class RowStyle
+	{
+		final boolean isSmall;
+
+		final boolean hasTrackerErrorView;
+
+		final TextPaint paintUlRate;
+
+		final TextPaint paintDlRate;
+
+		final TextPaint paintStatus;
+
+		RowStyle(@NonNull TorrentListHolderItem holder) {
+			isSmall = holder.isSmall;
+			hasTrackerErrorView = holder.tvTrackerError != null;
+			paintUlRate = copyPaint(holder.tvUlRate);
+			paintDlRate = copyPaint(holder.tvDlRate);
+			paintStatus = copyPaint(holder.tvStatus);
+		}
+
+		boolean matches(@NonNull TorrentListHolderItem holder) {
+			return isSmall == holder.isSmall
+					&& hasTrackerErrorView == (holder.tvTrackerError != null);
+		}
+
+		@Nullable
+		private static TextPaint copyPaint(@Nullable TextView tv) {
+			return tv == null ? null : new TextPaint(tv.getPaint());
+		}
+	}
+
+	/**
+	 * Display values of one torrent's row, for one {@link RowStyle}
+	 */
+	static final class RowModel
+	{
+		final long version;
+
+		@NonNull
+		final RowStyle style;
+
+		CharSequence name;
+
+		float pctDone;
+
+		CharSequence progress;
+
+		int progressInt;
+
+		int secondaryProgressInt;
+
+		CharSequence info;
+
+		/** null when there's no tracker error view */
+		CharSequence trackerError;
+
+		CharSequence eta;
+
+		CharSequence ulRate;
+
+		CharSequence dlRate;
+
+		CharSequence status;
+
+		int statusColor;
+
+		@NonNull
+		final List<Map<?, ?>> listTags = new ArrayList<>();
+
+		/** Names and colors of {@link #listTags}, to tell if they need redrawing */
+		String tagsKey;
+
+		boolean needsAuth;
+
+		RowModel(long version, @NonNull RowStyle style) {
+			this.version = version;
+			this.style = style;
+		}
+	}
+
 	public TorrentListRowFiller(@NonNull Context context,
 			@NonNull View parentView, boolean showTags,
 			AuthRequestListener authRequestListener) {
@@ -83,6 +194,7 @@ public class TorrentListRowFiller
 				R.attr.bg_tag_type_2);
 		colorFGTagState = AndroidUtilsUI.getStyleColor(context,
 				R.attr.fg_tag_type_2);
+		resources = context.getResources();
 		this.authRequestListener = authRequestListener;
 
 		flipper = TextViewFlipper.create();
@@ -96,6 +208,10 @@ public class TorrentListRowFiller
 		fillHolder(viewHolder, item, session);
 	}
 
+	/**
+	 * Only the parts of the row that display differently than the holder's
+	 * previous model of the same torrent are refilled.
+	 */
 	void fillHolder(@NonNull TorrentListHolderItem holder, Map<?, ?> item,
 			@NonNull Session session) {
 		long torrentID = MapUtils.getMapLong(item,
@@ -104,363 +220,477 @@ public class TorrentListRowFiller
 		if (holder.tvName == null) {
 			return;
 		}
-		Resources resources = AndroidUtils.requireResources(holder.itemView);
 
 		holder.animateFlip = holder.torrentID == torrentID;
+		RowModel prev = holder.animateFlip ? holder.rowModel : null;
 		holder.torrentID = torrentID;
-		ViewHolderFlipValidator validator = new ViewHolderFlipValidator(holder,
-				torrentID);
 
 		if (holder.ivChecked != null) {
 			holder.ivChecked.setVisibility(
 					AndroidUtils.hasTouchScreen() ? View.GONE : View.VISIBLE);
 		}
 
-		String torrentName = MapUtils.getMapString(item,
-				TransmissionVars.FIELD_TORRENT_NAME, " ");
-		flipper.changeText(holder.tvName, AndroidUtils.lineBreaker(torrentName),
-				holder.animateFlip, validator);
+		RowStyle style = rowStyle;
+		if (style == null || !style.matches(holder)) {
+			style = new RowStyle(holder);
+			rowStyle = style;
+			modelCache.evictAll();
+		}
+		RowModel model = getModel(style, item, session, torrentID);
+		holder.rowModel = model;
+		if (model == prev) {
+			return;
+		}
 
-		int fileCount = MapUtils.getMapInt(item,
-				TransmissionVars.FIELD_TORRENT_FILE_COUNT, 0);
-		long size = MapUtils.getMapLong(item,
-				TransmissionVars.FIELD_TORRENT_SIZE_WHEN_DONE, 0);
+		ViewHolderFlipValidator validator = new ViewHolderFlipValidator(holder,
+				torrentID);
 
-		float pctDone = TorrentUtils.getPercentDone(item);
-		if (holder.tvProgress != null) {
-			String s = pctDone < 0 || (!holder.isSmall && pctDone >= 1) ? ""
-					: nfPct1.format(pctDone);
-			flipper.changeText(holder.tvProgress, s, holder.animateFlip, validator);
-		}
-		if (holder.pb != null) {
-			if (!(holder.pb instanceof LinearProgressIndicator)) {
-				holder.pb.setVisibility(pctDone < 0 ? View.INVISIBLE : View.VISIBLE);
+		if (prev == null || !TextUtils.equals(prev.name, model.name)) {
+			flipper.changeText(holder.tvName, model.name, holder.animateFlip,
+					validator);
+		}
+
+		if (prev == null || prev.progressInt != model.progressInt
+				|| prev.secondaryProgressInt != model.secondaryProgressInt) {
+			if (holder.tvProgress != null && (prev == null
+					|| !TextUtils.equals(prev.progress, model.progress))) {
+				flipper.changeText(holder.tvProgress, model.progress,
+						holder.animateFlip, validator);
 			}
-			int pctDoneInt = (int) (pctDone * 10000);
-			if (holder.pb.getProgress() != pctDoneInt) {
-				AndroidUtilsUI.setProgress(holder.pb, pctDoneInt, true);
+			if (holder.pb != null) {
+				if (!(holder.pb instanceof LinearProgressIndicator)) {
+					holder.pb.setVisibility(
+							model.pctDone < 0 ? View.INVISIBLE : View.VISIBLE);
+				}
+				if (holder.pb.getProgress() != model.progressInt) {
+					AndroidUtilsUI.setProgress(holder.pb, model.progressInt, true);
+				}
+				holder.pb.setSecondaryProgress(model.secondaryProgressInt);
 			}
-			float shareRatio = MapUtils.getMapFloat(item,
-					TransmissionVars.FIELD_TORRENT_UPLOAD_RATIO, -1);
-			int ratioPct = (int) (pctDoneInt == 10000 ? shareRatio * 10000
-					: (shareRatio * (10000 - 2400)) + 1200);
-			holder.pb.setSecondaryProgress(ratioPct);
 		}
 
-		long error = MapUtils.getMapLong(item, TransmissionVars.FIELD_TORRENT_ERROR,
-				TransmissionVars.TR_STAT_OK);
-		boolean hasScrapeError = error == TransmissionVars.TR_STAT_TRACKER_ERROR
-				|| error == TransmissionVars.TR_STAT_TRACKER_WARNING;
-
 		if (holder.tvInfo != null) {
+			if (holder.tvTrackerError != null && model.trackerError != null
+					&& (prev == null
+							|| !TextUtils.equals(prev.trackerError, model.trackerError))) {
+				flipper.changeText(holder.tvTrackerError, model.trackerError,
+						holder.animateFlip, validator);
+			}
+			if (prev == null || !TextUtils.equals(prev.info, model.info)) {
+				flipper.changeText(holder.tvInfo, model.info, holder.animateFlip,
+						validator);
+			}
+		}
 
-			StringBuilder sb = new StringBuilder();
+		if (holder.tvETA != null
+				&& (prev == null || !TextUtils.equals(prev.eta, model.eta))) {
+			flipper.changeText(holder.tvETA, model.eta, holder.animateFlip,
+					validator);
+		}
 
-			if (size >= 0) {
-				if (fileCount <= 1) {
-					sb.append(DisplayFormatters.formatByteCountToKiBEtc(size));
-				} else {
-					sb.append(resources.getQuantityString(R.plurals.torrent_row_info,
-							fileCount, fileCount));
-					sb.append(resources.getString(R.string.torrent_row_info2,
-							DisplayFormatters.formatByteCountToKiBEtc(size)));
-				}
-			}
+		if (holder.tvUlRate != null
+				&& (prev == null || !TextUtils.equals(prev.ulRate, model.ulRate))) {
+			flipper.changeText(holder.tvUlRate, model.ulRate, holder.animateFlip,
+					validator);
+		}
+		if (holder.tvDlRate != null
+				&& (prev == null || !TextUtils.equals(prev.dlRate, model.dlRate))) {
+			flipper.changeText(holder.tvDlRate, model.dlRate, holder.animateFlip,
+					validator);
+		}
 
-			long numPeersDLFrom = MapUtils.getMapLong(item,
-					TransmissionVars.FIELD_TORRENT_PEERS_SENDING_TO_US, -1);
-			long numPeersULTo = MapUtils.getMapLong(item,
-					TransmissionVars.FIELD_TORRENT_PEERS_GETTING_FROM_US, -1);
-			long numPeersConnected = MapUtils.getMapLong(item,
-					TransmissionVars.FIELD_TORRENT_PEERS_CONNECTED, -1);
-			if (numPeersConnected > 0 && numPeersDLFrom >= 0 && numPeersULTo >= 0) {
-				if (sb.length() > 0) {
-					sb.append(resources.getString(R.string.torrent_row_line_split));
-				}
-				sb.append(resources.getString(R.string.torrent_row_peers,
-						Long.toString(pctDone < 1.0 ? numPeersDLFrom : numPeersULTo),
-						Long.toString(numPeersConnected)));
-			}
-			if (!hasScrapeError && error != TransmissionVars.TR_STAT_OK) {
-				// error
-				// TODO: parse error and add error type to message
-				String errorString = MapUtils.getMapString(item,
-						TransmissionVars.FIELD_TORRENT_ERROR_STRING, "");
-				if (holder.tvTrackerError != null) {
-					flipper.changeText(holder.tvTrackerError,
-							AndroidUtils.lineBreaker(errorString), holder.animateFlip,
-							validator);
-				} else {
-					if (sb.length() > 0) {
-						sb.append(holder.isSmall
-								? resources.getString(R.string.torrent_row_line_split)
-								: "<br>");
+		if (holder.tvStatus != null && (prev == null
+				|| prev.statusColor != model.statusColor
+				|| !TextUtils.equals(prev.status, model.status))) {
+			flipper.changeText(holder.tvStatus, model.status, holder.animateFlip,
+					validator);
+		}
+
+		if (holder.tvTags != null && showTags
+				&& (prev == null || !model.tagsKey.equals(prev.tagsKey))) {
+			if (model.listTags.size() > 0) {
+				try {
+					SpanTags spanTags = holder.spanTags;
+					if (spanTags == null) {
+						spanTags = new SpanTags(holder.tvTags, null);
+						//spanTags.setFlipper(flipper, validator);
+						spanTags.setShowIcon(false);
+						spanTags.setDrawCount(false);
+						holder.spanTags = spanTags;
 					}
-					sb.append("<font color=\"#880000\">").append(errorString).append(
-							"</font>");
-				}
-			} else if (holder.tvTrackerError != null) {
-				flipper.changeText(holder.tvTrackerError, "", holder.animateFlip,
-						validator);
-			}
 
-			flipper.changeText(holder.tvInfo, AndroidUtils.fromHTML(sb.toString()),
-					holder.animateFlip, validator);
-		}
-		if (holder.tvETA != null) {
-			long etaSecs = MapUtils.getMapLong(item,
-					TransmissionVars.FIELD_TORRENT_ETA, -1);
-			CharSequence s = "";
-			if (etaSecs > 0 && etaSecs * 1000L < DateUtils.WEEK_IN_MILLIS) {
-				s = DisplayFormatters.prettyFormatTimeDiffShort(resources, etaSecs);
-			} else if (pctDone >= 1) {
-				float shareRatio = MapUtils.getMapFloat(item,
-						TransmissionVars.FIELD_TORRENT_UPLOAD_RATIO, -1);
-				s = shareRatio < 0 ? ""
-						: AndroidUtils.fromHTML(resources,
-								holder.isSmall ? R.string.torrent_row_share_ratio
-										: R.string.torrent_row_share_ratio_circle,
-								shareRatio);
-			}
-			flipper.changeText(holder.tvETA, s, holder.animateFlip, validator);
-		}
-		if (holder.tvUlRate != null) {
-			long rateUpload = MapUtils.getMapLong(item,
-					TransmissionVars.FIELD_TORRENT_RATE_UPLOAD, 0);
-
-			if (rateUpload > 0) {
-				String text = "|\u25B2 "
-						+ DisplayFormatters.formatByteCountToKiBEtcPerSec(rateUpload) + '|';
-				SpannableStringBuilder ss = new SpannableStringBuilder(text);
-				SpanBubbles.setSpanBubbles(ss, text, "|", holder.tvUlRate.getPaint(),
-						0xFF40A080, colorFGTagState, 0x3040A080, null);
-				flipper.changeText(holder.tvUlRate, ss, holder.animateFlip, validator);
+					spanTags.setTagMaps(model.listTags);
+					spanTags.updateTags();
+				} catch (Throwable t) {
+					t.printStackTrace();
+				}
 			} else {
-				flipper.changeText(holder.tvUlRate, "", holder.animateFlip, validator);
+				//flipper.changeText(holder.tvTags, "", false, validator);
+				holder.tvTags.setText("");
 			}
 		}
-		if (holder.tvDlRate != null) {
-			long rateDownload = MapUtils.getMapLong(item,
-					TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD, 0);
-
-			if (rateDownload > 0) {
-				String text = "|\u25BC "
-						+ DisplayFormatters.formatByteCountToKiBEtcPerSec(rateDownload)
-						+ '|';
-				SpannableStringBuilder ss = new SpannableStringBuilder(text);
-				SpanBubbles.setSpanBubbles(ss, text, "|", holder.tvDlRate.getPaint(),
-						0xFF2a8bcb, colorFGTagState, 0x302a8bcb, null);
-				flipper.changeText(holder.tvDlRate, ss, holder.animateFlip, validator);
-			} else {
-				flipper.changeText(holder.tvDlRate, "", holder.animateFlip, validator);
+
+		if (holder.btnAuth != null
+				&& (prev == null || prev.needsAuth != model.needsAuth)) {
+			boolean needsAuth = authRequestListener != null && model.needsAuth;
+			holder.btnAuth.setVisibility(needsAuth ? View.VISIBLE : View.INVISIBLE);
+			if (needsAuth) {
+				holder.btnAuth.setOnClickListener(
+						v -> authRequestListener.askForAuth(torrentID));
 			}
 		}
+	}
 
-		List<?> mapTagUIDs = MapUtils.getMapList(item,
-				TransmissionVars.FIELD_TORRENT_TAG_UIDS, null);
-
-		if (holder.tvStatus != null) {
-			StringBuilder text = new StringBuilder();
-			int color = -1;
-
-			int status = MapUtils.getMapInt(item,
-					TransmissionVars.FIELD_TORRENT_STATUS,
-					TransmissionVars.TR_STATUS_STOPPED);
+	/**
+	 * Builds the model of a changed torrent ahead of it being bound.  Does
+	 * nothing until a row has been filled, since the row layout isn't known.
+	 */
+	@WorkerThread
+	void prepareModel(@NonNull Session session, long torrentID) {
+		RowStyle style = rowStyle;
+		if (style == null) {
+			return;
+		}
+		Map<?, ?> item = session.torrent.getCachedTorrent(torrentID);
+		if (item != null) {
+			getModel(style, item, session, torrentID);
+		}
+	}
 
-			if (mapTagUIDs == null || mapTagUIDs.size() == 0) {
+	@NonNull
+	private RowModel getModel(@NonNull RowStyle style, Map<?, ?> item,
+			@NonNull Session session, long torrentID) {
+		long version = session.torrent.getTorrentVersion(torrentID);
+		if (version < 0) {
+			// Not from the torrent cache, so we can't tell when it changes
+			return buildModel(style, -1, item, session);
+		}
+		RowModel model = modelCache.get(torrentID);
+		if (model != null && model.version == version && model.style == style) {
+			return model;
+		}
+		model = buildModel(style, version, item, session);
+		modelCache.put(torrentID, model);
+		return model;
+	}
 
-				int id;
-				switch (status) {
-					case TransmissionVars.TR_STATUS_CHECK_WAIT:
-					case TransmissionVars.TR_STATUS_CHECK:
-						id = R.string.torrent_status_checking;
-						break;
+	@NonNull
+	private RowModel buildModel(@NonNull RowStyle style, long version,
+			Map<?, ?> item, @NonNull Session session) {
+		RowModel model = new RowModel(version, style);
 
-					case TransmissionVars.TR_STATUS_DOWNLOAD:
-						id = R.string.torrent_status_download;
-						break;
+		String torrentName = MapUtils.getMapString(item,
+				TransmissionVars.FIELD_TORRENT_NAME, " ");
+		model.name = AndroidUtils.lineBreaker(torrentName);
 
-					case TransmissionVars.TR_STATUS_DOWNLOAD_WAIT:
-						id = R.string.torrent_status_queued_dl;
-						break;
+		int fileCount = MapUtils.getMapInt(item,
+				TransmissionVars.FIELD_TORRENT_FILE_COUNT, 0);
+		long size = MapUtils.getMapLong(item,
+				TransmissionVars.FIELD_TORRENT_SIZE_WHEN_DONE, 0);
 
-					case TransmissionVars.TR_STATUS_SEED:
-						id = R.string.torrent_status_seed;
-						break;
+		float pctDone = TorrentUtils.getPercentDone(item);
+		model.pctDone = pctDone;
+		if (pctDone < 0 || (!style.isSmall && pctDone >= 1)) {
+			model.progress = "";
+		} else {
+			synchronized (nfPct1) {
+				model.progress = nfPct1.format(pctDone);
+			}
+		}
+		float shareRatio = MapUtils.getMapFloat(item,
+				TransmissionVars.FIELD_TORRENT_UPLOAD_RATIO, -1);
+		int pctDoneInt = (int) (pctDone * 10000);
+		model.progressInt = pctDoneInt;
+		model.secondaryProgressInt = (int) (pctDoneInt == 10000
+				? shareRatio * 10000 : (shareRatio * (10000 - 2400)) + 1200);
 
-					case TransmissionVars.TR_STATUS_SEED_WAIT:
-						id = R.string.torrent_status_queued_ul;
-						break;
+		long error = MapUtils.getMapLong(item, TransmissionVars.FIELD_TORRENT_ERROR,
+				TransmissionVars.TR_STAT_OK);
+		boolean hasScrapeError = error == TransmissionVars.TR_STAT_TRACKER_ERROR
+				|| error == TransmissionVars.TR_STAT_TRACKER_WARNING;
 
-					case TransmissionVars.TR_STATUS_STOPPED:
-						id = R.string.torrent_status_stopped;
-						break;
+		StringBuilder sb = new StringBuilder();
 
-					default:
-						id = -1;
-						break;
-				}
-				if (id >= 0) {
-					text.append(resources.getString(id));
-				}
+		if (size >= 0) {
+			if (fileCount <= 1) {
+				DisplayFormatters.appendByteCountToKiBEtc(sb, size);
 			} else {
-				if (status == TransmissionVars.TR_STATUS_CHECK_WAIT
-						|| status == TransmissionVars.TR_STATUS_CHECK) {
-
-					int id;
-					int statusBigly = MapUtils.getMapInt(item,
-							TransmissionVars.FIELD_TORRENT_STATUS + ".biglybt", -1);
-					switch (statusBigly) {
-						case 0: // STATE_WAITING       = 0;
-							id = R.string.torrent_status_waiting;
-							break;
-						case 5: // STATE_INITIALIZING  = 5;
-						case 10: // STATE_INITIALIZED   = 10;
-							id = R.string.torrent_status_initializing; // possible duplicate -- there might be a tag, sometimes..
-							break;
-						case 20: // STATE_ALLOCATING = 20;
-							id = R.string.torrent_status_alloc;
-							break;
-						case 65: // STOPPING
-							id = R.string.torrent_status_stopping;
-							break;
-						case 30: // STATE_CHECKING = 30;
-						default:
-							id = R.string.torrent_status_checking;
-					}
+				sb.append(resources.getQuantityString(R.plurals.torrent_row_info,
+						fileCount, fileCount));
+				sb.append(resources.getString(R.string.torrent_row_info2,
+						DisplayFormatters.formatByteCountToKiBEtc(size)));
+			}
+		}
 
-					text.append("|");
-					text.append(resources.getString(id));
-					text.append("|");
+		long numPeersDLFrom = MapUtils.getMapLong(item,
+				TransmissionVars.FIELD_TORRENT_PEERS_SENDING_TO_US, -1);
+		long numPeersULTo = MapUtils.getMapLong(item,
+				TransmissionVars.FIELD_TORRENT_PEERS_GETTING_FROM_US, -1);
+		long numPeersConnected = MapUtils.getMapLong(item,
+				TransmissionVars.FIELD_TORRENT_PEERS_CONNECTED, -1);
+		if (numPeersConnected > 0 && numPeersDLFrom >= 0 && numPeersULTo >= 0) {
+			if (sb.length() > 0) {
+				sb.append(resources.getString(R.string.torrent_row_line_split));
+			}
+			sb.append(resources.getString(R.string.torrent_row_peers,
+					Long.toString(pctDone < 1.0 ? numPeersDLFrom : numPeersULTo),
+					Long.toString(numPeersConnected)));
+		}
+		model.trackerError = style.hasTrackerErrorView ? "" : null;
+		if (!hasScrapeError && error != TransmissionVars.TR_STAT_OK) {
+			// error
+			// TODO: parse error and add error type to message
+			String errorString = MapUtils.getMapString(item,
+					TransmissionVars.FIELD_TORRENT_ERROR_STRING, "");
+			if (style.hasTrackerErrorView) {
+				model.trackerError = AndroidUtils.lineBreaker(errorString);
+			} else {
+				if (sb.length() > 0) {
+					sb.append(style.isSmall
+							? resources.getString(R.string.torrent_row_line_split)
+							: "<br>");
 				}
+				sb.append("<font color=\"#880000\">").append(errorString).append(
+						"</font>");
+			}
+		}
+		model.info = AndroidUtils.fromHTML(sb.toString());
+
+		long etaSecs = MapUtils.getMapLong(item, TransmissionVars.FIELD_TORRENT_ETA,
+				-1);
+		CharSequence eta = "";
+		if (etaSecs > 0 && etaSecs * 1000L < DateUtils.WEEK_IN_MILLIS) {
+			eta = DisplayFormatters.prettyFormatTimeDiffShort(resources, etaSecs);
+		} else if (pctDone >= 1) {
+			eta = shareRatio < 0 ? ""
+					: AndroidUtils.fromHTML(resources,
+							style.isSmall ? R.string.torrent_row_share_ratio
+									: R.string.torrent_row_share_ratio_circle,
+							shareRatio);
+		}
+		model.eta = eta;
+
+		long rateUpload = MapUtils.getMapLong(item,
+				TransmissionVars.FIELD_TORRENT_RATE_UPLOAD, 0);
+		model.ulRate = "";
+		if (rateUpload > 0 && style.paintUlRate != null) {
+			sb.setLength(0);
+			sb.append("|\u25B2 ");
+			String text = DisplayFormatters.appendByteCountToKiBEtcPerSec(sb,
+					rateUpload).append('|').toString();
+			SpannableStringBuilder ss = new SpannableStringBuilder(text);
+			SpanBubbles.setSpanBubbles(ss, text, "|",
+					new TextPaint(style.paintUlRate), 0xFF40A080, colorFGTagState,
+					0x3040A080, null);
+			model.ulRate = ss;
+		}
+		long rateDownload = MapUtils.getMapLong(item,
+				TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD, 0);
+		model.dlRate = "";
+		if (rateDownload > 0 && style.paintDlRate != null) {
+			sb.setLength(0);
+			sb.append("|\u25BC ");
+			String text = DisplayFormatters.appendByteCountToKiBEtcPerSec(sb,
+					rateDownload).append('|').toString();
+			SpannableStringBuilder ss = new SpannableStringBuilder(text);
+			SpanBubbles.setSpanBubbles(ss, text, "|",
+					new TextPaint(style.paintDlRate), 0xFF2a8bcb, colorFGTagState,
+					0x302a8bcb, null);
+			model.dlRate = ss;
+		}
 
-				for (Object o : mapTagUIDs) {
-					if (!(o instanceof Number)) {
-						continue;
-					}
-					String name = null;
-					int type;
+		List<?> mapTagUIDs = MapUtils.getMapList(item,
+				TransmissionVars.FIELD_TORRENT_TAG_UIDS, null);
+
+		if (style.paintStatus != null) {
+			buildStatus(model, item, session, mapTagUIDs, hasScrapeError);
+		}
+
+		StringBuilder tagsKey = new StringBuilder();
+		if (showTags && mapTagUIDs != null) {
+			for (Object o : mapTagUIDs) {
+				int type;
+				if (o instanceof Number) {
 					Map<?, ?> mapTag = session.tag.getTag(((Number) o).longValue());
 					if (mapTag != null) {
 						type = MapUtils.getMapInt(mapTag, TransmissionVars.FIELD_TAG_TYPE,
 								0);
-						if (type != 2) {
+						if (type == 2) {
 							continue;
 						}
-						String htmlColor = MapUtils.getMapString(mapTag,
-								TransmissionVars.FIELD_TAG_COLOR, null);
-						if (htmlColor != null && htmlColor.startsWith("#")) {
-							color = Integer.decode("0x" + htmlColor.substring(1));
-						}
-						name = MapUtils.getMapString(mapTag,
-								TransmissionVars.FIELD_TAG_NAME, null);
-						// English hack.  If we had the tag-id, we could use 3 or 4
-						if (name != null && name.startsWith("Queued for")) {
-							name = resources.getString(R.string.statetag_queued);
+						if (type == 1) {
+							boolean canBePublic = MapUtils.getMapBoolean(mapTag,
+									TransmissionVars.FIELD_TAG_CANBEPUBLIC, false);
+							if (!canBePublic) {
+								continue;
+							}
 						}
+						model.listTags.add(mapTag);
+						String tagName = MapUtils.getMapString(mapTag,
+								TransmissionVars.FIELD_TAG_NAME, "");
+						String tagColor = MapUtils.getMapString(mapTag,
+								TransmissionVars.FIELD_TAG_COLOR, "");
+						tagsKey.append(o).append(':').append(tagName).append(':').append(
+								tagColor).append('\n');
 					}
-					if (name == null) {
-						continue;
-					}
-					if (text.length() > 0) {
-						text.append(" ");
-					}
-					text.append("|");
-					text.append(name);
-					text.append("|");
 				}
 			}
+		}
+		model.tagsKey = tagsKey.toString();
 
-			if (hasScrapeError) {
-				if (text.length() > 0) {
-					text.append(" ");
-				}
-				text.append("|");
-				text.append(resources.getString(R.string.statetag_tracker_error));
-				text.append("|");
+		model.needsAuth = MapUtils.getMapBoolean(item,
+				TransmissionVars.FIELD_TORRENT_NEEDSAUTH, false);
+		return model;
+	}
+
+	private void buildStatus(@NonNull RowModel model, Map<?, ?> item,
+			@NonNull Session session, List<?> mapTagUIDs, boolean hasScrapeError) {
+		StringBuilder text = new StringBuilder();
+		int color = -1;
+
+		int status = MapUtils.getMapInt(item, TransmissionVars.FIELD_TORRENT_STATUS,
+				TransmissionVars.TR_STATUS_STOPPED);
+
+		if (mapTagUIDs == null || mapTagUIDs.size() == 0) {
+
+			int id;
+			switch (status) {
+				case TransmissionVars.TR_STATUS_CHECK_WAIT:
+				case TransmissionVars.TR_STATUS_CHECK:
+					id = R.string.torrent_status_checking;
+					break;
+
+				case TransmissionVars.TR_STATUS_DOWNLOAD:
+					id = R.string.torrent_status_download;
+					break;
+
+				case TransmissionVars.TR_STATUS_DOWNLOAD_WAIT:
+					id = R.string.torrent_status_queued_dl;
+					break;
+
+				case TransmissionVars.TR_STATUS_SEED:
+					id = R.string.torrent_status_seed;
+					break;
+
+				case TransmissionVars.TR_STATUS_SEED_WAIT:
+					id = R.string.torrent_status_queued_ul;
+					break;
+
+				case TransmissionVars.TR_STATUS_STOPPED:
+					id = R.string.torrent_status_stopped;
+					break;
+
+				default:
+					id = -1;
+					break;
+			}
+			if (id >= 0) {
+				text.append(resources.getString(id));
 			}
+		} else {
+			if (status == TransmissionVars.TR_STATUS_CHECK_WAIT
+					|| status == TransmissionVars.TR_STATUS_CHECK) {
 
-			if (MapUtils.getMapBoolean(item, TransmissionVars.FIELD_TORRENT_IS_FORCED,
-					false)) {
-				if (text.length() > 0) {
-					text.append(" ");
+				int id;
+				int statusBigly = MapUtils.getMapInt(item,
+						TransmissionVars.FIELD_TORRENT_STATUS + ".biglybt", -1);
+				switch (statusBigly) {
+					case 0: // STATE_WAITING       = 0;
+						id = R.string.torrent_status_waiting;
+						break;
+					case 5: // STATE_INITIALIZING  = 5;
+					case 10: // STATE_INITIALIZED   = 10;
+						id = R.string.torrent_status_initializing; // possible duplicate -- there might be a tag, sometimes..
+						break;
+					case 20: // STATE_ALLOCATING = 20;
+						id = R.string.torrent_status_alloc;
+						break;
+					case 65: // STOPPING
+						id = R.string.torrent_status_stopping;
+						break;
+					case 30: // STATE_CHECKING = 30;
+					default:
+						id = R.string.torrent_status_checking;
 				}
+
 				text.append("|");
-				text.append(resources.getString(R.string.statetag_force_started));
+				text.append(resources.getString(id));
 				text.append("|");
 			}
 
-			if (MapUtils.getMapBoolean(item,
-					TransmissionVars.FIELD_TORRENT_SEQUENTIAL, false)) {
+			for (Object o : mapTagUIDs) {
+				if (!(o instanceof Number)) {
+					continue;
+				}
+				String name = null;
+				int type;
+				Map<?, ?> mapTag = session.tag.getTag(((Number) o).longValue());
+				if (mapTag != null) {
+					type = MapUtils.getMapInt(mapTag, TransmissionVars.FIELD_TAG_TYPE,
+							0);
+					if (type != 2) {
+						continue;
+					}
+					String htmlColor = MapUtils.getMapString(mapTag,
+							TransmissionVars.FIELD_TAG_COLOR, null);
+					if (htmlColor != null && htmlColor.startsWith("#")) {
+						color = Integer.decode("0x" + htmlColor.substring(1));
+					}
+					name = MapUtils.getMapString(mapTag,
+							TransmissionVars.FIELD_TAG_NAME, null);
+					// English hack.  If we had the tag-id, we could use 3 or 4
+					if (name != null && name.startsWith("Queued for")) {
+						name = resources.getString(R.string.statetag_queued);
+					}
+				}
+				if (name == null) {
+					continue;
+				}
 				if (text.length() > 0) {
 					text.append(" ");
 				}
 				text.append("|");
-				text.append(resources.getString(R.string.sequential_download));
+				text.append(name);
 				text.append("|");
 			}
+		}
 
-			SpannableStringBuilder ss = new SpannableStringBuilder(text);
-			String string = text.toString();
-			SpanBubbles.setSpanBubbles(ss, string, "|", holder.tvStatus.getPaint(),
-					color < 0 ? colorBGTagState : color, colorFGTagState, colorBGTagState,
-					null);
-			flipper.changeText(holder.tvStatus, ss, holder.animateFlip, validator);
-		}
-
-		if (holder.tvTags != null && showTags) {
-			ArrayList<Map<?, ?>> listTags = new ArrayList<>();
-			if (mapTagUIDs != null) {
-				for (Object o : mapTagUIDs) {
-					int type;
-					if (o instanceof Number) {
-						Map<?, ?> mapTag = session.tag.getTag(((Number) o).longValue());
-						if (mapTag != null) {
-							type = MapUtils.getMapInt(mapTag, TransmissionVars.FIELD_TAG_TYPE,
-									0);
-							if (type == 2) {
-								continue;
-							}
-							if (type == 1) {
-								boolean canBePublic = MapUtils.getMapBoolean(mapTag,
-										TransmissionVars.FIELD_TAG_CANBEPUBLIC, false);
-								if (!canBePublic) {
-									continue;
-								}
-							}
-							listTags.add(mapTag);
-						}
-					}
-				}
+		if (hasScrapeError) {
+			if (text.length() > 0) {
+				text.append(" ");
 			}
-			if (listTags.size() > 0) {
-				try {
-					// TODO: mebbe cache spanTags in holder?
-					SpanTags spanTags = new SpanTags(holder.tvTags, null);
-
-					//spanTags.setFlipper(flipper, validator);
-					spanTags.setShowIcon(false);
-					spanTags.setDrawCount(false);
+			text.append("|");
+			text.append(resources.getString(R.string.statetag_tracker_error));
+			text.append("|");
+		}
 
-					spanTags.setTagMaps(listTags);
-					spanTags.updateTags();
-				} catch (Throwable t) {
-					t.printStackTrace();
-				}
-			} else {
-				//flipper.changeText(holder.tvTags, "", false, validator);
-				holder.tvTags.setText("");
+		if (MapUtils.getMapBoolean(item, TransmissionVars.FIELD_TORRENT_IS_FORCED,
+				false)) {
+			if (text.length() > 0) {
+				text.append(" ");
 			}
+			text.append("|");
+			text.append(resources.getString(R.string.statetag_force_started));
+			text.append("|");
 		}
 
-		if (holder.btnAuth != null) {
-			boolean needsAuth = authRequestListener != null && MapUtils.getMapBoolean(
-					item, TransmissionVars.FIELD_TORRENT_NEEDSAUTH, false);
-			holder.btnAuth.setVisibility(needsAuth ? View.VISIBLE : View.INVISIBLE);
-			if (needsAuth) {
-				holder.btnAuth.setOnClickListener(
-						v -> authRequestListener.askForAuth(torrentID));
+		if (MapUtils.getMapBoolean(item,
+				TransmissionVars.FIELD_TORRENT_SEQUENTIAL, false)) {
+			if (text.length() > 0) {
+				text.append(" ");
 			}
+			text.append("|");
+			text.append(resources.getString(R.string.sequential_download));
+			text.append("|");
 		}
+
+		SpannableStringBuilder ss = new SpannableStringBuilder(text);
+		String string = text.toString();
+		SpanBubbles.setSpanBubbles(ss, string, "|",
+				new TextPaint(model.style.paintStatus),
+				color < 0 ? colorBGTagState : color, colorFGTagState, colorBGTagState,
+				null);
+		model.status = ss;
+		model.statusColor = color;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.adapter;
+
+import androidx.annotation.NonNull;
+
+import com.biglybt.android.client.TorrentUtils;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.MapUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The torrent values a {@link TorrentListRowFiller} row is built from, so a
+ * diff can tell which parts of the row need refilling.
+ */
+final class TorrentListRowState
+{
+	static final int PART_NAME = 1;
+
+	static final int PART_PROGRESS = 1 << 1;
+
+	static final int PART_INFO = 1 << 2;
+
+	static final int PART_ETA = 1 << 3;
+
+	static final int PART_RATES = 1 << 4;
+
+	static final int PART_STATUS = 1 << 5;
+
+	static final int PART_TAGS = 1 << 6;
+
+	static final int PART_AUTH = 1 << 7;
+
+	private final String name;
+
+	private final float pctDone;
+
+	private final float shareRatio;
+
+	private final long size;
+
+	private final int fileCount;
+
+	private final long peersSendingToUs;
+
+	private final long peersGettingFromUs;
+
+	private final long peersConnected;
+
+	private final long error;
+
+	private final String errorString;
+
+	private final long eta;
+
+	private final long rateUpload;
+
+	private final long rateDownload;
+
+	private final List<?> tagUIDs;
+
+	private final int status;
+
+	private final int statusBigly;
+
+	private final boolean isForced;
+
+	private final boolean isSequential;
+
+	private final boolean needsAuth;
+
+	/**
+	 * {@link com.biglybt.android.client.session.Session_Torrent#getTorrentVersion(long)}
+	 * when built.  Also bumped by local changes, such as a renamed or
+	 * recolored tag, that leave the torrent's fields as they were.
+	 */
+	private final long version;
+
+	TorrentListRowState(@NonNull Map<?, ?> map, long version) {
+		this.version = version;
+		name = MapUtils.getMapString(map, TransmissionVars.FIELD_TORRENT_NAME,
+				" ");
+		pctDone = TorrentUtils.getPercentDone(map);
+		shareRatio = MapUtils.getMapFloat(map,
+				TransmissionVars.FIELD_TORRENT_UPLOAD_RATIO, -1);
+		size = MapUtils.getMapLong(map,
+				TransmissionVars.FIELD_TORRENT_SIZE_WHEN_DONE, 0);
+		fileCount = MapUtils.getMapInt(map,
+				TransmissionVars.FIELD_TORRENT_FILE_COUNT, 0);
+		peersSendingToUs = MapUtils.getMapLong(map,
+				TransmissionVars.FIELD_TORRENT_PEERS_SENDING_TO_US, -1);
+		peersGettingFromUs = MapUtils.getMapLong(map,
+				TransmissionVars.FIELD_TORRENT_PEERS_GETTING_FROM_US, -1);
+		peersConnected = MapUtils.getMapLong(map,
+				TransmissionVars.FIELD_TORRENT_PEERS_CONNECTED, -1);
+		error = MapUtils.getMapLong(map, TransmissionVars.FIELD_TORRENT_ERROR,
+				TransmissionVars.TR_STAT_OK);
+		errorString = MapUtils.getMapString(map,
+				TransmissionVars.FIELD_TORRENT_ERROR_STRING, "");
+		eta = MapUtils.getMapLong(map, TransmissionVars.FIELD_TORRENT_ETA, -1);
+		rateUpload = MapUtils.getMapLong(map,
+				TransmissionVars.FIELD_TORRENT_RATE_UPLOAD, 0);
+		rateDownload = MapUtils.getMapLong(map,
+				TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD, 0);
+		tagUIDs = MapUtils.getMapList(map, TransmissionVars.FIELD_TORRENT_TAG_UIDS,
+				null);
+		status = MapUtils.getMapInt(map, TransmissionVars.FIELD_TORRENT_STATUS,
+				TransmissionVars.TR_STATUS_STOPPED);
+		statusBigly = MapUtils.getMapInt(map,
+				TransmissionVars.FIELD_TORRENT_STATUS + ".biglybt", -1);
+		isForced = MapUtils.getMapBoolean(map,
+				TransmissionVars.FIELD_TORRENT_IS_FORCED, false);
+		isSequential = MapUtils.getMapBoolean(map,
+				TransmissionVars.FIELD_TORRENT_SEQUENTIAL, false);
+		needsAuth = MapUtils.getMapBoolean(map,
+				TransmissionVars.FIELD_TORRENT_NEEDSAUTH, false);
+	}
+
+	/**
+	 * @return PART_* flags of the row parts that display differently with
+	 * <code>newer</code>'s values.  0 if none.
+	 */
+	int getChangedParts(@NonNull TorrentListRowState newer) {
+		int parts = 0;
+		if (!name.equals(newer.name)) {
+			parts |= PART_NAME;
+		}
+		boolean pctDoneChanged = pctDone != newer.pctDone;
+		boolean ratioChanged = shareRatio != newer.shareRatio;
+		if (pctDoneChanged || ratioChanged) {
+			parts |= PART_PROGRESS;
+		}
+		if (pctDoneChanged || size != newer.size || fileCount != newer.fileCount
+				|| peersSendingToUs != newer.peersSendingToUs
+				|| peersGettingFromUs != newer.peersGettingFromUs
+				|| peersConnected != newer.peersConnected || error != newer.error
+				|| !errorString.equals(newer.errorString)) {
+			parts |= PART_INFO;
+		}
+		if (pctDoneChanged || ratioChanged || eta != newer.eta) {
+			parts |= PART_ETA;
+		}
+		if (rateUpload != newer.rateUpload || rateDownload != newer.rateDownload) {
+			parts |= PART_RATES;
+		}
+		boolean tagsChanged = tagUIDs == null ? newer.tagUIDs != null
+				: !tagUIDs.equals(newer.tagUIDs);
+		if (tagsChanged || status != newer.status
+				|| statusBigly != newer.statusBigly || error != newer.error
+				|| isForced != newer.isForced || isSequential != newer.isSequential) {
+			parts |= PART_STATUS;
+		}
+		if (tagsChanged) {
+			parts |= PART_TAGS;
+		}
+		if (needsAuth != newer.needsAuth) {
+			parts |= PART_AUTH;
+		}
+		if (version != newer.version) {
+			// Tag names and colors aren't in the torrent's fields
+			parts |= PART_TAGS | PART_STATUS;
+		}
+		return parts;
+	}
+}
@@ -0,0 +1,974 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LongSparseArray;
+
+import com.biglybt.android.client.TorrentUtils;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.client.session.FileNameIndex;
+import com.biglybt.android.client.session.Session;
+import com.biglybt.android.client.session.Session_Tag;
+import com.biglybt.android.util.MapUtils;
+
+import java.util.*;
+
+/**
+ * Torrent list filter query, such as
+ * <code>tag:movies size>4G state:seeding ratio<1 added<7d</code>.
+ * <p/>
+ * Terms are ANDed.  A term is one of:
+ * <ul>
+ * <li><code>tag:a|b</code>, <code>state:seeding|queued</code> - has any of
+ * the tags or states</li>
+ * <li><code>file:text</code> - has a file whose path contains the text.
+ * Needs {@link com.biglybt.android.client.session.RemoteProfile#isIndexFileNames()}</li>
+ * <li><code>size>4G</code>, <code>ratio<1</code>, <code>progress>=50</code>,
+ * <code>added<7d</code>, <code>active>2w</code>, <code>eta<1h</code>,
+ * <code>files>100</code>, <code>dl>1M</code>, <code>ul>0</code> - compares a
+ * field.  Dates compare age.</li>
+ * <li><code>@name</code> - a saved query</li>
+ * <li>anything else - part of the name</li>
+ * </ul>
+ * Prefix a term with <code>-</code> to negate it, and use quotes for spaces.
+ * <p/>
+ * A term that looks like one of the above but isn't (unknown key, bad value,
+ * missing saved query) is searched for as part of the name, and reported to
+ * the caller so the UI can say so.
+ * <p/>
+ * Tag and state terms (when the server has state tags) get their torrents
+ * from {@link com.biglybt.android.client.session.TorrentTagIndex}, so only
+ * those torrents are checked against the other terms.  Other terms are
+ * checked cheapest and most selective first, using pass rates seen on
+ * previous passes.
+ */
+final class TorrentQuery
+{
+	private static final int MAX_SAVED_DEPTH = 4;
+
+	private static final long[] NO_IDS = new long[0];
+
+	private final String text;
+
+	private final Clause[] clauses;
+
+	private final boolean timeDependent;
+
+	private TorrentQuery(@NonNull String text, @NonNull Clause[] clauses) {
+		this.text = text;
+		this.clauses = clauses;
+		boolean timeDependent = false;
+		for (Clause clause : clauses) {
+			timeDependent |= clause.isTimeDependent();
+		}
+		this.timeDependent = timeDependent;
+	}
+
+	/**
+	 * @param unknownTerms Filled with terms that looked like keys, operators or
+	 * saved queries but couldn't be parsed, and were taken as name words
+	 * @return null if <code>text</code> only has name words, which the
+	 * regular name filter handles
+	 */
+	@Nullable
+	static TorrentQuery compile(@NonNull String text,
+			@NonNull Map<String, String> savedQueries,
+			@NonNull List<String> unknownTerms) {
+		List<Clause> list = new ArrayList<>();
+		boolean[] structured = {
+			false
+		};
+		addClauses(text, savedQueries, 0, list, structured, unknownTerms);
+		if (!structured[0]) {
+			return null;
+		}
+		return new TorrentQuery(text, list.toArray(new Clause[0]));
+	}
+
+	@NonNull
+	String getText() {
+		return text;
+	}
+
+	/**
+	 * @return true if results change with time (relative date terms), so
+	 * unchanged torrents can't be assumed to still match
+	 */
+	boolean isTimeDependent() {
+		return timeDependent;
+	}
+
+	/**
+	 * Adds the torrent fields this query reads
+	 */
+	void addFieldIDs(@NonNull Collection<String> fieldIDs) {
+		for (Clause clause : clauses) {
+			clause.addFieldIDs(fieldIDs);
+		}
+	}
+
+	/**
+	 * @return IDs of torrents in <code>torrentList</code> that match, in
+	 * torrentList order
+	 */
+	@NonNull
+	long[] filter(@NonNull Session session,
+			@NonNull LongSparseArray<Map<?, ?>> torrentList) {
+		long now = System.currentTimeMillis();
+		for (Clause clause : clauses) {
+			clause.prepare(session, now);
+		}
+
+		// Start with the smallest index result, intersected with the others
+		long[] candidates = null;
+		boolean[] satisfied = new boolean[clauses.length];
+		for (int i = 0; i < clauses.length; i++) {
+			Clause clause = clauses[i];
+			long[] ids = clause.negate ? null : clause.getIndexedIDs(session);
+			if (ids == null) {
+				continue;
+			}
+			satisfied[i] = true;
+			candidates = candidates == null ? ids : intersect(candidates, ids);
+		}
+
+		List<Clause> toCheck = new ArrayList<>(clauses.length);
+		for (int i = 0; i < clauses.length; i++) {
+			if (!satisfied[i]) {
+				toCheck.add(clauses[i]);
+			}
+		}
+		Collections.sort(toCheck,
+				(a, b) -> Double.compare(a.getRank(), b.getRank()));
+		Clause[] checks = toCheck.toArray(new Clause[0]);
+
+		long[] matches;
+		int num = 0;
+		if (candidates != null) {
+			matches = new long[candidates.length];
+			for (long torrentID : candidates) {
+				Map<?, ?> map = torrentList.get(torrentID);
+				if (map != null && matchesAll(checks, map)) {
+					matches[num++] = torrentID;
+				}
+			}
+		} else {
+			int size = torrentList.size();
+			matches = new long[size];
+			for (int i = 0; i < size; i++) {
+				if (matchesAll(checks, torrentList.valueAt(i))) {
+					matches[num++] = torrentList.keyAt(i);
+				}
+			}
+		}
+		return num == matches.length ? matches : Arrays.copyOf(matches, num);
+	}
+
+	/**
+	 * Checks one torrent against every term, without the indexes
+	 */
+	boolean matches(@NonNull Session session, @NonNull Map<?, ?> map) {
+		long now = System.currentTimeMillis();
+		for (Clause clause : clauses) {
+			clause.prepare(session, now);
+		}
+		return matchesAll(clauses, map);
+	}
+
+	private static boolean matchesAll(@NonNull Clause[] clauses,
+			@NonNull Map<?, ?> map) {
+		for (Clause clause : clauses) {
+			if (!clause.eval(map)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param a sorted
+	 * @param b sorted
+	 */
+	@NonNull
+	private static long[] intersect(@NonNull long[] a, @NonNull long[] b) {
+		long[] result = new long[Math.min(a.length, b.length)];
+		int num = 0;
+		for (int i = 0, j = 0; i < a.length && j < b.length;) {
+			if (a[i] < b[j]) {
+				i++;
+			} else if (a[i] > b[j]) {
+				j++;
+			} else {
+				result[num++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return num == result.length ? result : Arrays.copyOf(result, num);
+	}
+
+	/////////////////////////////////////////////////////////////////////////
+	// Parsing
+
+	private static void addClauses(@NonNull String text,
+			@NonNull Map<String, String> savedQueries, int depth,
+			@NonNull List<Clause> list, @NonNull boolean[] structured,
+			@NonNull List<String> unknownTerms) {
+		for (String term : splitTerms(text)) {
+			String original = term;
+			boolean negate = false;
+			if (term.length() > 1 && term.charAt(0) == '-') {
+				negate = true;
+				term = term.substring(1);
+			}
+
+			if (term.length() > 1 && term.charAt(0) == '@') {
+				String saved = savedQueries.get(term.substring(1));
+				if (saved != null && !negate && depth < MAX_SAVED_DEPTH) {
+					structured[0] = true;
+					addClauses(saved, savedQueries, depth + 1, list, structured,
+							unknownTerms);
+					continue;
+				}
+				unknownTerms.add(original);
+			}
+
+			Clause clause = parseTerm(term);
+			if (clause == null) {
+				if (looksLikeKeyTerm(term)) {
+					unknownTerms.add(original);
+				}
+				clause = new NameClause(term);
+			} else if (!(clause instanceof NameClause)) {
+				structured[0] = true;
+			}
+			clause.negate = negate;
+			structured[0] |= negate;
+			list.add(clause);
+		}
+	}
+
+	/**
+	 * Splits on whitespace outside of double quotes, and removes the quotes
+	 */
+	@NonNull
+	private static List<String> splitTerms(@NonNull String text) {
+		List<String> terms = new ArrayList<>();
+		StringBuilder sb = new StringBuilder();
+		boolean inQuote = false;
+		for (int i = 0, len = text.length(); i < len; i++) {
+			char c = text.charAt(i);
+			if (c == '"') {
+				inQuote = !inQuote;
+			} else if (!inQuote && Character.isWhitespace(c)) {
+				if (sb.length() > 0) {
+					terms.add(sb.toString());
+					sb.setLength(0);
+				}
+			} else {
+				sb.append(c);
+			}
+		}
+		if (sb.length() > 0) {
+			terms.add(sb.toString());
+		}
+		return terms;
+	}
+
+	/**
+	 * @return true if <code>term</code> is letters followed by
+	 * <code>:</code>, <code>&lt;</code>, <code>></code> or <code>=</code>
+	 */
+	private static boolean looksLikeKeyTerm(@NonNull String term) {
+		int keyEnd = 0;
+		int len = term.length();
+		while (keyEnd < len && Character.isLetter(term.charAt(keyEnd))) {
+			keyEnd++;
+		}
+		return keyEnd > 0 && keyEnd < len
+				&& ":<>=".indexOf(term.charAt(keyEnd)) >= 0;
+	}
+
+	@Nullable
+	private static Clause parseTerm(@NonNull String term) {
+		int keyEnd = 0;
+		int len = term.length();
+		while (keyEnd < len && Character.isLetter(term.charAt(keyEnd))) {
+			keyEnd++;
+		}
+		if (keyEnd == 0 || keyEnd == len) {
+			return null;
+		}
+		String key = term.substring(0, keyEnd).toLowerCase(Locale.US);
+		char c = term.charAt(keyEnd);
+
+		if (c == ':') {
+			String value = term.substring(keyEnd + 1);
+			if (value.isEmpty()) {
+				return null;
+			}
+			String[] values = value.split("\\|");
+			switch (key) {
+				case "tag":
+				case "tags":
+				case "t":
+					return new TagClause(values);
+				case "state":
+				case "is":
+				case "s":
+					return StateClause.create(values);
+				case "name":
+				case "n":
+					return new NameClause(value);
+				case "file":
+				case "f":
+					return new FileClause(value);
+			}
+			return null;
+		}
+
+		int op;
+		int valueStart;
+		if (term.startsWith("<=", keyEnd)) {
+			op = NumberClause.OP_LE;
+			valueStart = keyEnd + 2;
+		} else if (term.startsWith(">=", keyEnd)) {
+			op = NumberClause.OP_GE;
+			valueStart = keyEnd + 2;
+		} else if (c == '<') {
+			op = NumberClause.OP_LT;
+			valueStart = keyEnd + 1;
+		} else if (c == '>') {
+			op = NumberClause.OP_GT;
+			valueStart = keyEnd + 1;
+		} else if (c == '=') {
+			op = NumberClause.OP_EQ;
+			valueStart = keyEnd + 1;
+		} else {
+			return null;
+		}
+		return NumberClause.create(key, op, term.substring(valueStart));
+	}
+
+	/////////////////////////////////////////////////////////////////////////
+	// Clauses
+
+	private abstract static class Clause
+	{
+		boolean negate;
+
+		int evalCount;
+
+		int passCount;
+
+		/** Relative cost of one {@link #test(Map)} */
+		abstract int getCost();
+
+		/**
+		 * Called before each pass, with the time to compare dates to
+		 */
+		void prepare(@NonNull Session session, long now) {
+		}
+
+		/**
+		 * @return Sorted IDs of torrents that pass, or null if there's no index
+		 */
+		@Nullable
+		long[] getIndexedIDs(@NonNull Session session) {
+			return null;
+		}
+
+		abstract boolean test(@NonNull Map<?, ?> map);
+
+		abstract void addFieldIDs(@NonNull Collection<String> fieldIDs);
+
+		boolean isTimeDependent() {
+			return false;
+		}
+
+		final boolean eval(@NonNull Map<?, ?> map) {
+			evalCount++;
+			boolean pass = test(map) != negate;
+			if (pass) {
+				passCount++;
+			}
+			return pass;
+		}
+
+		/**
+		 * Lower ranks first.  For ANDed terms, checking by cost / chance of
+		 * rejecting minimizes work.
+		 */
+		double getRank() {
+			double passRate = (passCount + 1.0) / (evalCount + 2.0);
+			return getCost() / Math.max(0.01, 1.0 - passRate);
+		}
+	}
+
+	private static final class NameClause
+		extends Clause
+	{
+		private final String upper;
+
+		NameClause(@NonNull String text) {
+			upper = text.toUpperCase(Locale.US);
+		}
+
+		@Override
+		int getCost() {
+			return 4;
+		}
+
+		@Override
+		boolean test(@NonNull Map<?, ?> map) {
+			return MapUtils.getMapString(map, TransmissionVars.FIELD_TORRENT_NAME,
+					"").toUpperCase(Locale.US).contains(upper);
+		}
+
+		@Override
+		void addFieldIDs(@NonNull Collection<String> fieldIDs) {
+			fieldIDs.add(TransmissionVars.FIELD_TORRENT_NAME);
+		}
+	}
+
+	/**
+	 * Has a file whose path contains the text, using the session's file name
+	 * index.  Matches grow as the index fills, without the torrents changing,
+	 * so this counts as time dependent.
+	 */
+	private static final class FileClause
+		extends Clause
+	{
+		private static final int MAX_HITS = 20000;
+
+		/** Don't search again for each torrent checked in the same pass */
+		private static final long RESEARCH_AFTER_MS = 1000;
+
+		private final String text;
+
+		private long[] torrentIDs = NO_IDS;
+
+		private long searchedOn;
+
+		FileClause(@NonNull String text) {
+			this.text = text;
+		}
+
+		@Override
+		void prepare(@NonNull Session session, long now) {
+			if (Math.abs(now - searchedOn) < RESEARCH_AFTER_MS) {
+				return;
+			}
+			searchedOn = now;
+			List<FileNameIndex.Hit> hits = session.torrent.searchFiles(text,
+					MAX_HITS);
+			long[] ids = new long[hits.size()];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = hits.get(i).torrentID;
+			}
+			Arrays.sort(ids);
+			int num = 0;
+			for (int i = 0; i < ids.length; i++) {
+				if (num == 0 || ids[num - 1] != ids[i]) {
+					ids[num++] = ids[i];
+				}
+			}
+			torrentIDs = Arrays.copyOf(ids, num);
+		}
+
+		@Override
+		int getCost() {
+			return 1;
+		}
+
+		@Nullable
+		@Override
+		long[] getIndexedIDs(@NonNull Session session) {
+			return torrentIDs;
+		}
+
+		@Override
+		boolean test(@NonNull Map<?, ?> map) {
+			long torrentID = MapUtils.getMapLong(map,
+					TransmissionVars.FIELD_TORRENT_ID, -1);
+			return Arrays.binarySearch(torrentIDs, torrentID) >= 0;
+		}
+
+		@Override
+		void addFieldIDs(@NonNull Collection<String> fieldIDs) {
+		}
+
+		@Override
+		boolean isTimeDependent() {
+			return true;
+		}
+	}
+
+	private static class TagClause
+		extends Clause
+	{
+		private final String[] names;
+
+		long[] tagUIDs = NO_IDS;
+
+		TagClause(@NonNull String[] names) {
+			this.names = names;
+		}
+
+		@Override
+		void prepare(@NonNull Session session, long now) {
+			// Tags may have been renamed or refreshed since last pass
+			List<Long> uids = new ArrayList<>();
+			for (Map<?, ?> mapTag : session.tag.getTags()) {
+				String tagName = MapUtils.getMapString(mapTag,
+						TransmissionVars.FIELD_TAG_NAME, null);
+				if (tagName == null) {
+					continue;
+				}
+				for (String name : names) {
+					if (name.equalsIgnoreCase(tagName)) {
+						uids.add(MapUtils.getMapLong(mapTag,
+								TransmissionVars.FIELD_TAG_UID, 0));
+						break;
+					}
+				}
+			}
+			tagUIDs = new long[uids.size()];
+			for (int i = 0; i < tagUIDs.length; i++) {
+				tagUIDs[i] = uids.get(i);
+			}
+		}
+
+		@Override
+		int getCost() {
+			return 2;
+		}
+
+		@Nullable
+		@Override
+		long[] getIndexedIDs(@NonNull Session session) {
+			if (tagUIDs.length == 1) {
+				return session.torrent.getTagIndex().getTorrentIDs(tagUIDs[0]);
+			}
+			// Union of each tag's torrents
+			TreeSet<Long> set = new TreeSet<>();
+			for (long tagUID : tagUIDs) {
+				for (long torrentID : session.torrent.getTagIndex().getTorrentIDs(
+						tagUID)) {
+					set.add(torrentID);
+				}
+			}
+			long[] ids = new long[set.size()];
+			int i = 0;
+			for (long torrentID : set) {
+				ids[i++] = torrentID;
+			}
+			return ids;
+		}
+
+		@Override
+		boolean test(@NonNull Map<?, ?> map) {
+			List<?> listTagUIDs = MapUtils.getMapList(map,
+					TransmissionVars.FIELD_TORRENT_TAG_UIDS, null);
+			if (listTagUIDs == null) {
+				return false;
+			}
+			for (Object o : listTagUIDs) {
+				if (!(o instanceof Number)) {
+					continue;
+				}
+				long uid = ((Number) o).longValue();
+				for (long tagUID : tagUIDs) {
+					if (uid == tagUID) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		@Override
+		void addFieldIDs(@NonNull Collection<String> fieldIDs) {
+			fieldIDs.add(TransmissionVars.FIELD_TORRENT_TAG_UIDS);
+		}
+	}
+
+	/**
+	 * Download state.  Uses the server's state tags when it has them, and
+	 * the torrent's status fields when not.
+	 */
+	private static final class StateClause
+		extends TagClause
+	{
+		private final int[] stateIDs;
+
+		private boolean useTags;
+
+		private StateClause(@NonNull int[] stateIDs) {
+			super(new String[0]);
+			this.stateIDs = stateIDs;
+		}
+
+		@Nullable
+		static StateClause create(@NonNull String[] names) {
+			int[] stateIDs = new int[names.length];
+			for (int i = 0; i < names.length; i++) {
+				int stateID = getStateID(names[i].toLowerCase(Locale.US));
+				if (stateID < 0) {
+					return null;
+				}
+				stateIDs[i] = stateID;
+			}
+			return new StateClause(stateIDs);
+		}
+
+		private static int getStateID(@NonNull String name) {
+			switch (name) {
+				case "downloading":
+				case "dl":
+					return Session_Tag.STATEID_DOWNLOADING;
+				case "seeding":
+				case "ul":
+					return Session_Tag.STATEID_SEEDING;
+				case "queued":
+					return Session_Tag.STATEID_QUEUED_DOWNLOADING;
+				case "stopped":
+					return Session_Tag.STATEID_STOPPED;
+				case "error":
+					return Session_Tag.STATEID_ERROR;
+				case "active":
+					return Session_Tag.STATEID_ACTIVE;
+				case "inactive":
+					return Session_Tag.STATEID_INACTIVE;
+				case "complete":
+				case "done":
+					return Session_Tag.STATEID_COMPLETE;
+				case "incomplete":
+					return Session_Tag.STATEID_INCOMPLETE;
+				case "paused":
+					return Session_Tag.STATEID_PAUSED;
+			}
+			return -1;
+		}
+
+		@Override
+		void prepare(@NonNull Session session, long now) {
+			List<Long> uids = new ArrayList<>();
+			for (int stateID : stateIDs) {
+				Long uid = session.tag.getDownloadStateUID(stateID);
+				if (uid == null) {
+					useTags = false;
+					return;
+				}
+				uids.add(uid);
+				if (stateID == Session_Tag.STATEID_QUEUED_DOWNLOADING) {
+					uid = session.tag.getDownloadStateUID(
+							Session_Tag.STATEID_QUEUED_SEEDING);
+					if (uid != null) {
+						uids.add(uid);
+					}
+				}
+			}
+			useTags = true;
+			tagUIDs = new long[uids.size()];
+			for (int i = 0; i < tagUIDs.length; i++) {
+				tagUIDs[i] = uids.get(i);
+			}
+		}
+
+		@Nullable
+		@Override
+		long[] getIndexedIDs(@NonNull Session session) {
+			return useTags ? super.getIndexedIDs(session) : null;
+		}
+
+		@Override
+		boolean test(@NonNull Map<?, ?> map) {
+			if (useTags) {
+				return super.test(map);
+			}
+			for (int stateID : stateIDs) {
+				if (testStatus(stateID, map)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		void addFieldIDs(@NonNull Collection<String> fieldIDs) {
+			super.addFieldIDs(fieldIDs);
+			fieldIDs.add(TransmissionVars.FIELD_TORRENT_STATUS);
+			fieldIDs.add(TransmissionVars.FIELD_TORRENT_ERROR);
+			fieldIDs.add(TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD);
+			fieldIDs.add(TransmissionVars.FIELD_TORRENT_RATE_UPLOAD);
+			fieldIDs.add(TransmissionVars.FIELD_TORRENT_PERCENT_DONE);
+		}
+
+		private static boolean testStatus(int stateID, @NonNull Map<?, ?> map) {
+			int status = MapUtils.getMapInt(map,
+					TransmissionVars.FIELD_TORRENT_STATUS,
+					TransmissionVars.TR_STATUS_STOPPED);
+			switch (stateID) {
+				case Session_Tag.STATEID_DOWNLOADING:
+					return status == TransmissionVars.TR_STATUS_DOWNLOAD;
+				case Session_Tag.STATEID_SEEDING:
+					return status == TransmissionVars.TR_STATUS_SEED;
+				case Session_Tag.STATEID_QUEUED_DOWNLOADING:
+					return status == TransmissionVars.TR_STATUS_DOWNLOAD_WAIT
+							|| status == TransmissionVars.TR_STATUS_SEED_WAIT;
+				case Session_Tag.STATEID_STOPPED:
+				case Session_Tag.STATEID_PAUSED:
+					return status == TransmissionVars.TR_STATUS_STOPPED;
+				case Session_Tag.STATEID_ERROR:
+					return MapUtils.getMapLong(map, TransmissionVars.FIELD_TORRENT_ERROR,
+							TransmissionVars.TR_STAT_OK) != TransmissionVars.TR_STAT_OK;
+				case Session_Tag.STATEID_ACTIVE:
+				case Session_Tag.STATEID_INACTIVE: {
+					boolean active = MapUtils.getMapLong(map,
+							TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD, 0) > 0
+							|| MapUtils.getMapLong(map,
+									TransmissionVars.FIELD_TORRENT_RATE_UPLOAD, 0) > 0;
+					return active == (stateID == Session_Tag.STATEID_ACTIVE);
+				}
+				case Session_Tag.STATEID_COMPLETE:
+					return TorrentUtils.getPercentDone(map) >= 1.0f;
+				case Session_Tag.STATEID_INCOMPLETE:
+					return TorrentUtils.getPercentDone(map) < 1.0f;
+			}
+			return false;
+		}
+	}
+
+	private static final class NumberClause
+		extends Clause
+	{
+		static final int OP_LT = 0;
+
+		static final int OP_LE = 1;
+
+		static final int OP_EQ = 2;
+
+		static final int OP_GE = 3;
+
+		static final int OP_GT = 4;
+
+		private static final int UNIT_NONE = 0;
+
+		private static final int UNIT_BYTES = 1;
+
+		private static final int UNIT_AGE = 2;
+
+		private static final int UNIT_SECONDS = 3;
+
+		private static final int UNIT_PERCENT = 4;
+
+		private final String fieldID;
+
+		private final int unit;
+
+		private final int op;
+
+		private final double value;
+
+		private long nowSecs;
+
+		private NumberClause(@NonNull String fieldID, int unit, int op,
+				double value) {
+			this.fieldID = fieldID;
+			this.unit = unit;
+			this.op = op;
+			this.value = value;
+		}
+
+		@Nullable
+		static NumberClause create(@NonNull String key, int op,
+				@NonNull String value) {
+			String fieldID;
+			int unit;
+			switch (key) {
+				case "size":
+					fieldID = TransmissionVars.FIELD_TORRENT_SIZE_WHEN_DONE;
+					unit = UNIT_BYTES;
+					break;
+				case "ratio":
+					fieldID = TransmissionVars.FIELD_TORRENT_UPLOAD_RATIO;
+					unit = UNIT_NONE;
+					break;
+				case "progress":
+				case "done":
+					fieldID = TransmissionVars.FIELD_TORRENT_PERCENT_DONE;
+					unit = UNIT_PERCENT;
+					break;
+				case "added":
+				case "age":
+					fieldID = TransmissionVars.FIELD_TORRENT_DATE_ADDED;
+					unit = UNIT_AGE;
+					break;
+				case "active":
+				case "activity":
+					fieldID = TransmissionVars.FIELD_TORRENT_DATE_ACTIVITY;
+					unit = UNIT_AGE;
+					break;
+				case "eta":
+					fieldID = TransmissionVars.FIELD_TORRENT_ETA;
+					unit = UNIT_SECONDS;
+					break;
+				case "files":
+					fieldID = TransmissionVars.FIELD_TORRENT_FILE_COUNT;
+					unit = UNIT_NONE;
+					break;
+				case "dl":
+				case "down":
+					fieldID = TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD;
+					unit = UNIT_BYTES;
+					break;
+				case "ul":
+				case "up":
+					fieldID = TransmissionVars.FIELD_TORRENT_RATE_UPLOAD;
+					unit = UNIT_BYTES;
+					break;
+				default:
+					return null;
+			}
+			double number = unit == UNIT_BYTES ? parseBytes(value)
+					: unit == UNIT_AGE || unit == UNIT_SECONDS ? parseSeconds(value)
+							: parseNumber(value);
+			if (Double.isNaN(number)) {
+				return null;
+			}
+			return new NumberClause(fieldID, unit, op, number);
+		}
+
+		private static double parseNumber(@NonNull String s) {
+			try {
+				return Double.parseDouble(s);
+			} catch (NumberFormatException e) {
+				return Double.NaN;
+			}
+		}
+
+		/**
+		 * "4G", "700MB", "1.5TiB", "1024"
+		 */
+		private static double parseBytes(@NonNull String s) {
+			String upper = s.toUpperCase(Locale.US);
+			if (upper.endsWith("IB")) {
+				upper = upper.substring(0, upper.length() - 2);
+			} else if (upper.endsWith("B")) {
+				upper = upper.substring(0, upper.length() - 1);
+			}
+			if (upper.isEmpty()) {
+				return Double.NaN;
+			}
+			int shift = "KMGTP".indexOf(upper.charAt(upper.length() - 1)) + 1;
+			if (shift > 0) {
+				upper = upper.substring(0, upper.length() - 1);
+			}
+			return parseNumber(upper) * (1L << (10 * shift));
+		}
+
+		/**
+		 * "30s", "90min", "12h", "7d" (the default), "2w", "3mo", "1y"
+		 */
+		private static double parseSeconds(@NonNull String s) {
+			String lower = s.toLowerCase(Locale.US);
+			long multiplier = 86400;
+			String[] suffixes = {
+				"min",
+				"mo",
+				"s",
+				"h",
+				"d",
+				"w",
+				"y"
+			};
+			long[] multipliers = {
+				60,
+				86400L * 30,
+				1,
+				3600,
+				86400,
+				86400L * 7,
+				86400L * 365
+			};
+			for (int i = 0; i < suffixes.length; i++) {
+				if (lower.endsWith(suffixes[i])) {
+					multiplier = multipliers[i];
+					lower = lower.substring(0, lower.length() - suffixes[i].length());
+					break;
+				}
+			}
+			return parseNumber(lower) * multiplier;
+		}
+
+		@Override
+		void prepare(@NonNull Session session, long now) {
+			nowSecs = now / 1000;
+		}
+
+		@Override
+		int getCost() {
+			return 1;
+		}
+
+		@Override
+		boolean isTimeDependent() {
+			return unit == UNIT_AGE;
+		}
+
+		@Override
+		void addFieldIDs(@NonNull Collection<String> fieldIDs) {
+			fieldIDs.add(fieldID);
+		}
+
+		@Override
+		boolean test(@NonNull Map<?, ?> map) {
+			Object o = map.get(fieldID);
+			if (!(o instanceof Number)) {
+				return false;
+			}
+			double n = ((Number) o).doubleValue();
+			if (unit == UNIT_AGE) {
+				if (n <= 0) {
+					// never
+					return false;
+				}
+				n = nowSecs - n;
+			} else if (unit == UNIT_PERCENT) {
+				n *= 100;
+			} else if (unit == UNIT_SECONDS && n < 0) {
+				// unknown ETA
+				return false;
+			}
+			switch (op) {
+				case OP_LT:
+					return n < value;
+				case OP_LE:
+					return n <= value;
+				case OP_EQ:
+					return n == value;
+				case OP_GE:
+					return n >= value;
+				default:
+					return n > value;
+			}
+		}
+	}
+}
@@ -20,12 +20,13 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.os.Bundle;
 import android.view.*;
-import android.widget.ListView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
 import androidx.appcompat.view.menu.MenuBuilder;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.biglybt.android.adapter.SortableRecyclerAdapter;
 import com.biglybt.android.client.*;
@@ -59,11 +60,8 @@ public class PeersFragment
 		setHasOptionsMenu(true);
 		View view = inflater.inflate(R.layout.frag_torrent_peers, container, false);
 
-		ListView listview = view.findViewById(R.id.peers_list);
-
-		listview.setItemsCanFocus(false);
-		listview.setClickable(true);
-		listview.setChoiceMode(ListView.CHOICE_MODE_SINGLE);
+		RecyclerView listview = view.findViewById(R.id.peers_list);
+		listview.setLayoutManager(new LinearLayoutManager(requireContext()));
 
 		adapter = new PeersAdapter(requireActivity(), getRemoteProfileID());
 		listview.setAdapter(adapter);
@@ -66,6 +66,10 @@ public class PrefFragmentHandler
 
 	private static final String KEY_SMALL_LIST = "small_list";
 
+	private static final String KEY_MONITOR_IN_BACKGROUND = "monitor_in_background";
+
+	private static final String KEY_INDEX_FILE_NAMES = "index_file_names";
+
 	static final String KEY_SAVE_PATH = "save_path";
 
 	private static final String KEY_PORT_SETTINGS = "port_settings";
@@ -244,6 +248,35 @@ public class PrefFragmentHandler
 				return true;
 			}
 
+			case KEY_MONITOR_IN_BACKGROUND: {
+				final Session session = activity.getSession();
+				if (session != null) {
+					RemoteProfile remoteProfile = session.getRemoteProfile();
+					boolean monitor = ((TwoStatePreference) preference).isChecked();
+					remoteProfile.setMonitorInBackground(monitor);
+					if (monitor) {
+						SessionMonitor.startMonitoring(remoteProfile.getID());
+					} else {
+						SessionMonitor.stopMonitoring(remoteProfile.getID());
+					}
+				}
+				return true;
+			}
+
+			case KEY_INDEX_FILE_NAMES: {
+				final Session session = activity.getSession();
+				if (session != null) {
+					boolean index = ((TwoStatePreference) preference).isChecked();
+					session.getRemoteProfile().setIndexFileNames(index);
+					if (index) {
+						session.torrent.fetchMissingFileLists();
+					} else {
+						session.torrent.clearFileIndex();
+					}
+				}
+				return true;
+			}
+
 			case KEY_SAVE_PATH: {
 				final Session session = activity.getSession();
 				if (session != null) {
@@ -485,6 +518,18 @@ public class PrefFragmentHandler
 			prefSmallList.setChecked(ds.getBoolean(KEY_SMALL_LIST));
 		}
 
+		TwoStatePreference prefMonitor = (TwoStatePreference) findPreference(
+				KEY_MONITOR_IN_BACKGROUND);
+		if (prefMonitor != null) {
+			prefMonitor.setChecked(ds.getBoolean(KEY_MONITOR_IN_BACKGROUND));
+		}
+
+		TwoStatePreference prefIndexFileNames = (TwoStatePreference) findPreference(
+				KEY_INDEX_FILE_NAMES);
+		if (prefIndexFileNames != null) {
+			prefIndexFileNames.setChecked(ds.getBoolean(KEY_INDEX_FILE_NAMES));
+		}
+
 		final Preference prefSavePath = findPreference(KEY_SAVE_PATH);
 		if (prefSavePath != null) {
 			String sDir = ds.getString(KEY_SESSION_DOWNLOAD_PATH);
@@ -669,6 +714,10 @@ public class PrefFragmentHandler
 		boolean useSmallLists = profile.useSmallLists();
 		ds.putBoolean(KEY_SMALL_LIST, useSmallLists);
 
+		ds.putBoolean(KEY_MONITOR_IN_BACKGROUND, profile.isMonitorInBackground());
+
+		ds.putBoolean(KEY_INDEX_FILE_NAMES, profile.isIndexFileNames());
+
 		String downloadDir = sessionSettings.getDownloadDir();
 		ds.putString(KEY_SESSION_DOWNLOAD_PATH, downloadDir);
 
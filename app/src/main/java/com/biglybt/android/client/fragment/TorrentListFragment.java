@@ -25,6 +25,7 @@ import android.net.Uri;
 import android.os.Build.VERSION;
 import android.os.Build.VERSION_CODES;
 import android.os.Bundle;
+import android.text.TextUtils;
 import android.text.format.DateUtils;
 import android.util.Log;
 import android.view.*;
@@ -46,6 +47,7 @@ import androidx.collection.LongSparseArray;
 import androidx.core.provider.DocumentsContractCompat;
 import androidx.fragment.app.FragmentActivity;
 import androidx.fragment.app.FragmentManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
@@ -148,6 +150,14 @@ public class TorrentListFragment
 
 	private ActivityResultLauncher<Intent> permsAuthLauncher;
 
+	/** Between {@link #onShowFragment()} and {@link #onHideFragment()} */
+	private boolean showing;
+
+	/** Visible adapter positions last sent to {@link Session_Torrent#setViewport} */
+	private int viewportFirst = -1;
+
+	private int viewportLast = -1;
+
 	// Need to store this in instancestate when dialog is up, cuz it gets restored
 	private HashSet<Long> isAskingForPermsFor = null;
 
@@ -240,8 +250,10 @@ public class TorrentListFragment
 		isSmall = session.getRemoteProfile().useSmallLists();
 		torrentListAdapter = new TorrentListAdapter(context, this, rs, isSmall,
 				this::askForPerms);
-		torrentListAdapter.addOnSetItemsCompleteListener(
-				adapter -> updateTorrentCount());
+		torrentListAdapter.addOnSetItemsCompleteListener(adapter -> {
+			updateTorrentCount();
+			updateViewport(true);
+		});
 		torrentListAdapter.setMultiCheckModeAllowed(
 				!AndroidUtils.usesNavigationControl());
 	}
@@ -363,6 +375,14 @@ public class TorrentListFragment
 				getContext());
 		listview.setLayoutManager(layoutManager);
 		listview.setAdapter(torrentListAdapter);
+		listview.addOnScrollListener(new RecyclerView.OnScrollListener() {
+			@Override
+			public void onScrolled(@NonNull RecyclerView recyclerView, int dx,
+					int dy) {
+				super.onScrolled(recyclerView, dx, dy);
+				updateViewport(false);
+			}
+		});
 
 		if (AndroidUtils.isTV(getContext())) {
 			listview.setVerticalScrollbarPosition(View.SCROLLBAR_POSITION_LEFT);
@@ -815,6 +835,8 @@ public class TorrentListFragment
 		session.addSessionListener(this);
 		session.addSessionSettingsChangedListeners(this);
 		session.torrent.addTorrentListRefreshingListener(this, false);
+		showing = true;
+		updateViewport(true);
 	}
 
 	@Override
@@ -827,6 +849,57 @@ public class TorrentListFragment
 		session.torrent.removeListReceivedListener(this);
 		session.torrent.removeListRefreshingListener(this);
 		session.removeSessionSettingsChangedListeners(this);
+		showing = false;
+		session.torrent.setViewport(null, null);
+		viewportFirst = -1;
+		viewportLast = -1;
+	}
+
+	/**
+	 * Tells the session which torrents are on screen, plus a screenful above
+	 * and below, so refreshes only get all row fields for those.
+	 *
+	 * @param itemsChanged false to skip if the visible positions are the same
+	 */
+	@Thunk
+	void updateViewport(boolean itemsChanged) {
+		if (listview == null || torrentListAdapter == null || !showing
+				|| session.isDestroyed()) {
+			return;
+		}
+		RecyclerView.LayoutManager lm = listview.getLayoutManager();
+		if (!(lm instanceof LinearLayoutManager)) {
+			return;
+		}
+		int first = ((LinearLayoutManager) lm).findFirstVisibleItemPosition();
+		int last = ((LinearLayoutManager) lm).findLastVisibleItemPosition();
+		if (!itemsChanged && first == viewportFirst && last == viewportLast) {
+			return;
+		}
+		viewportFirst = first;
+		viewportLast = last;
+
+		int count = torrentListAdapter.getItemCount();
+		long[] ids;
+		if (first < 0 || count == 0) {
+			ids = new long[0];
+		} else {
+			int margin = last - first + 1;
+			int from = Math.max(0, first - margin);
+			int to = Math.min(count - 1, last + margin);
+			ids = new long[to - from + 1];
+			int num = 0;
+			for (int i = from; i <= to; i++) {
+				TorrentListAdapterItem item = torrentListAdapter.getItem(i);
+				if (item instanceof TorrentListAdapterTorrentItem) {
+					ids[num++] = ((TorrentListAdapterTorrentItem) item).torrentID;
+				}
+			}
+			ids = Arrays.copyOf(ids, num);
+		}
+
+		session.torrent.setViewport(ids,
+				torrentListAdapter.getTorrentFilter().getListFieldIDs());
 	}
 
 	@Thunk
@@ -1435,6 +1508,13 @@ public class TorrentListFragment
 				}
 
 			}
+			List<String> unknownTerms = torrentListAdapter.getTorrentFilter()
+					.getUnknownTerms();
+			if (!constraintEmpty && !unknownTerms.isEmpty()) {
+				String note = getString(R.string.query_unknown_terms,
+						TextUtils.join(" ", unknownTerms));
+				s = s.isEmpty() ? note : s + ", " + note;
+			}
 			if (tvTorrentCount != null) {
 				tvTorrentCount.setText(s);
 			}
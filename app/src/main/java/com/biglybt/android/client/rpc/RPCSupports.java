@@ -41,4 +41,6 @@ public interface RPCSupports
 	int SUPPORTS_FIELD_SEQUENTIAL = 8;
 	
 	int SUPPORTS_FILES_DELETE = 9;
+
+	int SUPPORTS_SUBSCRIPTION_RESULTS_PAGING = 10;
 }
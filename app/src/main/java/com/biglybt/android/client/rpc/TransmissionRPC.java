@@ -31,6 +31,7 @@ import com.biglybt.util.Thunk;
 import java.io.Serializable;
 import java.net.ConnectException;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -178,6 +179,13 @@ public class TransmissionRPC
 	@Thunk
 	boolean requireStringUnescape;
 
+	/**
+	 * When set, requests run on this executor instead of a new Thread each.
+	 * Used by background (monitored) sessions to share a worker pool.
+	 */
+	@Nullable
+	private Executor requestExecutor;
+
 	public TransmissionRPC(@NonNull Session session, @NonNull String rpcURL) {
 		this.session = session;
 
@@ -255,6 +263,10 @@ public class TransmissionRPC
 								mapSupports.put(RPCSupports.SUPPORTS_FILES_DELETE,
 										Collections.binarySearch(listSupports,
 												"field:torrent-set:files-delete") >= 0);
+								mapSupports.put(
+										RPCSupports.SUPPORTS_SUBSCRIPTION_RESULTS_PAGING,
+										Collections.binarySearch(listSupports,
+												"field:subscription-get:results-paging") >= 0);
 							}
 							mapSupports.put(RPCSupports.SUPPORTS_SEARCH, rpcVersionAZ >= 0);
 
@@ -418,11 +430,31 @@ public class TransmissionRPC
 			final List<String> fields, @Nullable final int[] fileIndexes,
 			@Nullable String[] fileFields,
 			@Nullable final TorrentListReceivedListener l) {
+		getTorrents(callID, ids, fields, fileIndexes, fileFields, null, l);
+	}
+
+	/**
+	 * Always triggers TorrentListReceivedListener
+	 */
+	public void getTorrents(String callID, long[] torrentIDs, List<String> fields,
+			@Nullable TorrentListReceivedListener l) {
+		getTorrents(callID, torrentIDs, fields, null, null, null, l);
+	}
+
+	/**
+	 * @param skippedNewIDs When not null, torrents that aren't in the session's
+	 * cache are left out of the results and their IDs are added to this list.
+	 * Used when <code>fields</code> isn't enough to show a new torrent.
+	 */
+	@Thunk
+	void getTorrents(final String callID, @Nullable final Object ids,
+			final List<String> fields, @Nullable final int[] fileIndexes,
+			@Nullable String[] fileFields, @Nullable final List<Long> skippedNewIDs,
+			@Nullable final TorrentListReceivedListener l) {
 
 		if (AndroidUtilsUI.isUIThread()) {
-			new Thread(
-					() -> getTorrents(callID, ids, fields, fileIndexes, fileFields, l),
-					"getTorrents").start();
+			new Thread(() -> getTorrents(callID, ids, fields, fileIndexes,
+					fileFields, skippedNewIDs, l), "getTorrents").start();
 			return;
 		}
 
@@ -548,6 +580,20 @@ public class TransmissionRPC
 					public void rpcSuccess(String requestID, Map optionalMap) {
 						List<Object> list = MapUtils.getMapList(optionalMap, "torrents",
 								Collections.emptyList());
+						if (skippedNewIDs != null && !list.isEmpty()) {
+							List<Object> knownList = new ArrayList<>(list.size());
+							for (Object o : list) {
+								Object id = o instanceof Map
+										? ((Map) o).get(TransmissionVars.FIELD_TORRENT_ID) : null;
+								if (id instanceof Number && session.torrent.getCachedTorrent(
+										((Number) id).longValue()) == null) {
+									skippedNewIDs.add(((Number) id).longValue());
+								} else {
+									knownList.add(o);
+								}
+							}
+							list = knownList;
+						}
 						if (fileCountFieldName == null) {
 							for (Object o : list) {
 								if (!(o instanceof Map)) {
@@ -717,6 +763,10 @@ public class TransmissionRPC
 				});
 	}
 
+	public void setRequestExecutor(@Nullable Executor requestExecutor) {
+		this.requestExecutor = requestExecutor;
+	}
+
 	public void destroy() {
 		torrentListReceivedListeners.clear();
 		sessionSettingsReceivedListeners.clear();
@@ -765,7 +815,7 @@ public class TransmissionRPC
 			return;
 		}
 
-		new Thread(() -> {
+		Runnable runnable = () -> {
 			data.put("random", Integer.toHexString(cacheBuster++));
 			RemoteProfile remoteProfile = session.getRemoteProfile();
 			try {
@@ -833,7 +883,14 @@ public class TransmissionRPC
 				// TODO: trigger a generic error listener, so we can put a "Could
 				// not connect" status text somewhere
 			}
-		}, "sendRequest" + requestID).start();
+		};
+
+		Executor executor = requestExecutor;
+		if (executor != null) {
+			executor.execute(runnable);
+		} else {
+			new Thread(runnable, "sendRequest" + requestID).start();
+		}
 	}
 
 	@NonNull
@@ -889,6 +946,26 @@ public class TransmissionRPC
 		return fields;
 	}
 
+	/**
+	 * Fields that change while a torrent is running, and that the torrent
+	 * list's state and tag filters read.  Fields read by the list's sort,
+	 * grouping or query must be added.  Rows on screen need
+	 * {@link #getBasicTorrentFieldIDs()}.
+	 */
+	@NonNull
+	public List<String> getLiteTorrentFieldIDs() {
+		List<String> fields = new ArrayList<>();
+		fields.add(TransmissionVars.FIELD_TORRENT_ID);
+		fields.add(TransmissionVars.FIELD_TORRENT_STATUS);
+		fields.add(TransmissionVars.FIELD_TORRENT_ERROR);
+		fields.add(TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD);
+		fields.add(TransmissionVars.FIELD_TORRENT_RATE_UPLOAD);
+		fields.add(TransmissionVars.FIELD_TORRENT_PERCENT_DONE);
+		// State tags (Downloading, Active, ..) and user tags
+		fields.add(TransmissionVars.FIELD_TORRENT_TAG_UIDS);
+		return fields;
+	}
+
 	/**
 	 * Get recently-active torrents, or all torrents if there are no recents
 	 * <br>
@@ -896,8 +973,23 @@ public class TransmissionRPC
 	 */
 	public void getRecentTorrents(String callID,
 			@Nullable final TorrentListReceivedListener l) {
-		getTorrents(callID, "recently-active", getBasicTorrentFieldIDs(), null,
-				null, new TorrentListReceivedListener() {
+		getRecentTorrents(callID, getBasicTorrentFieldIDs(), null, l);
+	}
+
+	/**
+	 * Get <code>fields</code> of recently-active torrents, or of all torrents if
+	 * there are no recents
+	 * <br>
+	 * Always triggers TorrentListReceivedListener
+	 *
+	 * @param skippedNewIDs When not null, torrents not in the session's cache
+	 * are left out of the results, and their IDs added to this list
+	 */
+	public void getRecentTorrents(String callID, final List<String> fields,
+			@Nullable final List<Long> skippedNewIDs,
+			@Nullable final TorrentListReceivedListener l) {
+		getTorrents(callID, "recently-active", fields, null, null, skippedNewIDs,
+				new TorrentListReceivedListener() {
 					boolean doingAll = false;
 
 					@Override
@@ -908,7 +1000,8 @@ public class TransmissionRPC
 						if (!doingAll && addedTorrentMaps.size() == 0) {
 							if (diff >= RECENTLY_ACTIVE_MS) {
 								doingAll = true;
-								getAllTorrents(callID, this);
+								getTorrents(callID, null, fields, null, null, skippedNewIDs,
+										this);
 							}
 						} else {
 							lastRecentTorrentGet = System.currentTimeMillis();
@@ -1308,14 +1401,38 @@ public class TransmissionRPC
 
 	public void getSubscriptionResults(@NonNull String id,
 			ReplyMapReceivedListener l) {
+		getSubscriptionResults(id, 0, -1, null, l);
+	}
+
+	/**
+	 * Paging arguments are only sent when the server supports
+	 * {@link RPCSupports#SUPPORTS_SUBSCRIPTION_RESULTS_PAGING}.  Otherwise, all
+	 * results are returned.
+	 *
+	 * @param limit Maximum results to return, or -1 for all
+	 * @param since "results-timestamp" of a previous reply, to get only results
+	 *              added or changed after it.  null for all
+	 */
+	public void getSubscriptionResults(@NonNull String id, int offset, int limit,
+			@Nullable Object since, ReplyMapReceivedListener l) {
 		Map<String, Object> map = new HashMap<>();
 		map.put(TransmissionVars.ARG_IDS, new String[] {
 			id
 		});
 		map.put(RPCKEY_FIELDS, new String[] {
 			TransmissionVars.FIELD_SUBSCRIPTION_RESULTS,
+			TransmissionVars.FIELD_SUBSCRIPTION_RESULTS_COUNT,
 			TransmissionVars.FIELD_SUBSCRIPTION_NAME
 		});
+		if (getSupports(RPCSupports.SUPPORTS_SUBSCRIPTION_RESULTS_PAGING)) {
+			map.put(TransmissionVars.ARG_SUBSCRIPTION_RESULTS_OFFSET, offset);
+			if (limit >= 0) {
+				map.put(TransmissionVars.ARG_SUBSCRIPTION_RESULTS_LIMIT, limit);
+			}
+			if (since != null) {
+				map.put(TransmissionVars.ARG_SUBSCRIPTION_RESULTS_SINCE, since);
+			}
+		}
 
 		simpleRpcCall(TransmissionVars.METHOD_SUBSCRIPTION_GET, map, l);
 	}
@@ -0,0 +1,517 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.core.util.AtomicFile;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.BiglyBTApp;
+import com.biglybt.android.client.OffThread;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.JSONUtils;
+import com.biglybt.android.util.MapUtils;
+import com.biglybt.util.Thunk;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * File paths of every torrent of one remote profile, so a search can find
+ * which torrent holds a file without fetching each torrent's file list.
+ * <p/>
+ * Each torrent's paths are kept as one newline separated string, keyed by
+ * torrent hash (IDs aren't stable across sessions), along with a small
+ * trigram bitmap that lets a search skip torrents that can't match.
+ * <p/>
+ * Torrents are added whenever their full file list is received, and removed
+ * with the torrent.  Memory is capped at {@link #MAX_CHARS}; least recently
+ * updated torrents are dropped first.  Stored as gzipped JSON in the app's
+ * cache dir, like {@link RcmResultsCache}.
+ * <p/>
+ * Never calls into the session while holding its own lock, so it's safe to
+ * update while holding the session's.
+ */
+public class FileNameIndex
+{
+	private static final String TAG = "FileNameIndex";
+
+	/** About 8MB of path characters */
+	private static final int MAX_CHARS = 4 * 1024 * 1024;
+
+	private static final long SAVE_DELAY_MS = DateUtils.SECOND_IN_MILLIS * 5;
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final String KEY_VERSION = "v";
+
+	private static final String KEY_TORRENTS = "torrents";
+
+	private static final String KEY_PATHS = "p";
+
+	private static final String KEY_INDEXES = "i";
+
+	private static final int GRAM_BITS = 256;
+
+	public static final class Hit
+	{
+		public final long torrentID;
+
+		@NonNull
+		public final String torrentHash;
+
+		public final int fileIndex;
+
+		@NonNull
+		public final String path;
+
+		Hit(long torrentID, @NonNull String torrentHash, int fileIndex,
+				@NonNull String path) {
+			this.torrentID = torrentID;
+			this.torrentHash = torrentHash;
+			this.fileIndex = fileIndex;
+			this.path = path;
+		}
+	}
+
+	private static final class Entry
+	{
+		/** Paths, separated by '\n' */
+		final String paths;
+
+		final int[] lineStarts;
+
+		final int[] fileIndexes;
+
+		final long[] gramBits = new long[GRAM_BITS / 64];
+
+		Entry(@NonNull String paths, @NonNull int[] fileIndexes) {
+			this.paths = paths;
+			this.fileIndexes = fileIndexes;
+			lineStarts = new int[fileIndexes.length];
+			int line = 0;
+			int len = paths.length();
+			for (int i = 0; i < len && line < lineStarts.length; i++) {
+				if (i == 0 || paths.charAt(i - 1) == '\n') {
+					lineStarts[line++] = i;
+				}
+			}
+			setGramBits(paths, gramBits);
+		}
+
+		@NonNull
+		String getPath(int line) {
+			int start = lineStarts[line];
+			int end = paths.indexOf('\n', start);
+			return paths.substring(start, end < 0 ? paths.length() : end);
+		}
+	}
+
+	private final AtomicFile file;
+
+	/** &lt;Torrent Hash, Entry>, in access order for eviction */
+	private final LinkedHashMap<String, Entry> mapEntries = new LinkedHashMap<>(
+			16, 0.75f, true);
+
+	/** &lt;Torrent Hash, Torrent ID in this session> */
+	private final Map<String, Long> mapTorrentIDs = new HashMap<>();
+
+	/** Hashes removed before the file was loaded, so loading doesn't re-add */
+	private final Set<String> removedBeforeLoad = new HashSet<>();
+
+	private int numChars;
+
+	private boolean loaded;
+
+	private boolean fetching;
+
+	private boolean discarded;
+
+	private final Runnable saveRunnable = this::save;
+
+	FileNameIndex(@NonNull String profileID) {
+		file = new AtomicFile(getFile(profileID));
+	}
+
+	@NonNull
+	private static File getFile(@NonNull String profileID) {
+		return new File(BiglyBTApp.getContext().getCacheDir(),
+				"files-" + profileID.replaceAll("[^A-Za-z0-9_-]", "_") + ".json.gz");
+	}
+
+	public static void delete(@NonNull String profileID) {
+		new AtomicFile(getFile(profileID)).delete();
+	}
+
+	/**
+	 * Indexes a torrent's complete file list, replacing any previous one.
+	 * Cheap enough to call with the session locked.
+	 */
+	synchronized void put(@NonNull String hash, long torrentID,
+			@NonNull List<?> listFiles) {
+		StringBuilder sb = new StringBuilder();
+		int[] fileIndexes = new int[listFiles.size()];
+		int num = 0;
+		for (Object o : listFiles) {
+			if (!(o instanceof Map)) {
+				continue;
+			}
+			Map<?, ?> mapFile = (Map<?, ?>) o;
+			String name = MapUtils.getMapString(mapFile,
+					TransmissionVars.FIELD_FILES_NAME, null);
+			if (name == null) {
+				continue;
+			}
+			if (num > 0) {
+				sb.append('\n');
+			}
+			sb.append(name.replace('\n', ' '));
+			fileIndexes[num] = MapUtils.getMapInt(mapFile,
+					TransmissionVars.FIELD_FILES_INDEX, num);
+			num++;
+		}
+		if (num < fileIndexes.length) {
+			fileIndexes = Arrays.copyOf(fileIndexes, num);
+		}
+
+		Entry old = mapEntries.get(hash);
+		String paths = sb.toString();
+		if (old != null && old.paths.equals(paths)) {
+			mapTorrentIDs.put(hash, torrentID);
+			return;
+		}
+		putEntry(hash, new Entry(paths, fileIndexes));
+		mapTorrentIDs.put(hash, torrentID);
+		removedBeforeLoad.remove(hash);
+		scheduleSave();
+	}
+
+	/**
+	 * @return true if the torrent's file list has been indexed
+	 */
+	synchronized boolean contains(@NonNull String hash) {
+		return mapEntries.containsKey(hash);
+	}
+
+	synchronized void remove(@NonNull String hash) {
+		Entry entry = mapEntries.remove(hash);
+		mapTorrentIDs.remove(hash);
+		if (entry != null) {
+			numChars -= entry.paths.length();
+			scheduleSave();
+		}
+		if (!loaded) {
+			removedBeforeLoad.add(hash);
+		}
+	}
+
+	/**
+	 * @return true if near {@link #MAX_CHARS}, where fetching more file lists
+	 * would only push out others
+	 */
+	synchronized boolean isFull() {
+		return numChars >= MAX_CHARS / 10 * 9;
+	}
+
+	/**
+	 * Reads the index saved by a previous run, if it hasn't been already
+	 */
+	@WorkerThread
+	synchronized void load() {
+		ensureLoaded();
+	}
+
+	/**
+	 * Drops the index and deletes its saved copy.  Must run on the worker
+	 * handler, so it can't interleave with a save.  No longer usable after.
+	 */
+	@WorkerThread
+	synchronized void discard() {
+		discarded = true;
+		fetching = false;
+		OffThread.getWorkerHandler().removeCallbacks(saveRunnable);
+		mapEntries.clear();
+		mapTorrentIDs.clear();
+		numChars = 0;
+		file.delete();
+	}
+
+	/**
+	 * @return false if already fetching missing file lists
+	 */
+	synchronized boolean startFetching() {
+		if (fetching) {
+			return false;
+		}
+		fetching = true;
+		return true;
+	}
+
+	synchronized void stopFetching() {
+		fetching = false;
+	}
+
+	/**
+	 * Finds files whose path contains <code>query</code>, ignoring case.
+	 * Only torrents whose file list has been received (now or in a previous
+	 * run) are searched.
+	 *
+	 * @param torrentIDs &lt;Torrent Hash, Torrent ID> of torrents in the
+	 *          session, for torrents indexed in a previous run.  Hits in torrents
+	 *          not in it, or not known, are skipped.
+	 */
+	@NonNull
+	@WorkerThread
+	public List<Hit> search(@NonNull String query, int maxHits,
+			@Nullable Map<String, Long> torrentIDs) {
+		List<Hit> hits = new ArrayList<>();
+		String q = query.trim().toUpperCase(Locale.US);
+		if (q.isEmpty() || maxHits <= 0) {
+			return hits;
+		}
+		long start = SystemClock.uptimeMillis();
+		long[] queryGramBits = new long[GRAM_BITS / 64];
+		setGramBits(q, queryGramBits);
+
+		int numSearched = 0;
+		int numIndexed;
+		synchronized (this) {
+			ensureLoaded();
+			numIndexed = mapEntries.size();
+			for (Map.Entry<String, Entry> mapEntry : mapEntries.entrySet()) {
+				Entry entry = mapEntry.getValue();
+				if (!hasAllBits(entry.gramBits, queryGramBits)) {
+					continue;
+				}
+				String hash = mapEntry.getKey();
+				Long torrentID = mapTorrentIDs.get(hash);
+				if (torrentID == null && torrentIDs != null) {
+					torrentID = torrentIDs.get(hash);
+				}
+				if (torrentID == null) {
+					continue;
+				}
+				numSearched++;
+				int line = 0;
+				int pos = 0;
+				while ((pos = indexOfIgnoreCase(entry.paths, q, pos)) >= 0) {
+					while (line + 1 < entry.lineStarts.length
+							&& entry.lineStarts[line + 1] <= pos) {
+						line++;
+					}
+					hits.add(new Hit(torrentID, hash, entry.fileIndexes[line],
+							entry.getPath(line)));
+					if (hits.size() >= maxHits) {
+						break;
+					}
+					// Next line; one hit per file
+					if (line + 1 >= entry.lineStarts.length) {
+						break;
+					}
+					pos = entry.lineStarts[++line];
+				}
+				if (hits.size() >= maxHits) {
+					break;
+				}
+			}
+		}
+
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "search '" + query + "': " + hits.size() + " hits in "
+					+ numSearched + " torrents, " + numIndexed + " indexed, in "
+					+ (SystemClock.uptimeMillis() - start) + "ms");
+		}
+		return hits;
+	}
+
+	/**
+	 * @param q upper cased
+	 */
+	private static int indexOfIgnoreCase(@NonNull String s, @NonNull String q,
+			int from) {
+		char first = q.charAt(0);
+		int qLen = q.length();
+		for (int i = from, max = s.length() - qLen; i <= max; i++) {
+			if (Character.toUpperCase(s.charAt(i)) == first
+					&& s.regionMatches(true, i + 1, q, 1, qLen - 1)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static void setGramBits(@NonNull String s, @NonNull long[] bits) {
+		for (int i = 0, num = s.length() - 2; i < num; i++) {
+			int h = Character.toUpperCase(s.charAt(i)) * 31 * 31
+					+ Character.toUpperCase(s.charAt(i + 1)) * 31
+					+ Character.toUpperCase(s.charAt(i + 2));
+			int bit = (h ^ (h >>> 8)) & (GRAM_BITS - 1);
+			bits[bit >> 6] |= 1L << (bit & 63);
+		}
+	}
+
+	private static boolean hasAllBits(@NonNull long[] bits,
+			@NonNull long[] required) {
+		for (int i = 0; i < bits.length; i++) {
+			if ((bits[i] & required[i]) != required[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void putEntry(@NonNull String hash, @NonNull Entry entry) {
+		Entry old = mapEntries.put(hash, entry);
+		if (old != null) {
+			numChars -= old.paths.length();
+		}
+		numChars += entry.paths.length();
+
+		// Evict least recently updated, but always keep the newest
+		Iterator<Map.Entry<String, Entry>> iter = mapEntries.entrySet().iterator();
+		while (numChars > MAX_CHARS && mapEntries.size() > 1 && iter.hasNext()) {
+			Map.Entry<String, Entry> eldest = iter.next();
+			if (eldest.getValue() == entry) {
+				continue;
+			}
+			numChars -= eldest.getValue().paths.length();
+			mapTorrentIDs.remove(eldest.getKey());
+			iter.remove();
+		}
+	}
+
+	private void scheduleSave() {
+		if (discarded) {
+			return;
+		}
+		Handler workerHandler = OffThread.getWorkerHandler();
+		workerHandler.removeCallbacks(saveRunnable);
+		workerHandler.postDelayed(saveRunnable, SAVE_DELAY_MS);
+	}
+
+	@WorkerThread
+	private void ensureLoaded() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+
+		int numLoaded = 0;
+		try (Reader reader = new InputStreamReader(
+				new GZIPInputStream(file.openRead()), "UTF-8")) {
+			Map<String, Object> map = JSONUtils.decodeJSON(reader);
+			if (MapUtils.getMapInt(map, KEY_VERSION, 0) != FORMAT_VERSION) {
+				return;
+			}
+			Map<?, ?> torrents = MapUtils.getMapMap(map, KEY_TORRENTS,
+					Collections.emptyMap());
+			for (Object key : torrents.keySet()) {
+				Object o = torrents.get(key);
+				if (!(key instanceof String) || !(o instanceof Map)) {
+					continue;
+				}
+				String hash = (String) key;
+				// Entries put since startup are newer than the file's
+				if (mapEntries.containsKey(hash) || removedBeforeLoad.contains(hash)) {
+					continue;
+				}
+				Map<?, ?> mapTorrent = (Map<?, ?>) o;
+				String paths = MapUtils.getMapString(mapTorrent, KEY_PATHS, null);
+				List<?> listIndexes = MapUtils.getMapList(mapTorrent, KEY_INDEXES,
+						null);
+				if (paths == null || listIndexes == null) {
+					continue;
+				}
+				int[] fileIndexes = new int[listIndexes.size()];
+				for (int i = 0; i < fileIndexes.length; i++) {
+					Object index = listIndexes.get(i);
+					fileIndexes[i] = index instanceof Number ? ((Number) index).intValue()
+							: i;
+				}
+				putEntry(hash, new Entry(paths, fileIndexes));
+				numLoaded++;
+			}
+
+			if (AndroidUtils.DEBUG) {
+				Log.d(TAG,
+						"Loaded " + numLoaded + " from " + file.getBaseFile());
+			}
+		} catch (FileNotFoundException ignore) {
+			// Nothing saved yet
+		} catch (Throwable t) {
+			Log.e(TAG, "load " + file.getBaseFile(), t);
+		}
+		removedBeforeLoad.clear();
+	}
+
+	@Thunk
+	@WorkerThread
+	void save() {
+		try {
+			String json;
+			synchronized (this) {
+				if (discarded) {
+					return;
+				}
+				ensureLoaded();
+				Map<String, Object> torrents = new HashMap<>();
+				for (Map.Entry<String, Entry> mapEntry : mapEntries.entrySet()) {
+					Entry entry = mapEntry.getValue();
+					List<Integer> listIndexes = new ArrayList<>(
+							entry.fileIndexes.length);
+					for (int index : entry.fileIndexes) {
+						listIndexes.add(index);
+					}
+					Map<String, Object> mapTorrent = new HashMap<>();
+					mapTorrent.put(KEY_PATHS, entry.paths);
+					mapTorrent.put(KEY_INDEXES, listIndexes);
+					torrents.put(mapEntry.getKey(), mapTorrent);
+				}
+				Map<String, Object> map = new HashMap<>();
+				map.put(KEY_VERSION, FORMAT_VERSION);
+				map.put(KEY_TORRENTS, torrents);
+				json = JSONUtils.encodeToJSON(map);
+			}
+
+			// Written to a new file and swapped in, so a crash mid-write can't
+			// leave a truncated cache
+			FileOutputStream fos = file.startWrite();
+			try {
+				GZIPOutputStream gzip = new GZIPOutputStream(fos);
+				Writer writer = new OutputStreamWriter(gzip, "UTF-8");
+				writer.write(json);
+				writer.flush();
+				gzip.finish();
+				file.finishWrite(fos);
+			} catch (Throwable t) {
+				file.failWrite(fos);
+				throw t;
+			}
+		} catch (Throwable t) {
+			Log.e(TAG, "save " + file.getBaseFile(), t);
+		}
+	}
+}
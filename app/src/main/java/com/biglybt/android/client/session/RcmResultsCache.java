@@ -0,0 +1,224 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import android.os.Handler;
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.core.util.AtomicFile;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.BiglyBTApp;
+import com.biglybt.android.client.OffThread;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.JSONUtils;
+import com.biglybt.android.util.MapUtils;
+import com.biglybt.util.Thunk;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Swarm Discovery results of one remote profile, kept on disk so reopening
+ * Swarm Discoveries shows the previous results right away and only asks the
+ * server for entries since {@link #getGotUntil()}.
+ * <p/>
+ * Stored as gzipped JSON in the app's cache dir, so the OS may clear it.
+ * When loading, entries not received within {@link #EXPIRE_MS} are dropped
+ * and the whole list is fetched again.
+ */
+public class RcmResultsCache
+{
+	private static final String TAG = "RcmResultsCache";
+
+	private static final long EXPIRE_MS = DateUtils.WEEK_IN_MILLIS * 2;
+
+	private static final long SAVE_DELAY_MS = DateUtils.SECOND_IN_MILLIS * 2;
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final String KEY_VERSION = "v";
+
+	private static final String KEY_UNTIL = "until";
+
+	private static final String KEY_RESULTS = "results";
+
+	private static final String KEY_RECEIVED_ON = "receivedOn";
+
+	private final AtomicFile file;
+
+	/** &lt;Hash, RCM Map> */
+	private final Map<String, Map<?, ?>> mapResults = new HashMap<>();
+
+	/** &lt;Hash, Time last received from server> */
+	private final Map<String, Long> mapReceivedOn = new HashMap<>();
+
+	private long gotUntil;
+
+	private boolean loaded;
+
+	private final Runnable saveRunnable = this::save;
+
+	RcmResultsCache(@NonNull String profileID) {
+		file = new AtomicFile(getFile(profileID));
+	}
+
+	@NonNull
+	private static File getFile(@NonNull String profileID) {
+		return new File(BiglyBTApp.getContext().getCacheDir(),
+				"rcm-" + profileID.replaceAll("[^A-Za-z0-9_-]", "_") + ".json.gz");
+	}
+
+	public static void delete(@NonNull String profileID) {
+		new AtomicFile(getFile(profileID)).delete();
+	}
+
+	/**
+	 * @return "until" value from the last server reply that was merged, or 0
+	 */
+	@WorkerThread
+	public synchronized long getGotUntil() {
+		ensureLoaded();
+		return gotUntil;
+	}
+
+	@NonNull
+	@WorkerThread
+	public synchronized List<Map<?, ?>> getList() {
+		ensureLoaded();
+		return new ArrayList<>(mapResults.values());
+	}
+
+	/**
+	 * Adds or replaces results by hash, and schedules a save
+	 */
+	@WorkerThread
+	synchronized void merge(long until, @NonNull List<?> listRCM) {
+		ensureLoaded();
+		long now = System.currentTimeMillis();
+		for (Object o : listRCM) {
+			if (!(o instanceof Map)) {
+				continue;
+			}
+			Map<?, ?> mapRCM = (Map<?, ?>) o;
+			String hash = MapUtils.getMapString(mapRCM,
+					TransmissionVars.FIELD_RCM_HASH, null);
+			if (hash == null) {
+				continue;
+			}
+			mapResults.put(hash, mapRCM);
+			mapReceivedOn.put(hash, now);
+		}
+		if (until > gotUntil) {
+			gotUntil = until;
+		}
+
+		Handler workerHandler = OffThread.getWorkerHandler();
+		workerHandler.removeCallbacks(saveRunnable);
+		workerHandler.postDelayed(saveRunnable, SAVE_DELAY_MS);
+	}
+
+	private void ensureLoaded() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+		try (Reader reader = new InputStreamReader(
+				new GZIPInputStream(file.openRead()), "UTF-8")) {
+			Map<String, Object> map = JSONUtils.decodeJSON(reader);
+			if (MapUtils.getMapInt(map, KEY_VERSION, 0) != FORMAT_VERSION) {
+				return;
+			}
+			Map<?, ?> results = MapUtils.getMapMap(map, KEY_RESULTS,
+					Collections.emptyMap());
+			Map<?, ?> receivedOn = MapUtils.getMapMap(map, KEY_RECEIVED_ON,
+					Collections.emptyMap());
+			for (Object key : results.keySet()) {
+				Object o = results.get(key);
+				if (!(key instanceof String) || !(o instanceof Map)) {
+					continue;
+				}
+				String hash = (String) key;
+				mapResults.put(hash, (Map<?, ?>) o);
+				mapReceivedOn.put(hash, MapUtils.getMapLong(receivedOn, hash, 0));
+			}
+			gotUntil = MapUtils.getMapLong(map, KEY_UNTIL, 0);
+
+			// Server only sends entries changed since gotUntil, so an expired
+			// entry that still exists would never come back.  Fetch all again.
+			long now = System.currentTimeMillis();
+			for (Iterator<Map.Entry<String, Long>> iter = mapReceivedOn.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<String, Long> entry = iter.next();
+				if (now - entry.getValue() > EXPIRE_MS) {
+					mapResults.remove(entry.getKey());
+					iter.remove();
+					gotUntil = 0;
+				}
+			}
+
+			if (AndroidUtils.DEBUG) {
+				Log.d(TAG,
+						"Loaded " + mapResults.size() + " from " + file.getBaseFile());
+			}
+		} catch (FileNotFoundException ignore) {
+			// Nothing saved yet
+		} catch (Throwable t) {
+			Log.e(TAG, "load " + file.getBaseFile(), t);
+			mapResults.clear();
+			mapReceivedOn.clear();
+			gotUntil = 0;
+		}
+	}
+
+	@Thunk
+	@WorkerThread
+	void save() {
+		try {
+			String json;
+			synchronized (this) {
+				Map<String, Object> map = new HashMap<>();
+				map.put(KEY_VERSION, FORMAT_VERSION);
+				map.put(KEY_UNTIL, gotUntil);
+				map.put(KEY_RESULTS, mapResults);
+				map.put(KEY_RECEIVED_ON, mapReceivedOn);
+				json = JSONUtils.encodeToJSON(map);
+			}
+
+			// Written to a new file and swapped in, so a crash mid-write can't
+			// leave a truncated cache
+			FileOutputStream fos = file.startWrite();
+			try {
+				GZIPOutputStream gzip = new GZIPOutputStream(fos);
+				Writer writer = new OutputStreamWriter(gzip, "UTF-8");
+				writer.write(json);
+				writer.flush();
+				gzip.finish();
+				file.finishWrite(fos);
+			} catch (Throwable t) {
+				file.failWrite(fos);
+				throw t;
+			}
+		} catch (Throwable t) {
+			Log.e(TAG, "save " + file.getBaseFile(), t);
+		}
+	}
+}
@@ -87,10 +87,17 @@ public class RemoteProfile
 
 	private static final String ID_SMALL_LISTS = "useSmallLists";
 
+	private static final String ID_MONITOR_IN_BACKGROUND = "monitorInBackground";
+
+	private static final String ID_INDEX_FILE_NAMES = "indexFileNames";
+
 	private static final String ID_LAST_BINDING_INFO = "lastBindingInfo";
 
 	private static final String ID_I2PONLY = "i2pOnly";
 
+	/** Map of Key = Name; Value = Filter query **/
+	private static final String ID_SAVED_QUERIES = "savedQueries";
+
 	private static final boolean DEFAULT_ADD_POSITION_LAST = true;
 
 	private static final boolean DEFAULT_ADD_STATE_QUEUED = true;
@@ -418,6 +425,47 @@ public class RemoteProfile
 		mapRemote.put(ID_SAVE_PATH_HISTORY, history);
 	}
 
+	/**
+	 * @return &lt;Name, Filter query> of queries saved for the torrent list
+	 */
+	@NonNull
+	public Map<String, String> getSavedQueries() {
+		synchronized (mapRemote) {
+			Map<String, String> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+			Map<?, ?> mapSaved = MapUtils.getMapMap(mapRemote, ID_SAVED_QUERIES,
+					Collections.emptyMap());
+			for (Object key : mapSaved.keySet()) {
+				Object query = mapSaved.get(key);
+				if (key instanceof String && query instanceof String) {
+					map.put((String) key, (String) query);
+				}
+			}
+			return map;
+		}
+	}
+
+	/**
+	 * @param query null to remove
+	 */
+	public void setSavedQuery(@NonNull String name, @Nullable String query) {
+		synchronized (mapRemote) {
+			Map<String, Object> mapSaved = MapUtils.getMapMap(mapRemote,
+					ID_SAVED_QUERIES, null);
+			if (mapSaved == null) {
+				if (query == null) {
+					return;
+				}
+				mapSaved = new HashMap<>();
+				mapRemote.put(ID_SAVED_QUERIES, mapSaved);
+			}
+			if (query == null) {
+				mapSaved.remove(name);
+			} else {
+				mapSaved.put(name, query);
+			}
+		}
+	}
+
 	public void setUser(String user) {
 		mapRemote.put(ID_USER, user);
 	}
@@ -552,6 +600,38 @@ public class RemoteProfile
 		}
 	}
 
+	/**
+	 * @return true if {@link SessionMonitor} keeps this remote connected and
+	 * polls its summary stats while other remotes are in use
+	 */
+	public boolean isMonitorInBackground() {
+		return MapUtils.getMapBoolean(mapRemote, ID_MONITOR_IN_BACKGROUND, false);
+	}
+
+	public void setMonitorInBackground(boolean monitor) {
+		if (monitor) {
+			mapRemote.put(ID_MONITOR_IN_BACKGROUND, true);
+		} else {
+			mapRemote.remove(ID_MONITOR_IN_BACKGROUND);
+		}
+	}
+
+	/**
+	 * @return true to index the file names of all torrents, fetching file
+	 * lists in the background, for <code>file:</code> filter terms
+	 */
+	public boolean isIndexFileNames() {
+		return MapUtils.getMapBoolean(mapRemote, ID_INDEX_FILE_NAMES, false);
+	}
+
+	public void setIndexFileNames(boolean index) {
+		if (index) {
+			mapRemote.put(ID_INDEX_FILE_NAMES, true);
+		} else {
+			mapRemote.remove(ID_INDEX_FILE_NAMES);
+		}
+	}
+
 	public void setLastBindingInfo(Map bindingInfo) {
 		if (bindingInfo == null) {
 			mapRemote.remove(ID_LAST_BINDING_INFO);
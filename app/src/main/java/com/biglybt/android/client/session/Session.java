@@ -124,6 +124,18 @@ public class Session
 		TransmissionVars.TR_SESSION_STATS_UPLOAD_SPEED
 	};
 
+	/**
+	 * Fields fetched for a background session being monitored.  Just enough
+	 * for a summary row; no torrent list.
+	 */
+	private static final String[] SUMMARY_STATS_FIELDS = {
+		TransmissionVars.TR_SESSION_STATS_DOWNLOAD_SPEED,
+		TransmissionVars.TR_SESSION_STATS_UPLOAD_SPEED,
+		TransmissionVars.TR_SESSION_STATS_TORRENT_COUNT,
+		TransmissionVars.TR_SESSION_STATS_ACTIVE_TORRENT_COUNT,
+		TransmissionVars.TR_SESSION_STATS_PAUSED_TORRENT_COUNT
+	};
+
 	private SessionSettings sessionSettings;
 
 	@Thunk
@@ -171,6 +183,11 @@ public class Session
 	@Thunk
 	boolean destroyed = false;
 
+	/**
+	 * Kept alive by {@link SessionMonitor}, even when it has no activity
+	 */
+	private boolean monitored;
+
 	/**
 	 * Access to Subscription methods
 	 */
@@ -641,6 +658,8 @@ public class Session
 		this.transmissionRPC = transmissionRPC;
 
 		if (transmissionRPC != null) {
+			updateRequestExecutor();
+
 			String[] fields;
 			if (remoteProfile.isLocalHost()) {
 				fields = FILE_FIELDS_LOCALHOST;
@@ -822,7 +841,11 @@ public class Session
 							return;
 						}
 
-						if (recentOnly && !torrent.needsFullTorrentRefresh) {
+						if (recentOnly && !torrent.needsFullTorrentRefresh
+								&& torrent.hasViewport()) {
+							torrent.getRecentTorrentsForViewport(transmissionRPC,
+									TAG + ".Refresh", doneRefreshingListListener);
+						} else if (recentOnly && !torrent.needsFullTorrentRefresh) {
 							transmissionRPC.getRecentTorrents(TAG + ".Refresh",
 									doneRefreshingListListener);
 						} else {
@@ -844,6 +867,88 @@ public class Session
 				});
 	}
 
+	/**
+	 * Opens the RPC connection without requiring an Activity, so a
+	 * {@link SessionMonitor} can poll summary stats.  No-op if already open.
+	 */
+	@AnyThread
+	void openForMonitoring() {
+		ensureNotDestroyed();
+		if (destroyed || transmissionRPC != null) {
+			return;
+		}
+		bindAndOpen();
+	}
+
+	@AnyThread
+	void setMonitored(boolean monitored) {
+		this.monitored = monitored;
+		updateRequestExecutor();
+	}
+
+	/**
+	 * Background monitored sessions share {@link SessionMonitor}'s worker pool.
+	 * A session with an activity gets its own threads, as before.
+	 */
+	private void updateRequestExecutor() {
+		TransmissionRPC rpc = transmissionRPC;
+		if (rpc != null) {
+			rpc.setRequestExecutor(monitored && !hasCurrentActivity
+					? SessionMonitor.getRpcExecutor() : null);
+		}
+	}
+
+	public boolean isMonitored() {
+		return monitored;
+	}
+
+	/**
+	 * Fetch only the session stats needed for a summary.  Used for background
+	 * sessions.  The foreground session already gets these in
+	 * {@link #triggerRefresh(boolean)}.
+	 */
+	@AnyThread
+	void refreshSummaryStats(@Nullable ReplyMapReceivedListener l) {
+		if (destroyed || transmissionRPC == null || !readyForUI) {
+			if (l != null) {
+				l.rpcFailure(null, "Not Ready");
+			}
+			return;
+		}
+		transmissionRPC.getSessionStats(SUMMARY_STATS_FIELDS,
+				new ReplyMapReceivedListener() {
+					@Override
+					public void rpcSuccess(String requestID, Map<?, ?> optionalMap) {
+						updateSessionStats(optionalMap);
+						if (l != null) {
+							l.rpcSuccess(requestID, optionalMap);
+						}
+					}
+
+					@Override
+					public void rpcFailure(String requestID, String message) {
+						if (l != null) {
+							l.rpcFailure(requestID, message);
+						}
+					}
+
+					@Override
+					public void rpcError(String requestID, Throwable e) {
+						if (l != null) {
+							l.rpcError(requestID, e);
+						}
+					}
+				});
+	}
+
+	/**
+	 * @return Last session stats map received, or null
+	 */
+	@Nullable
+	public Map<?, ?> getSessionStats() {
+		return mapSessionStats;
+	}
+
 	@Thunk
 	void updateSessionStats(Map<?, ?> map) {
 		Map<?, ?> oldSessionStats = mapSessionStats;
@@ -1025,6 +1130,7 @@ public class Session
 					+ " via " + AndroidUtils.getCompressedStackTrace());
 		}
 		hasCurrentActivity = true;
+		updateRequestExecutor();
 
 		// Session now has an activity, ensure bindings and refreshes are triggered
 
@@ -1060,6 +1166,7 @@ public class Session
 			hasCurrentActivity = false;
 			currentActivityRef = new WeakReference<>(null);
 			SessionManager.clearActiveSession(this);
+			updateRequestExecutor();
 		} else {
 			if (AndroidUtils.DEBUG) {
 				logd("skip clearCurrentActivity " + activity + " via "
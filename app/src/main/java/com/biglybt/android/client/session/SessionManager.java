@@ -65,6 +65,54 @@ public class SessionManager
 
 	public static @NonNull Session getSession(@NonNull String profileID,
 			@Nullable SessionChangedListener l) {
+		Session session = getOrCreateSession(profileID);
+		if (session == null) {
+			// UH OH, breaking the @NotNull
+			return null;
+		}
+
+		if (!profileID.equals(lastUsed)) {
+			lastUsed = profileID;
+			IAnalyticsTracker vet = AnalyticsTracker.getInstance();
+			RemoteProfile remoteProfile = session.getRemoteProfile();
+			vet.setRemoteTypeName(remoteProfile.getRemoteTypeName());
+		}
+
+		if (l != null) {
+			addSessionChangedListener(profileID, l);
+		}
+		return session;
+	}
+
+	/**
+	 * @return Session if one exists and isn't destroyed. Does not create.
+	 */
+	@Nullable
+	static Session getExistingSession(@NonNull String profileID) {
+		Session session = mapSessions.get(profileID);
+		return session == null || session.isDestroyed() ? null : session;
+	}
+
+	/**
+	 * Gets or creates a Session for {@link SessionMonitor}, without marking it
+	 * as the last used remote.
+	 *
+	 * @return null if RemoteProfile no longer exists
+	 */
+	@Nullable
+	static Session getMonitoredSession(@NonNull String profileID) {
+		Session session = getExistingSession(profileID);
+		if (session != null) {
+			return session;
+		}
+		if (BiglyBTApp.getAppPreferences().getRemote(profileID) == null) {
+			return null;
+		}
+		return getOrCreateSession(profileID);
+	}
+
+	@Nullable
+	private static Session getOrCreateSession(@NonNull String profileID) {
 		Session session = mapSessions.get(profileID);
 		if (session != null && session.isDestroyed()) {
 			session = null;
@@ -85,7 +133,6 @@ public class SessionManager
 						+ BiglyBTApp.getAppPreferences().getNumRemotes() + "; "
 						+ RemoteUtils.lastOpenDebug;
 				AnalyticsTracker.getInstance().logError(errString, null);
-				// UH OH, breaking the @NotNull
 				return null;
 			}
 			if (AndroidUtils.DEBUG) {
@@ -112,17 +159,6 @@ public class SessionManager
 				}
 			}
 		}
-
-		if (!profileID.equals(lastUsed)) {
-			lastUsed = profileID;
-			IAnalyticsTracker vet = AnalyticsTracker.getInstance();
-			RemoteProfile remoteProfile = session.getRemoteProfile();
-			vet.setRemoteTypeName(remoteProfile.getRemoteTypeName());
-		}
-
-		if (l != null) {
-			addSessionChangedListener(profileID, l);
-		}
 		return session;
 	}
 
@@ -215,6 +251,7 @@ public class SessionManager
 	}
 
 	public static void removeAllSessions() {
+		SessionMonitor.stopMonitoringAll();
 		for (String key : mapSessions.keySet()) {
 			Session session = mapSessions.get(key);
 			if (session != null) {
@@ -230,7 +267,9 @@ public class SessionManager
 		for (Iterator<Session> iter = mapSessions.values().iterator(); iter.hasNext();) {
 			Session session = iter.next();
 
-			if (session != null && !session.hasCurrentActivity()) {
+			// Monitored sessions are kept alive on purpose, and only poll stats
+			if (session != null && !session.hasCurrentActivity()
+					&& !session.isMonitored()) {
 				if (!session.isDestroyed()) {
 					session.destroy();
 				}
@@ -0,0 +1,376 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import android.util.Log;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.BiglyBTApp;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.client.rpc.ReplyMapReceivedListener;
+import com.biglybt.android.util.MapUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Keeps lightweight {@link Session}s alive for several {@link RemoteProfile}s
+ * at once, polling only summary stats (rates, torrent counts) for the ones
+ * not in the foreground.
+ * <p/>
+ * All monitored sessions share one polling scheduler thread and one small
+ * RPC worker pool, so monitoring N remotes doesn't cost N refresh handlers
+ * and a thread per request.  Switching to a monitored remote reuses its
+ * already open connection.
+ */
+public class SessionMonitor
+{
+	private static final String TAG = "SessionMonitor";
+
+	private static final long TICK_MS = 1000;
+
+	/** Used when the remote's update interval is disabled */
+	private static final long DEFAULT_POLL_SECS = 30;
+
+	private static final long CONNECT_TIMEOUT_MS = 30 * 1000L;
+
+	/** Wait this long before retrying a remote that failed to connect */
+	private static final long RETRY_AFTER_ERROR_MS = 60 * 1000L;
+
+	private static final int RPC_POOL_SIZE = 3;
+
+	public interface RemoteSummaryListener
+	{
+		@AnyThread
+		void remoteSummaryChanged(@NonNull RemoteSummary summary);
+	}
+
+	/**
+	 * Summary stats for one monitored remote
+	 */
+	public static class RemoteSummary
+	{
+		@NonNull
+		public final String profileID;
+
+		public volatile long downloadSpeed;
+
+		public volatile long uploadSpeed;
+
+		public volatile int torrentCount;
+
+		public volatile int activeTorrentCount;
+
+		public volatile int pausedTorrentCount;
+
+		/** 0 if never updated */
+		public volatile long lastUpdatedOn;
+
+		@Nullable
+		public volatile String lastError;
+
+		volatile long nextPollOn;
+
+		volatile boolean polling;
+
+		volatile long connectingSince;
+
+		RemoteSummary(@NonNull String profileID) {
+			this.profileID = profileID;
+		}
+
+		void update(@Nullable Map<?, ?> stats) {
+			if (stats == null) {
+				return;
+			}
+			downloadSpeed = MapUtils.getMapLong(stats,
+					TransmissionVars.TR_SESSION_STATS_DOWNLOAD_SPEED, 0);
+			uploadSpeed = MapUtils.getMapLong(stats,
+					TransmissionVars.TR_SESSION_STATS_UPLOAD_SPEED, 0);
+			torrentCount = MapUtils.getMapInt(stats,
+					TransmissionVars.TR_SESSION_STATS_TORRENT_COUNT, torrentCount);
+			activeTorrentCount = MapUtils.getMapInt(stats,
+					TransmissionVars.TR_SESSION_STATS_ACTIVE_TORRENT_COUNT,
+					activeTorrentCount);
+			pausedTorrentCount = MapUtils.getMapInt(stats,
+					TransmissionVars.TR_SESSION_STATS_PAUSED_TORRENT_COUNT,
+					pausedTorrentCount);
+			lastUpdatedOn = System.currentTimeMillis();
+			lastError = null;
+		}
+	}
+
+	/**
+	 * Totals across all monitored remotes, for a dashboard
+	 */
+	public static class AggregateSummary
+	{
+		public long downloadSpeed;
+
+		public long uploadSpeed;
+
+		public int torrentCount;
+
+		public int activeTorrentCount;
+
+		public int numRemotes;
+
+		public int numRemotesInError;
+	}
+
+	private static final ConcurrentHashMap<String, RemoteSummary> mapSummaries = new ConcurrentHashMap<>();
+
+	private static final CopyOnWriteArrayList<RemoteSummaryListener> listeners = new CopyOnWriteArrayList<>();
+
+	private static ScheduledExecutorService scheduler;
+
+	private static ScheduledFuture<?> tickFuture;
+
+	private static ThreadPoolExecutor rpcExecutor;
+
+	/**
+	 * Shared pool used for RPC requests of background monitored sessions
+	 */
+	@NonNull
+	static synchronized Executor getRpcExecutor() {
+		if (rpcExecutor == null) {
+			rpcExecutor = new ThreadPoolExecutor(RPC_POOL_SIZE, RPC_POOL_SIZE, 30,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+						Thread thread = new Thread(r, "SessionMonitorRPC");
+						thread.setDaemon(true);
+						return thread;
+					});
+			rpcExecutor.allowCoreThreadTimeOut(true);
+		}
+		return rpcExecutor;
+	}
+
+	/**
+	 * Starts monitoring every remote with
+	 * {@link RemoteProfile#isMonitorInBackground()} set
+	 */
+	@AnyThread
+	public static void startMonitoringEnabledRemotes() {
+		for (RemoteProfile remoteProfile : BiglyBTApp.getAppPreferences().getRemotes()) {
+			if (remoteProfile.isMonitorInBackground()) {
+				startMonitoring(remoteProfile.getID());
+			}
+		}
+	}
+
+	@AnyThread
+	public static void startMonitoring(@NonNull String profileID) {
+		synchronized (mapSummaries) {
+			if (mapSummaries.putIfAbsent(profileID,
+					new RemoteSummary(profileID)) != null) {
+				return;
+			}
+		}
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "startMonitoring " + profileID);
+		}
+		ensureScheduled();
+	}
+
+	@AnyThread
+	public static void stopMonitoring(@NonNull String profileID) {
+		// Same lock poll() re-arms under, so a running poll can't mark the
+		// session monitored again after this
+		synchronized (mapSummaries) {
+			RemoteSummary summary = mapSummaries.remove(profileID);
+			if (summary == null) {
+				return;
+			}
+			Session session = SessionManager.getExistingSession(profileID);
+			if (session != null) {
+				session.setMonitored(false);
+			}
+		}
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "stopMonitoring " + profileID);
+		}
+		cancelIfIdle();
+	}
+
+	@AnyThread
+	public static void stopMonitoringAll() {
+		for (String profileID : mapSummaries.keySet()) {
+			stopMonitoring(profileID);
+		}
+	}
+
+	public static boolean isMonitoring(@NonNull String profileID) {
+		return mapSummaries.containsKey(profileID);
+	}
+
+	@NonNull
+	public static List<RemoteSummary> getSummaries() {
+		return new ArrayList<>(mapSummaries.values());
+	}
+
+	@Nullable
+	public static RemoteSummary getSummary(@NonNull String profileID) {
+		return mapSummaries.get(profileID);
+	}
+
+	@NonNull
+	public static AggregateSummary getAggregateSummary() {
+		AggregateSummary aggregate = new AggregateSummary();
+		for (RemoteSummary summary : mapSummaries.values()) {
+			aggregate.numRemotes++;
+			if (summary.lastError != null) {
+				aggregate.numRemotesInError++;
+			}
+			aggregate.downloadSpeed += summary.downloadSpeed;
+			aggregate.uploadSpeed += summary.uploadSpeed;
+			aggregate.torrentCount += summary.torrentCount;
+			aggregate.activeTorrentCount += summary.activeTorrentCount;
+		}
+		return aggregate;
+	}
+
+	public static void addRemoteSummaryListener(
+			@NonNull RemoteSummaryListener l) {
+		listeners.addIfAbsent(l);
+	}
+
+	public static void removeRemoteSummaryListener(RemoteSummaryListener l) {
+		listeners.remove(l);
+	}
+
+	private static synchronized void ensureScheduled() {
+		if (scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, TAG);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		if (tickFuture == null) {
+			tickFuture = scheduler.scheduleWithFixedDelay(SessionMonitor::tick, 0,
+					TICK_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private static synchronized void cancelIfIdle() {
+		if (!mapSummaries.isEmpty() || tickFuture == null) {
+			return;
+		}
+		tickFuture.cancel(false);
+		tickFuture = null;
+	}
+
+	@WorkerThread
+	private static void tick() {
+		long now = System.currentTimeMillis();
+		for (RemoteSummary summary : mapSummaries.values()) {
+			if (summary.polling || now < summary.nextPollOn) {
+				continue;
+			}
+			try {
+				poll(summary, now);
+			} catch (Throwable t) {
+				summary.polling = false;
+				Log.e(TAG, "tick: " + summary.profileID, t);
+			}
+		}
+	}
+
+	@WorkerThread
+	private static void poll(@NonNull RemoteSummary summary, long now) {
+		Session session = SessionManager.getMonitoredSession(summary.profileID);
+		if (session == null) {
+			// Profile was removed
+			mapSummaries.remove(summary.profileID);
+			cancelIfIdle();
+			return;
+		}
+		synchronized (mapSummaries) {
+			if (mapSummaries.get(summary.profileID) != summary) {
+				// Stopped while we were getting the session
+				return;
+			}
+			if (!session.isMonitored()) {
+				session.setMonitored(true);
+			}
+		}
+
+		long interval = session.getRemoteProfile().calcUpdateInterval();
+		long intervalMS = (interval > 0 ? interval : DEFAULT_POLL_SECS) * 1000;
+		summary.nextPollOn = now + intervalMS;
+
+		if (session.hasCurrentActivity()) {
+			// Foreground session refreshes its own stats; just mirror them
+			summary.update(session.getSessionStats());
+			triggerSummaryChanged(summary);
+			return;
+		}
+
+		if (!session.isReadyForUI()) {
+			if (summary.connectingSince == 0) {
+				summary.connectingSince = now;
+				session.openForMonitoring();
+			} else if (now - summary.connectingSince > CONNECT_TIMEOUT_MS) {
+				summary.connectingSince = 0;
+				summary.lastError = "Could not connect";
+				summary.nextPollOn = now + RETRY_AFTER_ERROR_MS;
+				triggerSummaryChanged(summary);
+				return;
+			}
+			// Check back soon, instead of waiting a full interval
+			summary.nextPollOn = now + TICK_MS;
+			return;
+		}
+		summary.connectingSince = 0;
+
+		summary.polling = true;
+		session.refreshSummaryStats(new ReplyMapReceivedListener() {
+			@Override
+			public void rpcSuccess(String requestID, Map<?, ?> optionalMap) {
+				summary.polling = false;
+				summary.update(optionalMap);
+				triggerSummaryChanged(summary);
+			}
+
+			@Override
+			public void rpcFailure(String requestID, String message) {
+				summary.polling = false;
+				summary.lastError = message;
+				summary.nextPollOn = System.currentTimeMillis()
+						+ RETRY_AFTER_ERROR_MS;
+				triggerSummaryChanged(summary);
+			}
+
+			@Override
+			public void rpcError(String requestID, Throwable e) {
+				rpcFailure(requestID, AndroidUtils.getCauses(e));
+			}
+		});
+	}
+
+	@AnyThread
+	private static void triggerSummaryChanged(@NonNull RemoteSummary summary) {
+		for (RemoteSummaryListener l : listeners) {
+			l.remoteSummaryChanged(summary);
+		}
+	}
+}
@@ -31,6 +31,7 @@ import com.biglybt.util.Thunk;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * TODO: Clear search results cache sometime
@@ -41,6 +42,9 @@ public class Session_MetaSearch
 
 	public static final String TAG = "Session_MetaSearch";
 
+	@Thunk
+	static final AtomicLong nextVersionBase = new AtomicLong();
+
 	@Thunk
 	static final long CACHE_FOR_MS =
 			AndroidUtils.DEBUG ? DateUtils.MINUTE_IN_MILLIS * 2 : DateUtils.DAY_IN_MILLIS;
@@ -111,11 +115,51 @@ public class Session_MetaSearch
 
 		final public Map<String, Object> mapExtras = new HashMap<>();
 
+		/**
+		 * Hashes in the order they were added or changed.  A data version is
+		 * {@link #versionBase} plus a position in this log, so changes since any
+		 * version are a tail of it.
+		 */
+		@Thunk
+		final List<String> changeLog = new ArrayList<>();
+
+		/**
+		 * Keeps versions of different searches from overlapping, so a version
+		 * from a previous search is never mistaken for one of ours
+		 */
+		private final long versionBase = nextVersionBase.getAndAdd(1L << 32);
+
 		SearchResult(String query, Serializable searchID) {
 			this.query = query;
 			this.searchID = searchID;
 		}
 
+		/**
+		 * @return Version that changes whenever a result is added or changed
+		 */
+		public synchronized long getDataVersion() {
+			return versionBase + changeLog.size();
+		}
+
+		/**
+		 * @return Hashes of results added or changed after <code>version</code>,
+		 * or null if <code>version</code> isn't from this search
+		 */
+		@Nullable
+		public synchronized List<String> getChangedResultsSince(long version) {
+			long pos = version - versionBase;
+			if (pos < 0 || pos > changeLog.size()) {
+				return null;
+			}
+			Set<String> changed = new LinkedHashSet<>(
+					changeLog.subList((int) pos, changeLog.size()));
+			return new ArrayList<>(changed);
+		}
+
+		public synchronized List<String> getResultHashes() {
+			return new ArrayList<>(mapResults.keySet());
+		}
+
 		/**
 		 * moves cleanup time forward
 		 */
@@ -289,70 +333,9 @@ public class Session_MetaSearch
 			if (listResults == null || listResults.isEmpty()) {
 				continue;
 			}
-			int numAdded = 0;
-			for (Object oResult : listResults) {
-				if (!(oResult instanceof Map)) {
-					if (AndroidUtils.DEBUG) {
-						Log.d(TAG, "onMetaSearchGotResults: NOT A MAP: " + oResult);
-					}
-					continue;
-				}
-
-				//noinspection unchecked
-				Map<String, Object> mapResult = fixupResultMap(
-						(Map<String, Object>) oResult);
-
-				searchResult.maxSize = Math.max(MapUtils.getMapLong(mapResult,
-						TransmissionVars.FIELD_SEARCHRESULT_SIZE, 0), searchResult.maxSize);
-
-				String hash = MapUtils.getMapString(mapResult,
-						TransmissionVars.FIELD_SEARCHRESULT_HASH, null);
-				if (hash == null) {
-					hash = MapUtils.getMapString(mapResult,
-							TransmissionVars.FIELD_SEARCHRESULT_URL, null);
-				}
-				if (hash == null) {
-					if (AndroidUtils.DEBUG) {
-						Log.d(TAG, "onMetaSearchGotResults: No hash for " + mapResult);
-					}
-					continue;
-				}
-
-				numAdded++;
-
-				mapResult.put(TransmissionVars.FIELD_SEARCHRESULT_ENGINE_ID, engineID);
-				Map<String, Object> mapExisting = searchResult.mapResults.get(hash);
-				if (mapExisting == null) {
-					searchResult.mapResults.put(hash, mapResult);
-					continue;
-				}
-
-				// remove so compare can work
-				//noinspection unchecked
-				List<Map<String, Object>> others = (List<Map<String, Object>>) mapExisting
-						.remove("others");
-				if (mapResult.equals(mapExisting)) {
-					mapExisting.put("others", others);
-					continue;
-				}
-
-				boolean doAdd = true;
-				if (others == null) {
-					others = new ArrayList<>();
-				} else {
-					for (Map<String, Object> other : others) {
-						if (mapResult.equals(other)) {
-							doAdd = false;
-							break;
-						}
-					}
-				}
-				if (doAdd) {
-					mapExisting.put("others", others);
-					others.add(mapResult);
-					mapExisting.put(TransmissionVars.FIELD_LAST_UPDATED,
-							System.currentTimeMillis());
-				}
+			int numAdded;
+			synchronized (searchResult) {
+				numAdded = mergeResults(searchResult, engineID, listResults);
 			}
 			engineInfo.count += numAdded;
 		}
@@ -371,6 +354,85 @@ public class Session_MetaSearch
 		return true;
 	}
 
+	/**
+	 * Merges one engine's batch of results into <code>searchResult</code> by
+	 * hash.  Work is proportional to the batch, not to the results so far.
+	 *
+	 * @return number of results in batch that had a hash
+	 */
+	@SuppressWarnings("rawtypes")
+	private static int mergeResults(@NonNull SearchResult searchResult,
+			String engineID, @NonNull List listResults) {
+		int numAdded = 0;
+		for (Object oResult : listResults) {
+			if (!(oResult instanceof Map)) {
+				if (AndroidUtils.DEBUG) {
+					Log.d(TAG, "onMetaSearchGotResults: NOT A MAP: " + oResult);
+				}
+				continue;
+			}
+
+			//noinspection unchecked
+			Map<String, Object> mapResult = fixupResultMap(
+					(Map<String, Object>) oResult);
+
+			searchResult.maxSize = Math.max(MapUtils.getMapLong(mapResult,
+					TransmissionVars.FIELD_SEARCHRESULT_SIZE, 0), searchResult.maxSize);
+
+			String hash = MapUtils.getMapString(mapResult,
+					TransmissionVars.FIELD_SEARCHRESULT_HASH, null);
+			if (hash == null) {
+				hash = MapUtils.getMapString(mapResult,
+						TransmissionVars.FIELD_SEARCHRESULT_URL, null);
+			}
+			if (hash == null) {
+				if (AndroidUtils.DEBUG) {
+					Log.d(TAG, "onMetaSearchGotResults: No hash for " + mapResult);
+				}
+				continue;
+			}
+
+			numAdded++;
+
+			mapResult.put(TransmissionVars.FIELD_SEARCHRESULT_ENGINE_ID, engineID);
+			Map<String, Object> mapExisting = searchResult.mapResults.get(hash);
+			if (mapExisting == null) {
+				searchResult.mapResults.put(hash, mapResult);
+				searchResult.changeLog.add(hash);
+				continue;
+			}
+
+			// remove so compare can work
+			//noinspection unchecked
+			List<Map<String, Object>> others = (List<Map<String, Object>>) mapExisting
+					.remove("others");
+			if (mapResult.equals(mapExisting)) {
+				mapExisting.put("others", others);
+				continue;
+			}
+
+			boolean doAdd = true;
+			if (others == null) {
+				others = new ArrayList<>();
+			} else {
+				for (Map<String, Object> other : others) {
+					if (mapResult.equals(other)) {
+						doAdd = false;
+						break;
+					}
+				}
+			}
+			if (doAdd) {
+				mapExisting.put("others", others);
+				others.add(mapResult);
+				mapExisting.put(TransmissionVars.FIELD_LAST_UPDATED,
+						System.currentTimeMillis());
+				searchResult.changeLog.add(hash);
+			}
+		}
+		return numAdded;
+	}
+
 	/**
 	 * Unfortunately, the search results map returns just about everything in
 	 * Strings, including numbers.
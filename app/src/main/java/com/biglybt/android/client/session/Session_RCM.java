@@ -16,15 +16,15 @@
 
 package com.biglybt.android.client.session;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.WorkerThread;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 import com.biglybt.android.client.TransmissionVars;
 import com.biglybt.android.client.rpc.ReplyMapReceivedListener;
 import com.biglybt.android.util.MapUtils;
+import com.biglybt.util.Thunk;
 
 /**
  * RCM/Swarm Discovery methods for a {@link Session}
@@ -75,19 +75,26 @@ public class Session_RCM
 	private static class RcmGetListReplyListener
 		implements ReplyMapReceivedListener
 	{
+		private final RcmResultsCache cache;
+
 		private final RcmGetListListener l;
 
-		RcmGetListReplyListener(RcmGetListListener l) {
+		RcmGetListReplyListener(RcmResultsCache cache, RcmGetListListener l) {
+			this.cache = cache;
 			this.l = l;
 		}
 
 		@Override
 		public void rpcSuccess(String requestID, Map<?, ?> optionalMap) {
+			long until = MapUtils.getMapLong(optionalMap, "until", 0);
+			List related = MapUtils.getMapList(optionalMap, "related", null);
+			if (related != null) {
+				removeHiddenTags(related);
+				cache.merge(until, related);
+			}
 			if (l == null) {
 				return;
 			}
-			long until = MapUtils.getMapLong(optionalMap, "until", 0);
-			List related = MapUtils.getMapList(optionalMap, "related", null);
 			l.rcmListReceived(until, related);
 		}
 
@@ -131,10 +138,40 @@ public class Session_RCM
 
 	private final Session session;
 
+	private RcmResultsCache cache;
+
 	Session_RCM(Session session) {
 		this.session = session;
 	}
 
+	/**
+	 * Results received so far, including ones from previous app runs.
+	 * Pass {@link RcmResultsCache#getGotUntil()} + 1 to
+	 * {@link #getList(long, RcmGetListListener)} to get only newer entries.
+	 */
+	@NonNull
+	public synchronized RcmResultsCache getCache() {
+		if (cache == null) {
+			cache = new RcmResultsCache(session.getRemoteProfile().getID());
+		}
+		return cache;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Thunk
+	static void removeHiddenTags(@NonNull List listRCMs) {
+		for (Object object : listRCMs) {
+			if (!(object instanceof Map)) {
+				continue;
+			}
+			List listTags = MapUtils.getMapList((Map<?, ?>) object,
+					TransmissionVars.FIELD_RCM_TAGS, null);
+			if (listTags != null && listTags.size() > 0) {
+				listTags.remove("_i2p_");
+			}
+		}
+	}
+
 	public void checkEnabled(final RcmCheckListener l) {
 		session._executeRpc(
 				rpc -> rpc.simpleRpcCall(TransmissionVars.METHOD_RCM_IS_ENABLED,
@@ -147,7 +184,7 @@ public class Session_RCM
 			map.put("since", rcmGotUntil);
 		}
 		session._executeRpc(rpc -> rpc.simpleRpcCall("rcm-get-list", map,
-				new RcmGetListReplyListener(l)));
+				new RcmGetListReplyListener(getCache(), l)));
 	}
 
 	public void setEnabled(final boolean enable, final boolean all,
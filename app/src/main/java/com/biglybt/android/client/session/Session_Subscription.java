@@ -30,6 +30,7 @@ import androidx.appcompat.app.AlertDialog;
 import com.biglybt.android.client.AndroidUtils;
 import com.biglybt.android.client.R;
 import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.client.rpc.RPCSupports;
 import com.biglybt.android.client.rpc.ReplyMapReceivedListener;
 import com.biglybt.android.client.rpc.SubscriptionListReceivedListener;
 import com.biglybt.android.client.rpc.SuccessReplyMapRecievedListener;
@@ -74,6 +75,13 @@ public class Session_Subscription
 
 	private boolean refreshingList;
 
+	private static final int RESULTS_PAGE_SIZE = 500;
+
+	/**
+	 * &lt;SubscriptionID, {@link SubscriptionResults}>
+	 */
+	private final Map<String, SubscriptionResults> mapResults = new HashMap<>();
+
 	Session_Subscription(Session session) {
 		this.session = session;
 	}
@@ -193,29 +201,9 @@ public class Session_Subscription
 						lastSubscriptionListReceivedOn = System.currentTimeMillis();
 
 						synchronized (receivedListeners) {
-							if (mapSubscriptions == null || mapSubscriptions.size() == 0) {
-								// risky cast of the day, but it's cool
-								mapSubscriptions = (Map<String, Map<?, ?>>) map;
-							} else {
-								// already have subscriptions.. merge old "results" into new
-								Map<String, Map<?, ?>> newMap = new HashMap<>();
-								for (Object o : map.keySet()) {
-									Map v = (Map) map.get(o);
-									newMap.put((String) o, v);
-
-									Map<?, ?> mapOldSubscription = mapSubscriptions.get(o);
-									if (mapOldSubscription != null) {
-										Object entries = mapOldSubscription.get(
-												TransmissionVars.FIELD_SUBSCRIPTION_RESULTS);
-										if (entries != null) {
-											v.put(TransmissionVars.FIELD_SUBSCRIPTION_RESULTS,
-													entries);
-										}
-									}
-								}
-
-								mapSubscriptions = newMap;
-							}
+							// results are kept separately in mapResults
+							// risky cast of the day, but it's cool
+							mapSubscriptions = (Map<String, Map<?, ?>>) map;
 						}
 						if (receivedListeners.size() > 0) {
 							List<String> list = session.subscription.getList();
@@ -227,11 +215,58 @@ public class Session_Subscription
 				}));
 	}
 
+	@NonNull
+	public SubscriptionResults getResults(@NonNull String subscriptionID) {
+		synchronized (mapResults) {
+			return mapResults.computeIfAbsent(subscriptionID,
+					k -> new SubscriptionResults());
+		}
+	}
+
+	/**
+	 * Refreshes results.  When the server pages results, only the ones changed
+	 * since the last reply are fetched, or the first page if none are loaded.
+	 */
 	public void refreshResults(final String subscriptionID) {
+		if (!session.getSupports(
+				RPCSupports.SUPPORTS_SUBSCRIPTION_RESULTS_PAGING)) {
+			fetchResults(subscriptionID, 0, -1, null);
+			return;
+		}
+		Object since = getResults(subscriptionID).getTimestamp();
+		fetchResults(subscriptionID, 0, since == null ? RESULTS_PAGE_SIZE : -1,
+				since);
+	}
+
+	public boolean hasMoreResults(@NonNull String subscriptionID) {
+		return session.getSupports(RPCSupports.SUPPORTS_SUBSCRIPTION_RESULTS_PAGING)
+				&& getResults(subscriptionID).hasMore();
+	}
+
+	/**
+	 * Loads the next page of results, if there is one and it isn't already
+	 * loading
+	 */
+	public void loadMoreResults(@NonNull String subscriptionID) {
+		if (!session.getSupports(
+				RPCSupports.SUPPORTS_SUBSCRIPTION_RESULTS_PAGING)) {
+			return;
+		}
+		SubscriptionResults results = getResults(subscriptionID);
+		if (!results.startLoadingPage()) {
+			return;
+		}
+		fetchResults(subscriptionID, results.getNextPageOffset(),
+				RESULTS_PAGE_SIZE, null);
+	}
+
+	private void fetchResults(final String subscriptionID, final int offset,
+			final int limit, final Object since) {
 		session._executeRpc(rpc -> rpc.getSubscriptionResults(subscriptionID,
-				new ReplyMapReceivedListener() {
+				offset, limit, since, new ReplyMapReceivedListener() {
 					@Override
 					public void rpcError(String requestID, Throwable e) {
+						getResults(subscriptionID).cancelLoadingPage();
 						if (receivedListeners.size() > 0) {
 							for (SubscriptionListReceivedListener l : receivedListeners) {
 								l.rpcSubscriptionListRefreshing(false);
@@ -241,6 +276,7 @@ public class Session_Subscription
 
 					@Override
 					public void rpcFailure(String requestID, String message) {
+						getResults(subscriptionID).cancelLoadingPage();
 						if (receivedListeners.size() > 0) {
 							for (SubscriptionListReceivedListener l : receivedListeners) {
 								l.rpcSubscriptionListRefreshing(false);
@@ -257,14 +293,26 @@ public class Session_Subscription
 								subscriptionID, null);
 						List listResults = MapUtils.getMapList(mapSubscription,
 								TransmissionVars.FIELD_SUBSCRIPTION_RESULTS, null);
-
-						synchronized (receivedListeners) {
-							Map map = MapUtils.getMapMap(mapSubscriptions, subscriptionID,
-									null);
-							if (map != null) {
-								map.put(TransmissionVars.FIELD_SUBSCRIPTION_RESULTS,
-										listResults);
+						int totalCount = MapUtils.getMapInt(mapSubscription,
+								TransmissionVars.FIELD_SUBSCRIPTION_RESULTS_COUNT, -1);
+						Object timestamp = mapSubscription == null ? null
+								: mapSubscription.get(
+										TransmissionVars.FIELD_SUBSCRIPTION_RESULTS_TIMESTAMP);
+
+						SubscriptionResults results = getResults(subscriptionID);
+						if (since != null) {
+							if (!results.mergeChanged(listResults, totalCount, timestamp)) {
+								// Changed results don't list removed ones, so start over
+								fetchResults(subscriptionID, 0, RESULTS_PAGE_SIZE, null);
+							}
+						} else if (offset > 0) {
+							if (!results.addPage(listResults, totalCount, timestamp)) {
+								// Results were added or removed on the server since the last
+								// reply, so get the changes
+								refreshResults(subscriptionID);
 							}
+						} else {
+							results.setResults(listResults, totalCount, timestamp);
 						}
 
 						if (receivedListeners.size() > 0) {
@@ -358,6 +406,8 @@ public class Session_Subscription
 
 	public void setResultRead(final String subscriptionID,
 			final List<String> resultIDs, final boolean read) {
+		getResults(subscriptionID).setRead(resultIDs, read);
+
 		session._executeRpc(rpc -> {
 			Map<String, Object> map = new HashMap<>(2);
 			Map<String, Object> mapIDs = new HashMap<>(2);
@@ -381,24 +431,14 @@ public class Session_Subscription
 							return;
 						}
 
-						refreshResults(subscriptionID);
-						/* Instead of refreshSubscriptionResult, we could use this:
-						for (Object o: optionalMap.keySet()) {
-							String subID = (String) o;
-							Object v = optionalMap.get(o);
-							if (v instanceof Map) {
-								Map map = (Map) v;
-								if (map.size() > 1) {
-									Map<?, ?> mapSubscription = mapSubscriptions.get(subID);
-									if (mapSubscription != null) {
-										mapSubscription.clear();
-										mapSubscription.putAll(map);
-									}
-								}
+						// Read state was already applied locally, so there's no need to
+						// refetch results.  Tell listeners so filters can update.
+						if (receivedListeners.size() > 0) {
+							List<String> list = session.subscription.getList();
+							for (SubscriptionListReceivedListener l : receivedListeners) {
+								l.rpcSubscriptionListReceived(list);
 							}
-							// TODO: trigger
 						}
-						*/
 
 						// newResultsCount probably changed
 						refreshList();
@@ -431,6 +471,9 @@ public class Session_Subscription
 
 	public void clearCache() {
 		mapSubscriptions = null;
+		synchronized (mapResults) {
+			mapResults.clear();
+		}
 		lastSubscriptionListReceivedOn = 0;
 	}
 }
@@ -27,6 +27,7 @@ import com.biglybt.android.client.R;
 import com.biglybt.android.client.rpc.RPCSupports;
 import com.biglybt.android.client.rpc.ReplyMapReceivedListener;
 import com.biglybt.android.client.rpc.TagListReceivedListener;
+import com.biglybt.android.client.spanbubbles.TagBubbleCache;
 import com.biglybt.android.util.MapUtils;
 import com.biglybt.util.Thunk;
 
@@ -384,6 +385,7 @@ public class Session_Tag
 			}
 
 			LongSparseArray<Map<?, ?>> listTorrents = session.torrent.getListAsSparseArray();
+			List<Long> changedTorrentIDs = new ArrayList<>();
 			for (int i = 0, count = listTorrents.size(); i < count; i++) {
 				Map mapTorrent = listTorrents.valueAt(i);
 				List<?> listTagUIDs = MapUtils.getMapList(mapTorrent,
@@ -398,13 +400,19 @@ public class Session_Tag
 											+ "' tag change. common=" + common);
 						}
 						mapTorrent.put(FIELD_LAST_UPDATED, System.currentTimeMillis());
+						changedTorrentIDs.add(listTorrents.keyAt(i));
 					}
 				}
 			}
+			session.torrent.markTorrentsChanged(changedTorrentIDs);
 
 			mapTags = mapNewTags;
 		}
 
+		for (Map<?, ?> tag : changedTags) {
+			TagBubbleCache.invalidateTag(MapUtils.getMapLong(tag, FIELD_TAG_UID, -1));
+		}
+
 		if (tagListReceivedListeners.size() > 0 && changedTags.size() > 0) {
 			for (TagListReceivedListener l : tagListReceivedListeners) {
 				l.tagListReceived(changedTags);
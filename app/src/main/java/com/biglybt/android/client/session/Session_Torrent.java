@@ -90,9 +90,60 @@ public class Session_Torrent
 	@Thunk
 	long lastListReceivedOn;
 
+	/**
+	 * Incremented every time the torrent cache changes
+	 */
+	private long dataVersion;
+
+	/**
+	 * dataVersion of the last time a torrent was added or removed
+	 */
+	private long structureVersion;
+
+	/**
+	 * <TorrentID, dataVersion torrent was last updated>
+	 */
+	private final LongSparseArray<Long> mapChangedVersion = new LongSparseArray<>();
+
+	/**
+	 * <Field ID, dataVersion field was last received>
+	 */
+	private final Map<String, Long> mapFieldVersion = new HashMap<>();
+
+	/**
+	 * dataVersion of the last reply that had every field, which changes all
+	 * fields at once without listing them
+	 */
+	private long allFieldsVersion;
+
+	private final TorrentNameIndex nameIndex;
+
+	private final TorrentTagIndex tagIndex;
+
+	private static final int FILE_INDEX_BATCH_SIZE = 10;
+
+	private FileNameIndex fileIndex;
+
+	/**
+	 * Sorted IDs of torrents on or near screen in the torrent list.  null when
+	 * no list is showing
+	 */
+	private long[] viewportTorrentIDs;
+
+	/** Fields the torrent list sorts, groups or queries on */
+	private String[] viewportFieldIDs;
+
+	/**
+	 * Viewport torrents that got all row fields since they came into view
+	 * (values unused)
+	 */
+	private final LongSparseArray<Boolean> viewportFetchedIDs = new LongSparseArray<>();
+
 	Session_Torrent(@NonNull Session session) {
 		this.session = session;
 		this.mapOriginal = new LongSparseArray<>();
+		this.nameIndex = new TorrentNameIndex(this);
+		this.tagIndex = new TorrentTagIndex(this);
 	}
 
 	private void activateOpenOptionsDialog(long torrentID, Map<?, ?> mapTorrent,
@@ -163,7 +214,17 @@ public class Session_Torrent
 		}
 		int numAddedOrRemoved = 0;
 		boolean requireStringUnescape = session.transmissionRPC.isRequireStringUnescape();
+		boolean indexFileNames = session.remoteProfile.isIndexFileNames();
 		synchronized (session.mLock) {
+			dataVersion++;
+			if (fields == null || fields.isEmpty()) {
+				allFieldsVersion = dataVersion;
+			} else {
+				for (String field : fields) {
+					mapFieldVersion.put(field, dataVersion);
+				}
+			}
+
 			if (addedTorrentMaps.size() > 0) {
 				numAddedOrRemoved = addedTorrentMaps.size();
 				boolean addTorrentSilently = session.getRemoteProfile().isAddTorrentSilently();
@@ -190,9 +251,14 @@ public class Session_Torrent
 
 					Map<?, ?> old = mapOriginal.get(torrentID, null);
 					mapOriginal.put(torrentID, mapUpdatedTorrent);
+					mapChangedVersion.put(torrentID, dataVersion);
+					if (old == null) {
+						structureVersion = dataVersion;
+					}
 
-					if (mapUpdatedTorrent.containsKey(
-							TransmissionVars.FIELD_TORRENT_FILES)) {
+					boolean gotFiles = mapUpdatedTorrent.containsKey(
+							TransmissionVars.FIELD_TORRENT_FILES);
+					if (gotFiles) {
 						lastTorrentWithFiles = torrentID;
 					}
 
@@ -225,6 +291,10 @@ public class Session_Torrent
 
 					mergeFiles(mapUpdatedTorrent, old, fileIndexes);
 
+					if (gotFiles && indexFileNames) {
+						updateFileIndex(torrentID, mapUpdatedTorrent, fileIndexes);
+					}
+
 					mapUpdatedTorrent.put(TransmissionVars.FIELD_LAST_UPDATED,
 							System.currentTimeMillis());
 
@@ -251,8 +321,16 @@ public class Session_Torrent
 				for (Object removedItem : removedTorrentIDs) {
 					if (removedItem instanceof Number) {
 						long torrentID = ((Number) removedItem).longValue();
-						if (mapOriginal.indexOfKey(torrentID) >= 0) {
+						Map<?, ?> old = mapOriginal.get(torrentID, null);
+						if (old != null) {
+							String hash = MapUtils.getMapString(old,
+									TransmissionVars.FIELD_TORRENT_HASH_STRING, null);
+							if (hash != null && indexFileNames) {
+								getFileIndex().remove(hash);
+							}
 							mapOriginal.remove(torrentID);
+							mapChangedVersion.remove(torrentID);
+							structureVersion = dataVersion;
 							numAddedOrRemoved++;
 						} else {
 							if (AndroidUtils.DEBUG) {
@@ -278,6 +356,162 @@ public class Session_Torrent
 		}
 	}
 
+	/**
+	 * Indexes the file list just merged into <code>mapTorrent</code>, unless
+	 * only some files were updated and the torrent is already indexed
+	 */
+	private void updateFileIndex(long torrentID, Map<?, ?> mapTorrent,
+			int[] fileIndexes) {
+		String hash = MapUtils.getMapString(mapTorrent,
+				TransmissionVars.FIELD_TORRENT_HASH_STRING, null);
+		List<?> listFiles = MapUtils.getMapList(mapTorrent,
+				TransmissionVars.FIELD_TORRENT_FILES, null);
+		if (hash == null || listFiles == null) {
+			return;
+		}
+		FileNameIndex fileIndex = getFileIndex();
+		if (fileIndexes != null && fileIndex.contains(hash)) {
+			return;
+		}
+		fileIndex.put(hash, torrentID, listFiles);
+	}
+
+	/**
+	 * @return Index of file paths across all torrents.  Only has torrents whose
+	 * file list has been received, now or in a previous run, unless
+	 * {@link #fetchMissingFileLists()} is used.
+	 */
+	@NonNull
+	public FileNameIndex getFileIndex() {
+		synchronized (session.mLock) {
+			if (fileIndex == null) {
+				fileIndex = new FileNameIndex(session.getRemoteProfile().getID());
+			}
+			return fileIndex;
+		}
+	}
+
+	/**
+	 * Drops the file index and its saved copy, after
+	 * {@link RemoteProfile#isIndexFileNames()} is turned off
+	 */
+	public void clearFileIndex() {
+		FileNameIndex oldIndex;
+		synchronized (session.mLock) {
+			oldIndex = fileIndex;
+			fileIndex = null;
+		}
+		if (oldIndex != null) {
+			OffThread.getWorkerHandler().post(oldIndex::discard);
+		} else {
+			String profileID = session.getRemoteProfile().getID();
+			OffThread.runOffUIThread(() -> FileNameIndex.delete(profileID));
+		}
+	}
+
+	/**
+	 * Searches file paths of all indexed torrents.  The first search also
+	 * starts {@link #fetchMissingFileLists()}, so results fill in on later
+	 * searches.
+	 *
+	 * @return Hits in torrents that are still in the session.  Empty if
+	 * {@link RemoteProfile#isIndexFileNames()} is off.
+	 */
+	@NonNull
+	@WorkerThread
+	public List<FileNameIndex.Hit> searchFiles(@NonNull String query,
+			int maxHits) {
+		if (!session.getRemoteProfile().isIndexFileNames()) {
+			return new ArrayList<>();
+		}
+		Map<String, Long> mapHashToID = new HashMap<>();
+		synchronized (session.mLock) {
+			for (int i = 0, num = mapOriginal.size(); i < num; i++) {
+				String hash = MapUtils.getMapString(mapOriginal.valueAt(i),
+						TransmissionVars.FIELD_TORRENT_HASH_STRING, null);
+				if (hash != null) {
+					mapHashToID.put(hash, mapOriginal.keyAt(i));
+				}
+			}
+		}
+		fetchMissingFileLists();
+		List<FileNameIndex.Hit> hits = getFileIndex().search(query, maxHits,
+				mapHashToID);
+		for (Iterator<FileNameIndex.Hit> iter = hits.iterator(); iter.hasNext();) {
+			FileNameIndex.Hit hit = iter.next();
+			Long torrentID = mapHashToID.get(hit.torrentHash);
+			if (torrentID == null || torrentID != hit.torrentID) {
+				iter.remove();
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Fetches, in the background, the file lists of torrents that aren't in
+	 * {@link #getFileIndex()} yet, a few torrents at a time, until all are
+	 * indexed or the index is full.
+	 * <p/>
+	 * Only runs when {@link RemoteProfile#isIndexFileNames()} is on.
+	 */
+	public void fetchMissingFileLists() {
+		if (!session.getRemoteProfile().isIndexFileNames()) {
+			return;
+		}
+		FileNameIndex fileIndex = getFileIndex();
+		if (!fileIndex.startFetching()) {
+			return;
+		}
+		OffThread.runOffUIThread(() -> {
+			fileIndex.load();
+			fetchNextFileListBatch(fileIndex);
+		});
+	}
+
+	@Thunk
+	void fetchNextFileListBatch(@NonNull FileNameIndex fileIndex) {
+		if (session.isDestroyed() || fileIndex.isFull()
+				|| !session.getRemoteProfile().isIndexFileNames()) {
+			fileIndex.stopFetching();
+			return;
+		}
+		long[] ids = new long[FILE_INDEX_BATCH_SIZE];
+		int num = 0;
+		synchronized (session.mLock) {
+			for (int i = 0, size = mapOriginal.size(); i < size
+					&& num < ids.length; i++) {
+				Map<?, ?> map = mapOriginal.valueAt(i);
+				String hash = MapUtils.getMapString(map,
+						TransmissionVars.FIELD_TORRENT_HASH_STRING, null);
+				if (hash != null && !map.containsKey(TransmissionVars.FIELD_TORRENT_FILES)
+						&& !fileIndex.contains(hash)) {
+					ids[num++] = mapOriginal.keyAt(i);
+				}
+			}
+		}
+		if (num == 0) {
+			fileIndex.stopFetching();
+			return;
+		}
+		long[] batchIDs = num == ids.length ? ids : Arrays.copyOf(ids, num);
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "fetchNextFileListBatch: " + Arrays.toString(batchIDs));
+		}
+		getFileInfo(TAG + ".fileIndex", batchIDs, null,
+				(callID, addedTorrentMaps, fields, fileIndexes, removedTorrentIDs) -> {
+					// Indexed now. Don't keep file lists nobody asked to see
+					synchronized (session.mLock) {
+						for (long torrentID : batchIDs) {
+							Map<?, ?> map = mapOriginal.get(torrentID, null);
+							if (map != null && torrentID != lastTorrentWithFiles) {
+								map.remove(TransmissionVars.FIELD_TORRENT_FILES);
+							}
+						}
+					}
+					fetchNextFileListBatch(fileIndex);
+				});
+	}
+
 	private static void coreAuthCheck(long torrentID, Map<?, ?> old,
 			Map mapUpdatedTorrent, @NonNull List<Long> listNeedsAuthCheck) {
 
@@ -388,6 +622,7 @@ public class Session_Torrent
 				torrent.put(TransmissionVars.FIELD_TORRENT_NEEDSAUTH, !hasAuth);
 				torrent.put(TransmissionVars.FIELD_LAST_UPDATED,
 						System.currentTimeMillis());
+				markTorrentsChanged(Collections.singletonList(torrentId));
 				updatedTorrents.add(torrent);
 			}
 		}
@@ -559,6 +794,9 @@ public class Session_Torrent
 
 		synchronized (session.mLock) {
 			mapOriginal.clear();
+			mapChangedVersion.clear();
+			dataVersion++;
+			structureVersion = dataVersion;
 			needsFullTorrentRefresh = true;
 		}
 	}
@@ -590,12 +828,133 @@ public class Session_Torrent
 	public void destroy() {
 		refreshingListeners.clear();
 		lastListReceivedOn = 0;
+		nameIndex.clear();
+		tagIndex.clear();
 	}
 
 	public long getLastListReceivedOn() {
 		return lastListReceivedOn;
 	}
 
+	/**
+	 * Sets the torrents on or near screen.  While set, recent refreshes get
+	 * only {@link TransmissionRPC#getLiteTorrentFieldIDs()} and
+	 * <code>fieldIDs</code> for all torrents, and all row fields for these.
+	 *
+	 * @param torrentIDs null when no torrent list is showing
+	 * @param fieldIDs Fields the list sorts, groups or queries on
+	 */
+	public void setViewport(@Nullable long[] torrentIDs,
+			@Nullable Collection<String> fieldIDs) {
+		synchronized (session.mLock) {
+			viewportFieldIDs = fieldIDs == null ? null
+					: fieldIDs.toArray(new String[0]);
+			if (torrentIDs == null) {
+				viewportTorrentIDs = null;
+				viewportFetchedIDs.clear();
+				return;
+			}
+			long[] ids = torrentIDs.clone();
+			Arrays.sort(ids);
+			for (int i = viewportFetchedIDs.size() - 1; i >= 0; i--) {
+				if (Arrays.binarySearch(ids, viewportFetchedIDs.keyAt(i)) < 0) {
+					viewportFetchedIDs.removeAt(i);
+				}
+			}
+			viewportTorrentIDs = ids;
+		}
+	}
+
+	boolean hasViewport() {
+		synchronized (session.mLock) {
+			return viewportTorrentIDs != null;
+		}
+	}
+
+	/**
+	 * Two tier refresh: lite fields (and list fields) of recently active
+	 * torrents, then all row fields of only those in the viewport that were
+	 * updated or came into view since the last refresh, and of new torrents.
+	 */
+	void getRecentTorrentsForViewport(@NonNull TransmissionRPC rpc,
+			String callID, @Nullable TorrentListReceivedListener l) {
+		List<String> basicFields = rpc.getBasicTorrentFieldIDs();
+		List<String> fields = rpc.getLiteTorrentFieldIDs();
+		String[] listFieldIDs;
+		synchronized (session.mLock) {
+			listFieldIDs = viewportFieldIDs;
+		}
+		if (listFieldIDs != null) {
+			for (String fieldID : listFieldIDs) {
+				// Skip fields we calculate, like isComplete
+				if (basicFields.contains(fieldID) && !fields.contains(fieldID)) {
+					fields.add(fieldID);
+				}
+			}
+		}
+
+		List<Long> skippedNewIDs = new ArrayList<>();
+		rpc.getRecentTorrents(callID, fields, skippedNewIDs,
+				(id, addedTorrentMaps, listFields, fileIndexes, removedTorrentIDs) -> {
+					long[] fetchIDs = takeViewportIDsToFetch(addedTorrentMaps,
+							skippedNewIDs);
+					if (AndroidUtils.DEBUG) {
+						Log.d(TAG, "getRecentTorrentsForViewport: "
+								+ addedTorrentMaps.size() + " lite, " + fetchIDs.length
+								+ " full (" + skippedNewIDs.size() + " new)");
+					}
+					if (fetchIDs.length == 0) {
+						if (l != null) {
+							l.rpcTorrentListReceived(id, addedTorrentMaps, listFields,
+									fileIndexes, removedTorrentIDs);
+						}
+						return;
+					}
+					rpc.getTorrents(id, fetchIDs, basicFields, l);
+				});
+	}
+
+	/**
+	 * @return IDs of new torrents, plus viewport torrents that were just
+	 * updated or haven't been fetched since they came into view.  Viewport ones
+	 * are marked fetched.
+	 */
+	@NonNull
+	private long[] takeViewportIDsToFetch(@NonNull List<?> updatedTorrentMaps,
+			@NonNull List<Long> skippedNewIDs) {
+		synchronized (session.mLock) {
+			LongSparseArray<Boolean> ids = new LongSparseArray<>();
+			for (Long torrentID : skippedNewIDs) {
+				ids.put(torrentID, Boolean.TRUE);
+			}
+			skippedNewIDs.clear();
+			long[] viewportIDs = viewportTorrentIDs;
+			if (viewportIDs != null) {
+				for (Object o : updatedTorrentMaps) {
+					if (!(o instanceof Map)) {
+						continue;
+					}
+					long torrentID = MapUtils.getMapLong((Map<?, ?>) o,
+							TransmissionVars.FIELD_TORRENT_ID, -1);
+					if (Arrays.binarySearch(viewportIDs, torrentID) >= 0) {
+						ids.put(torrentID, Boolean.TRUE);
+					}
+				}
+				for (long torrentID : viewportIDs) {
+					if (viewportFetchedIDs.get(torrentID) == null) {
+						viewportFetchedIDs.put(torrentID, Boolean.TRUE);
+						ids.put(torrentID, Boolean.TRUE);
+					}
+				}
+			}
+			long[] fetchIDs = new long[ids.size()];
+			for (int i = 0; i < fetchIDs.length; i++) {
+				fetchIDs[i] = ids.keyAt(i);
+			}
+			return fetchIDs;
+		}
+	}
+
 	public Map<String, Object> getCachedTorrent(long id) {
 		synchronized (session.mLock) {
 			//noinspection unchecked
@@ -606,6 +965,83 @@ public class Session_Torrent
 	public void clearTorrentFromCache(long id) {
 		synchronized (session.mLock) {
 			mapOriginal.remove(id);
+			mapChangedVersion.remove(id);
+			dataVersion++;
+			structureVersion = dataVersion;
+		}
+	}
+
+	/**
+	 * @return Version of the torrent cache.  Changes whenever any torrent is
+	 * updated, added or removed.
+	 */
+	public long getDataVersion() {
+		synchronized (session.mLock) {
+			return dataVersion;
+		}
+	}
+
+	/**
+	 * @return IDs of torrents updated after <code>version</code>, or null if
+	 * torrents were added or removed since then (caller needs a full rebuild)
+	 */
+	@Nullable
+	public long[] getChangedTorrentIDsSince(long version) {
+		synchronized (session.mLock) {
+			if (version < structureVersion || version > dataVersion) {
+				return null;
+			}
+			int size = mapChangedVersion.size();
+			long[] changed = new long[size];
+			int num = 0;
+			for (int i = 0; i < size; i++) {
+				if (mapChangedVersion.valueAt(i) > version) {
+					changed[num++] = mapChangedVersion.keyAt(i);
+				}
+			}
+			return num == size ? changed : Arrays.copyOf(changed, num);
+		}
+	}
+
+	/**
+	 * @return dataVersion the torrent was last updated at, or -1 if it isn't
+	 * cached
+	 */
+	public long getTorrentVersion(long torrentID) {
+		synchronized (session.mLock) {
+			return mapChangedVersion.get(torrentID, -1L);
+		}
+	}
+
+	/**
+	 * Marks torrents as updated for local changes to their displayed values,
+	 * such as a renamed tag, that didn't come with new torrent data.
+	 */
+	void markTorrentsChanged(@NonNull List<Long> torrentIDs) {
+		if (torrentIDs.isEmpty()) {
+			return;
+		}
+		synchronized (session.mLock) {
+			dataVersion++;
+			for (long torrentID : torrentIDs) {
+				if (mapOriginal.indexOfKey(torrentID) >= 0) {
+					mapChangedVersion.put(torrentID, dataVersion);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if field was received after <code>version</code>, or if
+	 * field isn't one we track (ie. a computed sort field)
+	 */
+	public boolean hasFieldChangedSince(@NonNull String fieldID, long version) {
+		synchronized (session.mLock) {
+			if (allFieldsVersion > version) {
+				return true;
+			}
+			Long fieldVersion = mapFieldVersion.get(fieldID);
+			return fieldVersion == null || fieldVersion > version;
 		}
 	}
 
@@ -634,6 +1070,24 @@ public class Session_Torrent
 		return list;
 	}
 
+	/**
+	 * @return Fuzzy search index of torrent names.  Updates itself from this
+	 * cache on each search.
+	 */
+	@NonNull
+	public TorrentNameIndex getNameIndex() {
+		return nameIndex;
+	}
+
+	/**
+	 * @return Torrent IDs by tag.  Updates itself from this cache on each
+	 * lookup.
+	 */
+	@NonNull
+	public TorrentTagIndex getTagIndex() {
+		return tagIndex;
+	}
+
 	public int getCount() {
 		session.ensureNotDestroyed();
 
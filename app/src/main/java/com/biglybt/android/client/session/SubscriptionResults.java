@@ -0,0 +1,254 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.MapUtils;
+
+import java.util.*;
+
+/**
+ * Results of one subscription loaded so far.
+ * <p/>
+ * When the server supports paging, results are loaded a page at a time as
+ * the list is scrolled, and refreshes only fetch results changed since the
+ * last reply.  When a refresh shows results were removed, loaded results are
+ * replaced with the first page.  Servers that don't page send every result
+ * on each refresh, and there's never another page.
+ * <p/>
+ * Read state is also kept in a bitmap indexed by load order, so unread
+ * counts don't have to walk every result map.
+ */
+public class SubscriptionResults
+{
+	private final List<Map<String, Object>> listResults = new ArrayList<>();
+
+	/** &lt;Result ID, Index into listResults and readBits> */
+	private final Map<String, Integer> mapIndexes = new HashMap<>();
+
+	private final BitSet readBits = new BitSet();
+
+	/**
+	 * Number of results loaded by pages, which is the next page's offset.
+	 * Results added on the server since may make the next page overlap loaded
+	 * ones, which is harmless since they're matched by ID.
+	 */
+	private int pagedCount;
+
+	private int totalCount = -1;
+
+	/** Set once the first reply is in, even if it had no results */
+	private boolean loaded;
+
+	private Object timestamp;
+
+	private boolean loadingPage;
+
+	/** Set when a page comes back empty, so we stop asking for more */
+	private boolean noMorePages;
+
+	SubscriptionResults() {
+	}
+
+	/**
+	 * Replaces all results with the first pages (or all results, if server
+	 * doesn't page)
+	 */
+	synchronized void setResults(@Nullable List<?> list, int totalCount,
+			@Nullable Object timestamp) {
+		listResults.clear();
+		mapIndexes.clear();
+		readBits.clear();
+		pagedCount = 0;
+		noMorePages = false;
+		loaded = true;
+		this.totalCount = totalCount;
+		this.timestamp = timestamp;
+		addPage(list, totalCount, timestamp);
+	}
+
+	/**
+	 * Adds the page that starts at {@link #getNextPageOffset()}.
+	 *
+	 * @return false if the server's result count changed since the last reply,
+	 * so results changed since then should be fetched
+	 */
+	synchronized boolean addPage(@Nullable List<?> list, int totalCount,
+			@Nullable Object timestamp) {
+		loadingPage = false;
+		boolean changed = totalCount != this.totalCount;
+		this.totalCount = totalCount;
+		if (list == null || list.isEmpty()) {
+			noMorePages = true;
+		} else {
+			pagedCount += list.size();
+			addResults(list);
+		}
+		if (timestamp != null && this.timestamp == null) {
+			// A later timestamp would hide changes made before this page
+			this.timestamp = timestamp;
+		}
+		return !changed;
+	}
+
+	/**
+	 * Merges results changed since {@link #getTimestamp()}.
+	 *
+	 * @return false if results may have been removed on the server, which
+	 * changed results don't show.  Loaded results should be replaced with the
+	 * first page.
+	 */
+	synchronized boolean mergeChanged(@Nullable List<?> list, int totalCount,
+			@Nullable Object timestamp) {
+		int numAdded = addResults(list);
+		// Changed results we hadn't loaded count as added, so this may see a
+		// removal that isn't there, but never misses one
+		boolean removed = totalCount < this.totalCount + numAdded;
+		this.totalCount = totalCount;
+		if (timestamp != null) {
+			this.timestamp = timestamp;
+		}
+		return !removed;
+	}
+
+	/**
+	 * Adds new results and replaces existing ones with the same ID
+	 *
+	 * @return Number of results added
+	 */
+	private int addResults(@Nullable List<?> list) {
+		if (list == null) {
+			return 0;
+		}
+		int numAdded = 0;
+		for (Object o : list) {
+			if (!(o instanceof Map)) {
+				continue;
+			}
+			//noinspection unchecked
+			Map<String, Object> mapResult = (Map<String, Object>) o;
+			String id = MapUtils.getMapString(mapResult,
+					TransmissionVars.FIELD_SUBSCRIPTION_RESULT_ID, null);
+			if (id == null) {
+				continue;
+			}
+			Integer index = mapIndexes.get(id);
+			if (index == null) {
+				index = listResults.size();
+				mapIndexes.put(id, index);
+				listResults.add(mapResult);
+				numAdded++;
+			} else {
+				listResults.set(index, mapResult);
+			}
+			readBits.set(index, MapUtils.getMapBoolean(mapResult,
+					TransmissionVars.FIELD_SUBSCRIPTION_RESULT_ISREAD, false));
+		}
+		return numAdded;
+	}
+
+	/**
+	 * Updates read state locally, without waiting for results to be refetched
+	 */
+	synchronized void setRead(@NonNull List<String> resultIDs, boolean read) {
+		for (String id : resultIDs) {
+			Integer index = mapIndexes.get(id);
+			if (index == null) {
+				continue;
+			}
+			readBits.set(index, read);
+			listResults.get(index).put(
+					TransmissionVars.FIELD_SUBSCRIPTION_RESULT_ISREAD, read);
+		}
+	}
+
+	/**
+	 * @return false if there's no page left to load, or one is already loading
+	 */
+	synchronized boolean startLoadingPage() {
+		if (loadingPage || !hasMore()) {
+			return false;
+		}
+		loadingPage = true;
+		return true;
+	}
+
+	synchronized void cancelLoadingPage() {
+		loadingPage = false;
+	}
+
+	synchronized int getNextPageOffset() {
+		return pagedCount;
+	}
+
+	/**
+	 * @return "results-timestamp" from the first paged reply or the last
+	 * refresh, or null if server doesn't page or nothing has been loaded yet
+	 */
+	@Nullable
+	synchronized Object getTimestamp() {
+		return listResults.isEmpty() ? null : timestamp;
+	}
+
+	@NonNull
+	public synchronized List<Map<String, Object>> getList() {
+		return new ArrayList<>(listResults);
+	}
+
+	/**
+	 * @return false until results have been fetched from the server
+	 */
+	public synchronized boolean isLoaded() {
+		return loaded;
+	}
+
+	public synchronized int size() {
+		return listResults.size();
+	}
+
+	/**
+	 * @return Number of results the server has, or -1 if not known
+	 */
+	public synchronized int getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * @return Whether the server has results that haven't been loaded yet
+	 */
+	public synchronized boolean hasMore() {
+		return !noMorePages && pagedCount < totalCount;
+	}
+
+	public synchronized int getUnreadCount() {
+		return listResults.size() - readBits.cardinality();
+	}
+
+	@NonNull
+	public synchronized List<String> getUnreadIDs() {
+		List<String> ids = new ArrayList<>();
+		for (Map.Entry<String, Integer> entry : mapIndexes.entrySet()) {
+			if (!readBits.get(entry.getValue())) {
+				ids.add(entry.getKey());
+			}
+		}
+		return ids;
+	}
+}
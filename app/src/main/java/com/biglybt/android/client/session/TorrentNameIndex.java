@@ -0,0 +1,516 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.collection.LongSparseArray;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.MapUtils;
+
+import java.util.*;
+
+/**
+ * Typo tolerant index of torrent names, for ranked fuzzy searches.
+ * <p/>
+ * Names are split into upper-cased words (tokens).  Each distinct token is
+ * stored once with the IDs of the torrents containing it, and is looked up by
+ * the trigrams of its padded form ("^NAME$").  A search only scores torrents
+ * that contain a token close to a query word, so its cost depends on the
+ * number of matches, not on library size.
+ * <p/>
+ * Kept in sync lazily: each search first re-indexes only the torrents
+ * {@link Session_Torrent#getChangedTorrentIDsSince(long)} reports.
+ */
+public class TorrentNameIndex
+{
+	private static final String TAG = "TorrentNameIndex";
+
+	private static final char PAD_START = '^';
+
+	private static final char PAD_END = '$';
+
+	private static final float SCORE_EXACT = 1.0f;
+
+	private static final float SCORE_PREFIX = 0.75f;
+
+	private static final float SCORE_EDIT1 = 0.7f;
+
+	private static final float SCORE_EDIT2 = 0.5f;
+
+	/** Compact when this many tokens no longer belong to any torrent */
+	private static final int MIN_DEAD_TOKENS_COMPACT = 1024;
+
+	public interface IDFilter
+	{
+		boolean accept(long torrentID);
+	}
+
+	private static final class Token
+	{
+		final String text;
+
+		long[] torrentIDs = new long[2];
+
+		int count;
+
+		Token(String text) {
+			this.text = text;
+		}
+
+		void add(long torrentID) {
+			if (count == torrentIDs.length) {
+				torrentIDs = Arrays.copyOf(torrentIDs, count * 2);
+			}
+			torrentIDs[count++] = torrentID;
+		}
+
+		void remove(long torrentID) {
+			for (int i = 0; i < count; i++) {
+				if (torrentIDs[i] == torrentID) {
+					torrentIDs[i] = torrentIDs[--count];
+					return;
+				}
+			}
+		}
+	}
+
+	private static final class Scored
+	{
+		final long torrentID;
+
+		final float score;
+
+		final int nameLength;
+
+		Scored(long torrentID, float score, int nameLength) {
+			this.torrentID = torrentID;
+			this.score = score;
+			this.nameLength = nameLength;
+		}
+	}
+
+	/** Best match first: higher score, then shorter name, then lower ID */
+	private static final Comparator<Scored> RANK_ORDER = (a, b) -> {
+		int i = Float.compare(b.score, a.score);
+		if (i != 0) {
+			return i;
+		}
+		i = a.nameLength - b.nameLength;
+		if (i != 0) {
+			return i;
+		}
+		return a.torrentID < b.torrentID ? -1
+				: a.torrentID == b.torrentID ? 0 : 1;
+	};
+
+	private final Session_Torrent torrents;
+
+	private final List<Token> tokens = new ArrayList<>();
+
+	private final Map<String, Integer> mapTokenIndexes = new HashMap<>();
+
+	/** &lt;Trigram, Indexes into tokens> */
+	private final Map<String, int[]> mapGrams = new HashMap<>();
+
+	/** &lt;Trigram, Number of used entries in mapGrams' array> */
+	private final Map<String, Integer> mapGramCounts = new HashMap<>();
+
+	/** Names each torrent was indexed with */
+	private final LongSparseArray<String> mapNames = new LongSparseArray<>();
+
+	private final LongSparseArray<int[]> mapTorrentTokens = new LongSparseArray<>();
+
+	private int numDeadTokens;
+
+	/**
+	 * Query trigrams shared, by token index.  Reused across query words; only
+	 * the entries in {@link #touched} are non-zero, and they're zeroed after
+	 * each word
+	 */
+	private int[] sharedCounts = new int[0];
+
+	private int[] touched = new int[16];
+
+	private long indexedVersion = -1;
+
+	TorrentNameIndex(@NonNull Session_Torrent torrents) {
+		this.torrents = torrents;
+	}
+
+	/**
+	 * Finds torrents whose names contain every word of <code>query</code>, in
+	 * any order.  A word matches a name's word exactly or as a prefix.  Words
+	 * of 4 to 7 characters may also be one edit off, longer words two.
+	 *
+	 * @param filter Only torrents it accepts are ranked.  May be null
+	 * @return Up to <code>maxResults</code> torrent IDs, best match first
+	 */
+	@NonNull
+	@WorkerThread
+	public synchronized long[] search(@NonNull String query, int maxResults,
+			IDFilter filter) {
+		long start = SystemClock.uptimeMillis();
+		sync();
+
+		List<String> queryTokens = tokenize(query.toUpperCase(Locale.US));
+		if (queryTokens.isEmpty() || maxResults <= 0) {
+			return new long[0];
+		}
+
+		// Score each query word separately, then keep torrents that matched all
+		// of them.  Start with the word matching fewest torrents
+		List<Map<Long, Float>> perWord = new ArrayList<>(queryTokens.size());
+		for (String queryToken : queryTokens) {
+			Map<Long, Float> scores = scoreWord(queryToken);
+			if (scores.isEmpty()) {
+				return new long[0];
+			}
+			perWord.add(scores);
+		}
+		Collections.sort(perWord, (a, b) -> a.size() - b.size());
+
+		PriorityQueue<Scored> topK = new PriorityQueue<>(maxResults + 1,
+				Collections.reverseOrder(RANK_ORDER));
+		int numWords = perWord.size();
+		for (Map.Entry<Long, Float> entry : perWord.get(0).entrySet()) {
+			long torrentID = entry.getKey();
+			float score = entry.getValue();
+			boolean all = true;
+			for (int i = 1; i < numWords; i++) {
+				Float wordScore = perWord.get(i).get(torrentID);
+				if (wordScore == null) {
+					all = false;
+					break;
+				}
+				score += wordScore;
+			}
+			if (!all || (filter != null && !filter.accept(torrentID))) {
+				continue;
+			}
+			String name = mapNames.get(torrentID);
+			topK.add(new Scored(torrentID, score, name == null ? 0 : name.length()));
+			if (topK.size() > maxResults) {
+				topK.poll();
+			}
+		}
+
+		Scored[] ranked = topK.toArray(new Scored[0]);
+		Arrays.sort(ranked, RANK_ORDER);
+		long[] ids = new long[ranked.length];
+		for (int i = 0; i < ranked.length; i++) {
+			ids[i] = ranked[i].torrentID;
+		}
+
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "search '" + query + "': " + ids.length + " results from "
+					+ perWord.get(0).size() + " candidates, " + tokens.size()
+					+ " tokens in " + (SystemClock.uptimeMillis() - start) + "ms");
+		}
+		return ids;
+	}
+
+	/**
+	 * @return &lt;TorrentID, Best score of any of its words against
+	 * <code>queryToken</code>>
+	 */
+	@NonNull
+	private Map<Long, Float> scoreWord(@NonNull String queryToken) {
+		Map<Long, Float> scores = new HashMap<>();
+		int queryLength = queryToken.length();
+		int maxEdits = queryLength <= 3 ? 0 : queryLength <= 7 ? 1 : 2;
+
+		// A token with queryToken as its prefix shares every query trigram but
+		// the last (the one with PAD_END).  A substitution breaks at most 3
+		// trigrams, and an adjacent transposition (ABCD -> ABDC) at most 4.
+		List<String> queryGrams = getGrams(queryToken);
+		int numGrams = queryGrams.size();
+		int minShared = Math.max(1,
+				Math.min(numGrams - 1, numGrams - 4 * maxEdits));
+
+		int numTokens = tokens.size();
+		if (sharedCounts.length < numTokens) {
+			sharedCounts = new int[Math.max(numTokens, sharedCounts.length * 2)];
+		}
+		int[] sharedCounts = this.sharedCounts;
+		int[] touched = this.touched;
+		int numTouched = 0;
+		for (String gram : queryGrams) {
+			int[] tokenIndexes = mapGrams.get(gram);
+			if (tokenIndexes == null) {
+				continue;
+			}
+			int count = mapGramCounts.get(gram);
+			for (int i = 0; i < count; i++) {
+				int tokenIndex = tokenIndexes[i];
+				if (sharedCounts[tokenIndex]++ == 0) {
+					if (numTouched == touched.length) {
+						touched = Arrays.copyOf(touched, numTouched * 2);
+						this.touched = touched;
+					}
+					touched[numTouched++] = tokenIndex;
+				}
+			}
+		}
+
+		for (int t = 0; t < numTouched; t++) {
+			int tokenIndex = touched[t];
+			int shared = sharedCounts[tokenIndex];
+			sharedCounts[tokenIndex] = 0;
+			if (shared < minShared) {
+				continue;
+			}
+			Token token = tokens.get(tokenIndex);
+			if (token.count == 0) {
+				continue;
+			}
+			float score = scoreToken(queryToken, token.text, maxEdits);
+			if (score <= 0) {
+				continue;
+			}
+			for (int i = 0; i < token.count; i++) {
+				long torrentID = token.torrentIDs[i];
+				Float existing = scores.get(torrentID);
+				if (existing == null || existing < score) {
+					scores.put(torrentID, score);
+				}
+			}
+		}
+		return scores;
+	}
+
+	private static float scoreToken(@NonNull String queryToken,
+			@NonNull String text, int maxEdits) {
+		if (text.equals(queryToken)) {
+			return SCORE_EXACT;
+		}
+		if (text.startsWith(queryToken)) {
+			// "SEAS" should rank "SEASON" above "SEASONAL"
+			return SCORE_PREFIX
+					+ 0.2f * queryToken.length() / text.length();
+		}
+		if (maxEdits == 0
+				|| Math.abs(text.length() - queryToken.length()) > maxEdits) {
+			return 0;
+		}
+		int edits = editDistance(queryToken, text, maxEdits);
+		return edits == 1 ? SCORE_EDIT1 : edits == 2 ? SCORE_EDIT2 : 0;
+	}
+
+	/**
+	 * Optimal string alignment distance (Levenshtein plus adjacent
+	 * transpositions), giving up once it exceeds <code>max</code>.
+	 *
+	 * @return distance, or <code>max + 1</code> if greater than max
+	 */
+	private static int editDistance(@NonNull String a, @NonNull String b,
+			int max) {
+		int lenA = a.length();
+		int lenB = b.length();
+		int[] prevPrev = new int[lenB + 1];
+		int[] prev = new int[lenB + 1];
+		int[] cur = new int[lenB + 1];
+		for (int j = 0; j <= lenB; j++) {
+			prev[j] = j;
+		}
+		for (int i = 1; i <= lenA; i++) {
+			cur[0] = i;
+			int rowMin = i;
+			char ca = a.charAt(i - 1);
+			for (int j = 1; j <= lenB; j++) {
+				char cb = b.charAt(j - 1);
+				int cost = ca == cb ? 0 : 1;
+				int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1),
+						prev[j - 1] + cost);
+				if (i > 1 && j > 1 && ca == b.charAt(j - 2)
+						&& a.charAt(i - 2) == cb) {
+					d = Math.min(d, prevPrev[j - 2] + 1);
+				}
+				cur[j] = d;
+				if (d < rowMin) {
+					rowMin = d;
+				}
+			}
+			if (rowMin > max) {
+				return max + 1;
+			}
+			int[] tmp = prevPrev;
+			prevPrev = prev;
+			prev = cur;
+			cur = tmp;
+		}
+		return Math.min(prev[lenB], max + 1);
+	}
+
+	/**
+	 * Brings the index up to date with the session's torrent cache
+	 */
+	private void sync() {
+		if (numDeadTokens >= MIN_DEAD_TOKENS_COMPACT
+				&& numDeadTokens > tokens.size() / 2) {
+			clear();
+		}
+
+		long dataVersion = torrents.getDataVersion();
+		if (dataVersion == indexedVersion) {
+			return;
+		}
+		long[] changedIDs = torrents.getChangedTorrentIDsSince(indexedVersion);
+		if (changedIDs == null) {
+			// Torrents added or removed.  Walk them all, but only re-tokenize
+			// those whose name changed
+			LongSparseArray<Map<?, ?>> list = torrents.getListAsSparseArray();
+			for (int i = mapNames.size() - 1; i >= 0; i--) {
+				long torrentID = mapNames.keyAt(i);
+				if (list.indexOfKey(torrentID) < 0) {
+					setName(torrentID, null);
+				}
+			}
+			for (int i = 0, num = list.size(); i < num; i++) {
+				setName(list.keyAt(i), MapUtils.getMapString(list.valueAt(i),
+						TransmissionVars.FIELD_TORRENT_NAME, null));
+			}
+		} else {
+			for (long torrentID : changedIDs) {
+				Map<?, ?> map = torrents.getCachedTorrent(torrentID);
+				setName(torrentID, map == null ? null
+						: MapUtils.getMapString(map, TransmissionVars.FIELD_TORRENT_NAME,
+								null));
+			}
+		}
+		indexedVersion = dataVersion;
+	}
+
+	private void setName(long torrentID, String name) {
+		String oldName = mapNames.get(torrentID);
+		if (Objects.equals(oldName, name)) {
+			return;
+		}
+
+		int[] oldTokens = mapTorrentTokens.get(torrentID);
+		if (oldTokens != null) {
+			for (int tokenIndex : oldTokens) {
+				Token token = tokens.get(tokenIndex);
+				token.remove(torrentID);
+				if (token.count == 0) {
+					numDeadTokens++;
+				}
+			}
+		}
+
+		if (name == null) {
+			mapNames.remove(torrentID);
+			mapTorrentTokens.remove(torrentID);
+			return;
+		}
+
+		List<String> nameTokens = tokenize(name.toUpperCase(Locale.US));
+		int[] tokenIndexes = new int[nameTokens.size()];
+		int num = 0;
+		for (String text : nameTokens) {
+			Integer existing = mapTokenIndexes.get(text);
+			int tokenIndex = existing == null ? addToken(text) : existing;
+			Token token = tokens.get(tokenIndex);
+			if (token.count > 0 && token.torrentIDs[token.count - 1] == torrentID) {
+				// Same word twice in name
+				continue;
+			}
+			if (token.count == 0 && existing != null) {
+				numDeadTokens--;
+			}
+			token.add(torrentID);
+			tokenIndexes[num++] = tokenIndex;
+		}
+		mapNames.put(torrentID, name);
+		mapTorrentTokens.put(torrentID, num == tokenIndexes.length ? tokenIndexes
+				: Arrays.copyOf(tokenIndexes, num));
+	}
+
+	private int addToken(@NonNull String text) {
+		int tokenIndex = tokens.size();
+		tokens.add(new Token(text));
+		mapTokenIndexes.put(text, tokenIndex);
+		for (String gram : getGrams(text)) {
+			int[] tokenIndexes = mapGrams.get(gram);
+			Integer count = mapGramCounts.get(gram);
+			int n = count == null ? 0 : count;
+			if (tokenIndexes == null) {
+				tokenIndexes = new int[4];
+			} else if (n == tokenIndexes.length) {
+				tokenIndexes = Arrays.copyOf(tokenIndexes, n * 2);
+			}
+			tokenIndexes[n] = tokenIndex;
+			mapGrams.put(gram, tokenIndexes);
+			mapGramCounts.put(gram, n + 1);
+		}
+		return tokenIndex;
+	}
+
+	/**
+	 * @return Distinct trigrams of "^text$", plus "^X" for the first letter so
+	 * one letter queries can find words by prefix
+	 */
+	@NonNull
+	private static List<String> getGrams(@NonNull String text) {
+		String padded = PAD_START + text + PAD_END;
+		int len = padded.length();
+		List<String> grams = new ArrayList<>(len);
+		grams.add(padded.substring(0, 2));
+		for (int i = 0; i + 3 <= len; i++) {
+			String gram = padded.substring(i, i + 3);
+			if (!grams.contains(gram)) {
+				grams.add(gram);
+			}
+		}
+		return grams;
+	}
+
+	@NonNull
+	private static List<String> tokenize(@NonNull String s) {
+		List<String> list = new ArrayList<>();
+		int len = s.length();
+		int start = -1;
+		for (int i = 0; i <= len; i++) {
+			boolean wordChar = i < len && Character.isLetterOrDigit(s.charAt(i));
+			if (wordChar) {
+				if (start < 0) {
+					start = i;
+				}
+			} else if (start >= 0) {
+				list.add(s.substring(start, i));
+				start = -1;
+			}
+		}
+		return list;
+	}
+
+	synchronized void clear() {
+		tokens.clear();
+		mapTokenIndexes.clear();
+		mapGrams.clear();
+		mapGramCounts.clear();
+		mapNames.clear();
+		mapTorrentTokens.clear();
+		numDeadTokens = 0;
+		indexedVersion = -1;
+	}
+}
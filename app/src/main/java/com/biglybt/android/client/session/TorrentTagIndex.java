@@ -0,0 +1,154 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import androidx.annotation.NonNull;
+import androidx.collection.LongSparseArray;
+
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.MapUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Torrent IDs of each tag (including download state tags), so filters on a
+ * tag don't have to check every torrent's tag list.
+ * <p/>
+ * Kept in sync lazily like {@link TorrentNameIndex}: each lookup first
+ * re-reads the tags of torrents changed since the last one.
+ */
+public class TorrentTagIndex
+{
+	private static final long[] NO_IDS = new long[0];
+
+	private final Session_Torrent torrents;
+
+	/** &lt;Tag UID, Set of Torrent IDs (values unused)> */
+	private final LongSparseArray<LongSparseArray<Boolean>> mapTagTorrents = new LongSparseArray<>();
+
+	private final LongSparseArray<long[]> mapTorrentTags = new LongSparseArray<>();
+
+	private long indexedVersion = -1;
+
+	TorrentTagIndex(@NonNull Session_Torrent torrents) {
+		this.torrents = torrents;
+	}
+
+	/**
+	 * @return IDs of torrents with the tag, in ascending order
+	 */
+	@NonNull
+	public synchronized long[] getTorrentIDs(long tagUID) {
+		sync();
+		LongSparseArray<Boolean> set = mapTagTorrents.get(tagUID);
+		if (set == null) {
+			return NO_IDS;
+		}
+		int size = set.size();
+		long[] ids = new long[size];
+		for (int i = 0; i < size; i++) {
+			ids[i] = set.keyAt(i);
+		}
+		return ids;
+	}
+
+	public synchronized int getCount(long tagUID) {
+		sync();
+		LongSparseArray<Boolean> set = mapTagTorrents.get(tagUID);
+		return set == null ? 0 : set.size();
+	}
+
+	private void sync() {
+		long dataVersion = torrents.getDataVersion();
+		if (dataVersion == indexedVersion) {
+			return;
+		}
+		long[] changedIDs = torrents.getChangedTorrentIDsSince(indexedVersion);
+		if (changedIDs == null) {
+			LongSparseArray<Map<?, ?>> list = torrents.getListAsSparseArray();
+			for (int i = mapTorrentTags.size() - 1; i >= 0; i--) {
+				long torrentID = mapTorrentTags.keyAt(i);
+				if (list.indexOfKey(torrentID) < 0) {
+					setTags(torrentID, null);
+				}
+			}
+			for (int i = 0, num = list.size(); i < num; i++) {
+				setTags(list.keyAt(i), list.valueAt(i));
+			}
+		} else {
+			for (long torrentID : changedIDs) {
+				setTags(torrentID, torrents.getCachedTorrent(torrentID));
+			}
+		}
+		indexedVersion = dataVersion;
+	}
+
+	private void setTags(long torrentID, Map<?, ?> mapTorrent) {
+		long[] newTags = NO_IDS;
+		if (mapTorrent != null) {
+			List<?> listTagUIDs = MapUtils.getMapList(mapTorrent,
+					TransmissionVars.FIELD_TORRENT_TAG_UIDS, null);
+			if (listTagUIDs != null) {
+				newTags = new long[listTagUIDs.size()];
+				int num = 0;
+				for (Object o : listTagUIDs) {
+					if (o instanceof Number) {
+						newTags[num++] = ((Number) o).longValue();
+					}
+				}
+				if (num < newTags.length) {
+					newTags = Arrays.copyOf(newTags, num);
+				}
+				Arrays.sort(newTags);
+			}
+		}
+
+		long[] oldTags = mapTorrentTags.get(torrentID);
+		if (oldTags != null && Arrays.equals(oldTags, newTags)) {
+			return;
+		}
+		if (oldTags != null) {
+			for (long tagUID : oldTags) {
+				LongSparseArray<Boolean> set = mapTagTorrents.get(tagUID);
+				if (set != null) {
+					set.remove(torrentID);
+				}
+			}
+		}
+		if (mapTorrent == null) {
+			mapTorrentTags.remove(torrentID);
+			return;
+		}
+		for (long tagUID : newTags) {
+			LongSparseArray<Boolean> set = mapTagTorrents.get(tagUID);
+			if (set == null) {
+				set = new LongSparseArray<>();
+				mapTagTorrents.put(tagUID, set);
+			}
+			set.put(torrentID, Boolean.TRUE);
+		}
+		mapTorrentTags.put(torrentID, newTags);
+	}
+
+	synchronized void clear() {
+		mapTagTorrents.clear();
+		mapTorrentTags.clear();
+		indexedVersion = -1;
+	}
+}
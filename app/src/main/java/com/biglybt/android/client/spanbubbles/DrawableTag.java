@@ -176,77 +176,79 @@ public abstract class DrawableTag
 
 	@Override
 	public void draw(@NonNull Canvas canvas) {
-		int tagColor;
-		int lineColor;
-		int fillColor = 0;
-		int textColor;
-		boolean skipColorize = false;
-		boolean drawCountThisTime = drawCount;
-
-		// when ImageSpan is ALIGN_BASELINE:
-		// bounds.top = 0, starting at ascent
-		// bounds.bottom = baseline
-		Rect bounds = new Rect(getBounds());
-
-		bounds.bottom -= getLineSpaceExtra();
-
-		Paint paintLine = new Paint(p);
-		paintLine.setAntiAlias(true);
-		paintLine.setAlpha(255);
-
 		Rect clipBounds = canvas.getClipBounds();
-		Paint.FontMetrics fm = p.getFontMetrics();
+		Rect bounds = getBounds();
 
-		if (DEBUG) {
-			Log.d(TAG,
-					word + "] cb=" + clipBounds + ";cb.w=" + clipBounds.width() + "c.w="
-							+ canvas.getWidth() + ";bounds=" + bounds + ";p.asc=" + p.ascent()
-							+ ";.desc=" + p.descent() + ";" + countWidth);
-		}
+		int tagState = getTagState();
+		boolean pressed = isTagPressed();
+		int[] colors = resolveColors(tagState, pressed);
 
-		boolean splitWord = false;
-		boolean overBounds = clipBounds.right < bounds.right; // cw < bw;
-		if (overBounds) {
-			float widthTextFull = p.measureText(word);
-			float lostWidth = bounds.right - clipBounds.right;
-			float widthTextRemaining = widthTextFull - lostWidth;
+		if (rightIcon != null) {
+			int[] state = SpanTags.makeState(tagState, mapTag == null, pressed);
 
-			bounds.right = bounds.left + clipBounds.right;
+			rightIcon.setState(state);
+		}
 
-			// Don't squish too much
-			splitWord = widthTextRemaining < widthTextFull * 0.55;
-			if (splitWord) {
-				paintLine.setTextSize(paintLine.getTextSize() / 2);
-				drawCountThisTime = SHOW_COUNT_ON_SPLIT;
+		TagBubbleCache.Key key = clipBounds.right < bounds.right || bounds.isEmpty()
+				? null : getCacheKey(tagState, pressed, colors);
+		if (key == null) {
+			// Squished or split to fit the clip; rendering depends on the canvas
+			drawTag(canvas, clipBounds, colors);
+			return;
+		}
 
-				int wordMiddle = findNiceMiddle(word);
-				float line1Width = paintLine.measureText(word, 0, wordMiddle + 1);
-				float line2Width = paintLine.measureText(word, wordMiddle,
-						word.length());
-				float newTextWidth = Math.max(line1Width, line2Width);
-				int ofs = (int) (widthTextRemaining - newTextWidth);
+		// room for the text shadow and the stroke hanging outside of bounds
+		int pad = (int) Math.ceil(STROKE_WIDTH_PX) + 4;
+		Bitmap bitmap = TagBubbleCache.get(key);
+		if (bitmap == null) {
+			Paint.FontMetrics fm = p.getFontMetrics();
+			bitmap = Bitmap.createBitmap(bounds.width() + (pad * 2),
+					bounds.height() + (int) Math.ceil(fm.bottom) + (pad * 2),
+					Bitmap.Config.ARGB_8888);
+			Canvas bitmapCanvas = new Canvas(bitmap);
+			bitmapCanvas.translate(pad - bounds.left, pad - bounds.top);
+			Rect bitmapClip = new Rect(bounds.left - pad, bounds.top - pad,
+					bounds.right + pad, bitmap.getHeight() + bounds.top - pad);
+			drawTag(bitmapCanvas, bitmapClip, colors);
+			TagBubbleCache.put(key, bitmap);
+		}
+		canvas.drawBitmap(bitmap, bounds.left - pad, bounds.top - pad, null);
+	}
 
-				if (ofs > 0) {
-					bounds.right -= ofs;
-				} // else we ellipsize it later
-			} else {
-				paintLine.setTextScaleX(widthTextRemaining / widthTextFull);
+	/**
+	 * @return null if this bubble can't be cached
+	 */
+	private TagBubbleCache.Key getCacheKey(int tagState, boolean pressed,
+			int[] colors) {
+		Drawable.ConstantState iconState = null;
+		if (rightIcon != null) {
+			iconState = rightIcon.getCurrent().getConstantState();
+			if (iconState == null) {
+				return null;
 			}
-
-			// I'm not sure why, but when we are drawing the image into an area
-			// that doesn't fit the width, the top few rows are being clipped too
-			bounds.top += fm.bottom / 2;
-			bounds.bottom += fm.bottom / 2;
 		}
+		long uid = mapTag == null ? -1
+				: MapUtils.getMapLong(mapTag, TransmissionVars.FIELD_TAG_UID, -1);
+		Rect bounds = getBounds();
+		return new TagBubbleCache.Key(uid, word, p.getTypeface(), iconState,
+				colors[0], colors[1], colors[2], colors[3], tagState, pressed ? 1 : 0,
+				drawCount ? count : -1, Float.floatToIntBits(p.getTextSize()),
+				Float.floatToIntBits(p.getTextScaleX()),
+				Float.floatToIntBits(countFontRatio), p.getFlags(), bounds.width(),
+				bounds.height(), getLineSpaceExtra(),
+				MapUtils.getMapBoolean(mapTag, KEY_ROUNDED, false) ? 1 : 0,
+				rightIcon == null ? 0 : 1);
+	}
 
-		//int baseline = bounds.bottom;
-//		bounds.top -= fm.ascent - fm.top - 1;
-		bounds.bottom += fm.bottom;
-
-		float strokeWidth = paintLine.getStrokeWidth();
-
-		int tagState = getTagState();
-
+	/**
+	 * @return { lineColor, fillColor, textColor, shadowColor }
+	 */
+	private int[] resolveColors(int tagState, boolean pressed) {
+		int tagColor;
+		int lineColor;
+		int fillColor = 0;
+		int textColor;
+		boolean skipColorize = false;
 		if (mapTag != null) {
 			Object color = mapTag.get(TransmissionVars.FIELD_TAG_COLOR);
 			//		Log.d(TAG, "draw " + word + " tagColor: " + color);
@@ -280,8 +282,6 @@ public abstract class DrawableTag
 		}
 
 		boolean selected = (tagState & SpanTags.TAG_STATE_SELECTED) > 0;
-		boolean pressed = isTagPressed();
-		boolean isIdea = mapTag == null;
 
 		lineColor = tagColor;
 		/* Shadow is ugly */
@@ -333,17 +333,88 @@ public abstract class DrawableTag
 		hsv[2] = 1.0f - hsv[2];
 		int shadowColor = Color.HSVToColor(0x60, hsv);
 
-		float wIndent = SEGMENT_PADDING_X_PX + HALF_STROKE_WIDTH_PX;
-		float hIndent = SEGMENT_PADDING_Y_PX + HALF_STROKE_WIDTH_PX;
+		return new int[] {
+			lineColor,
+			fillColor,
+			textColor,
+			shadowColor
+		};
+	}
 
-		float radius = bounds.height() / 2.0f;
+	private void drawTag(@NonNull Canvas canvas, @NonNull Rect clipBounds,
+			@NonNull int[] colors) {
+		int lineColor = colors[0];
+		int fillColor = colors[1];
+		int textColor = colors[2];
+		int shadowColor = colors[3];
+		boolean drawCountThisTime = drawCount;
 
-		if (rightIcon != null) {
-			int[] state = SpanTags.makeState(tagState, isIdea, pressed);
+		// when ImageSpan is ALIGN_BASELINE:
+		// bounds.top = 0, starting at ascent
+		// bounds.bottom = baseline
+		Rect bounds = new Rect(getBounds());
 
-			rightIcon.setState(state);
+		bounds.bottom -= getLineSpaceExtra();
+
+		Paint paintLine = new Paint(p);
+		paintLine.setAntiAlias(true);
+		paintLine.setAlpha(255);
+
+		Paint.FontMetrics fm = p.getFontMetrics();
+
+		if (DEBUG) {
+			Log.d(TAG,
+					word + "] cb=" + clipBounds + ";cb.w=" + clipBounds.width() + "c.w="
+							+ canvas.getWidth() + ";bounds=" + bounds + ";p.asc=" + p.ascent()
+							+ ";.desc=" + p.descent() + ";" + countWidth);
 		}
 
+		boolean splitWord = false;
+		boolean overBounds = clipBounds.right < bounds.right; // cw < bw;
+		if (overBounds) {
+			float widthTextFull = p.measureText(word);
+			float lostWidth = bounds.right - clipBounds.right;
+			float widthTextRemaining = widthTextFull - lostWidth;
+
+			bounds.right = bounds.left + clipBounds.right;
+
+			// Don't squish too much
+			splitWord = widthTextRemaining < widthTextFull * 0.55;
+			if (splitWord) {
+				paintLine.setTextSize(paintLine.getTextSize() / 2);
+				drawCountThisTime = SHOW_COUNT_ON_SPLIT;
+
+				int wordMiddle = findNiceMiddle(word);
+				float line1Width = paintLine.measureText(word, 0, wordMiddle + 1);
+				float line2Width = paintLine.measureText(word, wordMiddle,
+						word.length());
+				float newTextWidth = Math.max(line1Width, line2Width);
+				int ofs = (int) (widthTextRemaining - newTextWidth);
+
+				if (ofs > 0) {
+					bounds.right -= ofs;
+				} // else we ellipsize it later
+			} else {
+				paintLine.setTextScaleX(widthTextRemaining / widthTextFull);
+			}
+
+			// I'm not sure why, but when we are drawing the image into an area
+			// that doesn't fit the width, the top few rows are being clipped too
+			bounds.top += fm.bottom / 2;
+			bounds.bottom += fm.bottom / 2;
+		}
+
+		//int baseline = bounds.bottom;
+//		bounds.top -= fm.ascent - fm.top - 1;
+		bounds.bottom += fm.bottom;
+
+		float strokeWidth = paintLine.getStrokeWidth();
+
+		float wIndent = SEGMENT_PADDING_X_PX + HALF_STROKE_WIDTH_PX;
+		float hIndent = SEGMENT_PADDING_Y_PX + HALF_STROKE_WIDTH_PX;
+
+		float radius = bounds.height() / 2.0f;
+
 		final float x1 = bounds.left + wIndent;
 		final float x2 = bounds.right - wIndent - radius;
 		final float y1 = bounds.top + hIndent;
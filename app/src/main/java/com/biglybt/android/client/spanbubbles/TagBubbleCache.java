@@ -0,0 +1,131 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.spanbubbles;
+
+import android.graphics.Bitmap;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Rendered {@link DrawableTag} bubbles, shared by every view that shows tags
+ * (torrent rows, side tag list, details page).
+ * <p/>
+ * Keys hold everything that changes a bubble's pixels, so a tag rename or
+ * recolor simply misses.  {@link #invalidateTag(long)} drops the outdated
+ * bitmaps right away instead of waiting for them to be evicted.
+ */
+public final class TagBubbleCache
+{
+	private static final int MAX_BYTES = (int) Math.min(4 * 1024 * 1024,
+			Runtime.getRuntime().maxMemory() / 32);
+
+	private static final LruCache<Key, Bitmap> cache = new LruCache<Key, Bitmap>(
+			MAX_BYTES) {
+		@Override
+		protected int sizeOf(Key key, Bitmap value) {
+			return value.getRowBytes() * value.getHeight();
+		}
+	};
+
+	private TagBubbleCache() {
+	}
+
+	@Nullable
+	static Bitmap get(@NonNull Key key) {
+		return cache.get(key);
+	}
+
+	static void put(@NonNull Key key, @NonNull Bitmap bitmap) {
+		cache.put(key, bitmap);
+	}
+
+	/**
+	 * Removes all bubbles drawn for tag <code>uid</code>
+	 */
+	public static void invalidateTag(long uid) {
+		for (Key key : cache.snapshot().keySet()) {
+			if (key.uid == uid) {
+				cache.remove(key);
+			}
+		}
+	}
+
+	public static void clear() {
+		cache.evictAll();
+	}
+
+	static final class Key
+	{
+		final long uid;
+
+		private final String word;
+
+		private final Typeface typeface;
+
+		private final Drawable.ConstantState icon;
+
+		private final long[] values;
+
+		private final int hashCode;
+
+		/**
+		 * @param icon State of the right icon's current drawable.  Keyed by
+		 *             ConstantState so that different activities loading the
+		 *             same resource share bubbles without holding onto a
+		 *             Context
+		 * @param values Colors, sizes, and counts that affect the rendering
+		 */
+		Key(long uid, @NonNull String word, @Nullable Typeface typeface,
+				@Nullable Drawable.ConstantState icon, @NonNull long... values) {
+			this.uid = uid;
+			this.word = word;
+			this.typeface = typeface;
+			this.icon = icon;
+			this.values = values;
+			int h = Long.valueOf(uid).hashCode();
+			h = 31 * h + word.hashCode();
+			h = 31 * h + (typeface == null ? 0 : typeface.hashCode());
+			h = 31 * h + (icon == null ? 0 : icon.hashCode());
+			hashCode = 31 * h + Arrays.hashCode(values);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return uid == other.uid && hashCode == other.hashCode
+					&& word.equals(other.word) && typeface == other.typeface
+					&& icon == other.icon && Arrays.equals(values, other.values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
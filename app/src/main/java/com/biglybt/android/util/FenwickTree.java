@@ -0,0 +1,65 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.util;
+
+/**
+ * Binary indexed tree of longs.  Point updates and range sums in O(log n).
+ * <p/>
+ * Not thread safe.
+ */
+public class FenwickTree
+{
+	private final long[] tree;
+
+	public FenwickTree(int size) {
+		tree = new long[size + 1];
+	}
+
+	public int size() {
+		return tree.length - 1;
+	}
+
+	/**
+	 * Adds <code>delta</code> to the value at <code>index</code>
+	 */
+	public void add(int index, long delta) {
+		if (delta == 0) {
+			return;
+		}
+		for (int i = index + 1; i < tree.length; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	/**
+	 * @return Sum of values in [0, end)
+	 */
+	public long prefixSum(int end) {
+		long sum = 0;
+		for (int i = end; i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * @return Sum of values in [from, to)
+	 */
+	public long rangeSum(int from, int to) {
+		return prefixSum(to) - prefixSum(from);
+	}
+}
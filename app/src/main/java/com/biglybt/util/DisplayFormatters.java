@@ -81,6 +81,39 @@ public class DisplayFormatters
 
 	final private static NumberFormat[] cached_number_formats = new NumberFormat[20];
 
+	final private static long[] POWERS_OF_TEN = {
+		1,
+		10,
+		100,
+		1000
+	};
+
+	/**
+	 * Values at or above this go through NumberFormat, so the scaled long in
+	 * {@link #appendDecimal(StringBuilder, double, int, boolean, boolean)}
+	 * can't overflow
+	 */
+	final private static double MAX_APPEND_DECIMAL = 1e15;
+
+	/**
+	 * Power of 2.  Rates and sizes of a list's rows mostly repeat between
+	 * refreshes, so even a small direct mapped cache catches most of them
+	 */
+	final private static int RECENTLY_FORMATTED_SIZE = 256;
+
+	/**
+	 * Last result of formatByteCountToKiBEtc for each slot.  Entries are
+	 * immutable, so racing threads at worst overwrite each other's entry
+	 */
+	final private static FormattedByteCount[] recentlyFormatted = new FormattedByteCount[RECENTLY_FORMATTED_SIZE];
+
+	final private static ThreadLocal<StringBuilder> formatBuilder = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(32);
+		}
+	};
+
 	private static NumberFormat percentage_format;
 
 	private static String[] units;
@@ -107,6 +140,10 @@ public class DisplayFormatters
 
 	private static char decimalSeparator;
 
+	private static char zeroDigit = '0';
+
+	private static char minusSign = '-';
+
 	private static NumberFormat numberFormatInstance;
 
 	static {
@@ -268,7 +305,12 @@ public class DisplayFormatters
 		percentage_format.setMinimumFractionDigits(1);
 		percentage_format.setMaximumFractionDigits(1);
 
-		decimalSeparator = new DecimalFormatSymbols().getDecimalSeparator();
+		DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+		decimalSeparator = symbols.getDecimalSeparator();
+		zeroDigit = symbols.getZeroDigit();
+		minusSign = symbols.getMinusSign();
+
+		Arrays.fill(recentlyFormatted, null);
 	}
 
 	private static String getUnit(String key) {
@@ -404,36 +446,46 @@ public class DisplayFormatters
 
 	public static String formatByteCountToKiBEtc(long n, boolean rate,
 			boolean bTruncateZeros, int precision) {
-		double dbl = (rate && use_units_rate_bits) ? n * 8 : n;
-
-		int unitIndex = UNIT_B;
-
-		long div = force_si_values ? 1024 : (use_si_units ? 1024 : 1000);
-
-		while (dbl >= div && unitIndex < unitsStopAt) {
+		return formatByteCountToKiBEtc(n, rate, bTruncateZeros, precision, UNIT_B);
+	}
 
-			dbl /= div;
-			unitIndex++;
+	public static String formatByteCountToKiBEtc(long n, boolean rate,
+			boolean bTruncateZeros, int precision, int minUnit) {
+		int flags = (precision & 0xFF) | ((minUnit & 0xFF) << 8) | (rate ? 1 << 16 : 0)
+				| (bTruncateZeros ? 1 << 17 : 0);
+		int hash = ((int) (n ^ (n >>> 32)) * 31) + flags;
+		int slot = (hash ^ (hash >>> 16)) & (RECENTLY_FORMATTED_SIZE - 1);
+
+		FormattedByteCount recent = recentlyFormatted[slot];
+		if (recent != null && recent.n == n && recent.flags == flags) {
+			return recent.text;
 		}
 
-		if (precision < 0) {
-			precision = UNITS_PRECISION[unitIndex];
-		}
+		StringBuilder sb = formatBuilder.get();
+		sb.setLength(0);
+		String text = appendByteCountToKiBEtc(sb, n, rate, bTruncateZeros,
+				precision, minUnit).toString();
+		recentlyFormatted[slot] = new FormattedByteCount(n, flags, text);
+		return text;
+	}
 
-		// round for rating, because when the user enters something like 7.3kbps
-		// they don't want it truncated and displayed as 7.2  
-		// (7.3*1024 = 7475.2; 7475/1024.0 = 7.2998;  trunc(7.2998, 1 prec.) == 7.2
-		//
-		// Truncate for rest, otherwise we get complaints like:
-		// "I have a 1.0GB torrent and it says I've downloaded 1.0GB.. why isn't 
-		//  it complete? waaah"
+	public static StringBuilder appendByteCountToKiBEtc(StringBuilder sb,
+			long n) {
+		return appendByteCountToKiBEtc(sb, n, false, TRUNCZEROS_NO, -1, UNIT_B);
+	}
 
-		return formatDecimal(dbl, precision, bTruncateZeros, rate)
-				+ (rate ? units_rate[unitIndex] : units[unitIndex]);
+	public static StringBuilder appendByteCountToKiBEtcPerSec(StringBuilder sb,
+			long n) {
+		return appendByteCountToKiBEtc(sb, n, true, TRUNCZEROS_NO, -1, UNIT_B);
 	}
 
-	public static String formatByteCountToKiBEtc(long n, boolean rate,
-			boolean bTruncateZeros, int precision, int minUnit) {
+	/**
+	 * Same output as
+	 * {@link #formatByteCountToKiBEtc(long, boolean, boolean, int, int)},
+	 * appended to <code>sb</code> without creating any intermediate Strings.
+	 */
+	public static StringBuilder appendByteCountToKiBEtc(StringBuilder sb, long n,
+			boolean rate, boolean bTruncateZeros, int precision, int minUnit) {
 		double dbl = (rate && use_units_rate_bits) ? n * 8 : n;
 
 		int unitIndex = UNIT_B;
@@ -462,8 +514,8 @@ public class DisplayFormatters
 		// "I have a 1.0GB torrent and it says I've downloaded 1.0GB.. why isn't 
 		//  it complete? waaah"
 
-		return formatDecimal(dbl, precision, bTruncateZeros, rate)
-				+ (rate ? units_rate[unitIndex] : units[unitIndex]);
+		appendDecimal(sb, dbl, precision, bTruncateZeros, rate);
+		return sb.append(rate ? units_rate[unitIndex] : units[unitIndex]);
 	}
 
 /*	
@@ -1061,7 +1113,73 @@ return( TimeFormatter.formatColon( time / 1000 ));
 			}
 		}
 
-		return nf.format(tValue);
+		// NumberFormat isn't thread safe, and rows get formatted off the UI thread
+		synchronized (nf) {
+			return nf.format(tValue);
+		}
+	}
+
+	/**
+	 * Same output as
+	 * {@link #formatDecimal(double, int, boolean, boolean)}, appended
+	 * to <code>sb</code>.  Digits and separators come from the locale's
+	 * DecimalFormatSymbols captured in {@link #setUnits()}.
+	 * <p/>
+	 * Rounding is half-even on the scaled value, which may differ from
+	 * NumberFormat in the last digit for values that aren't exactly
+	 * representable.
+	 */
+	public static StringBuilder appendDecimal(StringBuilder sb, double value,
+			int precision, boolean bTruncateZeros, boolean bRound) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return sb.append(INFINITY_STRING);
+		}
+
+		if (precision < 0 || precision >= POWERS_OF_TEN.length
+				|| Math.abs(value) >= MAX_APPEND_DECIMAL) {
+			return sb.append(
+					formatDecimal(value, precision, bTruncateZeros, bRound));
+		}
+
+		long shift = POWERS_OF_TEN[precision];
+		double scaled = value * shift;
+		long scaledLong = bRound ? (long) Math.rint(scaled) : (long) scaled;
+		if (scaledLong < 0) {
+			sb.append(minusSign);
+			scaledLong = -scaledLong;
+		}
+
+		appendDigits(sb, scaledLong / shift);
+
+		long fraction = scaledLong % shift;
+		int numFractionDigits = precision;
+		if (bTruncateZeros) {
+			while (numFractionDigits > 0 && fraction % 10 == 0) {
+				fraction /= 10;
+				numFractionDigits--;
+			}
+		}
+		if (numFractionDigits > 0) {
+			sb.append(decimalSeparator);
+			for (long pow = POWERS_OF_TEN[numFractionDigits
+					- 1]; pow > 0; pow /= 10) {
+				sb.append((char) (zeroDigit + ((fraction / pow) % 10)));
+			}
+		}
+		return sb;
+	}
+
+	private static void appendDigits(StringBuilder sb, long n) {
+		int start = sb.length();
+		do {
+			sb.append((char) (zeroDigit + (n % 10)));
+			n /= 10;
+		} while (n > 0);
+		for (int i = start, j = sb.length() - 1; i < j; i++, j--) {
+			char c = sb.charAt(i);
+			sb.setCharAt(i, sb.charAt(j));
+			sb.setCharAt(j, c);
+		}
 	}
 
 	/**
@@ -1187,6 +1305,11 @@ return( TimeFormatter.formatColon( time / 1000 ));
 		return prettyFormatTimeDiff(res, time_secs, TIME_RES_SHORT, " ", 0);
 	}
 
+	public static StringBuilder appendTimeDiffShort(StringBuilder sb,
+			Resources res, long time_secs) {
+		return appendTimeDiff(sb, res, time_secs, TIME_RES_SHORT, " ");
+	}
+
 	public static String prettyFormatTimeDiff(Resources res, long time_secs) {
 		return prettyFormatTimeDiff(res, time_secs, TIME_RES, ", ",
 				R.string.time_ago);
@@ -1205,29 +1328,37 @@ return( TimeFormatter.formatColon( time / 1000 ));
 		if (time_secs < 0)
 			return "";
 
-		// secs, mins, hours, days, years
-		int[] vals = {
-			(int) time_secs % 60,
-			(int) (time_secs / 60) % 60,
-			(int) (time_secs / 3600) % 24,
-			(int) (time_secs / 86400) % 365,
-			(int) (time_secs / 31536000)
-		};
+		StringBuilder sb = formatBuilder.get();
+		sb.setLength(0);
+		String result = appendTimeDiff(sb, res, time_secs, TIME_RES, sep).toString();
 
-		int end = vals.length - 1;
-		while (vals[end] == 0 && end > 0) {
-			end--;
+		if (resWrap != 0) {
+			result = res.getString(resWrap, result);
 		}
 
-		String result;
-		if (end == 3 && TIME_RES.length > 5
-				&& (vals[end] >= 28 || vals[end] % 7 == 0)) {
-			int weeks = vals[end] / 7;
-			int resID = TIME_RES[5];
-			result = res.getQuantityString(resID, weeks, weeks);
-		} else {
-			result = res.getQuantityString(TIME_RES[end], vals[end], vals[end]);
-		}
+		return result;
+	}
+
+	/**
+	 * Appends the two time sections of
+	 * {@link #prettyFormatTimeDiff(Resources, long, int[], String, int)},
+	 * without the wrapping string
+	 */
+	public static StringBuilder appendTimeDiff(StringBuilder sb, Resources res,
+			long time_secs, int[] TIME_RES, String sep) {
+		if (time_secs < 0)
+			return sb;
+
+		// secs, mins, hours, days, years
+		int secs = (int) time_secs % 60;
+		int mins = (int) (time_secs / 60) % 60;
+		int hours = (int) (time_secs / 3600) % 24;
+		int days = (int) (time_secs / 86400) % 365;
+		int years = (int) (time_secs / 31536000);
+
+		int end = years > 0 ? 4 : days > 0 ? 3 : hours > 0 ? 2 : mins > 0 ? 1 : 0;
+
+		appendTimeSection(sb, res, TIME_RES, end, secs, mins, hours, days, years);
 
 		/* old logic removed to prefer showing consecutive units
 		// skip until we have a non-zero time section
@@ -1239,22 +1370,25 @@ return( TimeFormatter.formatColon( time / 1000 ));
 		end--;
 
 		if (end >= 0) {
-			if (end == 3 && TIME_RES.length > 5
-					&& (vals[end] >= 28 || vals[end] % 7 == 0)) {
-				int weeks = vals[end] / 7;
-				int resID = TIME_RES[5];
-				result += sep + res.getQuantityString(resID, weeks, weeks);
-			} else {
-				result += sep
-						+ res.getQuantityString(TIME_RES[end], vals[end], vals[end]);
-			}
+			sb.append(sep);
+			appendTimeSection(sb, res, TIME_RES, end, secs, mins, hours, days,
+					years);
 		}
 
-		if (resWrap != 0) {
-			result = res.getString(resWrap, result);
-		}
+		return sb;
+	}
 
-		return result;
+	private static void appendTimeSection(StringBuilder sb, Resources res,
+			int[] TIME_RES, int index, int secs, int mins, int hours, int days,
+			int years) {
+		int val = index == 0 ? secs
+				: index == 1 ? mins : index == 2 ? hours : index == 3 ? days : years;
+		if (index == 3 && TIME_RES.length > 5 && (val >= 28 || val % 7 == 0)) {
+			int weeks = val / 7;
+			sb.append(res.getQuantityString(TIME_RES[5], weeks, weeks));
+		} else {
+			sb.append(res.getQuantityString(TIME_RES[index], val, val));
+		}
 	}
 
 	public static String formatNumber(long n) {
@@ -1292,4 +1426,19 @@ return( TimeFormatter.formatColon( time / 1000 ));
 		// return emoji
 		return emojiStr.toString();
 	}
-}
\ No newline at end of file
+
+	private static final class FormattedByteCount
+	{
+		final long n;
+
+		final int flags;
+
+		final String text;
+
+		FormattedByteCount(long n, int flags, String text) {
+			this.n = n;
+			this.flags = flags;
+			this.text = text;
+		}
+	}
+}
@@ -22,7 +22,6 @@ import android.graphics.Canvas;
 import android.graphics.Typeface;
 import android.util.AttributeSet;
 import android.util.Log;
-import android.util.SparseIntArray;
 import android.view.MotionEvent;
 import android.view.View;
 
@@ -66,8 +65,20 @@ public class FastScrollRecyclerView extends RecyclerView implements RecyclerView
     private int mDownY;
     private int mLastY;
 
+    /**
+     * Prefix sums of the MeasurableAdapter item heights. mScrollOffsets[i] is the total height of
+     * all items above position i, and mScrollOffsets[itemCount] is the adapter height.  null when
+     * invalidated.
+     */
     @SuppressWarnings("WeakerAccess") /* synthetic access */
-    SparseIntArray mScrollOffsets;
+    int[] mScrollOffsets;
+
+    /**
+     * View type of each position when mScrollOffsets was built, so item changes that keep the
+     * view type (and therefore the height) don't invalidate the offsets
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    int[] mScrollOffsetViewTypes;
 
     private ScrollOffsetInvalidator mScrollOffsetInvalidator;
     private OnFastScrollStateChangeListener mStateChangeListener;
@@ -93,7 +104,6 @@ public class FastScrollRecyclerView extends RecyclerView implements RecyclerView
 
         mScrollbar = new FastScroller(context, this, attrs);
         mScrollOffsetInvalidator = new ScrollOffsetInvalidator();
-        mScrollOffsets = new SparseIntArray();
     }
 
     public int getScrollBarWidth() {
@@ -120,6 +130,7 @@ public class FastScrollRecyclerView extends RecyclerView implements RecyclerView
             adapter.registerAdapterDataObserver(mScrollOffsetInvalidator);
         }
 
+        mScrollOffsets = null;
         super.setAdapter(adapter);
     }
 
@@ -315,52 +326,28 @@ public class FastScrollRecyclerView extends RecyclerView implements RecyclerView
         return sectionedAdapter.getSectionName(posInt);
     }
 
-    @SuppressWarnings("unchecked")
     private int findMeasureAdapterFirstVisiblePosition(int passedHeight) {
         if (getAdapter() instanceof MeasurableAdapter) {
-            MeasurableAdapter measurableAdapter = (MeasurableAdapter) getAdapter();
-            for (int i = 0; i < getAdapter().getItemCount(); i++) {
-                int top = calculateScrollDistanceToPosition(i);
-                int bottom = top + measurableAdapter.getViewTypeHeight(this, findViewHolderForAdapterPosition(i), getAdapter().getItemViewType(i));
-                if (i == getAdapter().getItemCount() - 1) {
-                    if (passedHeight >= top && passedHeight <= bottom) {
-                        return i;
-                    }
-                } else {
-                    if (passedHeight >= top && passedHeight < bottom) {
-                        return i;
-                    }
-                }
+            int position = findMeasureAdapterPositionAtOffset(passedHeight);
+            if (position >= 0) {
+                return position;
             }
-            int low = calculateScrollDistanceToPosition(0);
-            int height = calculateScrollDistanceToPosition(getAdapter().getItemCount() - 1)
-                    + measurableAdapter.getViewTypeHeight(this, findViewHolderForAdapterPosition(getAdapter().getItemCount() - 1), getAdapter().getItemViewType(getAdapter().getItemCount() - 1));
-            throw new IllegalStateException(String.format("Invalid passed height: %d, [low: %d, height: %d]", passedHeight, low, height));
+            int[] offsets = getScrollOffsets();
+            throw new IllegalStateException(String.format("Invalid passed height: %d, [low: %d, height: %d]", passedHeight, offsets[0], offsets[offsets.length - 1]));
         } else {
             throw new IllegalStateException("findMeasureAdapterFirstVisiblePosition() should only be called where the RecyclerView.Adapter is an instance of MeasurableAdapter");
         }
 
     }
 
-    @SuppressWarnings("unchecked")
     private float findItemPosition(float touchFraction) {
 
         if (getAdapter() instanceof MeasurableAdapter) {
-            MeasurableAdapter measurer = (MeasurableAdapter) getAdapter();
             int viewTop = (int) (touchFraction * calculateAdapterHeight());
 
-            for (int i = 0; i < getAdapter().getItemCount(); i++) {
-                int top = calculateScrollDistanceToPosition(i);
-                int bottom = top + measurer.getViewTypeHeight(this, findViewHolderForAdapterPosition(i), getAdapter().getItemViewType(i));
-                if (i == getAdapter().getItemCount() - 1) {
-                    if (viewTop >= top && viewTop <= bottom) {
-                        return i;
-                    }
-                } else {
-                    if (viewTop >= top && viewTop < bottom) {
-                        return i;
-                    }
-                }
+            int position = findMeasureAdapterPositionAtOffset(viewTop);
+            if (position >= 0) {
+                return position;
             }
 
             // Should never happen
@@ -371,6 +358,34 @@ public class FastScrollRecyclerView extends RecyclerView implements RecyclerView
         }
     }
 
+    /**
+     * Binary searches the item height prefix sums for the item covering {@code offset}.  An item
+     * covers [top, bottom), except for the last item, which also covers its bottom.
+     *
+     * @return The adapter position, or -1 if {@code offset} is outside of the adapter height
+     */
+    private int findMeasureAdapterPositionAtOffset(int offset) {
+        int[] offsets = getScrollOffsets();
+        int itemCount = offsets.length - 1;
+        if (itemCount == 0 || offset < offsets[0] || offset > offsets[itemCount]) {
+            return -1;
+        }
+
+        // Last position whose top is at or above offset.  Zero height items share their top with
+        // the next item, which is the one that covers offset.
+        int low = 0;
+        int high = itemCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
     /**
      * Updates the bounds for the scrollbar.
      */
@@ -448,29 +463,46 @@ public class FastScrollRecyclerView extends RecyclerView implements RecyclerView
      *                     corresponding view
      * @return The total height of all views above {@code adapterIndex} in pixels
      */
-    @SuppressWarnings("unchecked")
     private int calculateScrollDistanceToPosition(int adapterIndex) {
         if (!(getAdapter() instanceof MeasurableAdapter)) {
             throw new IllegalStateException("calculateScrollDistanceToPosition() should only be called where the RecyclerView.Adapter is an instance of MeasurableAdapter");
         }
 
-        if (mScrollOffsets.indexOfKey(adapterIndex) >= 0) {
-            return mScrollOffsets.get(adapterIndex);
+        int[] offsets = getScrollOffsets();
+        return offsets[Math.max(0, Math.min(adapterIndex, offsets.length - 1))];
+    }
+
+    /**
+     * Returns the item height prefix sums, measuring every item once after the adapter data or
+     * view types change.
+     */
+    @SuppressWarnings("unchecked")
+    private int[] getScrollOffsets() {
+        Adapter adapter = getAdapter();
+        int itemCount = adapter.getItemCount();
+        int[] offsets = mScrollOffsets;
+        if (offsets != null && offsets.length == itemCount + 1) {
+            return offsets;
         }
 
-        int totalHeight = 0;
-        MeasurableAdapter measurer = (MeasurableAdapter) getAdapter();
+        MeasurableAdapter measurer = (MeasurableAdapter) adapter;
+        offsets = new int[itemCount + 1];
+        int[] viewTypes = new int[itemCount];
 
         // TODO Take grid layouts into account
 
-        for (int i = 0; i < adapterIndex; i++) {
-            mScrollOffsets.put(i, totalHeight);
-            int viewType = getAdapter().getItemViewType(i);
+        int totalHeight = 0;
+        for (int i = 0; i < itemCount; i++) {
+            offsets[i] = totalHeight;
+            int viewType = adapter.getItemViewType(i);
+            viewTypes[i] = viewType;
             totalHeight += measurer.getViewTypeHeight(this, findViewHolderForAdapterPosition(i), viewType);
         }
+        offsets[itemCount] = totalHeight;
 
-        mScrollOffsets.put(adapterIndex, totalHeight);
-        return totalHeight;
+        mScrollOffsets = offsets;
+        mScrollOffsetViewTypes = viewTypes;
+        return offsets;
     }
 
     /**
@@ -483,7 +515,8 @@ public class FastScrollRecyclerView extends RecyclerView implements RecyclerView
         if (!(getAdapter() instanceof MeasurableAdapter)) {
             throw new IllegalStateException("calculateAdapterHeight() should only be called where the RecyclerView.Adapter is an instance of MeasurableAdapter");
         }
-        return calculateScrollDistanceToPosition(getAdapter().getItemCount());
+        int[] offsets = getScrollOffsets();
+        return offsets[offsets.length - 1];
     }
 
     public void showScrollbar() {
@@ -565,7 +598,30 @@ public class FastScrollRecyclerView extends RecyclerView implements RecyclerView
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     class ScrollOffsetInvalidator extends AdapterDataObserver {
         private void invalidateAllScrollOffsets() {
-            mScrollOffsets.clear();
+            mScrollOffsets = null;
+        }
+
+        /**
+         * Heights are per view type, so offsets only need rebuilding when a changed item's view
+         * type differs from the one it was measured with.
+         */
+        private void invalidateIfViewTypesChanged(int positionStart, int itemCount) {
+            int[] viewTypes = mScrollOffsetViewTypes;
+            Adapter adapter = getAdapter();
+            if (mScrollOffsets == null || viewTypes == null || adapter == null) {
+                return;
+            }
+            int end = positionStart + itemCount;
+            if (positionStart < 0 || end > viewTypes.length || end > adapter.getItemCount()) {
+                invalidateAllScrollOffsets();
+                return;
+            }
+            for (int i = positionStart; i < end; i++) {
+                if (viewTypes[i] != adapter.getItemViewType(i)) {
+                    invalidateAllScrollOffsets();
+                    return;
+                }
+            }
         }
 
         @Override
@@ -575,12 +631,12 @@ public class FastScrollRecyclerView extends RecyclerView implements RecyclerView
 
         @Override
         public void onItemRangeChanged(int positionStart, int itemCount) {
-            invalidateAllScrollOffsets();
+            invalidateIfViewTypesChanged(positionStart, itemCount);
         }
 
         @Override
         public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
-            invalidateAllScrollOffsets();
+            invalidateIfViewTypesChanged(positionStart, itemCount);
         }
 
         @Override